@@ -0,0 +1,151 @@
+package itcr.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itcr.model.Assembler;
+
+/**
+ * AssemblerBenchmark compares the regex validator Assembler used to have,
+ * which tested every line with String.matches against one pattern per
+ * instruction, with the single pass parser it uses now.
+ * Both validate the same generated program that uses every instruction.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class AssemblerBenchmark {
+  private static final int PROGRAM_LINES = 20_000;
+
+  private static final String[] SAMPLE_LINES = {
+      "// Programa generado",
+      "MOV AX, 10",
+      "MOV BX, AX // copia",
+      "LOAD CX",
+      "STORE DX",
+      "ADD BX",
+      "SUB AX",
+      "INC",
+      "DEC CX",
+      "SWAP AX, BX",
+      "CMP AX, BX",
+      "JE +3",
+      "JNE -2",
+      "JG +1",
+      "JL -4",
+      "JMP +2",
+      "PARAM 1, -2, 3",
+      "PUSH AX",
+      "POP DX",
+      "INT _10H",
+  };
+
+  private String code;
+
+  /**
+   * Generates the program and checks that both validators accept it, so the
+   * two variants do the same work.
+   */
+  @Setup
+  public void generateProgram() {
+    StringBuilder program = new StringBuilder();
+    for (int i = 0; i < PROGRAM_LINES; i++) {
+      program.append(SAMPLE_LINES[i % SAMPLE_LINES.length]).append('\n');
+    }
+    code = program.toString();
+
+    if (LegacyValidator.validateFormat(code) != null || Assembler.validateFormat(code) != null) {
+      throw new IllegalStateException("The generated program should be valid for both validators");
+    }
+  }
+
+  /**
+   * Validates the program with the regex validator. The score is in
+   * nanoseconds per line.
+   *
+   * @return the validation result, null when the program is valid
+   */
+  @Benchmark
+  @OperationsPerInvocation(PROGRAM_LINES)
+  public String regex() {
+    return LegacyValidator.validateFormat(code);
+  }
+
+  /**
+   * Validates the program with the single pass parser. The score is in
+   * nanoseconds per line.
+   *
+   * @return the validation result, null when the program is valid
+   */
+  @Benchmark
+  @OperationsPerInvocation(PROGRAM_LINES)
+  public String parser() {
+    return Assembler.validateFormat(code);
+  }
+
+  /**
+   * The regex validator as it was before the parser replaced it.
+   */
+  private static class LegacyValidator {
+    private static final String MOV_REGEX = "^MOV\\s+([A-D]X)\\s*,\\s*(([A-D]X)|\\d+)(\\s*//.*)?$";
+    private static final String LOAD_REGEX = "^LOAD\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String STORE_REGEX = "^STORE\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String ADD_REGEX = "^ADD\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String SUB_REGEX = "^SUB\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String INC_REGEX = "^INC\\s+([A-D]X)(\\s*//.*)?$|^INC(\\s*//.*)?$";
+    private static final String DEC_REGEX = "^DEC\\s+([A-D]X)(\\s*//.*)?$|^DEC(\\s*//.*)?$";
+    private static final String SWAP_REGEX = "^SWAP\\s+([A-D]X)\\s*,\\s*([A-D]X)(\\s*//.*)?$";
+    private static final String INT_REGEX = "^INT\\s+\\_[0-9][0-9]H(\\s*//.*)?$";
+    private static final String JMP_REGEX = "^JMP\\s*[+\\-]?\\d+(\\s*//.*)?$";
+    private static final String CMP_REGEX = "^CMP\\s+([A-D]X)\\s*,\\s*([A-D]X)(\\s*//.*)?$";
+    private static final String JE_REGEX = "^JE\\s*[+\\-]?\\d+(\\s*//.*)?$";
+    private static final String JNE_REGEX = "^JNE\\s*[+\\-]?\\d+(\\s*//.*)?$";
+    private static final String JG_REGEX = "^JG\\s*[+\\-]?\\d+(\\s*//.*)?$";
+    private static final String JL_REGEX = "^JL\\s*[+\\-]?\\d+(\\s*//.*)?$";
+    private static final String PARAM_REGEX = "^PARAM\\s+(-?\\d+\\s*(,\\s-?\\d+\\s*){0,2})(\\s*//.*)?$";
+    private static final String PUSH_REGEX = "^PUSH\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String POP_REGEX = "^POP\\s+([A-D]X)(\\s*//.*)?$";
+    private static final String COMMENT_REGEX = "^(//.*)$";
+
+    private static final String[] PATTERNS = {
+        MOV_REGEX, LOAD_REGEX, STORE_REGEX, ADD_REGEX, SUB_REGEX, INC_REGEX, DEC_REGEX, SWAP_REGEX, INT_REGEX,
+        JMP_REGEX, CMP_REGEX, JE_REGEX, JNE_REGEX, JG_REGEX, JL_REGEX, PARAM_REGEX, PUSH_REGEX, POP_REGEX,
+        COMMENT_REGEX,
+    };
+
+    static String validateFormat(String code) {
+      String[] lines = code.split("\\r?\\n");
+      StringBuilder errors = new StringBuilder();
+      for (int i = 0; i < lines.length; i++) {
+        String line = lines[i].trim();
+        if (!line.isEmpty() && !matchesAny(line)) {
+          errors.append(String.format("Error en línea %d: Instrucción no reconocida '%s'%n", i + 1, line));
+        }
+      }
+      return errors.length() == 0 ? null : errors.toString();
+    }
+
+    private static boolean matchesAny(String line) {
+      for (String pattern : PATTERNS) {
+        if (line.matches(pattern)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package itcr.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itcr.model.AssembledProgram;
+import itcr.model.Assembler;
+import itcr.model.MemoryManager;
+import itcr.model.Scheduler;
+import itcr.model.SchedulingAlgorithm;
+
+/**
+ * BlockCompilationBenchmark compares the switch interpreter with the
+ * compiled blocks on a loop whose body is ten register instructions, the
+ * case block compilation is meant for. Both run in bursts of
+ * {@value #INSTRUCTIONS_PER_TICK} instructions per tick, so the difference
+ * is the dispatch and the bookkeeping per instruction.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BlockCompilationBenchmark {
+  private static final int LOOP_ITERATIONS = 100_000;
+  private static final int INSTRUCTIONS_PER_TICK = 1000;
+  // Four MOVs, ten instructions per pass and the final INT
+  private static final int INSTRUCTIONS = 4 + 10 * LOOP_ITERATIONS + 1;
+
+  private static final AssembledProgram PROGRAM = Assembler.assemble(String.join("\n",
+      "MOV AX, 0",
+      "MOV BX, 3",
+      "MOV CX, " + LOOP_ITERATIONS,
+      "MOV DX, 0",
+      "loop: INC AX",
+      "LOAD BX",
+      "ADD DX",
+      "STORE DX",
+      "SWAP BX, DX",
+      "SWAP BX, DX",
+      "DEC BX",
+      "INC BX",
+      "CMP AX, CX",
+      "JNE loop",
+      "INT _20H"));
+
+  @Param({ "false", "true" })
+  public boolean blockCompilation;
+
+  /**
+   * Runs the benchmark program to completion on a fresh machine. The score
+   * is in instructions per second.
+   *
+   * @return the number of instructions executed
+   */
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS)
+  public long runProgram() throws Exception {
+    MemoryManager memoryManager = new MemoryManager();
+    Scheduler scheduler = new Scheduler(1, memoryManager);
+    // Quantum 0 never preempts, the only process runs until it finishes
+    scheduler.setSchedulingPolicy(SchedulingAlgorithm.ROUND_ROBIN, 0);
+    scheduler.setInstructionsPerTick(INSTRUCTIONS_PER_TICK);
+    scheduler.setBlockCompilation(blockCompilation);
+
+    scheduler.addProcess(scheduler.createProcess(PROGRAM, System.out::println));
+    while (scheduler.hasProcessesToExecute()) {
+      scheduler.executeInstruction();
+    }
+
+    long executed = scheduler.getInstructionsExecuted();
+    if (executed != INSTRUCTIONS) {
+      throw new IllegalStateException("Expected " + INSTRUCTIONS + " instructions, ran " + executed);
+    }
+    return executed;
+  }
+}
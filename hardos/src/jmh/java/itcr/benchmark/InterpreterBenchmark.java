@@ -0,0 +1,85 @@
+package itcr.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itcr.model.Assembler;
+import itcr.model.MemoryManager;
+import itcr.model.Process;
+import itcr.model.Scheduler;
+import itcr.model.SchedulingAlgorithm;
+
+/**
+ * InterpreterBenchmark measures how many instructions per second the CPU
+ * interpreter runs through the scheduler, stepping one instruction per tick
+ * as the GUI does against running bursts of instructions per tick, with and
+ * without compiling the hot loop.
+ * The program is a counting loop of INC / ADD / CMP / JNE, so the numbers
+ * reflect dispatch and bookkeeping and not interrupts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class InterpreterBenchmark {
+  private static final int LOOP_ITERATIONS = 250_000;
+  // Two MOVs, four instructions per pass and the final INT
+  private static final int INSTRUCTIONS = 2 + 4 * LOOP_ITERATIONS + 1;
+
+  private static final String PROGRAM = String.join("\n",
+      "MOV AX, 0",
+      "MOV CX, " + LOOP_ITERATIONS,
+      "loop: INC AX",
+      "ADD AX",
+      "CMP AX, CX",
+      "JNE loop",
+      "INT _20H");
+
+  @Param({ "1", "1000" })
+  public int instructionsPerTick;
+
+  @Param({ "false", "true" })
+  public boolean blockCompilation;
+
+  /**
+   * Runs the benchmark program to completion on a fresh machine. The score
+   * is in instructions per second.
+   *
+   * @return the number of instructions executed
+   */
+  @Benchmark
+  @OperationsPerInvocation(INSTRUCTIONS)
+  public long runProgram() throws Exception {
+    MemoryManager memoryManager = new MemoryManager();
+    Scheduler scheduler = new Scheduler(1, memoryManager);
+    // Quantum 0 never preempts, the only process runs until it finishes
+    scheduler.setSchedulingPolicy(SchedulingAlgorithm.ROUND_ROBIN, 0);
+    scheduler.setInstructionsPerTick(instructionsPerTick);
+    scheduler.setBlockCompilation(blockCompilation);
+
+    Process process = scheduler.createProcess(Assembler.assemble(PROGRAM), System.out::println);
+    scheduler.addProcess(process);
+    while (scheduler.hasProcessesToExecute()) {
+      scheduler.executeInstruction();
+    }
+
+    long executed = scheduler.getInstructionsExecuted();
+    if (executed != INSTRUCTIONS) {
+      throw new IllegalStateException("Expected " + INSTRUCTIONS + " instructions, ran " + executed);
+    }
+    return executed;
+  }
+}
@@ -0,0 +1,84 @@
+package itcr.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itcr.model.AssembledProgram;
+import itcr.model.Assembler;
+import itcr.model.MemoryManager;
+import itcr.model.Scheduler;
+import itcr.model.SchedulingAlgorithm;
+
+/**
+ * ParallelSchedulerBenchmark measures how the time to run one counting loop
+ * per core scales with the number of CPUs, ticking the CPUs one after the
+ * other on the calling thread against running them on the ForkJoinPool.
+ * The total work grows with the number of CPUs, so perfect scaling keeps the
+ * parallel score flat while the sequential one grows linearly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ParallelSchedulerBenchmark {
+  private static final int LOOP_ITERATIONS = 50_000;
+  // Long bursts keep the cost of handing the tick to the workers small
+  private static final int INSTRUCTIONS_PER_TICK = 1000;
+
+  private static final AssembledProgram PROGRAM = Assembler.assemble(String.join("\n",
+      "MOV AX, 0",
+      "MOV CX, " + LOOP_ITERATIONS,
+      "loop: INC AX",
+      "ADD AX",
+      "CMP AX, CX",
+      "JNE loop",
+      "INT _20H"));
+
+  @Param({ "1", "2", "4" })
+  public int cpus;
+
+  @Param({ "false", "true" })
+  public boolean parallel;
+
+  /**
+   * Runs one copy of the program per core to completion on a fresh machine.
+   *
+   * @return the number of instructions executed
+   */
+  @Benchmark
+  public long runOneProgramPerCore() throws Exception {
+    MemoryManager memoryManager = new MemoryManager();
+    Scheduler scheduler = new Scheduler(cpus, memoryManager);
+    // Quantum 0 never preempts, every process keeps its core until it ends
+    scheduler.setSchedulingPolicy(SchedulingAlgorithm.ROUND_ROBIN, 0);
+    scheduler.setInstructionsPerTick(INSTRUCTIONS_PER_TICK);
+    scheduler.setParallelExecution(parallel);
+
+    for (int i = 0; i < scheduler.getTotalCores(); i++) {
+      scheduler.addProcess(scheduler.createProcess(PROGRAM, System.out::println));
+    }
+    while (scheduler.hasProcessesToExecute()) {
+      scheduler.executeInstruction();
+    }
+    scheduler.setParallelExecution(false);
+
+    long expected = (long) scheduler.getTotalCores() * (2 + 4 * LOOP_ITERATIONS + 1);
+    long executed = scheduler.getInstructionsExecuted();
+    if (executed != expected) {
+      throw new IllegalStateException("Expected " + expected + " instructions, ran " + executed);
+    }
+    return executed;
+  }
+}
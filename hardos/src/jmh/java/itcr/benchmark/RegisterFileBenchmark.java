@@ -0,0 +1,116 @@
+package itcr.benchmark;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import itcr.model.Register;
+
+/**
+ * RegisterFileBenchmark compares the boxed EnumMap register file the CPU used
+ * to keep per core against the flat primitive int[] it uses now.
+ * Both variants run the same ADD / INC / MOV / CMP sequence the interpreter
+ * executes for a counting loop.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class RegisterFileBenchmark {
+  private static final int NUM_CORES = 5;
+  private static final int NUM_REGISTERS = Register.values().length;
+  private static final int OPERATIONS = 2_000_000;
+
+  /**
+   * Runs the instruction mix against one EnumMap per core.
+   *
+   * @return a checksum of the final register values
+   */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public long enumMap() {
+    List<EnumMap<Register, Integer>> registers = new ArrayList<>(NUM_CORES);
+    for (int i = 0; i < NUM_CORES; i++) {
+      EnumMap<Register, Integer> coreRegisters = new EnumMap<>(Register.class);
+      for (Register reg : Register.values()) {
+        coreRegisters.put(reg, 0);
+      }
+      registers.add(coreRegisters);
+    }
+
+    boolean zeroFlag = false;
+    for (int op = 0; op < OPERATIONS; op++) {
+      EnumMap<Register, Integer> core = registers.get(op % NUM_CORES);
+      switch (op & 3) {
+        case 0: // MOV BX, 1
+          core.put(Register.BX, 1);
+          break;
+        case 1: // ADD BX
+          core.put(Register.AC, core.get(Register.AC) + core.get(Register.BX));
+          break;
+        case 2: // INC CX
+          core.put(Register.CX, core.get(Register.CX) + 1);
+          break;
+        default: // CMP AC, CX
+          zeroFlag = core.get(Register.AC).intValue() == core.get(Register.CX).intValue();
+          break;
+      }
+    }
+
+    long checksum = zeroFlag ? 1 : 0;
+    for (EnumMap<Register, Integer> core : registers) {
+      checksum += core.get(Register.AC) + core.get(Register.CX);
+    }
+    return checksum;
+  }
+
+  /**
+   * Runs the instruction mix against a single flat int[] for all cores.
+   *
+   * @return a checksum of the final register values
+   */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public long intArray() {
+    int[] registers = new int[NUM_CORES * NUM_REGISTERS];
+    int ac = Register.AC.ordinal();
+    int bx = Register.BX.ordinal();
+    int cx = Register.CX.ordinal();
+
+    boolean zeroFlag = false;
+    for (int op = 0; op < OPERATIONS; op++) {
+      int base = (op % NUM_CORES) * NUM_REGISTERS;
+      switch (op & 3) {
+        case 0: // MOV BX, 1
+          registers[base + bx] = 1;
+          break;
+        case 1: // ADD BX
+          registers[base + ac] = registers[base + ac] + registers[base + bx];
+          break;
+        case 2: // INC CX
+          registers[base + cx] = registers[base + cx] + 1;
+          break;
+        default: // CMP AC, CX
+          zeroFlag = registers[base + ac] == registers[base + cx];
+          break;
+      }
+    }
+
+    long checksum = zeroFlag ? 1 : 0;
+    for (int i = 0; i < NUM_CORES; i++) {
+      checksum += registers[i * NUM_REGISTERS + ac] + registers[i * NUM_REGISTERS + cx];
+    }
+    return checksum;
+  }
+}
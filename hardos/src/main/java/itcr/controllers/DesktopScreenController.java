@@ -35,6 +35,7 @@ public class DesktopScreenController {
 
   /**
    * Loads initial files into memory. For now they are only "assembly" files.
+   * Files already on the disk image are kept as they are.
    */
   public void loadInitialFilesInMemory() {
     String[] fileNames = {
@@ -177,10 +178,13 @@ public class DesktopScreenController {
     boolean allFilesStored = true;
 
     for (int i = 0; i < fileNames.length; i++) {
-      if (!memoryManager.storeFile(fileNames[i], fileContent[i])) {
+      if (memoryManager.getFile(fileNames[i]) == null
+          && !memoryManager.storeFile(fileNames[i], fileContent[i])) {
         allFilesStored = false;
       }
     }
+    // Next start reads the file table without replaying the journal
+    memoryManager.syncDisk();
 
     if (!allFilesStored) {
       JOptionPane.showMessageDialog(null, "No se pudieron cargar todos los archivos en memoria");
@@ -274,6 +278,34 @@ public class DesktopScreenController {
     scheduler.changeNumberCPUs(numCPUs);
   }
 
+  public SchedulingAlgorithm getSchedulingAlgorithm() {
+    return scheduler.getSchedulingAlgorithm();
+  }
+
+  public int getQuantum() {
+    return scheduler.getQuantum();
+  }
+
+  public void setSchedulingPolicy(SchedulingAlgorithm algorithm, int quantum) {
+    scheduler.setSchedulingPolicy(algorithm, quantum);
+  }
+
+  public boolean isParallelExecution() {
+    return scheduler.isParallelExecution();
+  }
+
+  public void setParallelExecution(boolean parallelExecution) {
+    scheduler.setParallelExecution(parallelExecution);
+  }
+
+  public double getCompactionThreshold() {
+    return scheduler.getCompactionThreshold();
+  }
+
+  public void setCompactionThreshold(double compactionThreshold) {
+    scheduler.setCompactionThreshold(compactionThreshold);
+  }
+
   public int getKernelSize() {
     return memoryManager.getKernelSize();
   }
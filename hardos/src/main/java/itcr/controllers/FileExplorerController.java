@@ -1,6 +1,7 @@
 package itcr.controllers;
 
 import itcr.graphics.FileExplorer;
+import itcr.model.DirectoryPage;
 import itcr.model.FileInfo;
 import itcr.model.MemoryManager;
 
@@ -41,6 +42,20 @@ public class FileExplorerController {
     return memoryManager.getFileList();
   }
 
+  /**
+   * Lists one page of a directory of the memory manager, without reading the
+   * content of its files.
+   *
+   * @param path   the path of the directory, empty for the root
+   * @param prefix the prefix of the names to list, empty for all
+   * @param offset the number of entries to skip
+   * @param limit  the maximum number of entries of the page
+   * @return the page of the directory
+   */
+  public DirectoryPage listDirectory(String path, String prefix, int offset, int limit) {
+    return memoryManager.listDirectory(path, prefix, offset, limit);
+  }
+
   /**
    * Deletes a file with the specified name.
    *
@@ -1,6 +1,9 @@
 package itcr.controllers;
 
+import itcr.model.AllocationPolicy;
+import itcr.model.PageReplacement;
 import itcr.model.MemoryManager;
+import itcr.model.SchedulingAlgorithm;
 
 /**
  * The MyPcConfigController class manages the configuration settings for the PC,
@@ -109,6 +112,61 @@ public class MyPcConfigController {
     memoryManager.setVirtualMemorySize(virtualMemorySize);
   }
 
+  /**
+   * Retrieves the allocation policy of the user space.
+   *
+   * @return the allocation policy
+   */
+  public AllocationPolicy getAllocationPolicy() {
+    return memoryManager.getAllocationPolicy();
+  }
+
+  /**
+   * Sets the allocation policy of the user space.
+   *
+   * @param allocationPolicy the new allocation policy
+   */
+  public void setAllocationPolicy(AllocationPolicy allocationPolicy) {
+    memoryManager.setAllocationPolicy(allocationPolicy);
+  }
+
+  /**
+   * Retrieves the page replacement algorithm of the virtual memory.
+   *
+   * @return the page replacement algorithm
+   */
+  public PageReplacement getPageReplacement() {
+    return memoryManager.getPageReplacement();
+  }
+
+  /**
+   * Sets the page replacement algorithm of the virtual memory. It takes
+   * effect the next time the memory is reset.
+   *
+   * @param pageReplacement the new page replacement algorithm
+   */
+  public void setPageReplacement(PageReplacement pageReplacement) {
+    memoryManager.setPageReplacement(pageReplacement);
+  }
+
+  /**
+   * Retrieves the number of entries of the process stacks.
+   *
+   * @return the stack depth
+   */
+  public int getStackDepth() {
+    return memoryManager.getStackDepth();
+  }
+
+  /**
+   * Sets the number of entries of the stacks of new processes.
+   *
+   * @param stackDepth the new stack depth
+   */
+  public void setStackDepth(int stackDepth) {
+    memoryManager.setStackDepth(stackDepth);
+  }
+
   /**
    * Validates the memory configuration.
    *
@@ -157,4 +215,32 @@ public class MyPcConfigController {
   public void setNumCpus(int numCPUs) {
     this.desktopScreenControllerRef.setNumCpus(numCPUs);
   }
-}
\ No newline at end of file
+
+  public SchedulingAlgorithm getSchedulingAlgorithm() {
+    return this.desktopScreenControllerRef.getSchedulingAlgorithm();
+  }
+
+  public int getQuantum() {
+    return this.desktopScreenControllerRef.getQuantum();
+  }
+
+  public void setSchedulingPolicy(SchedulingAlgorithm algorithm, int quantum) {
+    this.desktopScreenControllerRef.setSchedulingPolicy(algorithm, quantum);
+  }
+
+  public boolean isParallelExecution() {
+    return this.desktopScreenControllerRef.isParallelExecution();
+  }
+
+  public void setParallelExecution(boolean parallelExecution) {
+    this.desktopScreenControllerRef.setParallelExecution(parallelExecution);
+  }
+
+  public double getCompactionThreshold() {
+    return this.desktopScreenControllerRef.getCompactionThreshold();
+  }
+
+  public void setCompactionThreshold(double compactionThreshold) {
+    this.desktopScreenControllerRef.setCompactionThreshold(compactionThreshold);
+  }
+}
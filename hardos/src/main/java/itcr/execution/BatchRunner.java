@@ -0,0 +1,322 @@
+package itcr.execution;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.gson.JsonObject;
+
+import itcr.model.AllocationPolicy;
+import itcr.model.AssembledProgram;
+import itcr.model.Assembler;
+import itcr.model.InterruptMessage;
+import itcr.model.InterruptBus;
+import itcr.model.InterruptCode;
+import itcr.model.MemoryBacking;
+import itcr.model.MemoryManager;
+import itcr.model.PageReplacement;
+import itcr.model.Process;
+import itcr.model.Scheduler;
+import itcr.model.SchedulingAlgorithm;
+
+/**
+ * BatchRunner executes .asm programs without the GUI.
+ * Programs are loaded from disk, turned into processes the same way the
+ * Hard8086 window does, and the scheduler is stepped as fast as possible
+ * until every process has finished or the step budget runs out.
+ *
+ * Usage: BatchRunner [--cpus N] [--steps N] [--throttle MS] [--policy NAME] [--scheduler NAME] [--quantum N] [--parallel] [--burst N] [--jit] [--stack N] [--memory heap|direct] [--disk FILE] [--paging] [--replacement clock|lru] [--virtual KB] [--compact-threshold F] file.asm|folder ...
+ */
+public class BatchRunner {
+  private static final long DEFAULT_STEP_BUDGET = 1_000_000;
+  // How long the stats wait for the interrupt handler to print what is left
+  private static final long HANDLER_STOP_MILLIS = 1_000;
+
+  public static void main(String[] args) throws Exception {
+    int numCPUs = 1;
+    long stepBudget = DEFAULT_STEP_BUDGET;
+    long throttleMillis = 0;
+    AllocationPolicy policy = AllocationPolicy.FIRST_FIT;
+    SchedulingAlgorithm algorithm = SchedulingAlgorithm.ROUND_ROBIN;
+    int quantum = Scheduler.DEFAULT_QUANTUM;
+    boolean parallel = false;
+    int burst = 1;
+    boolean jit = false;
+    int stackDepth = 0; // 0 keeps the default depth
+    MemoryBacking memoryBacking = MemoryBacking.HEAP;
+    String diskImage = null; // null keeps the disk in memory
+    boolean paging = false;
+    PageReplacement replacement = PageReplacement.CLOCK;
+    int virtualMemoryKB = 0; // 0 keeps the configured size
+    double compactionThreshold = 0; // 0 never compacts
+    List<File> files = new ArrayList<>();
+
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "--cpus":
+          numCPUs = Integer.parseInt(args[++i]);
+          break;
+        case "--steps":
+          stepBudget = Long.parseLong(args[++i]);
+          break;
+        case "--throttle":
+          throttleMillis = Long.parseLong(args[++i]);
+          break;
+        case "--policy":
+          policy = AllocationPolicy.fromString(args[++i]);
+          break;
+        case "--scheduler":
+          algorithm = SchedulingAlgorithm.fromString(args[++i]);
+          break;
+        case "--quantum":
+          quantum = Integer.parseInt(args[++i]);
+          break;
+        case "--parallel":
+          parallel = true;
+          break;
+        case "--burst":
+          burst = Integer.parseInt(args[++i]);
+          break;
+        case "--jit":
+          jit = true;
+          break;
+        case "--stack":
+          stackDepth = Integer.parseInt(args[++i]);
+          break;
+        case "--memory":
+          memoryBacking = MemoryBacking.fromString(args[++i]);
+          break;
+        case "--disk":
+          diskImage = args[++i];
+          break;
+        case "--paging":
+          paging = true;
+          break;
+        case "--replacement":
+          replacement = PageReplacement.fromString(args[++i]);
+          break;
+        case "--virtual":
+          virtualMemoryKB = Integer.parseInt(args[++i]);
+          break;
+        case "--compact-threshold":
+          compactionThreshold = Double.parseDouble(args[++i]);
+          break;
+        default:
+          collectAsmFiles(new File(args[i]), files);
+          break;
+      }
+    }
+
+    if (files.isEmpty()) {
+      System.out.println("Usage: BatchRunner [--cpus N] [--steps N] [--throttle MS] [--policy NAME] [--scheduler NAME] [--quantum N] [--parallel] [--burst N] [--jit] [--stack N] [--memory heap|direct] [--disk FILE] [--paging] [--replacement clock|lru] [--virtual KB] [--compact-threshold F] file.asm|folder ...");
+      return;
+    }
+
+    MemoryManager memoryManager = new MemoryManager();
+    memoryManager.setAllocationPolicy(policy);
+    if (stackDepth > 0) {
+      memoryManager.setStackDepth(stackDepth);
+    }
+    memoryManager.setMainMemoryBacking(memoryBacking);
+    if (diskImage != null) {
+      memoryManager.setSecondaryStorageBacking(MemoryBacking.MAPPED);
+      memoryManager.setDiskImage(diskImage);
+    }
+    memoryManager.setPageAllProcesses(paging);
+    memoryManager.setPageReplacement(replacement);
+    if (virtualMemoryKB > 0) {
+      memoryManager.setVirtualMemorySize(virtualMemoryKB);
+    }
+    memoryManager.clearMemory();
+
+    Scheduler scheduler = new Scheduler(numCPUs, memoryManager);
+    scheduler.setSchedulingPolicy(algorithm, quantum);
+    scheduler.setParallelExecution(parallel);
+    scheduler.setInstructionsPerTick(burst);
+    scheduler.setBlockCompilation(jit);
+    scheduler.setCompactionThreshold(compactionThreshold);
+    for (File file : files) {
+      loadProgram(scheduler, file);
+    }
+
+    Thread interruptHandler = startInterruptHandler(scheduler.getInterruptBus());
+
+    long steps = 0;
+    long start = System.nanoTime();
+    while (scheduler.hasProcessesToExecute() && steps < stepBudget) {
+      if (scheduler.isWaitingForInput()) {
+        // Nothing to run until the input is read, idle ticks do not count
+        Thread.sleep(1);
+        scheduler.executeInstruction();
+        continue;
+      }
+      scheduler.executeInstruction();
+      steps++;
+      if (throttleMillis > 0) {
+        Thread.sleep(throttleMillis);
+      }
+    }
+    long elapsedNanos = System.nanoTime() - start;
+    // The output of the programs comes before the stats
+    interruptHandler.interrupt();
+    interruptHandler.join(HANDLER_STOP_MILLIS);
+    scheduler.setParallelExecution(false);
+
+    printStats(scheduler, memoryManager, steps, stepBudget, elapsedNanos);
+  }
+
+  /**
+   * Adds the file, or every .asm file inside it if it is a folder.
+   *
+   * @param file  the file or folder given on the command line
+   * @param files the list where the .asm files are collected
+   */
+  private static void collectAsmFiles(File file, List<File> files) {
+    if (file.isDirectory()) {
+      File[] listOfFiles = file.listFiles((dir, name) -> name.toLowerCase().endsWith(".asm"));
+      if (listOfFiles != null) {
+        for (File asmFile : listOfFiles) {
+          files.add(asmFile);
+        }
+      }
+    } else {
+      files.add(file);
+    }
+  }
+
+  /**
+   * Validates a program and, if it is valid, creates its process and adds it
+   * to the ready queue.
+   *
+   * @param scheduler the scheduler that will run the program
+   * @param file      the .asm file
+   */
+  private static void loadProgram(Scheduler scheduler, File file) {
+    String code;
+    try {
+      code = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      System.out.println("Error reading " + file.getName() + ": " + e.getMessage());
+      return;
+    }
+
+    if (code.isEmpty()) {
+      System.out.println("Skipping " + file.getName() + ": empty file");
+      return;
+    }
+
+    AssembledProgram program = Assembler.assemble(code);
+    if (program.hasErrors()) {
+      System.out.println("Skipping " + file.getName() + ":\n" + Assembler.formatErrors(program));
+      return;
+    }
+
+    Process process = scheduler.createProcess(program,
+        error -> System.out.println(file.getName() + ": " + error));
+    scheduler.addProcess(process);
+    System.out.println("Loaded " + file.getName() + " as P" + process.getProcessId());
+  }
+
+  /**
+   * Prints console output from the programs and answers input requests from
+   * the standard input. When the thread is interrupted it prints the messages
+   * still queued and ends.
+   *
+   * @param bus the interrupt bus of the scheduler
+   * @return the started handler thread
+   */
+  private static Thread startInterruptHandler(InterruptBus bus) {
+    BufferedReader input = new BufferedReader(new InputStreamReader(System.in));
+    bus.subscribe(InterruptCode._10H, message -> System.out.println(message.getMessage()));
+    Consumer<InterruptMessage> inputHandler = message -> {
+      try {
+        String line = input.readLine();
+        bus.provideInput(message.getProcessId(), line == null ? "" : line.trim());
+      } catch (IOException e) {
+        bus.provideInput(message.getProcessId(), "");
+      }
+    };
+    bus.subscribe(InterruptCode._09H, inputHandler);
+    bus.subscribe(InterruptCode._08H, inputHandler);
+
+    Thread handler = new Thread(() -> {
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          bus.awaitMessages();
+          bus.dispatch(Integer.MAX_VALUE);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        bus.dispatch(Integer.MAX_VALUE);
+      }
+    }, "interrupt-handler");
+    // Left behind if it is still reading an answer for a process that never ran again
+    handler.setDaemon(true);
+    handler.start();
+    return handler;
+  }
+
+  /**
+   * Prints the statistics of every finished process, the memory allocator and
+   * the overall throughput.
+   */
+  private static void printStats(Scheduler scheduler, MemoryManager memoryManager, long steps, long stepBudget,
+      long elapsedNanos) {
+    System.out.println("--------------------");
+    for (Map.Entry<Integer, Map<String, JsonObject>> cpuEntry : scheduler.getAllCPUStats().entrySet()) {
+      for (Map.Entry<String, JsonObject> processEntry : cpuEntry.getValue().entrySet()) {
+        JsonObject stats = processEntry.getValue();
+        System.out.printf("%s  CPU %d Core %d  %s  instructions: %d  waiting: %d ms  core usage: %s s%n",
+            processEntry.getKey(),
+            stats.get("cpuId").getAsInt(),
+            stats.get("coreId").getAsInt(),
+            stats.get("schedulingPolicy").getAsString(),
+            stats.get("instructionsExecuted").getAsLong(),
+            stats.get("waitingTime").getAsInt(),
+            stats.get("totalCoreUsageTime").getAsString());
+      }
+    }
+
+    if (steps >= stepBudget && scheduler.hasProcessesToExecute()) {
+      System.out.println("Step budget of " + stepBudget + " reached with processes still pending");
+    }
+
+    JsonObject allocator = memoryManager.getAllocatorStats();
+    System.out.printf("Allocator %s  allocations: %d  failed: %d  avg latency: %.0f ns  largest free block: %d  "
+        + "fragmentation: %.3f%n",
+        allocator.get("policy").getAsString(),
+        allocator.get("allocations").getAsLong(),
+        allocator.get("failedAllocations").getAsLong(),
+        allocator.get("averageAllocationNanos").getAsDouble(),
+        allocator.get("largestFreeBlock").getAsInt(),
+        allocator.get("externalFragmentation").getAsDouble());
+    System.out.printf("Compaction  runs: %d  bytes moved: %d  time: %.3f ms%n",
+        allocator.get("compactions").getAsLong(),
+        allocator.get("compactedBytes").getAsLong(),
+        allocator.get("compactionNanos").getAsLong() / 1_000_000.0);
+
+    JsonObject paging = scheduler.getPagingStats();
+    System.out.printf("Paging %s  frames: %d  page faults: %d  evictions: %d  page ins: %d  page outs: %d  "
+        + "TLB hit rate: %.3f%n",
+        paging.get("replacement").getAsString(),
+        paging.get("frames").getAsInt(),
+        paging.get("pageFaults").getAsLong(),
+        paging.get("evictions").getAsLong(),
+        paging.get("pageIns").getAsLong(),
+        paging.get("pageOuts").getAsLong(),
+        paging.get("tlbHitRate").getAsDouble());
+
+    long instructions = scheduler.getInstructionsExecuted();
+    double seconds = elapsedNanos / 1_000_000_000.0;
+    System.out.printf("Steps: %d  Instructions: %d  Time: %.3f s  Throughput: %.0f instructions/s%n",
+        steps, instructions, seconds, seconds > 0 ? instructions / seconds : 0);
+  }
+}
@@ -0,0 +1,115 @@
+package itcr.graphics;
+
+import javax.swing.*;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConsoleSink collects the lines printed to a console text area from any
+ * thread and appends them in batches, once per frame, on the event dispatch
+ * thread.
+ *
+ * Lines wait in a bounded buffer. When the programs print faster than the
+ * console is flushed and the buffer is full, new lines are dropped and
+ * counted, and the count is shown in the console with the next batch, so a
+ * print loop can neither block the CPUs nor flood the event queue. The text
+ * area keeps at most a fixed number of lines: a ring buffer holds the length
+ * of every line shown, so the oldest ones are removed from the start of the
+ * document without searching it.
+ */
+public class ConsoleSink {
+  private final JTextArea area;
+  private final BlockingQueue<String> pendingLines;
+  private final AtomicLong droppedLines = new AtomicLong();
+  private long totalDropped;
+
+  // Lengths of the lines in the area, including their line break, oldest first
+  private final int[] lineLengths;
+  private int firstLine;
+  private int lineCount;
+
+  /**
+   * Constructor for ConsoleSink.
+   *
+   * @param area         the text area to print to
+   * @param maxLines     the number of lines the area keeps
+   * @param maxPending   the number of lines that may wait for the next flush
+   */
+  public ConsoleSink(JTextArea area, int maxLines, int maxPending) {
+    this.area = area;
+    this.lineLengths = new int[maxLines];
+    this.pendingLines = new ArrayBlockingQueue<>(maxPending);
+  }
+
+  /**
+   * Queues a line to be shown with the next flush. Never blocks; the line is
+   * dropped if too many lines are already waiting.
+   *
+   * @param message the text to print, may hold several lines
+   */
+  public void println(String message) {
+    if (!pendingLines.offer(message)) {
+      droppedLines.incrementAndGet();
+    }
+  }
+
+  /**
+   * Appends every waiting line to the text area in one edit and removes the
+   * lines over the limit. Must run on the event dispatch thread.
+   */
+  public void flush() {
+    List<String> batch = new ArrayList<>(pendingLines.size());
+    pendingLines.drainTo(batch);
+    long dropped = droppedLines.getAndSet(0);
+    if (batch.isEmpty() && dropped == 0) {
+      return;
+    }
+    if (dropped > 0) {
+      totalDropped += dropped;
+      batch.add(String.format("[%d lines dropped, %d in total]", dropped, totalDropped));
+    }
+
+    StringBuilder text = new StringBuilder();
+    int removedLength = 0;
+    for (String message : batch) {
+      for (String line : message.split("\n", -1)) {
+        if (lineCount == lineLengths.length) {
+          removedLength += lineLengths[firstLine];
+          firstLine = (firstLine + 1) % lineLengths.length;
+          lineCount--;
+        }
+        lineLengths[(firstLine + lineCount) % lineLengths.length] = line.length() + 1;
+        lineCount++;
+        text.append(line).append('\n');
+      }
+    }
+
+    Document document = area.getDocument();
+    try {
+      // Lines of this batch that were pushed out never reach the document
+      int skipped = Math.max(0, removedLength - document.getLength());
+      document.insertString(document.getLength(), text.substring(skipped), null);
+      document.remove(0, removedLength - skipped);
+    } catch (BadLocationException e) {
+      area.setText(text.toString());
+    }
+    area.setCaretPosition(document.getLength());
+  }
+
+  /**
+   * Removes every line from the text area and the lines still waiting.
+   * Must run on the event dispatch thread.
+   */
+  public void clear() {
+    pendingLines.clear();
+    droppedLines.set(0);
+    firstLine = 0;
+    lineCount = 0;
+    area.setText("");
+  }
+}
@@ -2,28 +2,40 @@ package itcr.graphics;
 
 import itcr.controllers.FileExplorerController;
 import itcr.controllers.NotepadController;
-import itcr.model.FileInfo;
+import itcr.model.DirectoryEntry;
+import itcr.model.DirectoryPage;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
-import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import javax.imageio.ImageIO;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 
 /**
  * FileExplorer class represents a custom floating window that simulates a file
  * explorer.
- * It displays a list of files and allows interaction with them.
+ * It displays one directory at a time, a page of entries at a time, and allows
+ * interaction with its files.
  */
 public class FileExplorer extends FloatingWindow<FileExplorerController> {
   private JPanel filePanel;
   private JFrame parent;
+  private JLabel pathLabel;
+  private JTextField filterField;
+  private JButton upButton;
+  private JButton previousButton;
+  private JButton nextButton;
+  private JLabel pageLabel;
+  private String currentPath = "";
+  private int pageOffset;
   private static final int BUTTONS_PER_ROW = 5;
+  private static final int PAGE_SIZE = 50;
 
   /**
    * Constructor for FileExplorer.
@@ -51,6 +63,8 @@ public class FileExplorer extends FloatingWindow<FileExplorerController> {
     scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_NEVER);
 
     add(scrollPane, BorderLayout.CENTER);
+    add(createNavigationPanel(), BorderLayout.NORTH);
+    add(createPagingPanel(), BorderLayout.SOUTH);
 
     updateFileList();
 
@@ -65,18 +79,127 @@ public class FileExplorer extends FloatingWindow<FileExplorerController> {
   }
 
   /**
-   * Updates the file list displayed in the file explorer.
+   * Creates the panel to move between directories and filter their entries.
+   *
+   * @return the navigation panel
+   */
+  private JPanel createNavigationPanel() {
+    JPanel navigationPanel = new JPanel(new BorderLayout(5, 5));
+    upButton = new JButton("Arriba");
+    upButton.addActionListener(e -> openDirectory(parentPath(currentPath)));
+    pathLabel = new JLabel();
+
+    JPanel filterPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+    filterPanel.add(new JLabel("Filtrar:"));
+    filterField = new JTextField(12);
+    filterField.getDocument().addDocumentListener(new DocumentListener() {
+      @Override
+      public void insertUpdate(DocumentEvent e) {
+        showPage(0);
+      }
+
+      @Override
+      public void removeUpdate(DocumentEvent e) {
+        showPage(0);
+      }
+
+      @Override
+      public void changedUpdate(DocumentEvent e) {
+        showPage(0);
+      }
+    });
+    filterPanel.add(filterField);
+
+    navigationPanel.add(upButton, BorderLayout.WEST);
+    navigationPanel.add(pathLabel, BorderLayout.CENTER);
+    navigationPanel.add(filterPanel, BorderLayout.EAST);
+    return navigationPanel;
+  }
+
+  /**
+   * Creates the panel to move between the pages of a directory.
+   *
+   * @return the paging panel
+   */
+  private JPanel createPagingPanel() {
+    JPanel pagingPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+    previousButton = new JButton("< Anterior");
+    previousButton.addActionListener(e -> showPage(Math.max(0, pageOffset - PAGE_SIZE)));
+    nextButton = new JButton("Siguiente >");
+    nextButton.addActionListener(e -> showPage(pageOffset + PAGE_SIZE));
+    pageLabel = new JLabel();
+    pagingPanel.add(previousButton);
+    pagingPanel.add(pageLabel);
+    pagingPanel.add(nextButton);
+    return pagingPanel;
+  }
+
+  /**
+   * Opens a directory and shows its first page.
+   *
+   * @param path the path of the directory, empty for the root
+   */
+  private void openDirectory(String path) {
+    currentPath = path;
+    filterField.setText("");
+    showPage(0);
+  }
+
+  /**
+   * Shows a page of the current directory.
+   *
+   * @param offset the position of the first entry of the page
+   */
+  private void showPage(int offset) {
+    pageOffset = offset;
+    updateFileList();
+  }
+
+  /**
+   * Gets the directory that contains a path.
+   *
+   * @param path the path of a file or directory
+   * @return the path of its parent, empty for the root
+   */
+  private static String parentPath(String path) {
+    int separator = path.lastIndexOf('/');
+    return separator < 0 ? "" : path.substring(0, separator);
+  }
+
+  /**
+   * Updates the page of the current directory displayed in the file
+   * explorer. Only the entries of the page are read from the memory manager.
    */
   public void updateFileList() {
     filePanel.removeAll();
-    List<FileInfo> files = controller.getFileList();
+    DirectoryPage page = controller.listDirectory(currentPath, filterField.getText(), pageOffset, PAGE_SIZE);
+    if (page.getEntries().isEmpty() && pageOffset > 0) {
+      // The last entries of the page were deleted, go back to one that exists
+      pageOffset = Math.max(0, (page.getTotal() - 1) / PAGE_SIZE * PAGE_SIZE);
+      page = controller.listDirectory(currentPath, filterField.getText(), pageOffset, PAGE_SIZE);
+    }
+    if (page.getTotal() == 0 && !currentPath.isEmpty() && filterField.getText().isEmpty()) {
+      // The directory disappeared with its last file
+      currentPath = parentPath(currentPath);
+      updateFileList();
+      return;
+    }
+
+    int pages = Math.max(1, (page.getTotal() + PAGE_SIZE - 1) / PAGE_SIZE);
+    pathLabel.setText("/" + currentPath);
+    upButton.setEnabled(!currentPath.isEmpty());
+    previousButton.setEnabled(pageOffset > 0);
+    nextButton.setEnabled(page.hasNext());
+    pageLabel.setText(String.format("Página %d de %d (%d elementos)", pageOffset / PAGE_SIZE + 1, pages,
+        page.getTotal()));
 
     GridBagConstraints gbc = new GridBagConstraints();
     gbc.insets = new Insets(5, 5, 5, 5);
     gbc.anchor = GridBagConstraints.NORTHWEST;
 
+    List<DirectoryEntry> files = page.getEntries();
     for (int i = 0; i < files.size(); i++) {
-      FileInfo file = files.get(i);
+      DirectoryEntry file = files.get(i);
       JButton fileButton = createFileButton(file);
 
       gbc.gridx = i % BUTTONS_PER_ROW;
@@ -97,12 +220,12 @@ public class FileExplorer extends FloatingWindow<FileExplorerController> {
   }
 
   /**
-   * Creates a button representing a file.
+   * Creates a button representing a file or a directory.
    *
-   * @param file the file information
+   * @param file the entry of the directory
    * @return the created JButton
    */
-  private JButton createFileButton(FileInfo file) {
+  private JButton createFileButton(DirectoryEntry file) {
     JButton button = new JButton();
     button.setPreferredSize(new Dimension(120, 120));
     button.setLayout(new BorderLayout());
@@ -112,8 +235,9 @@ public class FileExplorer extends FloatingWindow<FileExplorerController> {
     JLabel iconLabel = new JLabel(icon);
     button.add(iconLabel, BorderLayout.CENTER);
 
+    String details = file.isDirectory() ? file.getSize() + " elementos" : file.getSize() + " bytes";
     JLabel infoLabel = new JLabel(
-        "<html><center>" + file.getFileName() + "<br>(" + file.getSize() + " bytes)</center></html>");
+        "<html><center>" + file.getName() + "<br>(" + details + ")</center></html>");
     infoLabel.setHorizontalAlignment(SwingConstants.CENTER);
     button.add(infoLabel, BorderLayout.SOUTH);
 
@@ -123,16 +247,20 @@ public class FileExplorer extends FloatingWindow<FileExplorerController> {
     button.addMouseListener(new MouseAdapter() {
       @Override
       public void mousePressed(MouseEvent e) {
-        if (SwingUtilities.isRightMouseButton(e)) {
-          showContextMenu(e, file.getFileName());
+        if (SwingUtilities.isRightMouseButton(e) && !file.isDirectory()) {
+          showContextMenu(e, file.getPath());
         }
       }
 
       @Override
       public void mouseClicked(MouseEvent e) {
         if (SwingUtilities.isLeftMouseButton(e) && e.getClickCount() == 2) {
-          String fileContent = controller.getFileContent(file.getFileName());
-          openNotepad(file.getFileName(), fileContent);
+          if (file.isDirectory()) {
+            openDirectory(file.getPath());
+            return;
+          }
+          String fileContent = controller.getFileContent(file.getPath());
+          openNotepad(file.getPath(), fileContent);
         }
       }
     });
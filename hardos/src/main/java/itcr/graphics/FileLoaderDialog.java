@@ -1,22 +1,39 @@
 package itcr.graphics;
 
-import itcr.model.FileInfo;
+import itcr.model.DirectoryEntry;
+import itcr.model.DirectoryPage;
 import itcr.model.Scheduler;
 
 import javax.swing.*;
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * FileLoaderDialog class represents a dialog for loading files.
- * It allows users to select files and preview their content.
+ * It allows users to browse the directories of the secondary storage, select
+ * files and preview their content. Directories are listed a page at a time,
+ * and a file is only read when it is previewed.
  */
 public class FileLoaderDialog extends JDialog {
+  private static final int PAGE_SIZE = 100;
+
   private final Scheduler scheduler;
   private final List<JCheckBox> fileCheckboxes;
+  private final Set<String> selectedPaths;
+  private JPanel fileListPanel;
+  private JLabel pathLabel;
+  private JLabel pageLabel;
+  private JButton upButton;
+  private JButton previousButton;
+  private JButton nextButton;
+  private JTextField filterField;
   private JTextArea previewArea;
   private List<String> selectedFiles;
+  private String currentPath = "";
+  private int pageOffset;
 
   /**
    * Constructor for FileLoaderDialog.
@@ -29,6 +46,7 @@ public class FileLoaderDialog extends JDialog {
     super(parent, "Load Files", true);
     this.scheduler = scheduler;
     this.fileCheckboxes = new ArrayList<>();
+    this.selectedPaths = new LinkedHashSet<>();
     this.selectedFiles = new ArrayList<>();
 
     setSize(600, 400);
@@ -43,27 +61,14 @@ public class FileLoaderDialog extends JDialog {
     setLayout(new BorderLayout());
 
     // File list panel
-    JPanel fileListPanel = new JPanel();
+    fileListPanel = new JPanel();
     fileListPanel.setLayout(new BoxLayout(fileListPanel, BoxLayout.Y_AXIS));
     JScrollPane fileListScrollPane = new JScrollPane(fileListPanel);
 
-    List<FileInfo> fileList = scheduler.memoryManager.getFileList();
-    for (FileInfo file : fileList) {
-      JCheckBox checkBox = new JCheckBox(file.getFileName());
-      checkBox.addActionListener(e -> updateSelectedFiles());
-      fileCheckboxes.add(checkBox);
-
-      JPanel filePanel = new JPanel(new BorderLayout());
-      filePanel.add(checkBox, BorderLayout.WEST);
-      filePanel.addMouseListener(new java.awt.event.MouseAdapter() {
-        @Override
-        public void mouseClicked(java.awt.event.MouseEvent evt) {
-          showFilePreview(file.getFileName());
-        }
-      });
-
-      fileListPanel.add(filePanel);
-    }
+    JPanel fileBrowserPanel = new JPanel(new BorderLayout());
+    fileBrowserPanel.add(createNavigationPanel(), BorderLayout.NORTH);
+    fileBrowserPanel.add(fileListScrollPane, BorderLayout.CENTER);
+    fileBrowserPanel.add(createPagingPanel(), BorderLayout.SOUTH);
 
     // Preview panel
     previewArea = new JTextArea();
@@ -71,7 +76,7 @@ public class FileLoaderDialog extends JDialog {
     JScrollPane previewScrollPane = new JScrollPane(previewArea);
 
     // Split pane
-    JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, fileListScrollPane, previewScrollPane);
+    JSplitPane splitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT, fileBrowserPanel, previewScrollPane);
     splitPane.setDividerLocation(300);
     add(splitPane, BorderLayout.CENTER);
 
@@ -94,6 +99,108 @@ public class FileLoaderDialog extends JDialog {
     buttonsPanel.add(okButton);
     buttonsPanel.add(cancelButton);
     add(buttonsPanel, BorderLayout.SOUTH);
+
+    showPage(0);
+  }
+
+  /**
+   * Creates the panel to move between directories and filter their entries.
+   *
+   * @return the navigation panel
+   */
+  private JPanel createNavigationPanel() {
+    JPanel navigationPanel = new JPanel(new BorderLayout(5, 5));
+    upButton = new JButton("Arriba");
+    upButton.addActionListener(e -> {
+      int separator = currentPath.lastIndexOf('/');
+      openDirectory(separator < 0 ? "" : currentPath.substring(0, separator));
+    });
+    pathLabel = new JLabel();
+    filterField = new JTextField(8);
+    filterField.setToolTipText("Filtrar por el inicio del nombre");
+    filterField.addActionListener(e -> showPage(0));
+
+    navigationPanel.add(upButton, BorderLayout.WEST);
+    navigationPanel.add(pathLabel, BorderLayout.CENTER);
+    navigationPanel.add(filterField, BorderLayout.EAST);
+    return navigationPanel;
+  }
+
+  /**
+   * Creates the panel to move between the pages of a directory.
+   *
+   * @return the paging panel
+   */
+  private JPanel createPagingPanel() {
+    JPanel pagingPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+    previousButton = new JButton("<");
+    previousButton.addActionListener(e -> showPage(Math.max(0, pageOffset - PAGE_SIZE)));
+    nextButton = new JButton(">");
+    nextButton.addActionListener(e -> showPage(pageOffset + PAGE_SIZE));
+    pageLabel = new JLabel();
+    pagingPanel.add(previousButton);
+    pagingPanel.add(pageLabel);
+    pagingPanel.add(nextButton);
+    return pagingPanel;
+  }
+
+  /**
+   * Opens a directory and shows its first page.
+   *
+   * @param path the path of the directory, empty for the root
+   */
+  private void openDirectory(String path) {
+    currentPath = path;
+    filterField.setText("");
+    showPage(0);
+  }
+
+  /**
+   * Shows a page of the current directory. Checkboxes keep the selection of
+   * files made in other pages and directories.
+   *
+   * @param offset the position of the first entry of the page
+   */
+  private void showPage(int offset) {
+    pageOffset = offset;
+    DirectoryPage page = scheduler.memoryManager.listDirectory(currentPath, filterField.getText(), pageOffset,
+        PAGE_SIZE);
+
+    fileListPanel.removeAll();
+    fileCheckboxes.clear();
+    for (DirectoryEntry entry : page.getEntries()) {
+      JPanel filePanel = new JPanel(new BorderLayout());
+      if (entry.isDirectory()) {
+        JButton directoryButton = new JButton("[" + entry.getName() + "]");
+        directoryButton.setBorderPainted(false);
+        directoryButton.setContentAreaFilled(false);
+        directoryButton.addActionListener(e -> openDirectory(entry.getPath()));
+        filePanel.add(directoryButton, BorderLayout.WEST);
+      } else {
+        JCheckBox checkBox = new JCheckBox(entry.getName(), selectedPaths.contains(entry.getPath()));
+        checkBox.setActionCommand(entry.getPath());
+        checkBox.addActionListener(e -> updateSelectedFiles());
+        fileCheckboxes.add(checkBox);
+        filePanel.add(checkBox, BorderLayout.WEST);
+        filePanel.addMouseListener(new java.awt.event.MouseAdapter() {
+          @Override
+          public void mouseClicked(java.awt.event.MouseEvent evt) {
+            showFilePreview(entry.getPath());
+          }
+        });
+      }
+      fileListPanel.add(filePanel);
+    }
+
+    int pages = Math.max(1, (page.getTotal() + PAGE_SIZE - 1) / PAGE_SIZE);
+    pathLabel.setText("/" + currentPath);
+    pageLabel.setText(String.format("%d / %d", pageOffset / PAGE_SIZE + 1, pages));
+    upButton.setEnabled(!currentPath.isEmpty());
+    previousButton.setEnabled(pageOffset > 0);
+    nextButton.setEnabled(page.hasNext());
+
+    fileListPanel.revalidate();
+    fileListPanel.repaint();
   }
 
   /**
@@ -107,22 +214,40 @@ public class FileLoaderDialog extends JDialog {
   }
 
   /**
-   * Updates the list of selected files based on the checkboxes.
+   * Updates the list of selected files based on the checkboxes of the page
+   * shown.
    */
   private void updateSelectedFiles() {
-    selectedFiles.clear();
     for (JCheckBox checkBox : fileCheckboxes) {
       if (checkBox.isSelected()) {
-        selectedFiles.add(checkBox.getText());
+        selectedPaths.add(checkBox.getActionCommand());
+      } else {
+        selectedPaths.remove(checkBox.getActionCommand());
       }
     }
+    selectedFiles.clear();
+    selectedFiles.addAll(selectedPaths);
   }
 
   /**
-   * Toggles the selection of all files.
+   * Toggles the selection of all files of the current directory that match
+   * the filter, in every page.
    */
   private void toggleSelectAllFiles() {
-    boolean selectAll = fileCheckboxes.stream().anyMatch(cb -> !cb.isSelected());
+    DirectoryPage all = scheduler.memoryManager.listDirectory(currentPath, filterField.getText(), 0,
+        Integer.MAX_VALUE);
+    boolean selectAll = all.getEntries().stream()
+        .anyMatch(entry -> !entry.isDirectory() && !selectedPaths.contains(entry.getPath()));
+    for (DirectoryEntry entry : all.getEntries()) {
+      if (entry.isDirectory()) {
+        continue;
+      }
+      if (selectAll) {
+        selectedPaths.add(entry.getPath());
+      } else {
+        selectedPaths.remove(entry.getPath());
+      }
+    }
     for (JCheckBox checkBox : fileCheckboxes) {
       checkBox.setSelected(selectAll);
     }
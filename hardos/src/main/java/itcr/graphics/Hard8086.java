@@ -10,9 +10,6 @@ import java.awt.event.*;
 import java.util.*;
 import java.util.concurrent.*;
 
-import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.DefaultTreeModel;
-
 import com.google.gson.JsonObject;
 
 /**
@@ -23,14 +20,27 @@ import com.google.gson.JsonObject;
 public class Hard8086 extends FloatingWindow<Scheduler> {
   private Map<Integer, JTextArea> registersAreas;
   private JTextArea consoleArea;
+  private ConsoleSink consoleSink;
   private JTextField inputField;
-  private JTree memoryMapTree;
+  private MemoryMapView memoryMapTree;
   private ExecutorService interruptExecutor;
+  // Subscribed to the channels of the interrupt bus this window handles
+  private java.util.function.Consumer<InterruptMessage> interruptConsumer;
+  private static final InterruptCode[] HANDLED_INTERRUPTS = { InterruptCode._10H, InterruptCode._09H,
+      InterruptCode._08H };
   private final int NUM_CORES = 5;
   private int numCPUs = 1;
   private boolean firstStep = true;
   public DesktopScreenController desktopScreenControllerRef = null;
   private StatsTab statsPanel;
+  // Renders the latest snapshot of the scheduler at a fixed frame rate
+  private javax.swing.Timer renderTimer;
+  private static final int FRAMES_PER_SECOND = 20;
+  // Console scrollback, lines waiting for the next frame and interrupts
+  // handled per wake up of the interrupt handler
+  private static final int CONSOLE_MAX_LINES = 2000;
+  private static final int CONSOLE_MAX_PENDING = 4096;
+  private static final int INTERRUPT_BATCH = 256;
 
   // styling
   private static final Color BACKGROUND_COLOR = new Color(240, 240, 245);
@@ -60,6 +70,12 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
 
     interruptExecutor = Executors.newSingleThreadExecutor();
     startInterruptHandler();
+
+    // The simulation only publishes its state, this timer is the one place
+    // the registers and stats are drawn from, however fast the ticks run
+    scheduler.setSnapshotPublishing(true);
+    renderTimer = new javax.swing.Timer(1000 / FRAMES_PER_SECOND, e -> renderFrame());
+    renderTimer.start();
   }
 
   /**
@@ -85,7 +101,7 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
     this.statsPanel = statsPanel;
 
     add(tabbedPane, BorderLayout.CENTER);
-    updateRegistersDisplay();
+    render(controller.takeSnapshot());
   }
 
   private JPanel createMainTab() {
@@ -135,16 +151,16 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
     consoleArea.setBackground(CONSOLE_BG_COLOR);
     consoleArea.setForeground(CONSOLE_TEXT_COLOR);
     consoleArea.setCaretColor(CONSOLE_TEXT_COLOR);
+    consoleSink = new ConsoleSink(consoleArea, CONSOLE_MAX_LINES, CONSOLE_MAX_PENDING);
     JScrollPane consoleScrollPane = new JScrollPane(consoleArea);
     consoleScrollPane.setBorder(createStyledBorder("Console"));
     leftPanel.add(consoleScrollPane, BorderLayout.CENTER);
 
     // Right Panel (Memory Map)
-    memoryMapTree = new JTree();
-    memoryMapTree.setRootVisible(false);
+    // Kept up to date by the events of the memory manager
+    memoryMapTree = new MemoryMapView(controller.memoryManager);
     memoryMapTree.setFont(LABEL_FONT);
     memoryMapTree.setBackground(Color.WHITE);
-    expandAllNodes(memoryMapTree, 0, -1);
     JScrollPane memoryMapScrollPane = new JScrollPane(memoryMapTree);
     memoryMapScrollPane.setBorder(createStyledBorder("Memory Map"));
 
@@ -161,7 +177,7 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
     // Button Panel
     JPanel buttonPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
     buttonPanel.setBackground(BACKGROUND_COLOR);
-    String[] buttonLabels = { "Execute", "Step", "Clean", "Load Files", "Update Memory Map" };
+    String[] buttonLabels = { "Execute", "Step", "Clean", "Load Files", "Update Memory Map", "Compact Memory" };
     for (String label : buttonLabels) {
       JButton button = createStyledButton(label);
       buttonPanel.add(button);
@@ -170,9 +186,6 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
     controlPanel.add(buttonPanel, BorderLayout.SOUTH);
     mainPanel.add(controlPanel, BorderLayout.SOUTH);
 
-    updateRegistersDisplay();
-    updateMemoryMap();
-
     return mainPanel;
   }
 
@@ -211,26 +224,40 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
   }
 
   /**
-   * Updates the display of registers.
+   * Renders one frame: the console lines printed since the last frame and
+   * the snapshot published by the scheduler, if there is a new one.
    */
-  private void updateRegistersDisplay() {
+  private void renderFrame() {
+    consoleSink.flush();
+    SimulationSnapshot snapshot = controller.pollSnapshot();
+    if (snapshot != null) {
+      render(snapshot);
+    }
+  }
 
+  /**
+   * Shows a snapshot in the register panels and the stats tab. Only the
+   * snapshot is read, never the CPUs or the memory.
+   *
+   * @param snapshot the snapshot to show
+   */
+  private void render(SimulationSnapshot snapshot) {
     if (registersAreas.isEmpty()) {
       return;
     }
 
-    int totalCores = controller.getTotalCores();
-    for (int i = 0; i < totalCores; i++) {
-      int cpuId = i / NUM_CORES;
-      int coreId = i % NUM_CORES;
-
-      JTextArea area = registersAreas.get(i);
-      if (area != null) {
-        String registers = controller.getRegisters(cpuId, coreId);
-        String extraRegisters = controller.getExtraRegisters(cpuId, coreId);
-        area.setText(registers + "\n" + extraRegisters);
+    for (int cpuId = 0; cpuId < Math.min(numCPUs, snapshot.getNumCPUs()); cpuId++) {
+      for (int coreId = 0; coreId < NUM_CORES; coreId++) {
+        JTextArea area = registersAreas.get(cpuId * NUM_CORES + coreId);
+        if (area != null) {
+          area.setText(snapshot.getCore(cpuId, coreId).toString());
+        }
       }
     }
+
+    if (statsPanel != null) {
+      statsPanel.updateStats(snapshot.getCpuStats(), snapshot.getPagingStats());
+    }
   }
 
   // Handle button actions
@@ -254,83 +281,20 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
         case "Update Memory Map":
           updateMemoryMap();
           break;
+        case "Compact Memory":
+          compactMemory();
+          break;
       }
     }
   }
 
-  private void updateStatsTab() {
-    SwingUtilities.invokeLater(() -> {
-      Map<Integer, Map<String, JsonObject>> allStats = controller.getAllCPUStats();
-      statsPanel.updateStats(allStats);
-    });
-  }
-
   /**
-   * Updates the memory map displayed in the memory map tree.
+   * Rebuilds the memory map tree from the current memory. Changes made
+   * while running reach the tree through its events, this only serves the
+   * "Update Memory Map" button.
    */
   private void updateMemoryMap() {
-    MemoryMap memoryMap = controller.memoryManager.getMainMemoryMap();
-    DefaultMutableTreeNode root = new DefaultMutableTreeNode("Memory");
-
-    addMemorySection(root, memoryMap.kernel);
-    addMemorySection(root, memoryMap.os);
-    addMemorySection(root, memoryMap.userSpace);
-    addMemorySection(root, memoryMap.secondaryStorage);
-
-    DefaultMutableTreeNode processesNode = new DefaultMutableTreeNode("Allocated Processes");
-    for (MemoryMap.MemorySection process : memoryMap.allocatedProcesses) {
-      addMemorySection(processesNode, process);
-    }
-    root.add(processesNode);
-
-    DefaultMutableTreeNode freeSpacesNode = new DefaultMutableTreeNode("Free Spaces");
-    for (MemoryMap.MemorySection freeSpace : memoryMap.freeSpaces) {
-      addMemorySection(freeSpacesNode, freeSpace);
-    }
-    root.add(freeSpacesNode);
-
-    DefaultMutableTreeNode stacksNode = new DefaultMutableTreeNode("Allocated Stacks");
-    for (MemoryMap.MemorySection stack : memoryMap.allocatedStacks) {
-      addMemorySection(stacksNode, stack);
-    }
-    root.add(stacksNode);
-
-    DefaultMutableTreeNode stringsNode = new DefaultMutableTreeNode("Stored Strings");
-    for (MemoryMap.MemorySection string : memoryMap.storedStrings) {
-      addMemorySection(stringsNode, string);
-    }
-    root.add(stringsNode);
-
-    DefaultMutableTreeNode filesNode = new DefaultMutableTreeNode("Stored Files");
-    for (MemoryMap.MemorySection file : memoryMap.storedFiles) {
-      addMemorySection(filesNode, file);
-    }
-    root.add(filesNode);
-
-    memoryMapTree.setModel(new DefaultTreeModel(root));
-    expandAllNodes(memoryMapTree, 0, -1);
-  }
-
-  /**
-   * Adds a memory section to the parent node in the memory map tree.
-   *
-   * @param parent  the parent node
-   * @param section the memory section to add
-   */
-  private void addMemorySection(DefaultMutableTreeNode parent, MemoryMap.MemorySection section) {
-    StringBuilder nodeText = new StringBuilder();
-    nodeText.append(String.format("%s (%d - %d)", section.name, section.start, section.end));
-
-    if (section.additionalInfo != null && !section.additionalInfo.isEmpty()) {
-      nodeText.append(" | ").append(section.additionalInfo);
-    }
-
-    DefaultMutableTreeNode node = new DefaultMutableTreeNode(nodeText.toString());
-    parent.add(node);
-
-    for (MemoryMap.MemorySection subSection : section.subSections) {
-      addMemorySection(node, subSection);
-    }
+    memoryMapTree.reload();
   }
 
   /**
@@ -345,17 +309,18 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
       StringBuilder sb = new StringBuilder("Selected files:\n");
       for (String fileName : selectedFiles) {
         String strInstructions = controller.memoryManager.getFile(fileName);
-        String assemblerErrors = Assembler.validateFormat(strInstructions);
+        AssembledProgram program = strInstructions == null || strInstructions.isEmpty()
+            ? null
+            : Assembler.assemble(strInstructions);
+        String assemblerErrors = program == null
+            ? Assembler.validateFormat(strInstructions)
+            : Assembler.formatErrors(program);
         if (assemblerErrors != null) {
           JOptionPane.showMessageDialog(this, assemblerErrors, "Error " + fileName, JOptionPane.ERROR_MESSAGE);
           return;
         }
 
-        String[] instructions = strInstructions.split("\n");
-        itcr.model.Process process = createProcess(instructions);
-        for (String instruction : instructions) {
-          controller.memoryManager.storeInstruction("P" + process.getProcessId(), instruction);
-        }
+        itcr.model.Process process = createProcess(program);
         controller.addProcess(process);
         sb.append(fileName).append("\n");
       }
@@ -363,59 +328,37 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
   }
 
   /**
-   * Creates a process from the given instructions.
+   * Creates a process from an assembled program.
    *
-   * @param instructions the instructions for the process
+   * @param program the assembled program
    * @return the created process
    */
-  private itcr.model.Process createProcess(String[] instructions) {
-    int processSize = 0;
-    for (String instruction : instructions) {
-      if (instruction.substring(0, 2).equals("//")) {
-        continue;
-      }
-      processSize += instruction.split("//")[0].length();
-    }
-
-    String processId = "P" + itcr.model.Process.processCounter;
-
-    int baseAddress = this.controller.memoryManager.allocateMemory(processId, processSize);
-
-    for (int i = 0; i < instructions.length; i++) {
-      if (instructions[i].substring(0, 2).equals("//")) {
-        continue;
-      }
-
-      controller.memoryManager.storeInstruction(processId, instructions[i].split("//")[0]);
-    }
-
-    int qtyInstructions = controller.memoryManager.getQtyInstructions(processId);
-    itcr.model.Process process = new itcr.model.Process(qtyInstructions);
-
-    ProcessControlBlock pcb = new ProcessControlBlock(itcr.model.Process.processCounter++, baseAddress, processSize, 1);
-    if (!controller.memoryManager.storeBCP(processId, pcb.toJsonString())) {
-      consoleArea.append("Error storing BCP for process " + processId + "\n");
-    }
-    process.setPCB(pcb);
-    if (!controller.memoryManager.allocateStack(processId)) {
-      consoleArea.append("Error allocating stack for process " + processId + "\n");
-    }
-
-    return process;
+  private itcr.model.Process createProcess(AssembledProgram program) {
+    return controller.createProcess(program, consoleSink::println);
   }
 
   /**
    * Starts the interrupt handler.
    */
   private void startInterruptHandler() {
+    InterruptBus bus = controller.getInterruptBus();
+    interruptConsumer = this::handleInterrupt;
+    for (InterruptCode code : HANDLED_INTERRUPTS) {
+      bus.subscribe(code, interruptConsumer);
+    }
     interruptExecutor.submit(() -> {
-      while (!Thread.currentThread().isInterrupted()) {
-        try {
-          InterruptMessage message = InterruptQueue.takeMessage();
-          handleInterrupt(message);
-        } catch (InterruptedException e) {
-          Thread.currentThread().interrupt();
+      try {
+        while (!Thread.currentThread().isInterrupted()) {
+          // Wait for one message, then handle the ones queued behind it
+          bus.awaitMessages();
+          bus.dispatch(INTERRUPT_BATCH);
         }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } finally {
+        // The window unsubscribed before stopping this thread, what is left
+        // is dropped so the next window does not print it
+        bus.dispatch(Integer.MAX_VALUE);
       }
     });
   }
@@ -426,21 +369,22 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
    * @param message the interrupt message
    */
   private void handleInterrupt(InterruptMessage message) {
-    SwingUtilities.invokeLater(() -> {
-      switch (message.getCode()) {
-        case _10H:
-          printToConsole(message.getMessage());
-          break;
-        case _09H:
-        case _08H:
+    switch (message.getCode()) {
+      case _10H:
+        printToConsole(message.getMessage());
+        break;
+      case _09H:
+      case _08H:
+        SwingUtilities.invokeLater(() -> {
+          // Show the prompt printed before the request
+          consoleSink.flush();
           String input = readFromConsole();
-          UserInputHandler.provideInput(message.getProcessId(), input);
-          updateRegistersDisplay();
-          break;
-        default:
-          break;
-      }
-    });
+          controller.getInterruptBus().provideInput(message.getProcessId(), input);
+        });
+        break;
+      default:
+        break;
+    }
   }
 
   /**
@@ -462,9 +406,7 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
       @Override
       protected void done() {
         SwingUtilities.invokeLater(() -> {
-          consoleArea.append("All instructions executed\n");
-          updateRegistersDisplay();
-          updateMemoryMap();
+          consoleSink.println("All instructions executed");
         });
       }
     }.execute();
@@ -481,23 +423,13 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
           controller.executeInstruction();
         }
         controller.executeInstruction();
-        SwingUtilities.invokeLater(this::updateGUI);
       }
     } catch (Exception ex) {
       final String errorMessage = ex.getMessage();
-      SwingUtilities.invokeLater(() -> consoleArea.append("Error: " + errorMessage + "\n"));
+      consoleSink.println("Error: " + errorMessage);
     }
   }
 
-  /**
-   * Updates the GUI components.
-   */
-  private void updateGUI() {
-    updateRegistersDisplay();
-    updateMemoryMap();
-    updateStatsTab();
-  }
-
   /**
    * Executes the next instruction.
    */
@@ -509,39 +441,30 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
           controller.executeInstruction();
         }
         controller.executeInstruction();
-        updateRegistersDisplay();
-        updateMemoryMap();
-        updateStatsTab();
       }
     } catch (Exception ex) {
       System.out.println("Error: " + ex.getMessage());
-      consoleArea.append("Error: " + ex.getMessage() + "\n");
+      consoleSink.println("Error: " + ex.getMessage());
     }
   }
 
   /**
-   * Cleans the console area.
-   *
+   * Compacts the user space and reports the bytes moved in the console.
    */
-  private void cleanConsole() {
-    consoleArea.setText("");
+  private void compactMemory() {
+    JsonObject result = controller.compactMemory();
+    consoleSink.println(String.format("Memory compacted: %d blocks, %d bytes moved in %.3f ms",
+        result.get("movedBlocks").getAsInt(),
+        result.get("movedBytes").getAsInt(),
+        result.get("nanos").getAsLong() / 1_000_000.0));
   }
 
   /**
-   * Expands all nodes in the JTree.
+   * Cleans the console area.
    *
-   * @param tree          the JTree to expand
-   * @param startingIndex the starting index
-   * @param rowCount      the row count
    */
-  private void expandAllNodes(JTree tree, int startingIndex, int rowCount) {
-    for (int i = startingIndex; i < rowCount; ++i) {
-      tree.expandRow(i);
-    }
-
-    if (tree.getRowCount() != rowCount) {
-      expandAllNodes(tree, rowCount, tree.getRowCount());
-    }
+  private void cleanConsole() {
+    consoleSink.clear();
   }
 
   /**
@@ -550,7 +473,7 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
    * @param message the message to print
    */
   public void printToConsole(String message) {
-    consoleArea.append(message + "\n");
+    consoleSink.println(message);
   }
 
   /**
@@ -567,7 +490,13 @@ public class Hard8086 extends FloatingWindow<Scheduler> {
    */
   @Override
   public void dispose() {
+    for (InterruptCode code : HANDLED_INTERRUPTS) {
+      controller.getInterruptBus().unsubscribe(code, interruptConsumer);
+    }
     interruptExecutor.shutdownNow();
+    renderTimer.stop();
+    controller.setSnapshotPublishing(false);
+    memoryMapTree.detach();
     controller.reset();
     desktopScreenControllerRef.changeScheduler(controller);
     super.dispose();
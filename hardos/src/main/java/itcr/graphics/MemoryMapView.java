@@ -0,0 +1,382 @@
+package itcr.graphics;
+
+import itcr.model.MemoryEvent;
+import itcr.model.MemoryListener;
+import itcr.model.MemoryManager;
+import itcr.model.MemoryMap;
+
+import javax.swing.*;
+import javax.swing.event.*;
+import javax.swing.tree.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * MemoryMapView shows the memory map of a MemoryManager as a tree that is
+ * kept up to date by the events of the manager instead of being rebuilt.
+ *
+ * The tree starts from the outline of the map, which only has the name and
+ * range of every block. The content of a process, stack, BCP or of the
+ * virtual memory is only read from the memory when its node is expanded,
+ * and read again when an event says it changed while the node is open; a
+ * closed node just forgets its content. Events may come from any thread,
+ * they are collected and applied on the event dispatch thread in one batch.
+ */
+public class MemoryMapView extends JTree implements MemoryListener {
+  private static final String LOADING = "Loading...";
+
+  /**
+   * A node showing one section of the map. Nodes of blocks that load their
+   * details lazily hold a placeholder child until they are expanded.
+   */
+  private static class SectionNode extends DefaultMutableTreeNode {
+    MemoryMap.MemorySection section;
+    boolean loaded;
+
+    SectionNode(MemoryMap.MemorySection section) {
+      this.section = section;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder nodeText = new StringBuilder();
+      nodeText.append(String.format("%s (%d - %d)", section.name, section.start, section.end));
+      if (section.additionalInfo != null && !section.additionalInfo.isEmpty()) {
+        nodeText.append(" | ").append(section.additionalInfo);
+      }
+      return nodeText.toString();
+    }
+  }
+
+  private final MemoryManager memoryManager;
+  private final DefaultTreeModel model;
+  private final DefaultMutableTreeNode root = new DefaultMutableTreeNode("Memory");
+  private final DefaultMutableTreeNode processesNode = new DefaultMutableTreeNode("Allocated Processes");
+  private final DefaultMutableTreeNode bcpsNode = new DefaultMutableTreeNode("Process Control Blocks");
+  private final DefaultMutableTreeNode freeSpacesNode = new DefaultMutableTreeNode("Free Spaces");
+  private final DefaultMutableTreeNode stacksNode = new DefaultMutableTreeNode("Allocated Stacks");
+  private final DefaultMutableTreeNode stringsNode = new DefaultMutableTreeNode("Stored Strings");
+  private final DefaultMutableTreeNode filesNode = new DefaultMutableTreeNode("Stored Files");
+  private SectionNode secondaryStorageNode;
+
+  // Nodes of the blocks, by the key of their events
+  private final Map<String, SectionNode> blocks = new HashMap<>();
+  // Blocks created or removed, applied in order
+  private final Queue<MemoryEvent> structuralEvents = new ConcurrentLinkedQueue<>();
+  // Blocks whose content changed, one entry however many times they changed
+  private final Set<String> staleBlocks = ConcurrentHashMap.newKeySet();
+  private final AtomicBoolean updateScheduled = new AtomicBoolean();
+
+  /**
+   * Constructor for MemoryMapView. Builds the tree from the current outline
+   * and starts listening to the memory manager.
+   *
+   * @param memoryManager the memory manager to show
+   */
+  public MemoryMapView(MemoryManager memoryManager) {
+    this.memoryManager = memoryManager;
+    this.model = new DefaultTreeModel(root);
+    setModel(model);
+    setRootVisible(false);
+    setShowsRootHandles(true);
+
+    addTreeWillExpandListener(new TreeWillExpandListener() {
+      @Override
+      public void treeWillExpand(TreeExpansionEvent event) {
+        Object node = event.getPath().getLastPathComponent();
+        if (node instanceof SectionNode && !((SectionNode) node).loaded) {
+          loadDetails((SectionNode) node);
+        }
+      }
+
+      @Override
+      public void treeWillCollapse(TreeExpansionEvent event) {
+      }
+    });
+
+    reload();
+    memoryManager.addMemoryListener(this);
+  }
+
+  /**
+   * Stops listening to the memory manager.
+   */
+  public void detach() {
+    memoryManager.removeMemoryListener(this);
+  }
+
+  /**
+   * Rebuilds the whole tree from the outline of the map. The blocks that were
+   * expanded are expanded again, which reads their details.
+   */
+  public void reload() {
+    Set<String> expanded = new HashSet<>();
+    for (Map.Entry<String, SectionNode> entry : blocks.entrySet()) {
+      if (isExpanded(new TreePath(entry.getValue().getPath()))) {
+        expanded.add(entry.getKey());
+      }
+    }
+    // The outline reflects everything queued so far
+    structuralEvents.clear();
+    staleBlocks.clear();
+
+    MemoryMap outline = memoryManager.getMemoryMapOutline();
+    blocks.clear();
+    root.removeAllChildren();
+    root.add(new SectionNode(outline.kernel));
+    root.add(new SectionNode(outline.os));
+    root.add(new SectionNode(outline.userSpace));
+    secondaryStorageNode = new SectionNode(outline.secondaryStorage);
+    root.add(secondaryStorageNode);
+    if (outline.virtualMemory != null) {
+      root.add(blockNode(outline.virtualMemory));
+    }
+
+    fillCategory(processesNode, outline.allocatedProcesses);
+    fillCategory(bcpsNode, outline.processControlBlocks);
+    fillCategory(freeSpacesNode, outline.freeSpaces);
+    fillCategory(stacksNode, outline.allocatedStacks);
+    fillCategory(stringsNode, describeAll(outline.storedStrings));
+    fillCategory(filesNode, outline.storedFiles);
+    model.reload();
+
+    for (int row = 0; row < getRowCount(); row++) {
+      Object node = getPathForRow(row).getLastPathComponent();
+      if (!(node instanceof SectionNode)) {
+        expandRow(row);
+      }
+    }
+    for (String key : expanded) {
+      SectionNode node = blocks.get(key);
+      if (node != null) {
+        expandPath(new TreePath(node.getPath()));
+      }
+    }
+  }
+
+  /**
+   * Collects a change of the memory and schedules its update on the event
+   * dispatch thread, once for all the changes made until it runs.
+   *
+   * @param event the change
+   */
+  @Override
+  public void memoryChanged(MemoryEvent event) {
+    switch (event.getType()) {
+      case BCP_UPDATED:
+        // The BCP is also shown in the details of its process
+        staleBlocks.add(key(MemoryEvent.Region.BCP, event.getName()));
+        staleBlocks.add(key(MemoryEvent.Region.PROCESS, event.getName()));
+        break;
+      case INSTRUCTIONS_STORED:
+      case STACK_WRITTEN:
+        staleBlocks.add(key(event.getRegion(), event.getName()));
+        break;
+      case PAGES_CHANGED:
+        staleBlocks.add(key(MemoryEvent.Region.VIRTUAL_MEMORY, null));
+        staleBlocks.add(key(MemoryEvent.Region.PAGED_PROCESS, event.getName()));
+        break;
+      default:
+        structuralEvents.add(event);
+        break;
+    }
+    if (updateScheduled.compareAndSet(false, true)) {
+      SwingUtilities.invokeLater(this::applyPendingChanges);
+    }
+  }
+
+  /**
+   * Applies the collected changes to the tree.
+   */
+  private void applyPendingChanges() {
+    updateScheduled.set(false);
+    boolean userSpaceChanged = false;
+    boolean filesChanged = false;
+
+    MemoryEvent event;
+    while ((event = structuralEvents.poll()) != null) {
+      switch (event.getType()) {
+        case RELOCATED:
+        case RESET:
+          reload();
+          return;
+        case ALLOCATED:
+        case FILE_WRITTEN:
+          putBlock(event);
+          break;
+        case FREED:
+          removeBlock(key(event.getRegion(), event.getName()));
+          break;
+        default:
+          break;
+      }
+      userSpaceChanged |= event.getRegion() == MemoryEvent.Region.PROCESS
+          || event.getRegion() == MemoryEvent.Region.STACK;
+      filesChanged |= event.getRegion() == MemoryEvent.Region.FILE;
+    }
+
+    for (Iterator<String> keys = staleBlocks.iterator(); keys.hasNext();) {
+      SectionNode node = blocks.get(keys.next());
+      keys.remove();
+      if (node == null || !node.loaded) {
+        continue;
+      }
+      if (isExpanded(new TreePath(node.getPath()))) {
+        loadDetails(node);
+      } else {
+        unloadDetails(node);
+      }
+    }
+
+    if (userSpaceChanged) {
+      fillCategory(freeSpacesNode, memoryManager.getFreeSpaces());
+      model.nodeStructureChanged(freeSpacesNode);
+    }
+    if (filesChanged) {
+      secondaryStorageNode.section = memoryManager.secondaryStorageSection();
+      model.nodeChanged(secondaryStorageNode);
+    }
+  }
+
+  /**
+   * Adds the node of a new block, or updates the label of an existing one.
+   *
+   * @param event the event that created or rewrote the block
+   */
+  private void putBlock(MemoryEvent event) {
+    MemoryMap.MemorySection section = memoryManager.describeSection(event.getRegion(), event.getName());
+    if (section == null) {
+      // Freed again before this update ran
+      return;
+    }
+    String key = key(section.region, section.blockName);
+    SectionNode node = blocks.get(key);
+    if (node != null) {
+      node.section = isLazy(section.region) ? outlineOf(section) : section;
+      model.nodeChanged(node);
+      return;
+    }
+    DefaultMutableTreeNode category = categoryOf(section.region);
+    model.insertNodeInto(blockNode(section), category, category.getChildCount());
+    if (category.getChildCount() == 1) {
+      // An empty category can not be expanded, open it with its first block
+      expandPath(new TreePath(category.getPath()));
+    }
+  }
+
+  private void removeBlock(String key) {
+    SectionNode node = blocks.remove(key);
+    if (node != null) {
+      model.removeNodeFromParent(node);
+    }
+  }
+
+  /**
+   * Reads the details of a block and shows them as the children of its node.
+   *
+   * @param node the node of the block
+   */
+  private void loadDetails(SectionNode node) {
+    MemoryMap.MemorySection section = memoryManager.describeSection(node.section.region, node.section.blockName);
+    node.removeAllChildren();
+    if (section != null) {
+      node.section = outlineOf(section);
+      if (section.additionalInfo != null && !section.additionalInfo.isEmpty()) {
+        node.add(new DefaultMutableTreeNode(section.additionalInfo));
+      }
+      for (MemoryMap.MemorySection subSection : section.subSections) {
+        addSection(node, subSection);
+      }
+    }
+    node.loaded = true;
+    model.nodeStructureChanged(node);
+  }
+
+  private void unloadDetails(SectionNode node) {
+    node.removeAllChildren();
+    node.add(new DefaultMutableTreeNode(LOADING));
+    node.loaded = false;
+    model.nodeStructureChanged(node);
+  }
+
+  private void fillCategory(DefaultMutableTreeNode category, List<MemoryMap.MemorySection> sections) {
+    if (category.getParent() == null) {
+      root.add(category);
+    }
+    category.removeAllChildren();
+    for (MemoryMap.MemorySection section : sections) {
+      if (section.region != null) {
+        category.add(blockNode(section));
+      } else {
+        addSection(category, section);
+      }
+    }
+  }
+
+  /**
+   * Creates the node of a block and indexes it by the key of its events. A
+   * lazy block only shows its name and range until it is expanded.
+   */
+  private SectionNode blockNode(MemoryMap.MemorySection section) {
+    SectionNode node;
+    if (isLazy(section.region)) {
+      node = new SectionNode(outlineOf(section));
+      node.add(new DefaultMutableTreeNode(LOADING));
+    } else {
+      node = new SectionNode(section);
+    }
+    blocks.put(key(section.region, section.blockName), node);
+    return node;
+  }
+
+  private void addSection(DefaultMutableTreeNode parent, MemoryMap.MemorySection section) {
+    SectionNode node = new SectionNode(section);
+    parent.add(node);
+    for (MemoryMap.MemorySection subSection : section.subSections) {
+      addSection(node, subSection);
+    }
+  }
+
+  /**
+   * Reads the values of strings listed by the outline, which are short
+   * enough to show in their labels.
+   */
+  private List<MemoryMap.MemorySection> describeAll(List<MemoryMap.MemorySection> sections) {
+    List<MemoryMap.MemorySection> described = new ArrayList<>(sections.size());
+    for (MemoryMap.MemorySection section : sections) {
+      MemoryMap.MemorySection details = memoryManager.describeSection(section.region, section.blockName);
+      described.add(details != null ? details : section);
+    }
+    return described;
+  }
+
+  private DefaultMutableTreeNode categoryOf(MemoryEvent.Region region) {
+    switch (region) {
+      case BCP:
+        return bcpsNode;
+      case STACK:
+        return stacksNode;
+      case STRING:
+        return stringsNode;
+      case FILE:
+        return filesNode;
+      default:
+        return processesNode;
+    }
+  }
+
+  private static boolean isLazy(MemoryEvent.Region region) {
+    return region != MemoryEvent.Region.STRING && region != MemoryEvent.Region.FILE;
+  }
+
+  private static MemoryMap.MemorySection outlineOf(MemoryMap.MemorySection section) {
+    return new MemoryMap.MemorySection(section.name, section.start, section.end, null)
+        .forBlock(section.region, section.blockName);
+  }
+
+  private static String key(MemoryEvent.Region region, String name) {
+    return region + ":" + name;
+  }
+}
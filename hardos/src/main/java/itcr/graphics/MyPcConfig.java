@@ -1,6 +1,9 @@
 package itcr.graphics;
 
 import itcr.controllers.MyPcConfigController;
+import itcr.model.AllocationPolicy;
+import itcr.model.PageReplacement;
+import itcr.model.SchedulingAlgorithm;
 
 import javax.swing.*;
 import java.awt.*;
@@ -19,6 +22,13 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
   private JTextField secondaryMemorySizeField;
   private JTextField virtualMemorySizeField;
   private JTextField numCPUsField;
+  private JComboBox<AllocationPolicy> allocationPolicyBox;
+  private JComboBox<PageReplacement> pageReplacementBox;
+  private JTextField stackDepthField;
+  private JComboBox<SchedulingAlgorithm> schedulingAlgorithmBox;
+  private JTextField quantumField;
+  private JCheckBox parallelExecutionBox;
+  private JTextField compactionThresholdField;
   private JButton loadConfigButton;
 
   /**
@@ -38,7 +48,7 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
    */
   @Override
   protected void initComponents() {
-    JPanel mainPanel = new JPanel(new GridLayout(7, 2));
+    JPanel mainPanel = new JPanel(new GridLayout(14, 2));
 
     mainPanel.add(new JLabel("Tamaño del Kernel:"));
     kernelSizeField = new JTextField(String.valueOf(controller.getKernelSize()));
@@ -64,6 +74,37 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
     numCPUsField = new JTextField(String.valueOf(controller.getNumCPUs()));
     mainPanel.add(numCPUsField);
 
+    mainPanel.add(new JLabel("Política de asignación:"));
+    allocationPolicyBox = new JComboBox<>(AllocationPolicy.values());
+    allocationPolicyBox.setSelectedItem(controller.getAllocationPolicy());
+    mainPanel.add(allocationPolicyBox);
+
+    mainPanel.add(new JLabel("Reemplazo de páginas:"));
+    pageReplacementBox = new JComboBox<>(PageReplacement.values());
+    pageReplacementBox.setSelectedItem(controller.getPageReplacement());
+    mainPanel.add(pageReplacementBox);
+
+    mainPanel.add(new JLabel("Profundidad de la pila (entradas):"));
+    stackDepthField = new JTextField(String.valueOf(controller.getStackDepth()));
+    mainPanel.add(stackDepthField);
+
+    mainPanel.add(new JLabel("Algoritmo de planificación:"));
+    schedulingAlgorithmBox = new JComboBox<>(SchedulingAlgorithm.values());
+    schedulingAlgorithmBox.setSelectedItem(controller.getSchedulingAlgorithm());
+    mainPanel.add(schedulingAlgorithmBox);
+
+    mainPanel.add(new JLabel("Quantum (instrucciones):"));
+    quantumField = new JTextField(String.valueOf(controller.getQuantum()));
+    mainPanel.add(quantumField);
+
+    mainPanel.add(new JLabel("Ejecución paralela de CPUs:"));
+    parallelExecutionBox = new JCheckBox("", controller.isParallelExecution());
+    mainPanel.add(parallelExecutionBox);
+
+    mainPanel.add(new JLabel("Umbral de compactación (0 = manual):"));
+    compactionThresholdField = new JTextField(String.valueOf(controller.getCompactionThreshold()));
+    mainPanel.add(compactionThresholdField);
+
     JButton saveButton = new JButton("Guardar");
     saveButton.addActionListener(e -> saveChanges());
     mainPanel.add(saveButton);
@@ -85,10 +126,23 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
     int secondaryMemorySize = Integer.parseInt(secondaryMemorySizeField.getText());
     int virtualMemorySize = Integer.parseInt(virtualMemorySizeField.getText());
     int numCPUs = Integer.parseInt(numCPUsField.getText());
+    int quantum = Integer.parseInt(quantumField.getText());
+    int stackDepth = Integer.parseInt(stackDepthField.getText());
+    double compactionThreshold = Double.parseDouble(compactionThresholdField.getText());
 
     String errorMsg = controller.validateConfiguration(kernelSize, osSize, mainMemorySize, secondaryMemorySize,
         virtualMemorySize, numCPUs);
 
+    if (errorMsg == null && quantum < 0) {
+      errorMsg = "El quantum no puede ser negativo";
+    }
+    if (errorMsg == null && stackDepth < 1) {
+      errorMsg = "La pila debe tener al menos una entrada";
+    }
+    if (errorMsg == null && (compactionThreshold < 0 || compactionThreshold > 1)) {
+      errorMsg = "El umbral de compactación debe estar entre 0 y 1";
+    }
+
     if (errorMsg != null) {
       JOptionPane.showMessageDialog(this, errorMsg);
       return;
@@ -100,6 +154,12 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
     controller.setSecondaryMemorySize(secondaryMemorySize);
     controller.setVirtualMemorySize(virtualMemorySize);
     controller.setNumCpus(numCPUs);
+    controller.setAllocationPolicy((AllocationPolicy) allocationPolicyBox.getSelectedItem());
+    controller.setPageReplacement((PageReplacement) pageReplacementBox.getSelectedItem());
+    controller.setStackDepth(stackDepth);
+    controller.setSchedulingPolicy((SchedulingAlgorithm) schedulingAlgorithmBox.getSelectedItem(), quantum);
+    controller.setParallelExecution(parallelExecutionBox.isSelected());
+    controller.setCompactionThreshold(compactionThreshold);
 
     dispose();
   }
@@ -150,5 +210,8 @@ public class MyPcConfig extends FloatingWindow<MyPcConfigController> {
     mainMemorySizeField.setText(String.valueOf(controller.getMainMemorySize()));
     secondaryMemorySizeField.setText(String.valueOf(controller.getSecondaryMemorySize()));
     virtualMemorySizeField.setText(String.valueOf(controller.getVirtualMemorySize()));
+    allocationPolicyBox.setSelectedItem(controller.getAllocationPolicy());
+    pageReplacementBox.setSelectedItem(controller.getPageReplacement());
+    stackDepthField.setText(String.valueOf(controller.getStackDepth()));
   }
 }
\ No newline at end of file
@@ -11,6 +11,8 @@ public class StatsTab extends JPanel {
   private JTree cpuTree;
   private JPanel detailsPanel;
   private Map<Integer, Map<String, JsonObject>> cpuStats;
+  private JsonObject pagingStats;
+  private DefaultMutableTreeNode pagingNode;
 
   public StatsTab() {
     setLayout(new BorderLayout());
@@ -26,7 +28,9 @@ public class StatsTab extends JPanel {
           return;
 
         Object userObject = node.getUserObject();
-        if (userObject instanceof ProcessInfo) {
+        if (node == pagingNode) {
+          showPagingDetails();
+        } else if (userObject instanceof ProcessInfo) {
           ProcessInfo processInfo = (ProcessInfo) userObject;
           showProcessDetails(processInfo.cpuId, processInfo.processId);
         } else if (node.getLevel() == 2) {
@@ -53,6 +57,11 @@ public class StatsTab extends JPanel {
     updateTree();
   }
 
+  public void updateStats(Map<Integer, Map<String, JsonObject>> newStats, JsonObject newPagingStats) {
+    this.pagingStats = newPagingStats;
+    updateStats(newStats);
+  }
+
   private void updateTree() {
     DefaultMutableTreeNode root = new DefaultMutableTreeNode("CPUs");
     for (Map.Entry<Integer, Map<String, JsonObject>> cpuEntry : cpuStats.entrySet()) {
@@ -71,6 +80,11 @@ public class StatsTab extends JPanel {
       }
       root.add(cpuNode);
     }
+    pagingNode = null;
+    if (pagingStats != null) {
+      pagingNode = new DefaultMutableTreeNode("Virtual Memory");
+      root.add(pagingNode);
+    }
     ((DefaultTreeModel) cpuTree.getModel()).setRoot(root);
   }
 
@@ -84,6 +98,18 @@ public class StatsTab extends JPanel {
       addDetailLabel("Start Time: " + stats.get("startTime").getAsString());
       addDetailLabel("Finish Time: " + stats.get("finishTime").getAsString());
       addDetailLabel("Total Core Usage Time: " + stats.get("totalCoreUsageTime").getAsString() + " seconds");
+      if (stats.has("schedulingPolicy")) {
+        addDetailLabel("Scheduling Policy: " + stats.get("schedulingPolicy").getAsString());
+        addDetailLabel("Priority: " + stats.get("priority").getAsInt());
+        addDetailLabel("Waiting Time: " + stats.get("waitingTime").getAsInt() + " ms");
+      }
+      if (stats.has("paged") && stats.get("paged").getAsBoolean()) {
+        long hits = stats.get("tlbHits").getAsLong();
+        long misses = stats.get("tlbMisses").getAsLong();
+        addDetailLabel("Page Faults: " + stats.get("pageFaults").getAsLong());
+        addDetailLabel("TLB Hits: " + hits + " / Misses: " + misses);
+        addDetailLabel(String.format("TLB Hit Rate: %.1f %%", hits + misses == 0 ? 0.0 : 100.0 * hits / (hits + misses)));
+      }
     }
     detailsPanel.revalidate();
     detailsPanel.repaint();
@@ -96,6 +122,27 @@ public class StatsTab extends JPanel {
     detailsPanel.add(Box.createRigidArea(new Dimension(0, 5)));
   }
 
+  private void showPagingDetails() {
+    detailsPanel.removeAll();
+    JLabel pagingLabel = new JLabel("Virtual Memory");
+    pagingLabel.setFont(pagingLabel.getFont().deriveFont(Font.BOLD, 14f));
+    detailsPanel.add(pagingLabel);
+    detailsPanel.add(Box.createRigidArea(new Dimension(0, 10)));
+    addDetailLabel("Replacement: " + pagingStats.get("replacement").getAsString());
+    addDetailLabel("Page Size: " + pagingStats.get("pageSize").getAsInt() + " bytes");
+    addDetailLabel("Frames Used: " + pagingStats.get("usedFrames").getAsInt() + " / "
+        + pagingStats.get("frames").getAsInt());
+    addDetailLabel("Paged Processes: " + pagingStats.get("pagedProcesses").getAsInt());
+    addDetailLabel("Page Faults: " + pagingStats.get("pageFaults").getAsLong());
+    addDetailLabel("Evictions: " + pagingStats.get("evictions").getAsLong());
+    addDetailLabel("Page Ins: " + pagingStats.get("pageIns").getAsLong() + " / Page Outs: "
+        + pagingStats.get("pageOuts").getAsLong());
+    addDetailLabel("Swap Used: " + pagingStats.get("swapBytes").getAsInt() + " bytes");
+    addDetailLabel(String.format("TLB Hit Rate: %.1f %%", 100.0 * pagingStats.get("tlbHitRate").getAsDouble()));
+    detailsPanel.revalidate();
+    detailsPanel.repaint();
+  }
+
   private void showCoreDetails(DefaultMutableTreeNode coreNode) {
     detailsPanel.removeAll();
     int processCount = coreNode.getChildCount();
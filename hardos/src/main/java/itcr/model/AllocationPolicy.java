@@ -0,0 +1,28 @@
+package itcr.model;
+
+/**
+ * AllocationPolicy lists the strategies available to place processes and
+ * stacks in the user space of the main memory.
+ */
+public enum AllocationPolicy {
+  FIRST_FIT, BEST_FIT, NEXT_FIT, BUDDY;
+
+  /**
+   * Parses a policy name as written in the configuration files. Case, dashes
+   * and spaces are ignored, so "first-fit", "First Fit" and "FIRST_FIT" are
+   * all accepted.
+   *
+   * @param name the name of the policy
+   * @return the matching policy
+   * @throws IllegalArgumentException if the name does not match any policy
+   */
+  public static AllocationPolicy fromString(String name) {
+    String normalized = name.trim().toUpperCase().replace('-', '_').replace(' ', '_');
+    for (AllocationPolicy policy : values()) {
+      if (policy.name().equals(normalized) || policy.name().replace("_", "").equals(normalized)) {
+        return policy;
+      }
+    }
+    throw new IllegalArgumentException("Invalid allocation policy: " + name);
+  }
+}
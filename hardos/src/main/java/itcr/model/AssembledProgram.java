@@ -0,0 +1,46 @@
+package itcr.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AssembledProgram is the result of assembling a source file: the decoded
+ * instructions with every label already turned into a relative offset, and
+ * the errors found on the way. A program with errors can not be loaded.
+ */
+public class AssembledProgram {
+  private final List<Instruction> instructions;
+  private final List<AssemblerDiagnostic> diagnostics;
+
+  /**
+   * Constructor for AssembledProgram.
+   *
+   * @param instructions the decoded instructions
+   * @param diagnostics  the errors found while assembling
+   */
+  AssembledProgram(List<Instruction> instructions, List<AssemblerDiagnostic> diagnostics) {
+    this.instructions = Collections.unmodifiableList(instructions);
+    this.diagnostics = Collections.unmodifiableList(diagnostics);
+  }
+
+  public boolean hasErrors() {
+    return !diagnostics.isEmpty();
+  }
+
+  public List<Instruction> getInstructions() {
+    return instructions;
+  }
+
+  public List<AssemblerDiagnostic> getDiagnostics() {
+    return diagnostics;
+  }
+
+  /**
+   * Gets the number of bytes the binary image of the program takes in memory.
+   *
+   * @return the image size in bytes
+   */
+  public int getImageSize() {
+    return InstructionCodec.imageSize(instructions);
+  }
+}
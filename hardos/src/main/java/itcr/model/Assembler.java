@@ -1,59 +1,118 @@
 package itcr.model;
 
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * Assembler class provides methods to validate assembly code instructions.
+ * Assembler class turns assembly code into the decoded instructions that are
+ * loaded into memory as a binary image.
+ *
+ * The first pass reads every line once with {@link InstructionParser} and
+ * records where each label is defined. The second pass replaces the labels
+ * used by jumps with the offset from the jump to the labelled instruction.
  */
 public class Assembler {
 
-  private static final String MOV_REGEX = "^MOV\\s+([A-D]X)\\s*,\\s*(([A-D]X)|\\d+)(\\s*//.*)?$";
-  private static final String LOAD_REGEX = "^LOAD\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String STORE_REGEX = "^STORE\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String ADD_REGEX = "^ADD\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String SUB_REGEX = "^SUB\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String INC_REGEX = "^INC\\s+([A-D]X)(\\s*//.*)?$|^INC(\\s*//.*)?$";
-  private static final String DEC_REGEX = "^DEC\\s+([A-D]X)(\\s*//.*)?$|^DEC(\\s*//.*)?$";
-  private static final String SWAP_REGEX = "^SWAP\\s+([A-D]X)\\s*,\\s*([A-D]X)(\\s*//.*)?$";
-  private static final String INT_REGEX = "^INT\\s+\\_[0-9][0-9]H(\\s*//.*)?$";
-  private static final String JMP_REGEX = "^JMP\\s*[+\\-]?\\d+(\\s*//.*)?$";
-  private static final String CMP_REGEX = "^CMP\\s+([A-D]X)\\s*,\\s*([A-D]X)(\\s*//.*)?$";
-  private static final String JE_REGEX = "^JE\\s*[+\\-]?\\d+(\\s*//.*)?$";
-  private static final String JNE_REGEX = "^JNE\\s*[+\\-]?\\d+(\\s*//.*)?$";
-  private static final String PARAM_REGEX = "^PARAM\\s+(-?\\d+\\s*(,\\s-?\\d+\\s*){0,2})(\\s*//.*)?$";
-  private static final String PUSH_REGEX = "^PUSH\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String POP_REGEX = "^POP\\s+([A-D]X)(\\s*//.*)?$";
-  private static final String COMMENT_REGEX = "^(//.*)$";
+  /**
+   * Assembles the given assembly code.
+   *
+   * @param code the assembly code
+   * @return the assembled program, with the errors of every line
+   */
+  public static AssembledProgram assemble(String code) {
+    List<Instruction> instructions = new ArrayList<>();
+    List<AssemblerDiagnostic> diagnostics = new ArrayList<>();
+    Map<String, Integer> labels = new HashMap<>();
+    Map<String, Integer> labelLines = new HashMap<>();
+    List<InstructionParser> jumpsToLabels = new ArrayList<>();
+    List<Integer> jumpIndices = new ArrayList<>();
+
+    // First pass: decode the instructions and find the labels
+    int lineNumber = 1;
+    int start = 0;
+    while (start <= code.length()) {
+      int end = code.indexOf('\n', start);
+      if (end == -1) {
+        end = code.length();
+      }
+
+      InstructionParser parser = new InstructionParser(code.substring(start, end), lineNumber++);
+      Instruction instruction = parser.parseLine();
+      if (parser.diagnostic != null) {
+        diagnostics.add(parser.diagnostic);
+      } else {
+        if (parser.label != null) {
+          Integer firstLine = labelLines.putIfAbsent(parser.label, parser.lineNumber);
+          if (firstLine == null) {
+            labels.put(parser.label, instructions.size());
+          } else {
+            diagnostics.add(new AssemblerDiagnostic(parser.lineNumber, parser.labelColumn,
+                "una etiqueta que no esté definida (ya se definió en la línea " + firstLine + ")",
+                parser.label));
+          }
+        }
+        if (instruction != null) {
+          if (parser.target != null) {
+            jumpsToLabels.add(parser);
+            jumpIndices.add(instructions.size());
+          }
+          instructions.add(instruction);
+        }
+      }
+      start = end + 1;
+    }
+
+    // Second pass: resolve the labels to offsets relative to the jump
+    for (int i = 0; i < jumpsToLabels.size(); i++) {
+      InstructionParser parser = jumpsToLabels.get(i);
+      Integer target = labels.get(parser.target);
+      if (target == null) {
+        diagnostics.add(new AssemblerDiagnostic(parser.lineNumber, parser.targetColumn,
+            "una etiqueta definida", parser.target));
+        continue;
+      }
+      int index = jumpIndices.get(i);
+      Instruction jump = instructions.get(index);
+      instructions.set(index, new Instruction(jump.type, Instruction.NO_REGISTER, Instruction.NO_REGISTER,
+          target - index, null));
+    }
+
+    diagnostics.sort(Comparator.comparingInt(AssemblerDiagnostic::getLine)
+        .thenComparingInt(AssemblerDiagnostic::getColumn));
+    return new AssembledProgram(instructions, diagnostics);
+  }
 
   /**
-   * Validates a single instruction against known patterns.
+   * Parses the given assembly code and collects the errors of every line.
    *
-   * @param instruction the instruction to validate
-   * @param lineNumber the line number of the instruction
-   * @return null if the instruction is valid, otherwise an error message
+   * @param code the assembly code to parse
+   * @return the diagnostics, empty if the code is valid
    */
-  private static String validateInstruction(String instruction, int lineNumber) {
-    if (instruction.matches(MOV_REGEX)) return null;
-    if (instruction.matches(LOAD_REGEX)) return null;
-    if (instruction.matches(STORE_REGEX)) return null;
-    if (instruction.matches(ADD_REGEX)) return null;
-    if (instruction.matches(SUB_REGEX)) return null;
-    if (instruction.matches(INC_REGEX)) return null;
-    if (instruction.matches(DEC_REGEX)) return null;
-    if (instruction.matches(SWAP_REGEX)) return null;
-    if (instruction.matches(INT_REGEX)) return null;
-    if (instruction.matches(JMP_REGEX)) return null;
-    if (instruction.matches(CMP_REGEX)) return null;
-    if (instruction.matches(JE_REGEX)) return null;
-    if (instruction.matches(JNE_REGEX)) return null;
-    if (instruction.matches(PARAM_REGEX)) return null;
-    if (instruction.matches(PUSH_REGEX)) return null;
-    if (instruction.matches(POP_REGEX)) return null;
-    if (instruction.matches(COMMENT_REGEX)) return null;
+  public static List<AssemblerDiagnostic> diagnose(String code) {
+    return assemble(code).getDiagnostics();
+  }
 
-    // If we reach this point, the instruction is not recognized
-    return String.format("Error en línea %d: Instrucción no reconocida '%s'", lineNumber, instruction);
+  /**
+   * Decodes a single instruction.
+   *
+   * @param instruction the text of the instruction
+   * @return the decoded instruction
+   * @throws IllegalArgumentException if the text is not a valid instruction or
+   *                                  jumps to a label
+   */
+  public static Instruction parseInstruction(String instruction) {
+    InstructionParser parser = new InstructionParser(instruction, 1);
+    Instruction decoded = parser.parseLine();
+    if (parser.diagnostic != null) {
+      throw new IllegalArgumentException(parser.diagnostic.getMessage());
+    }
+    if (decoded == null || parser.target != null) {
+      throw new IllegalArgumentException("Not a single instruction: '" + instruction + "'");
+    }
+    return decoded;
   }
 
   /**
@@ -66,24 +125,27 @@ public class Assembler {
     if (code == null || code.isEmpty()) {
       return "Error: El código está vacío o es nulo";
     }
+    return formatErrors(assemble(code));
+  }
 
-    String[] lines = code.split("\\r?\\n");
-    List<String> errors = new ArrayList<>();
-
-    for (int i = 0; i < lines.length; i++) {
-      String line = lines[i].trim();
-      if (!line.isEmpty()) {
-        String error = validateInstruction(line, i + 1);
-        if (error != null) {
-          errors.add(error);
-        }
-      }
+  /**
+   * Joins the messages of the errors of an assembled program.
+   *
+   * @param program the assembled program
+   * @return null if the program has no errors, otherwise an error message
+   */
+  public static String formatErrors(AssembledProgram program) {
+    if (!program.hasErrors()) {
+      return null;  // There are no errors
     }
 
-    if (errors.isEmpty()) {
-      return null;  // There are no errors
-    } else {
-      return String.join("\n", errors);
+    StringBuilder errors = new StringBuilder();
+    for (AssemblerDiagnostic diagnostic : program.getDiagnostics()) {
+      if (errors.length() > 0) {
+        errors.append('\n');
+      }
+      errors.append(diagnostic.getMessage());
     }
+    return errors.toString();
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,58 @@
+package itcr.model;
+
+/**
+ * AssemblerDiagnostic describes an error found while parsing a line of
+ * assembly code: where it is and what the parser expected to find there.
+ */
+public class AssemblerDiagnostic {
+  private final int line;
+  private final int column;
+  private final String expected;
+  private final String found;
+
+  /**
+   * Constructor for AssemblerDiagnostic.
+   *
+   * @param line     the line number, starting at 1
+   * @param column   the column number, starting at 1
+   * @param expected a description of the token the parser expected
+   * @param found    the text found instead, empty at the end of the line
+   */
+  AssemblerDiagnostic(int line, int column, String expected, String found) {
+    this.line = line;
+    this.column = column;
+    this.expected = expected;
+    this.found = found;
+  }
+
+  public int getLine() {
+    return line;
+  }
+
+  public int getColumn() {
+    return column;
+  }
+
+  public String getExpected() {
+    return expected;
+  }
+
+  public String getFound() {
+    return found;
+  }
+
+  /**
+   * Gets the message shown to the user.
+   *
+   * @return the error message
+   */
+  public String getMessage() {
+    return String.format("Error en línea %d, columna %d: se esperaba %s pero se encontró %s",
+        line, column, expected, found.isEmpty() ? "el fin de línea" : "'" + found + "'");
+  }
+
+  @Override
+  public String toString() {
+    return getMessage();
+  }
+}
@@ -0,0 +1,120 @@
+package itcr.model;
+
+import java.util.Arrays;
+
+/**
+ * BlockCompiler turns a hot basic block of a program into a
+ * {@link CompiledBlock}.
+ *
+ * Every instruction becomes an operation of the code array with its
+ * registers already resolved, so running the block skips the fetch, the
+ * decoding and the bookkeeping of the interpreter. Only instructions that
+ * touch nothing but the register file and the flags are compiled; a block
+ * stops before the first PUSH, POP, PARAM or INT, and the interpreter runs
+ * those.
+ */
+final class BlockCompiler {
+  // A block shorter than this does not pay for leaving the interpreter
+  private static final int MIN_BLOCK_LENGTH = 2;
+
+  private BlockCompiler() {
+  }
+
+  /**
+   * Compiles the block starting at an instruction.
+   *
+   * @param program the decoded instructions of the program
+   * @param start   the index of the first instruction of the block
+   * @return the compiled block, or null if the block can not be compiled
+   */
+  static CompiledBlock compile(Instruction[] program, int start) {
+    int[] code = new int[CompiledBlock.OPERATION_SIZE * 8];
+    int size = 0;
+    int index = start;
+    while (index < program.length && program[index] != null) {
+      int opcode = opcode(program[index]);
+      if (opcode < 0) {
+        break;
+      }
+      if (size == code.length) {
+        code = Arrays.copyOf(code, code.length * 2);
+      }
+      Instruction instruction = program[index];
+      code[size] = opcode;
+      code[size + 1] = instruction.destRegister;
+      code[size + 2] = instruction.sourceRegister;
+      code[size + 3] = instruction.immediate;
+      size += CompiledBlock.OPERATION_SIZE;
+      index++;
+    }
+
+    int condition = CompiledBlock.FALL_THROUGH;
+    int target = 0;
+    if (index < program.length && program[index] != null) {
+      Instruction jump = program[index];
+      target = index + jump.immediate;
+      condition = condition(jump.type);
+      // A jump out of the program is left to the interpreter, which reports it
+      if (target < 0 || target >= program.length) {
+        condition = CompiledBlock.FALL_THROUGH;
+      }
+    }
+
+    int length = size / CompiledBlock.OPERATION_SIZE + (condition != CompiledBlock.FALL_THROUGH ? 1 : 0);
+    if (length < MIN_BLOCK_LENGTH) {
+      return null;
+    }
+    Instruction last = program[start + length - 1];
+    return new CompiledBlock(start, Arrays.copyOf(code, size), condition, target, last);
+  }
+
+  /**
+   * Gets the opcode of a register instruction.
+   *
+   * @param instruction the instruction
+   * @return the opcode, or -1 if the instruction can not be compiled
+   */
+  private static int opcode(Instruction instruction) {
+    switch (instruction.type) {
+      case LOAD:
+        return CompiledBlock.LOAD;
+      case STORE:
+        return CompiledBlock.STORE;
+      case MOV:
+        return instruction.sourceRegister != Instruction.NO_REGISTER
+            ? CompiledBlock.MOV_REGISTER
+            : CompiledBlock.MOV_IMMEDIATE;
+      case ADD:
+        return CompiledBlock.ADD;
+      case SUB:
+        return CompiledBlock.SUB;
+      case INC:
+        return CompiledBlock.INC;
+      case DEC:
+        return CompiledBlock.DEC;
+      case SWAP:
+        return CompiledBlock.SWAP;
+      case CMP:
+        return CompiledBlock.CMP;
+      default:
+        return -1;
+    }
+  }
+
+  private static int condition(InstructionType type) {
+    switch (type) {
+      case JMP:
+        return CompiledBlock.ALWAYS;
+      case JE:
+        return CompiledBlock.IF_ZERO;
+      case JNE:
+        return CompiledBlock.IF_NOT_ZERO;
+      case JG:
+        return CompiledBlock.IF_GREATER;
+      case JL:
+        return CompiledBlock.IF_LESS;
+      default:
+        return CompiledBlock.FALL_THROUGH;
+    }
+  }
+}
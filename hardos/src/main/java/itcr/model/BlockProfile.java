@@ -0,0 +1,64 @@
+package itcr.model;
+
+/**
+ * BlockProfile counts how often each instruction of a program is entered by
+ * a taken jump and keeps the blocks compiled for it. It belongs to the
+ * program image of a process, so it is dropped with the memory of the
+ * process.
+ */
+final class BlockProfile {
+  // Taken jumps into an instruction before the block starting there is compiled
+  static final int HOT_THRESHOLD = 50;
+  private static final int NOT_COMPILABLE = -1;
+
+  private final int[] entries;
+  private final CompiledBlock[] blocks;
+
+  /**
+   * Constructor for BlockProfile.
+   *
+   * @param instructionCount the number of instructions of the program
+   */
+  BlockProfile(int instructionCount) {
+    this.entries = new int[instructionCount];
+    this.blocks = new CompiledBlock[instructionCount];
+  }
+
+  /**
+   * Gets the compiled block starting at an instruction.
+   *
+   * @param index the index of the instruction
+   * @return the block, or null if none was compiled
+   */
+  CompiledBlock getBlock(int index) {
+    return blocks[index];
+  }
+
+  void setBlock(int index, CompiledBlock block) {
+    blocks[index] = block;
+  }
+
+  /**
+   * Counts a taken jump into an instruction.
+   *
+   * @param index the index of the jump target
+   * @return true exactly once, when the target becomes hot
+   */
+  boolean recordEntry(int index) {
+    int count = entries[index];
+    if (count == NOT_COMPILABLE || count >= HOT_THRESHOLD) {
+      return false;
+    }
+    entries[index] = count + 1;
+    return count + 1 == HOT_THRESHOLD;
+  }
+
+  /**
+   * Marks an instruction as not worth compiling, so it is not tried again.
+   *
+   * @param index the index of the instruction
+   */
+  void markNotCompilable(int index) {
+    entries[index] = NOT_COMPILABLE;
+  }
+}
@@ -0,0 +1,149 @@
+package itcr.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * BuddyAllocator implements the buddy system. Blocks have power of two sizes
+ * and are split in halves until they fit the request; a freed block is merged
+ * with its buddy whenever the buddy is free as well.
+ *
+ * A region whose size is not a power of two is covered by the largest aligned
+ * power of two blocks that fit in it, so no byte of the region is lost apart
+ * from a tail smaller than the minimum block.
+ */
+class BuddyAllocator extends MemoryAllocator {
+  private static final int MIN_ORDER = 4; // 16 byte blocks
+
+  private final int maxOrder;
+  // free block offsets (relative to regionStart) for every order
+  private final List<TreeSet<Integer>> freeLists = new ArrayList<>();
+
+  /**
+   * Constructor for BuddyAllocator.
+   *
+   * @param regionStart the first address of the region
+   * @param regionSize  the size of the region in bytes
+   */
+  BuddyAllocator(int regionStart, int regionSize) {
+    super(regionStart, regionSize);
+    this.maxOrder = Math.max(MIN_ORDER, 31 - Integer.numberOfLeadingZeros(Math.max(this.regionSize, 1)));
+    for (int order = 0; order <= maxOrder; order++) {
+      freeLists.add(new TreeSet<>());
+    }
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    for (TreeSet<Integer> freeList : freeLists) {
+      freeList.clear();
+    }
+
+    int offset = 0;
+    for (int order = maxOrder; order >= MIN_ORDER; order--) {
+      if (offset + (1 << order) <= regionSize) {
+        freeLists.get(order).add(offset);
+        offset += 1 << order;
+      }
+    }
+  }
+
+  @Override
+  protected int allocateBlock(int size) {
+    int order = orderFor(size);
+    if (order > maxOrder) {
+      return -1;
+    }
+
+    int available = order;
+    while (available <= maxOrder && freeLists.get(available).isEmpty()) {
+      available++;
+    }
+    if (available > maxOrder) {
+      return -1;
+    }
+
+    int offset = freeLists.get(available).pollFirst();
+    while (available > order) {
+      available--;
+      freeLists.get(available).add(offset + (1 << available));
+    }
+    return regionStart + offset;
+  }
+
+  @Override
+  public void free(int start, int size) {
+    if (size <= 0) {
+      return;
+    }
+
+    int offset = start - regionStart;
+    int order = orderFor(size);
+    while (order < maxOrder) {
+      int buddy = offset ^ (1 << order);
+      if (!freeLists.get(order).remove(buddy)) {
+        break;
+      }
+      offset = Math.min(offset, buddy);
+      order++;
+    }
+    freeLists.get(order).add(offset);
+  }
+
+  /**
+   * Places the largest blocks first: every block then lands right after a
+   * block at least as large, so the buddies left free can merge again.
+   */
+  @Override
+  public int[] pack(int[] sizes) {
+    Integer[] order = new Integer[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Integer.compare(orderFor(sizes[b]), orderFor(sizes[a])));
+
+    int[] sortedSizes = new int[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      sortedSizes[i] = sizes[order[i]];
+    }
+    int[] sortedStarts = super.pack(sortedSizes);
+    int[] starts = new int[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      starts[order[i]] = sortedStarts[i];
+    }
+    return starts;
+  }
+
+  @Override
+  public AllocationPolicy getPolicy() {
+    return AllocationPolicy.BUDDY;
+  }
+
+  @Override
+  public List<MemoryAllocation> getFreeBlocks() {
+    List<MemoryAllocation> blocks = new ArrayList<>();
+    for (int order = MIN_ORDER; order <= maxOrder; order++) {
+      for (int offset : freeLists.get(order)) {
+        blocks.add(new MemoryAllocation(regionStart + offset, 1 << order));
+      }
+    }
+    blocks.sort(Comparator.comparingInt(block -> block.startIndex));
+    return blocks;
+  }
+
+  /**
+   * Gets the order of the smallest block that can hold the given size.
+   *
+   * @param size the requested size
+   * @return the order of the block
+   */
+  private static int orderFor(int size) {
+    int order = 32 - Integer.numberOfLeadingZeros(size - 1);
+    return Math.max(order, MIN_ORDER);
+  }
+}
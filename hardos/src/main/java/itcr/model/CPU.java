@@ -2,8 +2,6 @@ package itcr.model;
 
 import java.util.Arrays;
 import java.util.concurrent.CompletableFuture;
-import java.util.EnumMap;
-import java.util.function.BiConsumer;
 
 import com.google.gson.JsonObject;
 
@@ -22,36 +20,49 @@ import java.time.ZoneId;
  */
 public class CPU {
   private static final int NUM_CORES = 5;
+  private static final Register[] REGISTERS = Register.values();
+  private static final int NUM_REGISTERS = REGISTERS.length;
+  private static final int AC = Register.AC.ordinal();
+  private static final int AX = Register.AX.ordinal();
+  private static final int BX = Register.BX.ordinal();
+  private static final int CX = Register.CX.ordinal();
+  private static final int DX = Register.DX.ordinal();
+  // Bits of the flags word
+  static final int ZERO_FLAG = 1;
+  static final int SIGN_FLAG = 2;
+  static final int CARRY_FLAG = 4;
+  static final int OVERFLOW_FLAG = 8;
   public Process[] runningProcesses;
-  private String[] instructionRegisters;
-  private EnumMap<Register, Integer>[] registers;
+  private Instruction[] instructionRegisters;
+  // Register file of all cores, core i owns the slots starting at
+  // i * NUM_REGISTERS in Register ordinal order
+  private int[] registers;
+  // Flags word of every core, saved in the PCB with the registers
+  private int[] flags;
   public MemoryManager memory;
   public Map<String, String> statsForProcesses = new HashMap<>();
   private int cpuId;
   private Scheduler scheduler;
-
-  // Flags
-  private boolean zeroFlag = false;
+  private long instructionsExecuted = 0;
+  // Compile hot loops into blocks that run without the interpreter
+  private boolean blockCompilation = false;
+  // Translation lookaside buffer of every core, used by paged processes
+  private Tlb[] tlbs;
+  // Interrupt bus of the scheduler, shared by its CPUs
+  private final InterruptBus interrupts;
 
   public CPU(int cpuId, Scheduler scheduler, MemoryManager memoryManager) {
     this.cpuId = cpuId;
     this.scheduler = scheduler;
     this.memory = memoryManager;
+    this.interrupts = scheduler.getInterruptBus();
     runningProcesses = new Process[NUM_CORES];
-    instructionRegisters = new String[NUM_CORES];
-    registers = new EnumMap[NUM_CORES];
-    initializeRegisters();
-  }
-
-  /**
-   * Initializes the registers for each core.
-   */
-  private void initializeRegisters() {
+    instructionRegisters = new Instruction[NUM_CORES];
+    registers = new int[NUM_CORES * NUM_REGISTERS];
+    flags = new int[NUM_CORES];
+    tlbs = new Tlb[NUM_CORES];
     for (int i = 0; i < NUM_CORES; i++) {
-      registers[i] = new EnumMap<>(Register.class);
-      for (Register reg : Register.values()) {
-        registers[i].put(reg, 0);
-      }
+      tlbs[i] = new Tlb();
     }
   }
 
@@ -69,9 +80,18 @@ public class CPU {
   }
 
   public void executeInstructionOnAllCores() throws Exception {
+    executeInstructionOnAllCores(1);
+  }
+
+  /**
+   * Runs every busy core for up to the given number of instructions.
+   *
+   * @param maxInstructions the maximum number of instructions per core
+   */
+  public void executeInstructionOnAllCores(int maxInstructions) {
     for (int coreId = 0; coreId < NUM_CORES; coreId++) {
       if (runningProcesses[coreId] != null) {
-        executeInstruction(coreId);
+        run(coreId, maxInstructions);
       }
     }
   }
@@ -83,61 +103,336 @@ public class CPU {
    * @throws Exception if an error occurs during execution
    */
   public void executeInstruction(int coreId) throws Exception {
+    run(coreId, 1);
+  }
+
+  /**
+   * Runs the process of a core for up to maxInstructions instructions. The
+   * run stops earlier at a yield point: an interrupt, the process leaving the
+   * RUNNING state, its time slice running out or the end of its program. The
+   * context of the process is saved in its BCP once, when the run stops.
+   *
+   * @param coreId          the ID of the core
+   * @param maxInstructions the maximum number of instructions to execute
+   * @return the number of instructions executed
+   */
+  public int run(int coreId, int maxInstructions) {
     Process process = runningProcesses[coreId];
-    if (process == null)
-      return;
+    if (process == null) {
+      return 0;
+    }
+
+    ProcessControlBlock pcb = process.getPCB();
+    String id = "P" + process.getProcessId();
+    int executed = 0;
+    boolean finished = false;
+    boolean yield = false;
+
+    BlockProfile profile = blockCompilation ? memory.getBlockProfile(id) : null;
+    boolean paged = pcb.getPageTable() >= 0;
+
+    while (executed < maxInstructions && !yield) {
+      int index = process.getCurrentInstructionIndex();
+      boolean inProgram = index >= 0 && index < process.getQtyInstructions();
+      if (paged && inProgram && !touchPage(coreId, process, InstructionCodec.instructionAddress(0, index), false)) {
+        sendInterruptMessage(coreId, InterruptCode._10H, "Page fault could not be served for process " + id,
+            process.getProcessId());
+        finished = true;
+        break;
+      }
+      if (profile != null && inProgram) {
+        CompiledBlock block = profile.getBlock(index);
+        // The whole block must be present, not only its first instruction
+        if (block != null && (!paged || touchPage(coreId, process,
+            InstructionCodec.instructionAddress(0, block.start + block.length - 1), false))) {
+          boolean sliced = pcb.getTimeSlice() > 0;
+          int ran = runBlock(coreId, process, block, maxInstructions - executed);
+          if (ran > 0) {
+            executed += ran;
+            yield = sliced && pcb.getTimeSlice() == 0;
+            continue;
+          }
+        }
+      }
 
-    String instruction = getNextInstruction(coreId);
-    instructionRegisters[coreId] = instruction;
-    if (instruction == null) {
+      Instruction instruction = memory.getDecodedInstruction(id, index);
+      instructionRegisters[coreId] = instruction;
+      if (instruction == null) {
+        finished = true;
+        break;
+      }
+      process.setCurrentInstructionIndex(index + 1);
+
+      yield = execute(coreId, instruction);
+      executed++;
+      pcb.incrementInstructionsExecuted();
+      if (pcb.getTimeSlice() > 0) {
+        pcb.decrementTimeSlice();
+        yield |= pcb.getTimeSlice() == 0;
+      }
+      if (pcb.getState() != ProcessState.RUNNING) {
+        finished = pcb.getState() == ProcessState.TERMINATED;
+        yield = true;
+      }
+
+      if (profile != null) {
+        int next = process.getCurrentInstructionIndex();
+        if (next != index + 1 && next >= 0 && next < process.getQtyInstructions() && profile.recordEntry(next)) {
+          compileBlock(id, profile, next);
+        }
+      }
+    }
+
+    if (executed > 0) {
+      instructionsExecuted += executed;
+      if (pcb.getStartTime() == null) {
+        pcb.setStartTime(Instant.now());
+      }
+      pcb.setlastStateChangeTime();
+      pcb.setCpuId(this.cpuId);
+
+      saveProcessContext(coreId);
+      memory.updateBCPContext(id, pcb);
+    }
+
+    if (finished) {
       dispatcher(coreId);
-      return;
+    } else if (pcb.getState() == ProcessState.WAITING) {
+      // The process waits for input off the core, which is free for the
+      // next ready process
+      preemptCore(coreId);
+      scheduler.processBlocked(process.getProcessId());
     }
+    return executed;
+  }
 
-    String[] parts = instruction.split(" ");
+  /**
+   * Runs a compiled block as many times as the budget and the time slice of
+   * the process allow, without stopping in between.
+   *
+   * @param coreId  the ID of the core
+   * @param process the process running on the core
+   * @param block   the block starting at the current instruction
+   * @param budget  the instructions left in the current run
+   * @return the number of instructions executed, 0 if the budget can not fit
+   *         a whole pass of the block
+   */
+  private int runBlock(int coreId, Process process, CompiledBlock block, int budget) {
+    ProcessControlBlock pcb = process.getPCB();
+    int timeSlice = pcb.getTimeSlice();
+    if (timeSlice > 0) {
+      budget = Math.min(budget, timeSlice);
+    }
+    int maxIterations = budget / block.length;
+    if (maxIterations == 0) {
+      return 0;
+    }
 
-    InstructionType type = InstructionType.valueOf(parts[0]);
-    if (!instructionHandlers.containsKey(type)) {
-      String message = "Instruction type not recognized: " + type;
-      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
-      return;
+    long result = block.run(registers, coreId * NUM_REGISTERS, flags, coreId, maxIterations);
+    int ran = (int) (result >>> 32) * block.length;
+    process.setCurrentInstructionIndex((int) result);
+    instructionRegisters[coreId] = block.lastInstruction;
+    pcb.setInstructionsExecuted(pcb.getInstructionsExecuted() + ran);
+    if (timeSlice > 0) {
+      pcb.setTimeSlice(timeSlice - ran);
     }
-    instructionHandlers.get(type).accept(coreId, parts);
+    return ran;
+  }
 
+  /**
+   * Makes sure the page of a virtual address of a paged process is present,
+   * looking it up in the TLB of the core first and asking the memory manager
+   * on a miss, which serves the page fault if needed.
+   *
+   * @param coreId  the ID of the core
+   * @param process the paged process running on the core
+   * @param address the virtual address
+   * @param write   whether the access writes the page
+   * @return true if the page is present, false if the fault could not be
+   *         served
+   */
+  private boolean touchPage(int coreId, Process process, int address, boolean write) {
     ProcessControlBlock pcb = process.getPCB();
-    pcb.incrementProgramCounter();
-    if (pcb.getStartTime() == null) {
-      pcb.setStartTime(Instant.now());
+    int page = address / Pager.PAGE_SIZE;
+    int frame = tlbs[coreId].lookup(memory.getPagingEpoch(), process.getProcessId(), page);
+    if (frame >= 0) {
+      pcb.setTlbHits(pcb.getTlbHits() + 1);
+      memory.touchFrame(frame);
+      return true;
     }
-    pcb.setlastStateChangeTime();
-    pcb.updateCpuTimeUsed();
-    pcb.setCpuId(this.cpuId);
 
-    memory.updateBCP("P" + process.getProcessId(), process.getPCB().toJsonString());
-    saveProcessContext(coreId);
+    pcb.setTlbMisses(pcb.getTlbMisses() + 1);
+    int result = memory.translate("P" + process.getProcessId(), page, write);
+    if (result == -1) {
+      return false;
+    }
+    if ((result & Pager.FAULTED) != 0) {
+      pcb.setPageFaults(pcb.getPageFaults() + 1);
+    }
+    tlbs[coreId].insert(process.getProcessId(), page, result & ~Pager.FAULTED);
+    return true;
+  }
+
+  /**
+   * Makes sure the page of a stack entry is present. Does nothing for a
+   * process that is not paged.
+   *
+   * @param coreId    the ID of the core
+   * @param process   the process running on the core
+   * @param processId the name of the process
+   * @param index     the index in the stack
+   * @param write     whether the access writes the entry
+   * @return true if the entry can be accessed
+   */
+  private boolean touchStack(int coreId, Process process, String processId, int index, boolean write) {
+    if (process.getPCB().getPageTable() < 0) {
+      return true;
+    }
+    int address = memory.getStackAddress(processId, index);
+    return address >= 0 && touchPage(coreId, process, address, write);
+  }
+
+  /**
+   * Gets the TLB hits of all the cores of the CPU.
+   *
+   * @return the number of translations found in a TLB
+   */
+  public long getTlbHits() {
+    long hits = 0;
+    for (Tlb tlb : tlbs) {
+      hits += tlb.getHits();
+    }
+    return hits;
   }
 
-  private String getNextInstruction(int coreId) {
-    Process CurrentProcess = runningProcesses[coreId];
-    String id = "P" + CurrentProcess.getProcessId();
-    String res = memory.getInstruction(id, CurrentProcess.getCurrentInstructionIndex());
-    CurrentProcess.setCurrentInstructionIndex(CurrentProcess.getCurrentInstructionIndex() + 1);
-    return res;
+  /**
+   * Gets the TLB misses of all the cores of the CPU.
+   *
+   * @return the number of translations missing from a TLB
+   */
+  public long getTlbMisses() {
+    long misses = 0;
+    for (Tlb tlb : tlbs) {
+      misses += tlb.getMisses();
+    }
+    return misses;
+  }
+
+  /**
+   * Compiles the block starting at a hot instruction. A block that can not
+   * be compiled is remembered so it is not tried again.
+   *
+   * @param id      the name of the process
+   * @param profile the block profile of the process
+   * @param start   the index of the hot instruction
+   */
+  private void compileBlock(String id, BlockProfile profile, int start) {
+    Instruction[] program = memory.getDecodedProgram(id);
+    CompiledBlock block = program != null ? BlockCompiler.compile(program, start) : null;
+    if (block != null) {
+      profile.setBlock(start, block);
+    } else {
+      profile.markNotCompilable(start);
+    }
+  }
+
+  /**
+   * Executes one decoded instruction, dispatching on its type.
+   *
+   * @param coreId      the ID of the core
+   * @param instruction the instruction to execute
+   * @return true if the instruction is a yield point
+   */
+  private boolean execute(int coreId, Instruction instruction) {
+    switch (instruction.type) {
+      case LOAD:
+        handleLoad(coreId, instruction);
+        return false;
+      case STORE:
+        handleStore(coreId, instruction);
+        return false;
+      case MOV:
+        handleMov(coreId, instruction);
+        return false;
+      case ADD:
+        handleAdd(coreId, instruction);
+        return false;
+      case SUB:
+        handleSub(coreId, instruction);
+        return false;
+      case INC:
+        handleInc(coreId, instruction);
+        return false;
+      case DEC:
+        handleDec(coreId, instruction);
+        return false;
+      case SWAP:
+        handleSwap(coreId, instruction);
+        return false;
+      case CMP:
+        handleCmp(coreId, instruction);
+        return false;
+      case JMP:
+        handleJmp(coreId, instruction);
+        return false;
+      case JE:
+        handleJe(coreId, instruction);
+        return false;
+      case JNE:
+        handleJne(coreId, instruction);
+        return false;
+      case JG:
+        handleJg(coreId, instruction);
+        return false;
+      case JL:
+        handleJl(coreId, instruction);
+        return false;
+      case PARAM:
+        handleParam(coreId, instruction);
+        return false;
+      case PUSH:
+        handlePush(coreId, instruction);
+        return false;
+      case POP:
+        handlePop(coreId, instruction);
+        return false;
+      case INT:
+        // Interrupts talk to the outside world, the run always stops after one
+        handleInterrupt(coreId, instruction);
+        return true;
+      default:
+        String message = "Instruction type not recognized: " + instruction.type;
+        sendInterruptMessage(coreId, InterruptCode._10H, message, runningProcesses[coreId].getProcessId());
+        return false;
+    }
   }
 
   public void loadProcessContext(int coreId) {
     Process process = runningProcesses[coreId];
-    for (Register reg : Register.values()) {
-      registers[coreId].put(reg, process.getPCB().getRegister(reg));
-    }
+    System.arraycopy(process.getPCB().getRegisters(), 0, registers, coreId * NUM_REGISTERS, NUM_REGISTERS);
+    flags[coreId] = process.getPCB().getFlags();
   }
 
   public void saveProcessContext(int coreId) {
     Process process = runningProcesses[coreId];
+    System.arraycopy(registers, coreId * NUM_REGISTERS, process.getPCB().getRegisters(), 0, NUM_REGISTERS);
+    process.getPCB().setFlags(flags[coreId]);
+  }
 
-    for (Register reg : Register.values()) {
-      process.getPCB().setRegister(reg, registers[coreId].get(reg));
-    }
+  /**
+   * Takes the process off a core, saving its registers in its PCB. The
+   * process is not terminated and can be assigned to a core again.
+   *
+   * @param coreId the ID of the core
+   * @return the process that was running on the core
+   */
+  public Process preemptCore(int coreId) {
+    Process process = runningProcesses[coreId];
+    saveProcessContext(coreId);
+    runningProcesses[coreId] = null;
+    instructionRegisters[coreId] = null;
+    resetRegister(coreId);
+    return process;
   }
 
   /**
@@ -174,6 +469,7 @@ public class CPU {
 
       JsonObject stats = getStats(index);
       scheduler.updateProcessStats(this.cpuId, id, stats);
+      scheduler.processFinished(currentProcess.getProcessId());
 
       runningProcesses[index] = null;
       resetRegister(index);
@@ -205,6 +501,14 @@ public class CPU {
 
     long diffInMillis = Duration.between(start, nowUtc).toMillis();
     stats.addProperty("totalCoreUsageTime", String.format("%d.%d", diffInMillis / 1000, diffInMillis % 1000));
+    stats.addProperty("instructionsExecuted", currentProcess.getPCB().getInstructionsExecuted());
+    stats.addProperty("schedulingPolicy", scheduler.getSchedulingAlgorithm().toString());
+    stats.addProperty("priority", currentProcess.getPriority());
+    stats.addProperty("waitingTime", currentProcess.getPCB().getWaitingTime());
+    stats.addProperty("paged", currentProcess.getPCB().getPageTable() >= 0);
+    stats.addProperty("pageFaults", currentProcess.getPCB().getPageFaults());
+    stats.addProperty("tlbHits", currentProcess.getPCB().getTlbHits());
+    stats.addProperty("tlbMisses", currentProcess.getPCB().getTlbMisses());
 
     return stats;
   }
@@ -215,17 +519,102 @@ public class CPU {
    * @param process the process to update
    */
   private void updateProcessBCP(Process process) {
-    memory.updateBCP("P" + process.getProcessId(), process.getPCB().toJsonString());
+    memory.updateBCP("P" + process.getProcessId(), process.getPCB());
   }
 
   /**
-   * Updates the flags based on the result of an operation.
-   * 
-   * @param result the result of the operation
+   * Updates the flags of a core after computing a + b.
+   *
+   * @param coreId      the ID of the core
+   * @param a           the first operand
+   * @param b           the second operand
+   * @param result      the result of the operation
+   * @param updateCarry false to keep the carry flag, as INC and DEC do
+   */
+  private void updateAddFlags(int coreId, int a, int b, int result, boolean updateCarry) {
+    flags[coreId] = addFlags(flags[coreId], a, b, result, updateCarry);
+  }
+
+  /**
+   * Updates the flags of a core after computing a - b.
+   *
+   * @param coreId      the ID of the core
+   * @param a           the first operand
+   * @param b           the second operand
+   * @param result      the result of the operation
+   * @param updateCarry false to keep the carry flag, as INC and DEC do
+   */
+  private void updateSubFlags(int coreId, int a, int b, int result, boolean updateCarry) {
+    flags[coreId] = subFlags(flags[coreId], a, b, result, updateCarry);
+  }
+
+  /**
+   * Computes the flags word after a + b.
+   *
+   * @param oldFlags    the flags before the operation
+   * @param a           the first operand
+   * @param b           the second operand
+   * @param result      the result of the operation
+   * @param updateCarry false to keep the carry flag of oldFlags
+   * @return the new flags word
+   */
+  static int addFlags(int oldFlags, int a, int b, int result, boolean updateCarry) {
+    boolean carry = updateCarry ? Integer.compareUnsigned(result, a) < 0 : (oldFlags & CARRY_FLAG) != 0;
+    boolean overflow = ((a ^ result) & (b ^ result)) < 0;
+    return resultFlags(result, carry, overflow);
+  }
+
+  /**
+   * Computes the flags word after a - b.
+   *
+   * @param oldFlags    the flags before the operation
+   * @param a           the first operand
+   * @param b           the second operand
+   * @param result      the result of the operation
+   * @param updateCarry false to keep the carry flag of oldFlags
+   * @return the new flags word
+   */
+  static int subFlags(int oldFlags, int a, int b, int result, boolean updateCarry) {
+    boolean carry = updateCarry ? Integer.compareUnsigned(a, b) < 0 : (oldFlags & CARRY_FLAG) != 0;
+    boolean overflow = ((a ^ b) & (a ^ result)) < 0;
+    return resultFlags(result, carry, overflow);
+  }
+
+  private static int resultFlags(int result, boolean carry, boolean overflow) {
+    int newFlags = 0;
+    if (result == 0) {
+      newFlags |= ZERO_FLAG;
+    }
+    if (result < 0) {
+      newFlags |= SIGN_FLAG;
+    }
+    if (carry) {
+      newFlags |= CARRY_FLAG;
+    }
+    if (overflow) {
+      newFlags |= OVERFLOW_FLAG;
+    }
+    return newFlags;
+  }
+
+  /**
+   * Checks the signed less than condition, SF != OF.
+   *
+   * @param coreId the ID of the core
+   * @return true if the last comparison found the first operand lower
    */
-  private void updateFlags(int result) {
-    zeroFlag = result == 0;
-    // signFlag = result < 0;
+  private boolean isLess(int coreId) {
+    return lessThan(flags[coreId]);
+  }
+
+  /**
+   * Checks the signed less than condition, SF != OF, on a flags word.
+   *
+   * @param coreFlags the flags word
+   * @return true if the last comparison found the first operand lower
+   */
+  static boolean lessThan(int coreFlags) {
+    return ((coreFlags & SIGN_FLAG) != 0) != ((coreFlags & OVERFLOW_FLAG) != 0);
   }
 
   public boolean isCoreAvailable(int coreId) {
@@ -241,10 +630,51 @@ public class CPU {
   }
 
   public String getRegisters(int coreId) {
+    return formatRegisters(registers, coreId * NUM_REGISTERS, flags[coreId]);
+  }
+
+  /**
+   * Copies the registers of a core and the addresses of the instruction it
+   * runs. Only reads the CPU and the memory, so it can be called to show the
+   * state without changing it.
+   *
+   * @param coreId the ID of the core
+   * @return the state of the core
+   */
+  SimulationSnapshot.CoreState getCoreState(int coreId) {
+    int[] coreRegisters = Arrays.copyOfRange(registers, coreId * NUM_REGISTERS, (coreId + 1) * NUM_REGISTERS);
+    Process process = runningProcesses[coreId];
+    if (process == null || process.getPCB() == null) {
+      return new SimulationSnapshot.CoreState(coreRegisters, flags[coreId], false, -1, -1, -1);
+    }
+
+    // The BCP keeps the index of the next instruction, PC and IR are shown as
+    // the addresses of the next and the current instruction
+    String processName = "P" + process.getProcessId();
+    int currentInstrIndex = process.getCurrentInstructionIndex() - 1;
+    return new SimulationSnapshot.CoreState(coreRegisters, flags[coreId], true,
+        memory.getAddressFromInstruction(processName, currentInstrIndex + 1),
+        process.getPCB().getStackPointer(),
+        memory.getAddressFromInstruction(processName, currentInstrIndex));
+  }
+
+  /**
+   * Formats the registers and flags of a core, one register per line.
+   *
+   * @param registers the register file
+   * @param base      the index of the first register of the core
+   * @param coreFlags the flags word of the core
+   * @return the text of the registers
+   */
+  static String formatRegisters(int[] registers, int base, int coreFlags) {
     StringBuilder sb = new StringBuilder();
-    for (Register reg : Register.values()) {
-      sb.append(reg).append(": ").append(registers[coreId].get(reg)).append("\n");
+    for (Register reg : REGISTERS) {
+      sb.append(reg).append(": ").append(registers[base + reg.ordinal()]).append("\n");
     }
+    sb.append("ZF: ").append(coreFlags & ZERO_FLAG)
+        .append(" SF: ").append((coreFlags & SIGN_FLAG) >> 1)
+        .append(" CF: ").append((coreFlags & CARRY_FLAG) >> 2)
+        .append(" OF: ").append((coreFlags & OVERFLOW_FLAG) >> 3).append("\n");
     return sb.toString();
   }
 
@@ -258,76 +688,64 @@ public class CPU {
       resetRegister(i);
     }
 
-    // Reset flags
-    zeroFlag = false;
-    // signFlag = false;
-    // carryFlag = false;
-    // overflowFlag = false;
-
-    // Reset interrupt queue
-    InterruptQueue.clear();
-
-    // Reset user input handler
-    UserInputHandler.reset();
-
     // Reset process stats
     this.statsForProcesses.clear();
+    this.instructionsExecuted = 0;
   }
 
   public int getCpuId() {
     return cpuId;
   }
 
+  public long getInstructionsExecuted() {
+    return instructionsExecuted;
+  }
+
+  /**
+   * Enables or disables the compilation of hot blocks. Blocks compiled
+   * before disabling it are kept with their program but no longer used.
+   *
+   * @param blockCompilation true to compile hot blocks
+   */
+  public void setBlockCompilation(boolean blockCompilation) {
+    this.blockCompilation = blockCompilation;
+  }
+
+  public boolean isBlockCompilation() {
+    return blockCompilation;
+  }
+
   // -------------------------------------------------------------
   // All instruction handlers are defined below this comment block
   // -------------------------------------------------------------
 
-  private final Map<InstructionType, BiConsumer<Integer, String[]>> instructionHandlers = new HashMap<>();
-
-  {
-    instructionHandlers.put(InstructionType.LOAD, this::handleLoad);
-    instructionHandlers.put(InstructionType.STORE, this::handleStore);
-    instructionHandlers.put(InstructionType.MOV, this::handleMov);
-    instructionHandlers.put(InstructionType.ADD, this::handleAdd);
-    instructionHandlers.put(InstructionType.SUB, this::handleSub);
-    instructionHandlers.put(InstructionType.INT, this::handleInterrupt);
-    instructionHandlers.put(InstructionType.INC, this::handleInc);
-    instructionHandlers.put(InstructionType.DEC, this::handleDec);
-    instructionHandlers.put(InstructionType.SWAP, this::handleSwap);
-    instructionHandlers.put(InstructionType.JMP, this::handleJmp);
-    instructionHandlers.put(InstructionType.CMP, this::handleCmp);
-    instructionHandlers.put(InstructionType.JE, this::handleJe);
-    instructionHandlers.put(InstructionType.JNE, this::handleJne);
-    instructionHandlers.put(InstructionType.PARAM, this::handleParam);
-    instructionHandlers.put(InstructionType.PUSH, this::handlePush);
-    instructionHandlers.put(InstructionType.POP, this::handlePop);
-  }
-
   // Instruction handlers (push, pop, mov, etc.)
 
   /**
    * Handles the PUSH instruction.
    * Pushes the value in the AX register onto the stack.
    */
-  private void handlePush(int coreId, String[] parts) {
+  private void handlePush(int coreId, Instruction instruction) {
     Process process = runningProcesses[coreId];
     String processId = "P" + process.getProcessId();
     ProcessControlBlock pcb = process.getPCB();
     int currentSP = pcb.getStackPointer();
+    int capacity = memory.getStackCapacity(processId);
 
-    if (currentSP >= 4) {
-      String message = "Stack overflow: maximum stack size is 5.";
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
+    if (currentSP + 1 >= capacity) {
+      String message = "Stack overflow: maximum stack size is " + capacity + ".";
+      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
       return;
     }
 
-    int value = registers[coreId].get(Register.AX);
+    int value = registers[coreId * NUM_REGISTERS + AX];
 
-    if (memory.writeToStack(processId, currentSP + 1, value)) {
+    if (touchStack(coreId, process, processId, currentSP + 1, true)
+        && memory.writeToStack(processId, currentSP + 1, value)) {
       pcb.setStackPointer(currentSP + 1);
     } else {
       String message = "Failed to push value to stack for process " + processId;
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
+      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
     }
   }
 
@@ -335,35 +753,26 @@ public class CPU {
    * Handles the POP instruction.
    * Pops the top value from the stack into the specified register.
    */
-  private void handlePop(int coreId, String[] parts) {
+  private void handlePop(int coreId, Instruction instruction) {
     Process process = runningProcesses[coreId];
 
-    if (parts.length != 2) {
-      String message = "POP instruction requires a register argument.";
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
-    }
-
-    Register targetRegister = null;
-    try {
-      targetRegister = Register.valueOf(parts[1].toUpperCase());
-    } catch (IllegalArgumentException e) {
-      String message = ("Invalid register: " + parts[1]);
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
-      return; // Exit the method if the register is invalid
-    }
-
     String processId = "P" + process.getProcessId();
     ProcessControlBlock pcb = process.getPCB();
     int currentSP = pcb.getStackPointer();
 
     if (currentSP < 0) {
       String message = ("Stack underflow: stack is empty.");
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
+      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
       return; // Exit the method if the stack is empty
     }
 
+    if (!touchStack(coreId, process, processId, currentSP, true)) {
+      String message = "Failed to pop value from stack for process " + processId;
+      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
+      return;
+    }
     int value = memory.popFromStack(processId, currentSP);
-    registers[coreId].put(targetRegister, value);
+    registers[coreId * NUM_REGISTERS + instruction.destRegister] = value;
     pcb.setStackPointer(currentSP - 1);
   }
 
@@ -371,38 +780,27 @@ public class CPU {
    * Handles the PARAM instruction.
    * Pushes one to three parameters onto the stack.
    */
-  private void handleParam(int coreId, String[] parts) {
+  private void handleParam(int coreId, Instruction instruction) {
     Process process = runningProcesses[coreId];
-    String[] cleanParts = Arrays.stream(parts)
-        .map(part -> part.replace(",", "").trim())
-        .toArray(String[]::new);
-
-    if (cleanParts.length < 2 || cleanParts.length > 4) {
-      String message = ("PARAM instruction requires 1 to 3 parameters.");
-      InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
-    }
-
     String processId = "P" + process.getProcessId();
     ProcessControlBlock pcb = process.getPCB();
     int currentSP = pcb.getStackPointer();
+    int capacity = memory.getStackCapacity(processId);
 
-    for (int i = 1; i < cleanParts.length; i++) {
-      try {
-        int value = Integer.parseInt(cleanParts[i]);
-        if (currentSP >= 4) {
-          String message = ("Stack overflow: maximum stack size is 5.");
-          InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
-        }
-        if (memory.writeToStack(processId, currentSP + 1, value)) {
-          currentSP++;
-          pcb.setStackPointer(currentSP);
-        } else {
-          String message = ("Failed to write parameter to stack for process " + processId);
-          InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
-        }
-      } catch (NumberFormatException e) {
-        String message = ("Parameter must be a valid 32-bit integer");
-        InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId()));
+    for (int value : instruction.params) {
+      if (currentSP + 1 >= capacity) {
+        // The parameters that did not fit are dropped
+        String message = "Stack overflow: maximum stack size is " + capacity + ".";
+        sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
+        return;
+      }
+      if (touchStack(coreId, process, processId, currentSP + 1, true)
+          && memory.writeToStack(processId, currentSP + 1, value)) {
+        currentSP++;
+        pcb.setStackPointer(currentSP);
+      } else {
+        String message = ("Failed to write parameter to stack for process " + processId);
+        sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
       }
     }
   }
@@ -411,9 +809,9 @@ public class CPU {
    * Handles the JE (Jump if Equal) instruction.
    * Jumps to the specified instruction if the zero flag is set.
    */
-  private void handleJe(int coreId, String[] parts) {
-    if (zeroFlag) {
-      handleJmp(coreId, parts);
+  private void handleJe(int coreId, Instruction instruction) {
+    if ((flags[coreId] & ZERO_FLAG) != 0) {
+      handleJmp(coreId, instruction);
     }
   }
 
@@ -421,49 +819,64 @@ public class CPU {
    * Handles the JNE (Jump if Not Equal) instruction.
    * Jumps to the specified instruction if the zero flag is not set.
    */
-  private void handleJne(int coreId, String[] parts) {
-    if (!zeroFlag) {
-      handleJmp(coreId, parts);
+  private void handleJne(int coreId, Instruction instruction) {
+    if ((flags[coreId] & ZERO_FLAG) == 0) {
+      handleJmp(coreId, instruction);
     }
   }
 
   /**
-   * Handles the CMP (Compare) instruction.
-   * Compares the values of two registers and sets the zero flag accordingly.
-   */
-  private void handleCmp(int coreId, String[] parts) {
-    Register reg1 = Register.valueOf(parts[1].replace(",", ""));
-    Register reg2 = Register.valueOf(parts[2]);
-    int val1 = registers[coreId].get(reg1);
-    int val2 = registers[coreId].get(reg2);
-    zeroFlag = false;
-    if (val1 == val2) {
-      zeroFlag = true;
-    } else {
-      zeroFlag = false;
+   * Handles the JG (Jump if Greater) instruction.
+   * Jumps if the last signed comparison found the first operand greater.
+   */
+  private void handleJg(int coreId, Instruction instruction) {
+    if ((flags[coreId] & ZERO_FLAG) == 0 && !isLess(coreId)) {
+      handleJmp(coreId, instruction);
     }
   }
 
+  /**
+   * Handles the JL (Jump if Less) instruction.
+   * Jumps if the last signed comparison found the first operand lower.
+   */
+  private void handleJl(int coreId, Instruction instruction) {
+    if (isLess(coreId)) {
+      handleJmp(coreId, instruction);
+    }
+  }
+
+  /**
+   * Handles the CMP (Compare) instruction.
+   * Subtracts the second register from the first one and sets the flags with
+   * the result, without storing it.
+   */
+  private void handleCmp(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    int val1 = registers[base + instruction.destRegister];
+    int val2 = registers[base + instruction.sourceRegister];
+    updateSubFlags(coreId, val1, val2, val1 - val2, true);
+  }
+
   /**
    * Handles the JMP (Jump) instruction.
    * Jumps to the specified instruction index.
    */
-  private void handleJmp(int coreId, String[] parts) {
+  private void handleJmp(int coreId, Instruction instruction) {
     Process currentP = runningProcesses[coreId];
 
     int topIndex = currentP.getQtyInstructions();
     int currentIndex = currentP.getCurrentInstructionIndex() - 1;
-    int val = Integer.valueOf(parts[1]);
+    int val = instruction.immediate;
 
     if (val > 0) {
       if (val + currentIndex >= topIndex) {
         String message = ("Desplazamiento invalido.");
-        InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, currentP.getProcessId()));
+        sendInterruptMessage(coreId, InterruptCode._10H, message, currentP.getProcessId());
       }
     } else {
       if (currentIndex + val < 0) {
         String message = ("Desplazamiento invalido.");
-        InterruptQueue.addMessage(new InterruptMessage(coreId, InterruptCode._10H, message, currentP.getProcessId()));
+        sendInterruptMessage(coreId, InterruptCode._10H, message, currentP.getProcessId());
       }
     }
     runningProcesses[coreId].setCurrentInstructionIndex(currentIndex + val);
@@ -473,12 +886,12 @@ public class CPU {
    * Handles the SWAP instruction.
    * Swaps the values of two registers.
    */
-  private void handleSwap(int coreId, String[] parts) {
-    Register reg1 = Register.valueOf(parts[1].replace(",", ""));
-    Register reg2 = Register.valueOf(parts[2]);
-    int temp = registers[coreId].get(reg1);
-    registers[coreId].put(reg1, registers[coreId].get(reg2));
-    registers[coreId].put(reg2, temp);
+  private void handleSwap(int coreId, Instruction instruction) {
+    int reg1 = coreId * NUM_REGISTERS + instruction.destRegister;
+    int reg2 = coreId * NUM_REGISTERS + instruction.sourceRegister;
+    int temp = registers[reg1];
+    registers[reg1] = registers[reg2];
+    registers[reg2] = temp;
   }
 
   /**
@@ -486,17 +899,12 @@ public class CPU {
    * Decrements the value of the specified register or the AC register if no
    * register is specified.
    */
-  private void handleDec(int coreId, String[] parts) {
-    if (parts.length == 1) {
-      int result = registers[coreId].get(Register.AC) - 1;
-      registers[coreId].put(Register.AC, result);
-      updateFlags(result);
-    } else {
-      Register reg = Register.valueOf(parts[1]);
-      int result = registers[coreId].get(reg) - 1;
-      registers[coreId].put(reg, result);
-      updateFlags(result);
-    }
+  private void handleDec(int coreId, Instruction instruction) {
+    int reg = coreId * NUM_REGISTERS + instruction.destRegister;
+    int value = registers[reg];
+    int result = value - 1;
+    registers[reg] = result;
+    updateSubFlags(coreId, value, 1, result, false);
   }
 
   /**
@@ -504,35 +912,30 @@ public class CPU {
    * Increments the value of the specified register or the AC register if no
    * register is specified.
    */
-  private void handleInc(int coreId, String[] parts) {
-    if (parts.length == 1) {
-      int result = registers[coreId].get(Register.AC) + 1;
-      registers[coreId].put(Register.AC, result);
-      updateFlags(result);
-    } else {
-      Register reg = Register.valueOf(parts[1]);
-      int result = registers[coreId].get(reg) + 1;
-      registers[coreId].put(reg, result);
-      updateFlags(result);
-    }
+  private void handleInc(int coreId, Instruction instruction) {
+    int reg = coreId * NUM_REGISTERS + instruction.destRegister;
+    int value = registers[reg];
+    int result = value + 1;
+    registers[reg] = result;
+    updateAddFlags(coreId, value, 1, result, false);
   }
 
   /**
    * Handles the LOAD instruction.
    * Loads the value of the specified register into the AC register.
    */
-  private void handleLoad(int coreId, String[] parts) {
-    Register reg = Register.valueOf(parts[1]);
-    registers[coreId].put(Register.AC, registers[coreId].get(reg));
+  private void handleLoad(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    registers[base + AC] = registers[base + instruction.destRegister];
   }
 
   /**
    * Handles the STORE instruction.
    * Stores the value of the AC register into the specified register.
    */
-  private void handleStore(int coreId, String[] parts) {
-    Register reg = Register.valueOf(parts[1]);
-    registers[coreId].put(reg, registers[coreId].get(Register.AC));
+  private void handleStore(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    registers[base + instruction.destRegister] = registers[base + AC];
   }
 
   /**
@@ -540,13 +943,12 @@ public class CPU {
    * Moves the value from one register to another or sets a register to a
    * specified value.
    */
-  private void handleMov(int coreId, String[] parts) {
-    Register destReg = Register.valueOf(parts[1].replace(",", ""));
-    if (parts.length == 3 && !isNumeric(parts[2])) {
-      Register sourceReg = Register.valueOf(parts[2]);
-      registers[coreId].put(destReg, registers[coreId].get(sourceReg));
+  private void handleMov(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    if (instruction.sourceRegister != Instruction.NO_REGISTER) {
+      registers[base + instruction.destRegister] = registers[base + instruction.sourceRegister];
     } else {
-      registers[coreId].put(destReg, Integer.parseInt(parts[2]));
+      registers[base + instruction.destRegister] = instruction.immediate;
     }
   }
 
@@ -554,22 +956,26 @@ public class CPU {
    * Handles the ADD instruction.
    * Adds the value of the specified register to the AC register.
    */
-  private void handleAdd(int coreId, String[] parts) {
-    Register reg = Register.valueOf(parts[1]);
-    int result = registers[coreId].get(Register.AC) + registers[coreId].get(reg);
-    registers[coreId].put(Register.AC, result);
-    updateFlags(result);
+  private void handleAdd(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    int ac = registers[base + AC];
+    int operand = registers[base + instruction.destRegister];
+    int result = ac + operand;
+    registers[base + AC] = result;
+    updateAddFlags(coreId, ac, operand, result, true);
   }
 
   /**
    * Handles the SUB (Subtract) instruction.
    * Subtracts the value of the specified register from the AC register.
    */
-  private void handleSub(int coreId, String[] parts) {
-    Register reg = Register.valueOf(parts[1]);
-    int result = registers[coreId].get(Register.AC) - registers[coreId].get(reg);
-    registers[coreId].put(Register.AC, result);
-    updateFlags(result);
+  private void handleSub(int coreId, Instruction instruction) {
+    int base = coreId * NUM_REGISTERS;
+    int ac = registers[base + AC];
+    int operand = registers[base + instruction.destRegister];
+    int result = ac - operand;
+    registers[base + AC] = result;
+    updateSubFlags(coreId, ac, operand, result, true);
   }
 
   // ------------------------------
@@ -580,10 +986,10 @@ public class CPU {
    * Handles an interrupt for a specific core.
    *
    * @param coreId the ID of the core
-   * @param parts  the parts of the interrupt instruction
+   * @param instruction the decoded interrupt instruction
    */
-  public void handleInterrupt(int coreId, String[] parts) {
-    InterruptCode code = InterruptCode.valueOf(parts[1]);
+  public void handleInterrupt(int coreId, Instruction instruction) {
+    InterruptCode code = instruction.getInterruptCode();
     Process process = runningProcesses[coreId];
     String prefixMsg = "[ Core " + coreId + " ] >> ";
 
@@ -614,9 +1020,9 @@ public class CPU {
    * @param prefixMsg the prefix message for the interrupt
    */
   private void handleFileManagement(int coreId, Process process, String prefixMsg) {
-    int axValue = registers[coreId].get(Register.AX);
-    int bxValue = registers[coreId].get(Register.BX);
-    int cxValue = registers[coreId].get(Register.CX);
+    int axValue = registers[coreId * NUM_REGISTERS + AX];
+    int bxValue = registers[coreId * NUM_REGISTERS + BX];
+    int cxValue = registers[coreId * NUM_REGISTERS + CX];
 
     String fileName = memory.getString(bxValue);
     String content = memory.getString(cxValue);
@@ -805,92 +1211,111 @@ public class CPU {
    * @param process the process to terminate
    */
   private void printDxValue(int coreId, Process process) {
-    int dx = registers[coreId].get(Register.DX);
+    int dx = registers[coreId * NUM_REGISTERS + DX];
     String message = "[ Core " + coreId + " ] >> DX = " + dx;
     sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
   }
 
   /**
    * Handles the numeric input for the process.
-   * Sends an interrupt message requesting input and then processes the input.
+   * Sends an interrupt message requesting input and puts the process to wait
+   * for it. The run stops and the process leaves the core; the input is
+   * processed when the Scheduler wakes it up.
    * 
    * @param coreId    the ID of the core
    * @param process   the process associated with the core
    * @param prefixMsg the prefix message for the interrupt
    */
   private void handleNumericInput(int coreId, Process process, String prefixMsg) {
-    String requestMessage = prefixMsg + "Entrada numérica solicitada";
-    sendInterruptMessage(coreId, InterruptCode._10H, requestMessage, process.getProcessId());
-    sendInterruptMessage(coreId, InterruptCode._09H, "Entrada numérica solicitada", process.getProcessId());
-
+    int processId = process.getProcessId();
     process.updateState(ProcessState.WAITING);
-    CompletableFuture<String> inputFuture = UserInputHandler.requestInput(process.getProcessId());
-    inputFuture.thenAccept(input -> processNumericInput(coreId, process, input, prefixMsg));
+    // Registered before the request is sent, so a fast answer is not lost
+    CompletableFuture<String> inputFuture = interrupts.requestInput(processId);
+    inputFuture.thenAccept(input -> scheduler.inputReceived(processId,
+        () -> processNumericInput(coreId, processId, input, prefixMsg)));
+
+    String requestMessage = prefixMsg + "Entrada numérica solicitada";
+    sendInterruptMessage(coreId, InterruptCode._10H, requestMessage, processId);
+    sendInterruptMessage(coreId, InterruptCode._09H, "Entrada numérica solicitada", processId);
   }
 
   /**
-   * Processes the numeric input for the process.
+   * Processes the numeric input for a waiting process. Writes the value to
+   * the DX register saved in its BCP and makes it ready.
    * Sends an interrupt message with the result of the operation.
    * 
-   * @param coreId    the ID of the core
-   * @param process   the process associated with the core
+   * @param coreId    the ID of the core that requested the input
+   * @param processId the ID of the waiting process
    * @param input     the input value
    * @param prefixMsg the prefix message for the interrupt
    */
-  private void processNumericInput(int coreId, Process process, String input, String prefixMsg) {
+  private void processNumericInput(int coreId, int processId, String input, String prefixMsg) {
+    ProcessControlBlock pcb = memory.getBCP("P" + processId);
+    if (pcb == null) {
+      return;
+    }
     try {
       int inputInt = Integer.parseInt(input);
       if (inputInt < 0 || inputInt > 255) {
         String message = prefixMsg + "La entrada debe ser un número entre 0 y 255";
-        sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
+        sendInterruptMessage(coreId, InterruptCode._10H, message, processId);
       } else {
         String message = prefixMsg + "Entrada recibida: " + input;
-        sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
-        registers[coreId].put(Register.DX, inputInt);
+        sendInterruptMessage(coreId, InterruptCode._10H, message, processId);
+        pcb.getRegisters()[DX] = inputInt;
       }
     } catch (NumberFormatException e) {
       String message = prefixMsg + "Entrada inválida";
-      sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
+      sendInterruptMessage(coreId, InterruptCode._10H, message, processId);
     }
-    process.updateState(ProcessState.RUNNING);
-    updateProcessBCP(process);
+    pcb.updateState(ProcessState.READY);
+    memory.updateBCPContext("P" + processId, pcb);
   }
 
   /**
    * Handles the string input for the process.
-   * Sends an interrupt message requesting input and then processes the input.
+   * Sends an interrupt message requesting input and puts the process to wait
+   * for it. The run stops and the process leaves the core; the input is
+   * processed when the Scheduler wakes it up.
    * 
    * @param coreId    the ID of the core
    * @param process   the process associated with the core
    * @param prefixMsg the prefix message for the interrupt
    */
   private void handleStringInput(int coreId, Process process, String prefixMsg) {
-    String requestMessage = prefixMsg + "Entrada solicitada";
-    sendInterruptMessage(coreId, InterruptCode._10H, requestMessage, process.getProcessId());
-    sendInterruptMessage(coreId, InterruptCode._08H, "Entrada solicitada", process.getProcessId());
-
+    int processId = process.getProcessId();
     process.updateState(ProcessState.WAITING);
-    CompletableFuture<String> inputFuture = UserInputHandler.requestInput(process.getProcessId());
-    inputFuture.thenAccept(input -> processStringInput(coreId, process, input, prefixMsg));
+    CompletableFuture<String> inputFuture = interrupts.requestInput(processId);
+    inputFuture.thenAccept(input -> scheduler.inputReceived(processId,
+        () -> processStringInput(coreId, processId, input, prefixMsg)));
+
+    String requestMessage = prefixMsg + "Entrada solicitada";
+    sendInterruptMessage(coreId, InterruptCode._10H, requestMessage, processId);
+    sendInterruptMessage(coreId, InterruptCode._08H, "Entrada solicitada", processId);
   }
 
   /**
-   * Processes the string input for the process.
+   * Processes the string input for a waiting process. Stores the string and
+   * writes its address to the BX register saved in its BCP, then makes the
+   * process ready.
    * Sends an interrupt message with the result of the operation.
    * 
-   * @param coreId    the ID of the core
-   * @param process   the process associated with the core
+   * @param coreId    the ID of the core that requested the input
+   * @param processId the ID of the waiting process
    * @param input     the input value
    * @param prefixMsg the prefix message for the interrupt
    */
-  private void processStringInput(int coreId, Process process, String input, String prefixMsg) {
+  private void processStringInput(int coreId, int processId, String input, String prefixMsg) {
+    ProcessControlBlock pcb = memory.getBCP("P" + processId);
+    if (pcb == null) {
+      return;
+    }
     String message = prefixMsg + "Entrada recibida: " + input;
-    sendInterruptMessage(coreId, InterruptCode._10H, message, process.getProcessId());
+    sendInterruptMessage(coreId, InterruptCode._10H, message, processId);
 
-    int storedAddr = memory.storeString(input);
-    registers[coreId].put(Register.BX, storedAddr);
-    process.updateState(ProcessState.RUNNING);
-    updateProcessBCP(process);
+    pcb.getRegisters()[BX] = memory.storeString(input);
+    pcb.updateState(ProcessState.READY);
+    memory.updateBCPContext("P" + processId, pcb);
   }
 
   /**
@@ -902,7 +1327,7 @@ public class CPU {
    * @param processId the ID of the process
    */
   private void sendInterruptMessage(int coreId, InterruptCode code, String message, int processId) {
-    InterruptQueue.addMessage(new InterruptMessage(coreId, code, message, processId));
+    interrupts.publish(coreId, code, message, processId);
   }
 
   /**
@@ -925,22 +1350,13 @@ public class CPU {
   }
 
   /**
-   * Resets the registers for a specific core.
+   * Resets the registers and flags of a specific core.
    *
    * @param index the index of the core
    */
   private void resetRegister(int index) {
-    registers[index] = new EnumMap<>(Register.class);
-    for (Register reg : Register.values()) {
-      registers[index].put(reg, 0);
-    }
+    Arrays.fill(registers, index * NUM_REGISTERS, (index + 1) * NUM_REGISTERS, 0);
+    flags[index] = 0;
   }
 
-  private boolean isNumeric(String str) {
-    return str.matches("-?\\d+(\\.\\d+)?");
-  }
-
-  private enum InstructionType {
-    LOAD, STORE, MOV, ADD, SUB, INT, INC, DEC, SWAP, JMP, CMP, JE, JNE, PARAM, PUSH, POP
-  }
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package itcr.model;
+
+/**
+ * CompiledBlock is a basic block of a program turned into a compact code
+ * array that a specialised loop runs directly on the register file and flags
+ * of the CPU.
+ *
+ * A block is a run of register instructions, optionally ended by a jump. It
+ * never contains interrupts or stack instructions, so running it can not
+ * block or talk to the outside world. A block that jumps back to its own
+ * start is run in a loop without going back to the interpreter.
+ *
+ * Every operation takes {@link #OPERATION_SIZE} ints of the code array: the
+ * opcode, the destination register, the source register and the immediate
+ * value. Registers are already resolved to their ordinals, so the loop only
+ * switches over the few opcodes a block can hold; there is no fetch, no
+ * decoding and no call per instruction.
+ */
+final class CompiledBlock {
+  static final int OPERATION_SIZE = 4;
+
+  // Opcodes of the operations
+  static final int LOAD = 0;
+  static final int STORE = 1;
+  static final int MOV_REGISTER = 2;
+  static final int MOV_IMMEDIATE = 3;
+  static final int ADD = 4;
+  static final int SUB = 5;
+  static final int INC = 6;
+  static final int DEC = 7;
+  static final int SWAP = 8;
+  static final int CMP = 9;
+
+  // Conditions of the jump that ends a block
+  static final int FALL_THROUGH = 0;
+  static final int ALWAYS = 1;
+  static final int IF_ZERO = 2;
+  static final int IF_NOT_ZERO = 3;
+  static final int IF_GREATER = 4;
+  static final int IF_LESS = 5;
+
+  private static final int AC = Register.AC.ordinal();
+
+  final int start;
+  final int length;
+  private final int[] code;
+  private final int condition;
+  private final int target;
+  final Instruction lastInstruction;
+
+  /**
+   * Constructor for CompiledBlock.
+   *
+   * @param start           the index of the first instruction
+   * @param code            the compiled instructions, without the jump
+   * @param condition       the condition of the ending jump, or FALL_THROUGH
+   *                        if the block falls through to the next instruction
+   * @param target          the index the jump goes to when taken
+   * @param lastInstruction the last instruction of the block, shown in the
+   *                        instruction register
+   */
+  CompiledBlock(int start, int[] code, int condition, int target, Instruction lastInstruction) {
+    this.start = start;
+    this.code = code;
+    this.condition = condition;
+    this.target = target;
+    this.length = code.length / OPERATION_SIZE + (condition != FALL_THROUGH ? 1 : 0);
+    this.lastInstruction = lastInstruction;
+  }
+
+  /**
+   * Runs the block until it leaves or maxIterations passes are done.
+   *
+   * @param r             the register file of the CPU
+   * @param base          the first register slot of the core
+   * @param flags         the flags words of the CPU
+   * @param coreId        the ID of the core
+   * @param maxIterations the maximum number of passes, at least 1
+   * @return the number of passes in the high 32 bits and the index of the
+   *         next instruction in the low 32 bits
+   */
+  long run(int[] r, int base, int[] flags, int coreId, int maxIterations) {
+    int[] code = this.code;
+    int coreFlags = flags[coreId];
+    int iterations = 0;
+    int next;
+    do {
+      for (int pc = 0; pc < code.length; pc += OPERATION_SIZE) {
+        int dest = base + code[pc + 1];
+        switch (code[pc]) {
+          case LOAD:
+            r[base + AC] = r[dest];
+            break;
+          case STORE:
+            r[dest] = r[base + AC];
+            break;
+          case MOV_REGISTER:
+            r[dest] = r[base + code[pc + 2]];
+            break;
+          case MOV_IMMEDIATE:
+            r[dest] = code[pc + 3];
+            break;
+          case ADD: {
+            int ac = r[base + AC];
+            int operand = r[dest];
+            r[base + AC] = ac + operand;
+            coreFlags = CPU.addFlags(coreFlags, ac, operand, ac + operand, true);
+            break;
+          }
+          case SUB: {
+            int ac = r[base + AC];
+            int operand = r[dest];
+            r[base + AC] = ac - operand;
+            coreFlags = CPU.subFlags(coreFlags, ac, operand, ac - operand, true);
+            break;
+          }
+          case INC: {
+            int old = r[dest];
+            r[dest] = old + 1;
+            coreFlags = CPU.addFlags(coreFlags, old, 1, old + 1, false);
+            break;
+          }
+          case DEC: {
+            int old = r[dest];
+            r[dest] = old - 1;
+            coreFlags = CPU.subFlags(coreFlags, old, 1, old - 1, false);
+            break;
+          }
+          case SWAP: {
+            int source = base + code[pc + 2];
+            int temp = r[dest];
+            r[dest] = r[source];
+            r[source] = temp;
+            break;
+          }
+          default: { // CMP
+            int a = r[dest];
+            int b = r[base + code[pc + 2]];
+            coreFlags = CPU.subFlags(coreFlags, a, b, a - b, true);
+            break;
+          }
+        }
+      }
+      iterations++;
+      next = jumpTaken(coreFlags) ? target : start + length;
+    } while (next == start && iterations < maxIterations);
+    flags[coreId] = coreFlags;
+    return ((long) iterations << 32) | next;
+  }
+
+  private boolean jumpTaken(int coreFlags) {
+    switch (condition) {
+      case ALWAYS:
+        return true;
+      case IF_ZERO:
+        return (coreFlags & CPU.ZERO_FLAG) != 0;
+      case IF_NOT_ZERO:
+        return (coreFlags & CPU.ZERO_FLAG) == 0;
+      case IF_GREATER:
+        return (coreFlags & CPU.ZERO_FLAG) == 0 && !CPU.lessThan(coreFlags);
+      case IF_LESS:
+        return CPU.lessThan(coreFlags);
+      default:
+        return false;
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package itcr.model;
+
+/**
+ * DirectoryEntry describes a child of a directory of the secondary storage:
+ * a file with its size or a directory with its number of children. It only
+ * holds metadata, never the content of a file.
+ */
+public class DirectoryEntry {
+  private final String name;
+  private final String path;
+  private final boolean directory;
+  private final int size;
+
+  /**
+   * Constructor for DirectoryEntry.
+   *
+   * @param name      the name of the entry inside its directory
+   * @param path      the full path of the entry
+   * @param directory whether the entry is a directory
+   * @param size      the size in bytes of a file, or the number of children
+   *                  of a directory
+   */
+  DirectoryEntry(String name, String path, boolean directory, int size) {
+    this.name = name;
+    this.path = path;
+    this.directory = directory;
+    this.size = size;
+  }
+
+  /**
+   * Gets the name of the entry inside its directory.
+   *
+   * @return the name of the entry
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the full path of the entry, the name used to open a file.
+   *
+   * @return the path of the entry
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Checks whether the entry is a directory.
+   *
+   * @return true for a directory, false for a file
+   */
+  public boolean isDirectory() {
+    return directory;
+  }
+
+  /**
+   * Gets the size of a file in bytes, or the number of children of a
+   * directory.
+   *
+   * @return the size of the entry
+   */
+  public int getSize() {
+    return size;
+  }
+}
@@ -0,0 +1,76 @@
+package itcr.model;
+
+import java.util.List;
+
+/**
+ * DirectoryPage is one page of the listing of a directory of the secondary
+ * storage, together with the total number of entries that match the
+ * listing, so a browser can show where the page is.
+ */
+public class DirectoryPage {
+  private final String path;
+  private final List<DirectoryEntry> entries;
+  private final int total;
+  private final int offset;
+
+  /**
+   * Constructor for DirectoryPage.
+   *
+   * @param path    the path of the listed directory
+   * @param entries the entries of the page
+   * @param total   the number of entries matching the listing
+   * @param offset  the position of the first entry of the page
+   */
+  DirectoryPage(String path, List<DirectoryEntry> entries, int total, int offset) {
+    this.path = path;
+    this.entries = entries;
+    this.total = total;
+    this.offset = offset;
+  }
+
+  /**
+   * Gets the path of the listed directory.
+   *
+   * @return the path, empty for the root directory
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Gets the entries of the page, sorted by name.
+   *
+   * @return the entries of the page
+   */
+  public List<DirectoryEntry> getEntries() {
+    return entries;
+  }
+
+  /**
+   * Gets the number of entries matching the listing, in all pages.
+   *
+   * @return the total number of entries
+   */
+  public int getTotal() {
+    return total;
+  }
+
+  /**
+   * Gets the position of the first entry of the page among all matching
+   * entries.
+   *
+   * @return the offset of the page
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  /**
+   * Checks whether there are entries after this page.
+   *
+   * @return true if a next page exists
+   */
+  public boolean hasNext() {
+    return offset + entries.size() < total;
+  }
+}
@@ -0,0 +1,380 @@
+package itcr.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * DiskImage keeps the secondary storage in a file so the files survive a
+ * restart.
+ *
+ * The image is mapped into memory and has three parts: a superblock with the
+ * sizes, two file table slots and the data region used as the secondary
+ * storage. A file table lists the name and extent of every file. Changes to
+ * the files are not written to the table right away; each one appends a small
+ * record to a journal file next to the image. When the journal grows past a
+ * limit the whole table is written to the slot not in use, and the journal
+ * starts over. A slot is only trusted if its checksum matches, so a crash
+ * while writing a table leaves the other slot intact.
+ *
+ * On open the newest valid table is read and the journal replayed on top of
+ * it. A record cut short by a crash ends the replay and is dropped. Records
+ * hold the whole state of a file, so replaying a record already in the table
+ * changes nothing.
+ */
+final class DiskImage {
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final int MAGIC = 0x48444F53; // "HDOS"
+  private static final int VERSION = 1;
+  private static final int MIN_SLOT_SIZE = 16 * 1024;
+  // Journal size that triggers writing the table
+  private static final int CHECKPOINT_SIZE = 64 * 1024;
+
+  // Superblock layout (offsets in bytes)
+  private static final int SB_MAGIC = 0;
+  private static final int SB_VERSION = 4;
+  private static final int SB_DATA_SIZE = 8;
+  private static final int SB_SLOT_SIZE = 12;
+  private static final int SUPERBLOCK_SIZE = 64;
+
+  // Table slot header layout (offsets in bytes)
+  private static final int SLOT_GENERATION = 0;
+  private static final int SLOT_LENGTH = 8;
+  private static final int SLOT_CRC = 12;
+  private static final int SLOT_HEADER_SIZE = 16;
+
+  // Journal record types
+  private static final byte PUT = 1;
+  private static final byte DELETE = 2;
+
+  private final MappedByteBuffer image;
+  private final ByteBuffer data;
+  private final int slotSize;
+  private final Path journalPath;
+  private FileChannel journal;
+  private long journalSize;
+  private long generation;
+  private int activeSlot;
+
+  private DiskImage(MappedByteBuffer image, int slotSize, Path journalPath) {
+    this.image = image;
+    this.slotSize = slotSize;
+    this.journalPath = journalPath;
+    int dataOffset = SUPERBLOCK_SIZE + 2 * slotSize;
+    this.data = image.slice(dataOffset, image.capacity() - dataOffset);
+  }
+
+  /**
+   * Opens a disk image, formatting it if the file does not hold one. An
+   * existing image keeps the data size it was formatted with.
+   *
+   * @param path     the path of the image
+   * @param dataSize the size of the data region of a new image
+   * @return the opened image
+   * @throws UncheckedIOException if the image can not be read or mapped
+   */
+  static DiskImage open(Path path, int dataSize) {
+    try {
+      int formattedDataSize = readFormattedDataSize(path);
+      boolean format = formattedDataSize < 0;
+      if (!format) {
+        dataSize = formattedDataSize;
+      }
+
+      // A slot fits one small entry per disk block of a full disk
+      int slotSize = Math.max(MIN_SLOT_SIZE, dataSize / 4);
+      MappedByteBuffer image = (MappedByteBuffer) MemoryBacking.MAPPED.allocate(
+          SUPERBLOCK_SIZE + 2 * slotSize + dataSize, path);
+      DiskImage disk = new DiskImage(image, slotSize, Path.of(path + ".journal"));
+      if (format) {
+        disk.format(dataSize);
+      }
+      disk.journal = FileChannel.open(disk.journalPath, StandardOpenOption.CREATE,
+          StandardOpenOption.READ, StandardOpenOption.WRITE);
+      return disk;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error opening disk image " + path, e);
+    }
+  }
+
+  /**
+   * Reads the data size from the superblock of an existing image.
+   *
+   * @return the data size, or -1 if the file is not a disk image
+   */
+  private static int readFormattedDataSize(Path path) throws IOException {
+    if (!Files.exists(path) || Files.size(path) < SUPERBLOCK_SIZE) {
+      return -1;
+    }
+    ByteBuffer superblock = ByteBuffer.allocate(SUPERBLOCK_SIZE);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      channel.read(superblock, 0);
+    }
+    if ((int) INT.get(superblock, SB_MAGIC) != MAGIC || (int) INT.get(superblock, SB_VERSION) != VERSION) {
+      return -1;
+    }
+    return (int) INT.get(superblock, SB_DATA_SIZE);
+  }
+
+  private void format(int dataSize) throws IOException {
+    INT.set(image, SB_MAGIC, MAGIC);
+    INT.set(image, SB_VERSION, VERSION);
+    INT.set(image, SB_DATA_SIZE, dataSize);
+    INT.set(image, SB_SLOT_SIZE, slotSize);
+    for (int slot = 0; slot < 2; slot++) {
+      LONG.set(image, slotOffset(slot) + SLOT_GENERATION, 0L);
+      INT.set(image, slotOffset(slot) + SLOT_LENGTH, 0);
+      INT.set(image, slotOffset(slot) + SLOT_CRC, 0);
+    }
+    image.force();
+    // A journal left from an older image does not belong to this one
+    Files.deleteIfExists(journalPath);
+  }
+
+  /**
+   * Gets the data region of the image, used as the secondary storage.
+   *
+   * @return the data region
+   */
+  ByteBuffer getData() {
+    return data;
+  }
+
+  /**
+   * Reads the file table and replays the journal on top of it.
+   *
+   * @return the files of the image by name, in the order they were written
+   * @throws UncheckedIOException if the journal can not be read
+   */
+  Map<String, FileInfo> readFiles() {
+    Map<String, FileInfo> files = new LinkedHashMap<>();
+    activeSlot = newestValidSlot();
+    if (activeSlot >= 0) {
+      generation = (long) LONG.get(image, slotOffset(activeSlot) + SLOT_GENERATION);
+      int position = slotOffset(activeSlot) + SLOT_HEADER_SIZE;
+      int end = position + (int) INT.get(image, slotOffset(activeSlot) + SLOT_LENGTH);
+      while (position < end) {
+        int nameLength = (short) SHORT.get(image, position);
+        String name = readName(image, position + 2, nameLength);
+        position += 2 + nameLength;
+        files.put(name, readExtent(image, position));
+        position += 12;
+      }
+    } else {
+      activeSlot = 1;
+    }
+
+    try {
+      replayJournal(files);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error reading disk journal " + journalPath, e);
+    }
+    return files;
+  }
+
+  private void replayJournal(Map<String, FileInfo> files) throws IOException {
+    long size = journal.size();
+    ByteBuffer records = ByteBuffer.allocate((int) size);
+    while (records.hasRemaining() && journal.read(records, records.position()) > 0) {
+      // read until the buffer is full
+    }
+
+    int position = 0;
+    while (position + 4 <= size) {
+      int length = (int) INT.get(records, position);
+      if (length <= 0 || position + 4 + length + 4 > size) {
+        break;
+      }
+      if (checksum(records, position + 4, length) != (int) INT.get(records, position + 4 + length)) {
+        break;
+      }
+
+      int record = position + 4;
+      byte type = records.get(record);
+      int nameLength = (short) SHORT.get(records, record + 1);
+      String name = readName(records, record + 3, nameLength);
+      if (type == PUT) {
+        files.put(name, readExtent(records, record + 3 + nameLength));
+      } else {
+        files.remove(name);
+      }
+      position += 4 + length + 4;
+    }
+
+    // Drop a record cut short by a crash so new records follow valid ones
+    journal.truncate(position);
+    journalSize = position;
+  }
+
+  /**
+   * Appends the new state of a file to the journal.
+   *
+   * @param name the name of the file
+   * @param file the extent and size of the file
+   * @throws UncheckedIOException if the record can not be written
+   */
+  void recordPut(String name, FileInfo file) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    ByteBuffer record = newRecord(PUT, nameBytes, 12);
+    record.putInt(file.startIndex).putInt(file.size).putInt(file.capacity);
+    appendRecord(record);
+  }
+
+  /**
+   * Appends the removal of a file to the journal.
+   *
+   * @param name the name of the file
+   * @throws UncheckedIOException if the record can not be written
+   */
+  void recordDelete(String name) {
+    byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+    appendRecord(newRecord(DELETE, nameBytes, 0));
+  }
+
+  private static ByteBuffer newRecord(byte type, byte[] nameBytes, int extraBytes) {
+    int length = 1 + 2 + nameBytes.length + extraBytes;
+    ByteBuffer record = ByteBuffer.allocate(4 + length + 4);
+    record.putInt(length).put(type).putShort((short) nameBytes.length).put(nameBytes);
+    return record;
+  }
+
+  private void appendRecord(ByteBuffer record) {
+    int length = record.capacity() - 8;
+    record.putInt(checksum(record, 4, length));
+    record.flip();
+    try {
+      while (record.hasRemaining()) {
+        journalSize += journal.write(record, journalSize);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error writing disk journal " + journalPath, e);
+    }
+  }
+
+  /**
+   * Checks whether the journal is large enough to be folded into the table.
+   *
+   * @return true if a checkpoint is due
+   */
+  boolean needsCheckpoint() {
+    return journalSize >= CHECKPOINT_SIZE;
+  }
+
+  /**
+   * Writes the whole file table to the free slot and empties the journal.
+   * Nothing is written if the table does not fit in a slot; the journal then
+   * keeps growing and still holds every change.
+   *
+   * @param files the files of the image, named by their paths
+   * @return true if the table was written
+   * @throws UncheckedIOException if the journal can not be emptied
+   */
+  boolean checkpoint(Collection<FileInfo> files) {
+    int slot = 1 - activeSlot;
+    int start = slotOffset(slot) + SLOT_HEADER_SIZE;
+    int position = start;
+    for (FileInfo file : files) {
+      byte[] nameBytes = file.fileName.getBytes(StandardCharsets.UTF_8);
+      if (position + 2 + nameBytes.length + 12 > slotOffset(slot) + slotSize) {
+        return false;
+      }
+      SHORT.set(image, position, (short) nameBytes.length);
+      image.put(position + 2, nameBytes);
+      position += 2 + nameBytes.length;
+      INT.set(image, position, file.startIndex);
+      INT.set(image, position + 4, file.size);
+      INT.set(image, position + 8, file.capacity);
+      position += 12;
+    }
+
+    int length = position - start;
+    LONG.set(image, slotOffset(slot) + SLOT_GENERATION, generation + 1);
+    INT.set(image, slotOffset(slot) + SLOT_LENGTH, length);
+    INT.set(image, slotOffset(slot) + SLOT_CRC, slotChecksum(slot, length));
+    image.force();
+
+    generation++;
+    activeSlot = slot;
+    try {
+      journal.truncate(0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error emptying disk journal " + journalPath, e);
+    }
+    journalSize = 0;
+    return true;
+  }
+
+  /**
+   * Closes the journal. The mapping of the image stays valid until it is
+   * garbage collected.
+   */
+  void close() {
+    try {
+      journal.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error closing disk journal " + journalPath, e);
+    }
+  }
+
+  private int newestValidSlot() {
+    int newest = -1;
+    long newestGeneration = 0;
+    for (int slot = 0; slot < 2; slot++) {
+      long slotGeneration = (long) LONG.get(image, slotOffset(slot) + SLOT_GENERATION);
+      int length = (int) INT.get(image, slotOffset(slot) + SLOT_LENGTH);
+      if (slotGeneration <= newestGeneration || length < 0 || length > slotSize - SLOT_HEADER_SIZE) {
+        continue;
+      }
+      if ((int) INT.get(image, slotOffset(slot) + SLOT_CRC) == slotChecksum(slot, length)) {
+        newest = slot;
+        newestGeneration = slotGeneration;
+      }
+    }
+    return newest;
+  }
+
+  private int slotChecksum(int slot, int length) {
+    CRC32 crc = new CRC32();
+    // Covers the generation and the length
+    crc.update(image.slice(slotOffset(slot) + SLOT_GENERATION, SLOT_CRC));
+    crc.update(image.slice(slotOffset(slot) + SLOT_HEADER_SIZE, length));
+    return (int) crc.getValue();
+  }
+
+  private static int checksum(ByteBuffer buffer, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(buffer.slice(offset, length));
+    return (int) crc.getValue();
+  }
+
+  private int slotOffset(int slot) {
+    return SUPERBLOCK_SIZE + slot * slotSize;
+  }
+
+  private static String readName(ByteBuffer buffer, int offset, int length) {
+    byte[] nameBytes = new byte[length];
+    buffer.get(offset, nameBytes);
+    return new String(nameBytes, StandardCharsets.UTF_8);
+  }
+
+  private static FileInfo readExtent(ByteBuffer buffer, int offset) {
+    return new FileInfo((int) INT.get(buffer, offset), (int) INT.get(buffer, offset + 4),
+        (int) INT.get(buffer, offset + 8));
+  }
+}
@@ -0,0 +1,214 @@
+package itcr.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * ExtentAllocator manages the free space of a contiguous memory region as a
+ * set of free extents.
+ *
+ * Free extents are indexed twice: by start address, to coalesce neighbours
+ * when a block is freed, and by size, to find the best fitting extent for an
+ * allocation. Allocation, freeing and in-place growth are all O(log n) on the
+ * number of free extents.
+ */
+public class ExtentAllocator {
+  private final int regionStart;
+  private final int regionSize;
+
+  // start -> size of every free extent
+  private final TreeMap<Integer, Integer> extentsByStart = new TreeMap<>();
+  // size -> starts of the free extents with that size
+  private final TreeMap<Integer, TreeSet<Integer>> extentsBySize = new TreeMap<>();
+  private int freeBytes;
+
+  /**
+   * Constructor for ExtentAllocator. The whole region starts free.
+   *
+   * @param regionStart the first address of the region
+   * @param regionSize  the size of the region in bytes
+   */
+  public ExtentAllocator(int regionStart, int regionSize) {
+    this.regionStart = regionStart;
+    this.regionSize = regionSize;
+    reset();
+  }
+
+  /**
+   * Marks the whole region as free again.
+   */
+  public void reset() {
+    extentsByStart.clear();
+    extentsBySize.clear();
+    freeBytes = 0;
+    if (regionSize > 0) {
+      addExtent(regionStart, regionSize);
+    }
+  }
+
+  /**
+   * Allocates a block using best fit.
+   *
+   * @param size the size of the block
+   * @return the start address of the block, or -1 if no free extent is big
+   *         enough
+   */
+  public int allocate(int size) {
+    if (size <= 0) {
+      return -1;
+    }
+
+    Map.Entry<Integer, TreeSet<Integer>> fit = extentsBySize.ceilingEntry(size);
+    if (fit == null) {
+      return -1;
+    }
+
+    int extentSize = fit.getKey();
+    int start = fit.getValue().first();
+    removeExtent(start, extentSize);
+    if (extentSize > size) {
+      addExtent(start + size, extentSize - size);
+    }
+    return start;
+  }
+
+  /**
+   * Allocates a block at a fixed address, if that range is free.
+   *
+   * @param start the start address of the block
+   * @param size  the size of the block
+   * @return true if the range was free and is now allocated
+   */
+  public boolean allocateAt(int start, int size) {
+    Map.Entry<Integer, Integer> extent = extentsByStart.floorEntry(start);
+    if (extent == null || extent.getKey() + extent.getValue() < start + size) {
+      return false;
+    }
+
+    int extentStart = extent.getKey();
+    int extentEnd = extentStart + extent.getValue();
+    removeExtent(extentStart, extent.getValue());
+    if (start > extentStart) {
+      addExtent(extentStart, start - extentStart);
+    }
+    if (extentEnd > start + size) {
+      addExtent(start + size, extentEnd - start - size);
+    }
+    return true;
+  }
+
+  /**
+   * Frees a block and merges it with the free extents next to it.
+   *
+   * @param start the start address of the block
+   * @param size  the size of the block
+   * @throws IllegalArgumentException if the block is outside the region or
+   *                                  overlaps a free extent, as a double free
+   *                                  or a wrong size would
+   */
+  public void free(int start, int size) {
+    if (size <= 0) {
+      return;
+    }
+    if (start < regionStart || start + size > regionStart + regionSize) {
+      throw new IllegalArgumentException("Block [" + start + ", " + (start + size) + ") is outside the region");
+    }
+
+    // Freeing bytes that are already free would let two blocks share them
+    Map.Entry<Integer, Integer> previous = extentsByStart.floorEntry(start);
+    Map.Entry<Integer, Integer> following = extentsByStart.ceilingEntry(start);
+    if ((previous != null && previous.getKey() + previous.getValue() > start)
+        || (following != null && following.getKey() < start + size)) {
+      throw new IllegalArgumentException("Block [" + start + ", " + (start + size) + ") is not allocated");
+    }
+
+    int newStart = start;
+    int newSize = size;
+
+    if (previous != null && previous.getKey() + previous.getValue() == start) {
+      removeExtent(previous.getKey(), previous.getValue());
+      newStart = previous.getKey();
+      newSize += previous.getValue();
+    }
+
+    Integer nextSize = extentsByStart.get(start + size);
+    if (nextSize != null) {
+      removeExtent(start + size, nextSize);
+      newSize += nextSize;
+    }
+
+    addExtent(newStart, newSize);
+  }
+
+  /**
+   * Tries to grow an allocated block without moving it, taking the bytes from
+   * the free extent right after it.
+   *
+   * @param start   the start address of the block
+   * @param size    the current size of the block
+   * @param newSize the requested size
+   * @return true if the block now has newSize bytes
+   */
+  public boolean grow(int start, int size, int newSize) {
+    if (newSize <= size) {
+      return true;
+    }
+
+    int end = start + size;
+    Integer nextSize = extentsByStart.get(end);
+    int missing = newSize - size;
+    if (nextSize == null || nextSize < missing) {
+      return false;
+    }
+
+    removeExtent(end, nextSize);
+    if (nextSize > missing) {
+      addExtent(end + missing, nextSize - missing);
+    }
+    return true;
+  }
+
+  /**
+   * Gets the total number of free bytes.
+   *
+   * @return the free bytes
+   */
+  public int getFreeBytes() {
+    return freeBytes;
+  }
+
+  /**
+   * Gets the size of the largest free extent.
+   *
+   * @return the size of the largest free extent, 0 if the region is full
+   */
+  public int getLargestFreeBlock() {
+    return extentsBySize.isEmpty() ? 0 : extentsBySize.lastKey();
+  }
+
+  /**
+   * Gets the free extents ordered by address.
+   *
+   * @return a map from start address to size
+   */
+  public Map<Integer, Integer> getFreeExtents() {
+    return new TreeMap<>(extentsByStart);
+  }
+
+  private void addExtent(int start, int size) {
+    extentsByStart.put(start, size);
+    extentsBySize.computeIfAbsent(size, k -> new TreeSet<>()).add(start);
+    freeBytes += size;
+  }
+
+  private void removeExtent(int start, int size) {
+    extentsByStart.remove(start);
+    TreeSet<Integer> starts = extentsBySize.get(size);
+    starts.remove(start);
+    if (starts.isEmpty()) {
+      extentsBySize.remove(size);
+    }
+    freeBytes -= size;
+  }
+}
@@ -0,0 +1,258 @@
+package itcr.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * FileDirectory indexes the files of the secondary storage as a tree of
+ * directories. A file name is a path whose components are separated by '/';
+ * the directories on the way are created with the first file stored under
+ * them and removed with the last one.
+ *
+ * Every directory keeps its children sorted by name, so a page of a
+ * directory, or of the children starting with a prefix, is found without
+ * looking at the rest of the tree. Listing only reads the index; the content
+ * of the files is never touched.
+ */
+final class FileDirectory {
+  static final char SEPARATOR = '/';
+
+  /**
+   * A directory or a file of the tree. Directories have children, files have
+   * their FileInfo.
+   */
+  private static final class Node {
+    final NavigableMap<String, Node> children;
+    FileInfo file;
+
+    Node(FileInfo file) {
+      this.children = file == null ? new TreeMap<>() : null;
+      this.file = file;
+    }
+
+    boolean isDirectory() {
+      return children != null;
+    }
+  }
+
+  private final Node root = new Node(null);
+  private int fileCount;
+
+  /**
+   * Rewrites a path in its canonical form: no leading, trailing or repeated
+   * separators and no "." components.
+   *
+   * @param path the path to normalize
+   * @return the canonical path, empty for the root directory
+   */
+  static String normalize(String path) {
+    StringBuilder normalized = new StringBuilder(path.length());
+    for (String component : path.split(String.valueOf(SEPARATOR))) {
+      String name = component.trim();
+      if (name.isEmpty() || name.equals(".")) {
+        continue;
+      }
+      if (normalized.length() > 0) {
+        normalized.append(SEPARATOR);
+      }
+      normalized.append(name);
+    }
+    return normalized.toString();
+  }
+
+  /**
+   * Gets the number of files in the tree.
+   *
+   * @return the number of files
+   */
+  int size() {
+    return fileCount;
+  }
+
+  /**
+   * Gets a file.
+   *
+   * @param path the canonical path of the file
+   * @return the file, or null if there is no file at that path
+   */
+  FileInfo get(String path) {
+    Node node = find(path);
+    return node != null && !node.isDirectory() ? node.file : null;
+  }
+
+  /**
+   * Checks whether a directory exists.
+   *
+   * @param path the canonical path of the directory, empty for the root
+   * @return true if the path names a directory
+   */
+  boolean isDirectory(String path) {
+    Node node = find(path);
+    return node != null && node.isDirectory();
+  }
+
+  /**
+   * Checks whether a file can be stored at a path: the path is not empty, no
+   * component on the way is a file and the path itself is not a directory.
+   *
+   * @param path the canonical path of the file
+   * @return true if {@link #put} would accept the path
+   */
+  boolean canPut(String path) {
+    if (path.isEmpty()) {
+      return false;
+    }
+    Node node = root;
+    for (String name : path.split(String.valueOf(SEPARATOR))) {
+      if (!node.isDirectory()) {
+        return false;
+      }
+      node = node.children.get(name);
+      if (node == null) {
+        return true;
+      }
+    }
+    return !node.isDirectory();
+  }
+
+  /**
+   * Stores a file, creating the missing directories of its path. The name
+   * of the FileInfo is set to the path.
+   *
+   * @param path the canonical path of the file
+   * @param file the file
+   * @return the file previously stored at the path, or null
+   * @throws IllegalArgumentException if {@link #canPut} rejects the path
+   */
+  FileInfo put(String path, FileInfo file) {
+    if (!canPut(path)) {
+      throw new IllegalArgumentException("Invalid file path: " + path);
+    }
+    String[] names = path.split(String.valueOf(SEPARATOR));
+    Node directory = root;
+    for (int i = 0; i < names.length - 1; i++) {
+      directory = directory.children.computeIfAbsent(names[i], name -> new Node(null));
+    }
+
+    file.fileName = path;
+    Node previous = directory.children.put(names[names.length - 1], new Node(file));
+    if (previous == null) {
+      fileCount++;
+      return null;
+    }
+    return previous.file;
+  }
+
+  /**
+   * Removes a file, and the directories of its path that become empty.
+   *
+   * @param path the canonical path of the file
+   * @return the removed file, or null if there is no file at that path
+   */
+  FileInfo remove(String path) {
+    if (path.isEmpty()) {
+      return null;
+    }
+    String[] names = path.split(String.valueOf(SEPARATOR));
+    Node[] parents = new Node[names.length];
+    Node node = root;
+    for (int i = 0; i < names.length; i++) {
+      if (!node.isDirectory()) {
+        return null;
+      }
+      parents[i] = node;
+      node = node.children.get(names[i]);
+      if (node == null) {
+        return null;
+      }
+    }
+    if (node.isDirectory()) {
+      return null;
+    }
+
+    parents[names.length - 1].children.remove(names[names.length - 1]);
+    for (int i = names.length - 1; i > 0 && parents[i].children.isEmpty(); i--) {
+      parents[i - 1].children.remove(names[i - 1]);
+    }
+    fileCount--;
+    return node.file;
+  }
+
+  /**
+   * Lists the files of the whole tree, in depth-first order.
+   *
+   * @return the files, named by their paths
+   */
+  List<FileInfo> files() {
+    List<FileInfo> files = new ArrayList<>(fileCount);
+    collectFiles(root, files);
+    return files;
+  }
+
+  private void collectFiles(Node directory, List<FileInfo> files) {
+    for (Node child : directory.children.values()) {
+      if (child.isDirectory()) {
+        collectFiles(child, files);
+      } else {
+        files.add(child.file);
+      }
+    }
+  }
+
+  /**
+   * Lists one page of the children of a directory whose names start with a
+   * prefix. Children are sorted by name.
+   *
+   * @param path   the canonical path of the directory, empty for the root
+   * @param prefix the prefix of the names to list, empty for all
+   * @param offset the number of matching children to skip
+   * @param limit  the maximum number of children in the page
+   * @return the page, empty if the path is not a directory
+   */
+  DirectoryPage list(String path, String prefix, int offset, int limit) {
+    Node directory = find(path);
+    if (directory == null || !directory.isDirectory()) {
+      return new DirectoryPage(path, List.of(), 0, offset);
+    }
+
+    NavigableMap<String, Node> matching = prefix.isEmpty()
+        ? directory.children
+        : directory.children.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    List<DirectoryEntry> entries = new ArrayList<>(Math.min(limit, matching.size()));
+    int skipped = 0;
+    for (Map.Entry<String, Node> child : matching.entrySet()) {
+      if (entries.size() >= limit) {
+        break;
+      }
+      if (skipped++ < offset) {
+        continue;
+      }
+      String childPath = path.isEmpty() ? child.getKey() : path + SEPARATOR + child.getKey();
+      Node node = child.getValue();
+      entries.add(node.isDirectory()
+          ? new DirectoryEntry(child.getKey(), childPath, true, node.children.size())
+          : new DirectoryEntry(child.getKey(), childPath, false, node.file.size));
+    }
+    return new DirectoryPage(path, entries, matching.size(), offset);
+  }
+
+  private Node find(String path) {
+    if (path.isEmpty()) {
+      return root;
+    }
+    Node node = root;
+    for (String name : path.split(String.valueOf(SEPARATOR))) {
+      if (!node.isDirectory()) {
+        return null;
+      }
+      node = node.children.get(name);
+      if (node == null) {
+        return null;
+      }
+    }
+    return node;
+  }
+}
@@ -7,6 +7,7 @@ public class FileInfo {
   String fileName;
   int startIndex;
   int size;
+  int capacity;
 
   /**
    * Constructor for FileInfo with start index and size.
@@ -15,8 +16,20 @@ public class FileInfo {
    * @param size the size of the file
    */
   FileInfo(int startIndex, int size) {
+    this(startIndex, size, size);
+  }
+
+  /**
+   * Constructor for FileInfo with start index, size and allocated capacity.
+   *
+   * @param startIndex the start index of the file
+   * @param size the size of the file
+   * @param capacity the number of bytes reserved for the file
+   */
+  FileInfo(int startIndex, int size, int capacity) {
     this.startIndex = startIndex;
     this.size = size;
+    this.capacity = capacity;
   }
 
   /**
@@ -0,0 +1,149 @@
+package itcr.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * FreeListAllocator keeps the free blocks of the region in a list ordered by
+ * address and implements the first fit, best fit and next fit policies on top
+ * of it. Freed blocks are merged with their free neighbours.
+ */
+class FreeListAllocator extends MemoryAllocator {
+  private final AllocationPolicy policy;
+
+  // start -> size of every free block
+  private final TreeMap<Integer, Integer> freeBlocks = new TreeMap<>();
+  // address where next fit resumes its search
+  private int nextFitCursor;
+
+  /**
+   * Constructor for FreeListAllocator.
+   *
+   * @param policy      FIRST_FIT, BEST_FIT or NEXT_FIT
+   * @param regionStart the first address of the region
+   * @param regionSize  the size of the region in bytes
+   */
+  FreeListAllocator(AllocationPolicy policy, int regionStart, int regionSize) {
+    super(regionStart, regionSize);
+    if (policy == AllocationPolicy.BUDDY) {
+      throw new IllegalArgumentException("The buddy policy needs a BuddyAllocator");
+    }
+    this.policy = policy;
+    reset();
+  }
+
+  @Override
+  public void reset() {
+    super.reset();
+    freeBlocks.clear();
+    if (regionSize > 0) {
+      freeBlocks.put(regionStart, regionSize);
+    }
+    nextFitCursor = regionStart;
+  }
+
+  @Override
+  protected int allocateBlock(int size) {
+    Map.Entry<Integer, Integer> block;
+    switch (policy) {
+      case BEST_FIT:
+        block = findBestFit(size);
+        break;
+      case NEXT_FIT:
+        block = findNextFit(size);
+        break;
+      default:
+        block = findFirstFit(freeBlocks, size);
+        break;
+    }
+
+    if (block == null) {
+      return -1;
+    }
+
+    int start = block.getKey();
+    int blockSize = block.getValue();
+    freeBlocks.remove(start);
+    if (blockSize > size) {
+      freeBlocks.put(start + size, blockSize - size);
+    }
+    nextFitCursor = start + size;
+    return start;
+  }
+
+  @Override
+  public void free(int start, int size) {
+    if (size <= 0) {
+      return;
+    }
+
+    int newStart = start;
+    int newSize = size;
+
+    Map.Entry<Integer, Integer> previous = freeBlocks.lowerEntry(start);
+    if (previous != null && previous.getKey() + previous.getValue() == start) {
+      freeBlocks.remove(previous.getKey());
+      newStart = previous.getKey();
+      newSize += previous.getValue();
+    }
+
+    Integer nextSize = freeBlocks.remove(start + size);
+    if (nextSize != null) {
+      newSize += nextSize;
+    }
+
+    freeBlocks.put(newStart, newSize);
+  }
+
+  @Override
+  public AllocationPolicy getPolicy() {
+    return policy;
+  }
+
+  @Override
+  public List<MemoryAllocation> getFreeBlocks() {
+    List<MemoryAllocation> blocks = new ArrayList<>(freeBlocks.size());
+    for (Map.Entry<Integer, Integer> entry : freeBlocks.entrySet()) {
+      blocks.add(new MemoryAllocation(entry.getKey(), entry.getValue()));
+    }
+    return blocks;
+  }
+
+  private static Map.Entry<Integer, Integer> findFirstFit(Map<Integer, Integer> blocks, int size) {
+    for (Map.Entry<Integer, Integer> entry : blocks.entrySet()) {
+      if (entry.getValue() >= size) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  private Map.Entry<Integer, Integer> findBestFit(int size) {
+    Map.Entry<Integer, Integer> best = null;
+    for (Map.Entry<Integer, Integer> entry : freeBlocks.entrySet()) {
+      if (entry.getValue() >= size && (best == null || entry.getValue() < best.getValue())) {
+        best = entry;
+        if (best.getValue() == size) {
+          break;
+        }
+      }
+    }
+    return best;
+  }
+
+  private Map.Entry<Integer, Integer> findNextFit(int size) {
+    // The block that contains the cursor counts as the first candidate
+    Integer from = freeBlocks.floorKey(nextFitCursor);
+    if (from == null || from + freeBlocks.get(from) <= nextFitCursor) {
+      from = nextFitCursor;
+    }
+
+    Map.Entry<Integer, Integer> block = findFirstFit(freeBlocks.tailMap(from, true), size);
+    if (block == null) {
+      block = findFirstFit(freeBlocks.headMap(from, false), size);
+    }
+    return block;
+  }
+}
@@ -0,0 +1,102 @@
+package itcr.model;
+
+/**
+ * Instruction class represents an assembly instruction that has already been
+ * decoded from its text form. Registers are kept as ordinals of
+ * {@link Register} and numeric operands as plain ints, so the CPU can execute
+ * it without parsing strings.
+ */
+public class Instruction {
+  public static final int NO_REGISTER = -1;
+
+  private static final Register[] REGISTERS = Register.values();
+  private static final InterruptCode[] INTERRUPT_CODES = InterruptCode.values();
+
+  final InstructionType type;
+  final int destRegister;
+  final int sourceRegister;
+  final int immediate;
+  final int[] params;
+
+  /**
+   * Constructor for Instruction.
+   *
+   * @param type           the type of the instruction
+   * @param destRegister   the ordinal of the destination register, or
+   *                       NO_REGISTER
+   * @param sourceRegister the ordinal of the source register, or NO_REGISTER
+   * @param immediate      the immediate value (jump offset, interrupt code
+   *                       ordinal or MOV constant)
+   * @param params         the values of a PARAM instruction, or null
+   */
+  Instruction(InstructionType type, int destRegister, int sourceRegister, int immediate, int[] params) {
+    this.type = type;
+    this.destRegister = destRegister;
+    this.sourceRegister = sourceRegister;
+    this.immediate = immediate;
+    this.params = params;
+  }
+
+  /**
+   * Gets the type of the instruction.
+   *
+   * @return the instruction type
+   */
+  public InstructionType getType() {
+    return type;
+  }
+
+  /**
+   * Gets the interrupt code of an INT instruction.
+   *
+   * @return the interrupt code
+   */
+  public InterruptCode getInterruptCode() {
+    return INTERRUPT_CODES[immediate];
+  }
+
+  /**
+   * Returns the instruction in its canonical text form, which the assembler
+   * parses back into the same instruction.
+   *
+   * @return the text of the instruction
+   */
+  @Override
+  public String toString() {
+    switch (type) {
+      case INC:
+      case DEC:
+        // The accumulator is the implicit operand, it has no name in the syntax
+        return destRegister == Register.AC.ordinal() ? type.toString() : type + " " + REGISTERS[destRegister];
+      case LOAD:
+      case STORE:
+      case ADD:
+      case SUB:
+      case PUSH:
+      case POP:
+        return type + " " + REGISTERS[destRegister];
+      case MOV:
+        return type + " " + REGISTERS[destRegister] + ", "
+            + (sourceRegister == NO_REGISTER ? String.valueOf(immediate) : REGISTERS[sourceRegister].toString());
+      case SWAP:
+      case CMP:
+        return type + " " + REGISTERS[destRegister] + ", " + REGISTERS[sourceRegister];
+      case JMP:
+      case JE:
+      case JNE:
+      case JG:
+      case JL:
+        return type + " " + (immediate > 0 ? "+" : "") + immediate;
+      case INT:
+        return type + " " + getInterruptCode();
+      case PARAM:
+        StringBuilder sb = new StringBuilder(type.toString());
+        for (int i = 0; i < params.length; i++) {
+          sb.append(i == 0 ? " " : ", ").append(params[i]);
+        }
+        return sb.toString();
+      default:
+        return type.toString();
+    }
+  }
+}
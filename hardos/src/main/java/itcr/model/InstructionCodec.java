@@ -0,0 +1,140 @@
+package itcr.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.List;
+
+/**
+ * InstructionCodec encodes assembled programs into the binary image stored in
+ * the user space of the main memory.
+ *
+ * The image starts with one fixed size word per instruction, so instruction i
+ * of a program lives at imageStart + i * WORD_SIZE and can be fetched without
+ * an index. The values of PARAM instructions do not fit in a word, they are
+ * kept in a pool after the last word and the PARAM word points to them.
+ */
+public class InstructionCodec {
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final InstructionType[] TYPES = InstructionType.values();
+  private static final byte NO_REGISTER = (byte) 0xFF;
+
+  // Word layout (offsets in bytes)
+  static final int OPCODE = 0;
+  static final int DEST_REGISTER = 1;
+  static final int SOURCE_REGISTER = 2;
+  static final int PARAM_COUNT = 3;
+  static final int IMMEDIATE = 4;
+  public static final int WORD_SIZE = IMMEDIATE + 4;
+
+  /**
+   * Computes the number of bytes needed to encode a program.
+   *
+   * @param program the decoded instructions of the program
+   * @return the image size in bytes
+   */
+  public static int imageSize(List<Instruction> program) {
+    int size = program.size() * WORD_SIZE;
+    for (Instruction instruction : program) {
+      if (instruction.params != null) {
+        size += instruction.params.length * 4;
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Encodes a program into a memory buffer.
+   *
+   * @param program the decoded instructions of the program
+   * @param memory  the destination buffer
+   * @param offset  the offset where the image starts
+   * @return the number of bytes written
+   */
+  public static int encode(List<Instruction> program, ByteBuffer memory, int offset) {
+    int pool = program.size() * WORD_SIZE;
+    for (int i = 0; i < program.size(); i++) {
+      Instruction instruction = program.get(i);
+      int word = offset + i * WORD_SIZE;
+      memory.put(word + OPCODE, (byte) instruction.type.ordinal());
+      memory.put(word + DEST_REGISTER, toRegisterByte(instruction.destRegister));
+      memory.put(word + SOURCE_REGISTER, toRegisterByte(instruction.sourceRegister));
+
+      if (instruction.params != null) {
+        // The immediate of a PARAM word is the offset of its values in the
+        // pool, relative to the start of the image
+        memory.put(word + PARAM_COUNT, (byte) instruction.params.length);
+        INT.set(memory, word + IMMEDIATE, pool);
+        for (int value : instruction.params) {
+          INT.set(memory, offset + pool, value);
+          pool += 4;
+        }
+      } else {
+        memory.put(word + PARAM_COUNT, (byte) 0);
+        INT.set(memory, word + IMMEDIATE, instruction.immediate);
+      }
+    }
+    return pool;
+  }
+
+  /**
+   * Decodes one instruction of an image.
+   *
+   * @param memory     the buffer holding the image
+   * @param imageStart the offset where the image starts
+   * @param index      the index of the instruction
+   * @return the decoded instruction
+   */
+  public static Instruction decode(ByteBuffer memory, int imageStart, int index) {
+    return decodeWord(memory, imageStart + index * WORD_SIZE, memory, imageStart);
+  }
+
+  /**
+   * Decodes one instruction word whose PARAM values may live in another
+   * buffer, as they do when the pages of an image are not contiguous.
+   *
+   * @param memory   the buffer holding the word
+   * @param word     the offset of the word
+   * @param pool     the buffer holding the PARAM values
+   * @param poolBase the offset the pool offsets of the word are relative to
+   * @return the decoded instruction
+   */
+  static Instruction decodeWord(ByteBuffer memory, int word, ByteBuffer pool, int poolBase) {
+    InstructionType type = TYPES[memory.get(word + OPCODE)];
+    int destRegister = fromRegisterByte(memory.get(word + DEST_REGISTER));
+    int sourceRegister = fromRegisterByte(memory.get(word + SOURCE_REGISTER));
+    int immediate = (int) INT.get(memory, word + IMMEDIATE);
+
+    int count = memory.get(word + PARAM_COUNT);
+    if (count == 0) {
+      return new Instruction(type, destRegister, sourceRegister, immediate, null);
+    }
+
+    int[] params = new int[count];
+    for (int i = 0; i < count; i++) {
+      params[i] = (int) INT.get(pool, poolBase + immediate + i * 4);
+    }
+    return new Instruction(type, destRegister, sourceRegister, 0, params);
+  }
+
+  /**
+   * Gets the address of an instruction of an image.
+   *
+   * @param imageStart the offset where the image starts
+   * @param index      the index of the instruction
+   * @return the address of the word of the instruction
+   */
+  public static int instructionAddress(int imageStart, int index) {
+    return imageStart + index * WORD_SIZE;
+  }
+
+  private static byte toRegisterByte(int register) {
+    return register == Instruction.NO_REGISTER ? NO_REGISTER : (byte) register;
+  }
+
+  private static int fromRegisterByte(byte register) {
+    return register == NO_REGISTER ? Instruction.NO_REGISTER : register;
+  }
+}
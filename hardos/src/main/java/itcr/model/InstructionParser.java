@@ -0,0 +1,379 @@
+package itcr.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * InstructionParser reads a line of assembly code in a single left to right
+ * pass. The mnemonic selects the operands to expect, so a line is never
+ * matched against the patterns of other instructions, and the result is the
+ * decoded {@link Instruction} the CPU executes.
+ *
+ * Mnemonics and registers are upper case, a comment starts with // and can
+ * follow any instruction. A line can start with a label definition
+ * ("loop:") and jumps can take a label instead of a numeric offset; labels
+ * are resolved by the {@link Assembler}, the parser only reports them.
+ */
+final class InstructionParser {
+  private static final Map<String, InstructionType> MNEMONICS = new HashMap<>();
+  private static final InterruptCode[] INTERRUPT_CODES = InterruptCode.values();
+  private static final int MAX_PARAMS = 3;
+
+  static {
+    for (InstructionType type : InstructionType.values()) {
+      MNEMONICS.put(type.name(), type);
+    }
+  }
+
+  private final String line;
+  final int lineNumber;
+  private int pos;
+  AssemblerDiagnostic diagnostic;
+  // Label defined on this line and its column, or null
+  String label;
+  int labelColumn;
+  // Label used as jump target on this line and its column, or null
+  String target;
+  int targetColumn;
+
+  /**
+   * Constructor for InstructionParser.
+   *
+   * @param line       the line to parse
+   * @param lineNumber the number of the line, used in the diagnostics
+   */
+  InstructionParser(String line, int lineNumber) {
+    this.line = line;
+    this.lineNumber = lineNumber;
+  }
+
+  /**
+   * Parses the line. After the call the diagnostic, label and target fields
+   * describe what was found.
+   *
+   * @return the decoded instruction, or null if the line holds no instruction
+   *         or has an error. A jump to a label has an offset of 0 until the
+   *         assembler resolves it.
+   */
+  Instruction parseLine() {
+    skipSpaces();
+    if (atEndOfInstruction()) {
+      return null;
+    }
+
+    int start = pos;
+    if (isIdentifierStart(line.charAt(pos))) {
+      String name = identifier();
+      skipSpaces();
+      if (pos < line.length() && line.charAt(pos) == ':') {
+        label = name;
+        labelColumn = start + 1;
+        pos++;
+        skipSpaces();
+        if (atEndOfInstruction()) {
+          return null;
+        }
+        start = pos;
+      } else {
+        pos = start;
+      }
+    }
+
+    while (pos < line.length() && line.charAt(pos) >= 'A' && line.charAt(pos) <= 'Z') {
+      pos++;
+    }
+    InstructionType type = MNEMONICS.get(line.substring(start, pos));
+    if (type == null) {
+      pos = start;
+      return error("una instrucción");
+    }
+    // The mnemonic is a word of its own, "JMPloop" is not "JMP loop"
+    if (!atEndOfInstruction() && !isSpace(line.charAt(pos))) {
+      return error("un espacio");
+    }
+
+    Instruction instruction = parseOperands(type);
+    if (instruction == null) {
+      return null;
+    }
+
+    skipSpaces();
+    if (!atEndOfInstruction()) {
+      return error("el fin de línea o un comentario");
+    }
+    return instruction;
+  }
+
+  private Instruction parseOperands(InstructionType type) {
+    switch (type) {
+      case LOAD:
+      case STORE:
+      case ADD:
+      case SUB:
+      case PUSH:
+      case POP: {
+        int reg = spaceThenRegister();
+        return reg < 0 ? null : new Instruction(type, reg, Instruction.NO_REGISTER, 0, null);
+      }
+      case INC:
+      case DEC: {
+        int afterMnemonic = pos;
+        skipSpaces();
+        if (atEndOfInstruction()) {
+          return new Instruction(type, Register.AC.ordinal(), Instruction.NO_REGISTER, 0, null);
+        }
+        pos = afterMnemonic;
+        int reg = spaceThenRegister();
+        return reg < 0 ? null : new Instruction(type, reg, Instruction.NO_REGISTER, 0, null);
+      }
+      case MOV: {
+        int dest = spaceThenRegister();
+        if (dest < 0 || !comma()) {
+          return null;
+        }
+        if (pos < line.length() && isDigit(line.charAt(pos))) {
+          long value = number();
+          return value == Long.MIN_VALUE ? null
+              : new Instruction(type, dest, Instruction.NO_REGISTER, (int) value, null);
+        }
+        int source = register();
+        return source < 0 ? null : new Instruction(type, dest, source, 0, null);
+      }
+      case SWAP:
+      case CMP: {
+        int dest = spaceThenRegister();
+        if (dest < 0 || !comma()) {
+          return null;
+        }
+        int source = register();
+        return source < 0 ? null : new Instruction(type, dest, source, 0, null);
+      }
+      case JMP:
+      case JE:
+      case JNE:
+      case JG:
+      case JL: {
+        skipSpaces();
+        if (pos < line.length() && isIdentifierStart(line.charAt(pos))) {
+          targetColumn = pos + 1;
+          target = identifier();
+          return new Instruction(type, Instruction.NO_REGISTER, Instruction.NO_REGISTER, 0, null);
+        }
+        if (!atNumber()) {
+          return error("un desplazamiento o una etiqueta");
+        }
+        long offset = signedNumber();
+        return offset == Long.MIN_VALUE ? null
+            : new Instruction(type, Instruction.NO_REGISTER, Instruction.NO_REGISTER, (int) offset, null);
+      }
+      case INT: {
+        if (!space()) {
+          return null;
+        }
+        int code = interruptCode();
+        return code < 0 ? null
+            : new Instruction(type, Instruction.NO_REGISTER, Instruction.NO_REGISTER, code, null);
+      }
+      case PARAM:
+        return parseParams();
+      default:
+        return error("una instrucción");
+    }
+  }
+
+  private Instruction parseParams() {
+    if (!space()) {
+      return null;
+    }
+
+    int[] values = new int[MAX_PARAMS];
+    int count = 0;
+    do {
+      if (count > 0) {
+        pos++; // the comma
+        skipSpaces();
+      }
+      if (count == MAX_PARAMS) {
+        return error("como máximo " + MAX_PARAMS + " parámetros");
+      }
+      long value = signedNumber();
+      if (value == Long.MIN_VALUE) {
+        return null;
+      }
+      values[count++] = (int) value;
+      skipSpaces();
+    } while (pos < line.length() && line.charAt(pos) == ',');
+
+    int[] params = new int[count];
+    System.arraycopy(values, 0, params, 0, count);
+    return new Instruction(InstructionType.PARAM, Instruction.NO_REGISTER, Instruction.NO_REGISTER, 0, params);
+  }
+
+  private String identifier() {
+    int start = pos;
+    while (pos < line.length() && (isIdentifierStart(line.charAt(pos)) || isDigit(line.charAt(pos)))) {
+      pos++;
+    }
+    return line.substring(start, pos);
+  }
+
+  private int spaceThenRegister() {
+    return space() ? register() : -1;
+  }
+
+  /**
+   * Reads a register from AX to DX.
+   *
+   * @return the ordinal of the register, or -1 on error
+   */
+  private int register() {
+    if (pos + 1 < line.length()) {
+      char name = line.charAt(pos);
+      if (name >= 'A' && name <= 'D' && line.charAt(pos + 1) == 'X') {
+        pos += 2;
+        return Register.AX.ordinal() + (name - 'A');
+      }
+    }
+    error("un registro (AX, BX, CX o DX)");
+    return -1;
+  }
+
+  /**
+   * Reads an interrupt code like _10H.
+   *
+   * @return the ordinal of the interrupt code, or -1 on error
+   */
+  private int interruptCode() {
+    if (pos + 3 < line.length() && line.charAt(pos) == '_' && line.charAt(pos + 3) == 'H') {
+      String name = line.substring(pos, pos + 4);
+      for (InterruptCode code : INTERRUPT_CODES) {
+        if (code.name().equals(name)) {
+          pos += 4;
+          return code.ordinal();
+        }
+      }
+    }
+    error("un código de interrupción (_08H, _09H, _10H, _20H o _21H)");
+    return -1;
+  }
+
+  /**
+   * Reads an integer with an optional sign.
+   *
+   * @return the value, or Long.MIN_VALUE on error
+   */
+  private long signedNumber() {
+    int start = pos;
+    boolean negative = false;
+    if (pos < line.length() && (line.charAt(pos) == '+' || line.charAt(pos) == '-')) {
+      negative = line.charAt(pos) == '-';
+      pos++;
+    }
+    long value = number();
+    if (value == Long.MIN_VALUE) {
+      pos = start;
+      return value;
+    }
+    return negative ? -value : value;
+  }
+
+  /**
+   * Reads an integer without sign that fits in 32 bits.
+   *
+   * @return the value, or Long.MIN_VALUE on error
+   */
+  private long number() {
+    int start = pos;
+    long value = 0;
+    while (pos < line.length() && isDigit(line.charAt(pos))) {
+      value = value * 10 + (line.charAt(pos) - '0');
+      if (value > Integer.MAX_VALUE) {
+        pos = start;
+        error("un número de 32 bits");
+        return Long.MIN_VALUE;
+      }
+      pos++;
+    }
+    if (pos == start) {
+      error("un número");
+      return Long.MIN_VALUE;
+    }
+    return value;
+  }
+
+  private boolean atNumber() {
+    if (pos == line.length()) {
+      return false;
+    }
+    char c = line.charAt(pos);
+    return isDigit(c) || c == '+' || c == '-';
+  }
+
+  private boolean comma() {
+    skipSpaces();
+    if (pos < line.length() && line.charAt(pos) == ',') {
+      pos++;
+      skipSpaces();
+      return true;
+    }
+    error("','");
+    return false;
+  }
+
+  /**
+   * Requires at least one space and skips all of them.
+   *
+   * @return true if there was a space
+   */
+  private boolean space() {
+    if (pos < line.length() && isSpace(line.charAt(pos))) {
+      skipSpaces();
+      return true;
+    }
+    error("un espacio");
+    return false;
+  }
+
+  private void skipSpaces() {
+    while (pos < line.length() && isSpace(line.charAt(pos))) {
+      pos++;
+    }
+  }
+
+  private boolean atEndOfInstruction() {
+    return pos == line.length() || line.startsWith("//", pos);
+  }
+
+  /**
+   * Records the error at the current position. Only the first error of a line
+   * is kept.
+   *
+   * @param expected a description of the expected token
+   * @return always null, so parse methods can return it directly
+   */
+  private Instruction error(String expected) {
+    if (diagnostic == null) {
+      int end = pos;
+      while (end < line.length() && !isSpace(line.charAt(end)) && line.charAt(end) != ',') {
+        end++;
+      }
+      if (end == pos && end < line.length()) {
+        end++;
+      }
+      diagnostic = new AssemblerDiagnostic(lineNumber, pos + 1, expected, line.substring(pos, end));
+    }
+    return null;
+  }
+
+  private static boolean isIdentifierStart(char c) {
+    return (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || c == '_';
+  }
+
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isSpace(char c) {
+    return c == ' ' || c == '\t' || c == '\r' || c == '\f' || c == '\u000B';
+  }
+}
@@ -0,0 +1,5 @@
+package itcr.model;
+
+public enum InstructionType {
+  LOAD, STORE, MOV, ADD, SUB, INT, INC, DEC, SWAP, JMP, CMP, JE, JNE, JG, JL, PARAM, PUSH, POP
+}
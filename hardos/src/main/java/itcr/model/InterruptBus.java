@@ -0,0 +1,191 @@
+package itcr.model;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * InterruptBus carries the interrupts raised by the CPUs of one Scheduler
+ * to whoever handles them: the console of the simulator window, the
+ * standard output of a batch run, or nobody.
+ *
+ * Every InterruptCode has its own channel with its consumers and counters.
+ * The CPUs publish from their threads into one lock-free queue, which keeps
+ * the order of the interrupts across channels: a prompt printed with _10H
+ * is always handled before the _09H request that follows it. A single
+ * thread takes the messages out with {@link #dispatch} and hands each one
+ * to the consumers of its channel. Interrupts of a channel without
+ * consumers are counted and dropped right away.
+ *
+ * The bus also keeps the input requested by the processes waiting on _08H
+ * and _09H. Each Scheduler owns its bus, so several simulators can run in
+ * the same JVM without seeing each other's interrupts.
+ */
+public final class InterruptBus {
+  /**
+   * The consumers and counters of one interrupt code.
+   */
+  private static final class Channel {
+    final List<Consumer<InterruptMessage>> consumers = new CopyOnWriteArrayList<>();
+    final LongAdder published = new LongAdder();
+    final LongAdder dropped = new LongAdder();
+  }
+
+  private final Map<InterruptCode, Channel> channels = new EnumMap<>(InterruptCode.class);
+  private final MpscQueue<InterruptMessage> queue = new MpscQueue<>();
+  // Thread parked in awaitMessages, woken by the next publish
+  private volatile Thread waiter;
+  private final Map<Integer, CompletableFuture<String>> inputFutures = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor for InterruptBus. Creates a channel for every interrupt code.
+   */
+  public InterruptBus() {
+    for (InterruptCode code : InterruptCode.values()) {
+      channels.put(code, new Channel());
+    }
+  }
+
+  /**
+   * Adds a consumer to the channel of an interrupt code. Consumers run on
+   * the thread that calls {@link #dispatch}.
+   *
+   * @param code     the interrupt code
+   * @param consumer the consumer
+   */
+  public void subscribe(InterruptCode code, Consumer<InterruptMessage> consumer) {
+    channels.get(code).consumers.add(consumer);
+  }
+
+  /**
+   * Removes a consumer added with {@link #subscribe}.
+   *
+   * @param code     the interrupt code
+   * @param consumer the consumer
+   */
+  public void unsubscribe(InterruptCode code, Consumer<InterruptMessage> consumer) {
+    channels.get(code).consumers.remove(consumer);
+  }
+
+  /**
+   * Raises an interrupt. Never blocks; safe to call from any CPU thread.
+   *
+   * @param coreId    the ID of the core that raised it
+   * @param code      the interrupt code
+   * @param message   the message of the interrupt
+   * @param processId the ID of the process that raised it
+   */
+  public void publish(int coreId, InterruptCode code, String message, int processId) {
+    Channel channel = channels.get(code);
+    channel.published.increment();
+    if (channel.consumers.isEmpty()) {
+      channel.dropped.increment();
+      return;
+    }
+    queue.offer(new InterruptMessage(coreId, code, message, processId));
+    Thread thread = waiter;
+    if (thread != null) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * Waits until there is a message to dispatch. Only the dispatching thread
+   * may call it.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitMessages() throws InterruptedException {
+    waiter = Thread.currentThread();
+    try {
+      while (queue.isEmpty()) {
+        LockSupport.park(this);
+        if (Thread.interrupted()) {
+          throw new InterruptedException();
+        }
+      }
+    } finally {
+      waiter = null;
+    }
+  }
+
+  /**
+   * Hands the queued messages to the consumers of their channels, in the
+   * order they were published. Only one thread may dispatch.
+   *
+   * @param maxMessages the maximum number of messages to dispatch
+   * @return the number of messages dispatched
+   */
+  public int dispatch(int maxMessages) {
+    int dispatched = 0;
+    InterruptMessage message;
+    while (dispatched < maxMessages && (message = queue.poll()) != null) {
+      for (Consumer<InterruptMessage> consumer : channels.get(message.getCode()).consumers) {
+        consumer.accept(message);
+      }
+      dispatched++;
+    }
+    return dispatched;
+  }
+
+  /**
+   * Gets the number of interrupts raised on a channel.
+   *
+   * @param code the interrupt code
+   * @return the interrupts raised since the bus was created
+   */
+  public long getPublished(InterruptCode code) {
+    return channels.get(code).published.sum();
+  }
+
+  /**
+   * Gets the number of interrupts of a channel dropped because it had no
+   * consumers.
+   *
+   * @param code the interrupt code
+   * @return the interrupts dropped since the bus was created
+   */
+  public long getDropped(InterruptCode code) {
+    return channels.get(code).dropped.sum();
+  }
+
+  /**
+   * Registers a process waiting for input.
+   *
+   * @param processId the ID of the process requesting input
+   * @return a CompletableFuture completed with the input
+   */
+  public CompletableFuture<String> requestInput(int processId) {
+    CompletableFuture<String> future = new CompletableFuture<>();
+    inputFutures.put(processId, future);
+    return future;
+  }
+
+  /**
+   * Gives the input to the process waiting for it.
+   *
+   * @param processId the ID of the process
+   * @param input     the input, null (a cancelled dialog) is taken as an
+   *                  empty line
+   */
+  public void provideInput(int processId, String input) {
+    CompletableFuture<String> future = inputFutures.remove(processId);
+    if (future != null) {
+      future.complete(input == null ? "" : input);
+    }
+  }
+
+  /**
+   * Forgets the pending input requests. The consumers stay subscribed and
+   * messages already queued are still dispatched.
+   */
+  public void clear() {
+    inputFutures.clear();
+  }
+}
@@ -0,0 +1,186 @@
+package itcr.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * MemoryAllocator places blocks inside a contiguous region of the main memory
+ * following an {@link AllocationPolicy}.
+ *
+ * Besides allocating and freeing, every allocator keeps the metrics used to
+ * compare policies: average allocation latency, failed allocations, external
+ * fragmentation and the largest free block.
+ */
+public abstract class MemoryAllocator {
+  protected final int regionStart;
+  protected final int regionSize;
+
+  private long allocations;
+  private long failedAllocations;
+  private long allocationNanos;
+
+  /**
+   * Constructor for MemoryAllocator.
+   *
+   * @param regionStart the first address of the region
+   * @param regionSize  the size of the region in bytes
+   */
+  protected MemoryAllocator(int regionStart, int regionSize) {
+    this.regionStart = regionStart;
+    this.regionSize = Math.max(regionSize, 0);
+  }
+
+  /**
+   * Creates the allocator for a policy. The whole region starts free.
+   *
+   * @param policy      the allocation policy
+   * @param regionStart the first address of the region
+   * @param regionSize  the size of the region in bytes
+   * @return the allocator
+   */
+  public static MemoryAllocator create(AllocationPolicy policy, int regionStart, int regionSize) {
+    if (policy == AllocationPolicy.BUDDY) {
+      return new BuddyAllocator(regionStart, regionSize);
+    }
+    return new FreeListAllocator(policy, regionStart, regionSize);
+  }
+
+  /**
+   * Allocates a block.
+   *
+   * @param size the size of the block
+   * @return the start address of the block, or -1 if there is not enough space
+   */
+  public final int allocate(int size) {
+    long start = System.nanoTime();
+    int address = size > 0 ? allocateBlock(size) : -1;
+    allocationNanos += System.nanoTime() - start;
+    allocations++;
+    if (address == -1) {
+      failedAllocations++;
+    }
+    return address;
+  }
+
+  /**
+   * Frees a block previously returned by {@link #allocate(int)}.
+   *
+   * @param start the start address of the block
+   * @param size  the size that was requested for the block
+   */
+  public abstract void free(int start, int size);
+
+  /**
+   * Frees the whole region and places a set of live blocks again, in the
+   * given order, so they end up next to each other with the free space left
+   * in one piece. Used by compaction; the metrics are kept.
+   *
+   * The blocks are placed on a scratch allocator of the same policy first, so
+   * if one of them no longer fits (the buddy system rounds every block up to a
+   * power of two) this allocator is left exactly as it was.
+   *
+   * @param sizes the sizes that were requested for the live blocks
+   * @return the new start address of every block, in the order of sizes
+   * @throws IllegalStateException if the blocks no longer fit in the region
+   */
+  public int[] pack(int[] sizes) {
+    int[] starts = place(create(getPolicy(), regionStart, regionSize), sizes);
+
+    long savedAllocations = allocations;
+    long savedFailedAllocations = failedAllocations;
+    long savedAllocationNanos = allocationNanos;
+    reset();
+    allocations = savedAllocations;
+    failedAllocations = savedFailedAllocations;
+    allocationNanos = savedAllocationNanos;
+
+    // Placement only depends on the free blocks, so this repeats the scratch run
+    if (!Arrays.equals(place(this, sizes), starts)) {
+      throw new IllegalStateException("Compaction placed the blocks differently than planned");
+    }
+    return starts;
+  }
+
+  private static int[] place(MemoryAllocator allocator, int[] sizes) {
+    int[] starts = new int[sizes.length];
+    for (int i = 0; i < sizes.length; i++) {
+      starts[i] = allocator.allocateBlock(sizes[i]);
+      if (starts[i] == -1) {
+        throw new IllegalStateException("Compaction could not place a block of " + sizes[i] + " bytes");
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * Marks the whole region as free again and clears the metrics.
+   */
+  public void reset() {
+    allocations = 0;
+    failedAllocations = 0;
+    allocationNanos = 0;
+  }
+
+  /**
+   * Gets the policy implemented by this allocator.
+   *
+   * @return the allocation policy
+   */
+  public abstract AllocationPolicy getPolicy();
+
+  /**
+   * Gets the free blocks ordered by address.
+   *
+   * @return the free blocks
+   */
+  public abstract List<MemoryAllocation> getFreeBlocks();
+
+  /**
+   * Places a block of the given size.
+   *
+   * @param size the size of the block, always positive
+   * @return the start address of the block, or -1 if there is not enough space
+   */
+  protected abstract int allocateBlock(int size);
+
+  // Metrics
+
+  public int getFreeBytes() {
+    int freeBytes = 0;
+    for (MemoryAllocation block : getFreeBlocks()) {
+      freeBytes += block.size;
+    }
+    return freeBytes;
+  }
+
+  public int getLargestFreeBlock() {
+    int largest = 0;
+    for (MemoryAllocation block : getFreeBlocks()) {
+      largest = Math.max(largest, block.size);
+    }
+    return largest;
+  }
+
+  /**
+   * Gets the external fragmentation ratio, the share of the free memory that
+   * is not part of the largest free block.
+   *
+   * @return a value between 0 (no fragmentation) and 1
+   */
+  public double getExternalFragmentation() {
+    int freeBytes = getFreeBytes();
+    return freeBytes == 0 ? 0 : 1 - (double) getLargestFreeBlock() / freeBytes;
+  }
+
+  public double getAverageAllocationNanos() {
+    return allocations == 0 ? 0 : (double) allocationNanos / allocations;
+  }
+
+  public long getAllocations() {
+    return allocations;
+  }
+
+  public long getFailedAllocations() {
+    return failedAllocations;
+  }
+}
@@ -0,0 +1,70 @@
+package itcr.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * MemoryBacking lists where the bytes of the main memory and the secondary
+ * storage live.
+ *
+ * HEAP keeps them in a Java array, DIRECT in native memory outside the heap
+ * so large memories do not weigh on the garbage collector, and MAPPED in a
+ * file mapped into memory, so the content of the disk survives a restart.
+ * HEAP is the default for both. MAPPED is opt-in, with
+ * "secondaryStorageBacking" set to "mapped" in the configuration file or
+ * --disk FILE in BatchRunner, because it creates the disk image (by default
+ * hardos-disk.img in the working directory) and carries its files over to
+ * the next run.
+ */
+public enum MemoryBacking {
+  HEAP, DIRECT, MAPPED;
+
+  /**
+   * Parses a backing name as written in the configuration files. Case is
+   * ignored.
+   *
+   * @param name the name of the backing
+   * @return the matching backing
+   * @throws IllegalArgumentException if the name does not match any backing
+   */
+  public static MemoryBacking fromString(String name) {
+    String normalized = name.trim().toUpperCase();
+    for (MemoryBacking backing : values()) {
+      if (backing.name().equals(normalized)) {
+        return backing;
+      }
+    }
+    throw new IllegalArgumentException("Invalid memory backing: " + name);
+  }
+
+  /**
+   * Creates a zeroed buffer with this backing. A MAPPED buffer keeps the
+   * current content of its file, which grows to the requested size if it is
+   * shorter.
+   *
+   * @param size the size of the buffer in bytes
+   * @param file the file of a MAPPED buffer, ignored by the other backings
+   * @return the buffer
+   * @throws UncheckedIOException if the file can not be mapped
+   */
+  ByteBuffer allocate(int size, Path file) {
+    switch (this) {
+      case DIRECT:
+        return ByteBuffer.allocateDirect(size);
+      case MAPPED:
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+          return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+          throw new UncheckedIOException("Error mapping " + file, e);
+        }
+      default:
+        return ByteBuffer.allocate(size);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package itcr.model;
+
+/**
+ * MemoryEvent describes one change made by the {@link MemoryManager}, so a
+ * view of the memory can update the part that changed instead of rebuilding
+ * the whole map.
+ *
+ * An event names the block that changed by its region and name: a process,
+ * stack or BCP by the name of its process, a string by its handle and a file
+ * by its path. RELOCATED and RESET concern the whole memory and carry no
+ * block.
+ */
+public final class MemoryEvent {
+  /**
+   * What happened to the block.
+   */
+  public enum Type {
+    ALLOCATED,
+    FREED,
+    INSTRUCTIONS_STORED,
+    BCP_UPDATED,
+    STACK_WRITTEN,
+    FILE_WRITTEN,
+    // Pages of the virtual memory were brought in or taken out of frames
+    PAGES_CHANGED,
+    // Compaction moved the blocks of the user space
+    RELOCATED,
+    // Everything stored in the memory was dropped
+    RESET
+  }
+
+  /**
+   * Where the block lives.
+   */
+  public enum Region {
+    PROCESS,
+    PAGED_PROCESS,
+    STACK,
+    BCP,
+    STRING,
+    FILE,
+    VIRTUAL_MEMORY
+  }
+
+  private final Type type;
+  private final Region region;
+  private final String name;
+  private final int start;
+  private final int end;
+
+  /**
+   * Constructor for MemoryEvent.
+   *
+   * @param type   what happened
+   * @param region where the block lives, null for RELOCATED and RESET
+   * @param name   the name of the block, null for RELOCATED and RESET
+   * @param start  the first address of the block
+   * @param end    the last address of the block
+   */
+  public MemoryEvent(Type type, Region region, String name, int start, int end) {
+    this.type = type;
+    this.region = region;
+    this.name = name;
+    this.start = start;
+    this.end = end;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Region getRegion() {
+    return region;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + region + " " + name + " (" + start + " - " + end + ")";
+  }
+}
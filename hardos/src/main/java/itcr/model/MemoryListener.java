@@ -0,0 +1,19 @@
+package itcr.model;
+
+/**
+ * MemoryListener receives the changes made by a {@link MemoryManager}.
+ *
+ * Listeners are called on the thread that made the change, which may be a
+ * CPU worker, often while the MemoryManager lock is held. They must return
+ * quickly and must not call back into the MemoryManager; a view records the
+ * event and applies it later on its own thread.
+ */
+@FunctionalInterface
+public interface MemoryListener {
+  /**
+   * Called after the memory changed.
+   *
+   * @param event the change
+   */
+  void memoryChanged(MemoryEvent event);
+}
@@ -3,13 +3,23 @@ package itcr.model;
 import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Map;
 import java.util.Scanner;
-import java.util.Arrays;
 import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.google.gson.JsonObject;
 
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
@@ -32,31 +42,72 @@ public class MemoryManager {
   private static final int DEFAULT_VIRTUAL_MEMORY_SIZE = 64;
   private static final int DEFAULT_SECONDARY_STORAGE_SIZE = 256;
   private static final int KB = 1024;
-  private static final int STACK_SIZE = 20;
-  private static final int INTEGER_SIZE = 32;
-  private static final int STACK_ENTRIES = 5;
+  private static final int DEFAULT_STACK_DEPTH = 5;
+  private static final int STACK_ENTRY_SIZE = 4;
+  // Stack entries are whole big endian ints in the main memory
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final int DISK_BLOCK_SIZE = 64;
+  private static final int STRING_SPACE_SIZE = 2048;
+  private static final int BCP_LOCK_STRIPES = 16;
+  private static final String BCP_SUFFIX = "_bcp";
+  private static final String DEFAULT_DISK_IMAGE = "hardos-disk.img";
+  private static final byte[] ZEROS = new byte[4 * KB];
 
   private int mainMemorySize;
   private int virtualMemorySize;
   private int secondaryMemorySize;
 
-  private String[] virtualMemory;
-  private byte[] mainMemory;
-  private byte[] secondaryStorage;
+  private ByteBuffer mainMemory;
+  private ByteBuffer secondaryStorage;
+  private MemoryBacking mainMemoryBacking = MemoryBacking.HEAP;
+  private MemoryBacking secondaryStorageBacking = MemoryBacking.HEAP;
+  // File mapped by the MAPPED secondary storage
+  private String diskImage = DEFAULT_DISK_IMAGE;
+  // Open image of a MAPPED secondary storage, null for the other backings
+  private DiskImage disk;
 
   private Map<String, MemoryAllocation> mainMemoryIndex;
-  private Map<String, FileInfo> secondaryStorageIndex;
+  private FileDirectory secondaryStorageIndex;
   private Map<String, StackAllocation> stackAllocations;
 
-  private List<MemoryAllocation> freeSpaces;
-  private Map<String, List<InstructionIndex>> processInstructionIndices;
+  private AllocationPolicy allocationPolicy = AllocationPolicy.FIRST_FIT;
+  // Entries of the stack of every new process
+  private int stackDepth = DEFAULT_STACK_DEPTH;
+  private MemoryAllocator userSpaceAllocator;
+  private Map<String, ProgramImage> programImages;
+
+  // Demand paging for the processes that do not fit in the user space
+  private Pager pager;
+  private Map<String, PageTable> pageTables;
+  private PageReplacement pageReplacement = PageReplacement.CLOCK;
+  // Page every process instead of only the ones the user space can not hold
+  private boolean pageAllProcesses = false;
 
   private Map<Integer, StringAllocation> stringAllocations;
   private List<MemoryAllocation> freeStringSpaces;
 
+  private ExtentAllocator osSpaceAllocator;
+  // BCP fields are read and written in place by the CPUs, a process always
+  // maps to the same stripe so CPUs running other processes do not contend
+  private final Object[] bcpLocks = new Object[BCP_LOCK_STRIPES];
+  private ExtentAllocator secondaryStorageAllocator;
+  private BitSet secondaryStorageBitmap; // one bit per used disk block
+
   private int kernelSize = 8;
   private int osSize = 128;
   private int userSpaceStart;
+  // End of the blocks handed out by the user space allocator, the frames of
+  // the virtual memory and the string space follow it
+  private int userSpaceEnd;
+
+  // Compaction metrics, and whether anything was freed since the last one
+  private long compactions;
+  private long compactedBytes;
+  private long compactionNanos;
+  private boolean freedSinceCompaction;
+
+  // Views of the memory told about every change, see addMemoryListener
+  private final List<MemoryListener> listeners = new CopyOnWriteArrayList<>();
 
   /**
    * Default constructor for MemoryManager.
@@ -102,26 +153,162 @@ public class MemoryManager {
   }
 
   /**
-   * Initializes the memory structures.
+   * Initializes the memory structures, allocating the main memory and the
+   * secondary storage with their configured backing.
    */
   private void initializeMemory() {
-    this.mainMemory = new byte[mainMemorySize * KB];
-    this.secondaryStorage = new byte[secondaryMemorySize * KB];
-    virtualMemory = new String[virtualMemorySize * KB];
+    for (int i = 0; i < BCP_LOCK_STRIPES; i++) {
+      bcpLocks[i] = new Object();
+    }
 
-    this.mainMemoryIndex = new HashMap<>();
-    this.secondaryStorageIndex = new HashMap<>();
-    this.stackAllocations = new HashMap<>();
+    this.mainMemory = mainMemoryBacking.allocate(mainMemorySize * KB, null);
+    // The pager takes its swap slots from the secondary storage, so it goes first
+    initializeSecondaryStorage();
+    initializeMainMemoryIndex();
+    fireMemoryEvent(MemoryEvent.Type.RESET, null, null, 0, mainMemory.capacity() - 1);
+  }
 
-    this.userSpaceStart = (kernelSize + osSize) * KB;
-    this.freeSpaces = new ArrayList<>();
-    freeSpaces.add(new MemoryAllocation(userSpaceStart, (mainMemorySize - kernelSize - osSize) * KB));
+  /**
+   * Creates the secondary storage. A MAPPED storage opens its disk image and
+   * recovers the files in it, the other backings start empty.
+   */
+  private void initializeSecondaryStorage() {
+    if (disk != null) {
+      disk.close();
+      disk = null;
+    }
+
+    this.secondaryStorageIndex = new FileDirectory();
+    if (secondaryStorageBacking == MemoryBacking.MAPPED) {
+      disk = DiskImage.open(Path.of(diskImage), secondaryMemorySize * KB);
+      this.secondaryStorage = disk.getData();
+      // An existing image keeps the size it was formatted with
+      this.secondaryMemorySize = secondaryStorage.capacity() / KB;
+    } else {
+      this.secondaryStorage = secondaryStorageBacking.allocate(secondaryMemorySize * KB, null);
+    }
+    this.secondaryStorageAllocator = new ExtentAllocator(0, secondaryStorage.capacity());
+    this.secondaryStorageBitmap = new BitSet(secondaryStorage.capacity() / DISK_BLOCK_SIZE);
+
+    if (disk != null) {
+      for (Map.Entry<String, FileInfo> entry : disk.readFiles().entrySet()) {
+        String fileName = FileDirectory.normalize(entry.getKey());
+        if (!secondaryStorageIndex.canPut(fileName)) {
+          System.out.println("Skipping file with an invalid path in the disk image: " + entry.getKey());
+          continue;
+        }
+        FileInfo fileInfo = entry.getValue();
+        // A file must fit in its extent, and the extent must lie inside the
+        // disk without overlapping the files recovered before it
+        if (fileInfo.size < 0 || fileInfo.size > fileInfo.capacity || (fileInfo.capacity > 0
+            && !secondaryStorageAllocator.allocateAt(fileInfo.startIndex, fileInfo.capacity))) {
+          System.out.println("Skipping file with an invalid extent in the disk image: " + entry.getKey());
+          continue;
+        }
+        if (fileInfo.capacity > 0) {
+          markDiskBlocks(fileInfo.startIndex, fileInfo.capacity, true);
+        }
+        secondaryStorageIndex.put(fileName, fileInfo);
+      }
+    }
+  }
 
-    this.stringAllocations = new HashMap<>();
+  /**
+   * Frees everything stored in the main memory: processes, stacks, BCPs and
+   * strings. The buffers are kept and zeroed, and the secondary storage with
+   * its files is left untouched; only the swap slots of paged processes are
+   * given back to it.
+   */
+  public synchronized void resetMainMemory() {
+    for (PageTable table : pageTables.values()) {
+      pager.release(table, 0, table.pageCount);
+    }
+    zero(mainMemory, 0, mainMemory.capacity());
+    initializeMainMemoryIndex();
+    fireMemoryEvent(MemoryEvent.Type.RESET, null, null, 0, mainMemory.capacity() - 1);
+  }
+
+  /**
+   * Creates the indexes and allocators of the main memory.
+   */
+  private void initializeMainMemoryIndex() {
+    // Concurrent maps so CPUs running in parallel can look up their process
+    // while another CPU allocates or frees memory
+    this.mainMemoryIndex = new ConcurrentHashMap<>();
+    this.stackAllocations = new ConcurrentHashMap<>();
+
+    this.userSpaceStart = (kernelSize + osSize) * KB;
+    // The string space sits at the end of the user space and the frames of
+    // the virtual memory right before it, both are kept out of the allocator
+    // so processes can not be placed over them
+    int stringSpaceStart = mainMemorySize * KB - STRING_SPACE_SIZE;
+    int framePoolSize = Math.max(0, Math.min(virtualMemorySize * KB, stringSpaceStart - userSpaceStart))
+        / Pager.PAGE_SIZE * Pager.PAGE_SIZE;
+    int framePoolStart = stringSpaceStart - framePoolSize;
+    this.userSpaceEnd = framePoolStart;
+    this.userSpaceAllocator = MemoryAllocator.create(allocationPolicy, userSpaceStart,
+        framePoolStart - userSpaceStart);
+    this.pager = new Pager(mainMemory, framePoolStart, framePoolSize, secondaryStorage, secondaryStorageAllocator,
+        pageReplacement);
+    this.pageTables = new ConcurrentHashMap<>();
+
+    this.stringAllocations = new ConcurrentHashMap<>();
     this.freeStringSpaces = new ArrayList<>();
-    freeStringSpaces.add(new MemoryAllocation(mainMemorySize * KB - 2048, 2048));
+    freeStringSpaces.add(new MemoryAllocation(stringSpaceStart, STRING_SPACE_SIZE));
+
+    this.programImages = new ConcurrentHashMap<>();
+
+    this.osSpaceAllocator = new ExtentAllocator(kernelSize * KB, osSize * KB);
+  }
+
+  /**
+   * Sets a range of a buffer to zero.
+   *
+   * @param buffer    the buffer
+   * @param fromIndex the first index to clear
+   * @param toIndex   the index after the last one to clear
+   */
+  private static void zero(ByteBuffer buffer, int fromIndex, int toIndex) {
+    for (int index = fromIndex; index < toIndex; index += ZEROS.length) {
+      buffer.put(index, ZEROS, 0, Math.min(ZEROS.length, toIndex - index));
+    }
+  }
+
+  /**
+   * Registers a listener to be told about every change of the memory.
+   *
+   * @param listener the listener
+   */
+  public void addMemoryListener(MemoryListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener registered with {@link #addMemoryListener}.
+   *
+   * @param listener the listener
+   */
+  public void removeMemoryListener(MemoryListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Tells the listeners about a change. Nothing is built when there are no
+   * listeners, so the batch runs pay nothing for it.
+   */
+  private void fireMemoryEvent(MemoryEvent.Type type, MemoryEvent.Region region, String name, int start, int end) {
+    if (listeners.isEmpty()) {
+      return;
+    }
+    MemoryEvent event = new MemoryEvent(type, region, name, start, end);
+    for (MemoryListener listener : listeners) {
+      listener.memoryChanged(event);
+    }
+  }
 
-    this.processInstructionIndices = new HashMap<>();
+  private void fireMemoryEvent(MemoryEvent.Type type, MemoryEvent.Region region, String name,
+      MemoryAllocation allocation) {
+    fireMemoryEvent(type, region, name, allocation.startIndex, allocation.startIndex + allocation.size - 1);
   }
 
   // -------------------------------------------------------------------
@@ -135,16 +322,24 @@ public class MemoryManager {
    * Stores a string in the main memory.
    *
    * @param str the string to store
-   * @return the start index where the string is stored, or -1 if there is not
-   *         enough space
+   * @return the address of the string, used as its handle, or -1 if there is
+   *         not enough space
    */
-  public int storeString(String str) {
+  public synchronized int storeString(String str) {
     byte[] strBytes = str.getBytes();
     for (MemoryAllocation freeSpace : freeStringSpaces) {
       if (freeSpace.size >= strBytes.length) {
         int startIndex = freeSpace.startIndex;
-        System.arraycopy(strBytes, 0, mainMemory, startIndex, strBytes.length);
-        stringAllocations.put(startIndex, new StringAllocation(startIndex, strBytes.length));
+        mainMemory.put(startIndex, strBytes);
+        // A string moved by compaction keeps its old address as handle, a new
+        // string stored over that address takes the next unused one
+        int handle = startIndex;
+        while (stringAllocations.containsKey(handle)) {
+          handle++;
+        }
+        stringAllocations.put(handle, new StringAllocation(startIndex, strBytes.length));
+        fireMemoryEvent(MemoryEvent.Type.ALLOCATED, MemoryEvent.Region.STRING, String.valueOf(handle),
+            startIndex, startIndex + strBytes.length - 1);
 
         freeSpace.startIndex += strBytes.length;
         freeSpace.size -= strBytes.length;
@@ -152,7 +347,7 @@ public class MemoryManager {
           freeStringSpaces.remove(freeSpace);
         }
 
-        return startIndex;
+        return handle;
       }
     }
     return -1;
@@ -169,7 +364,7 @@ public class MemoryManager {
     StringAllocation allocation = stringAllocations.get(address);
     if (allocation != null) {
       byte[] strBytes = new byte[allocation.length];
-      System.arraycopy(mainMemory, allocation.startIndex, strBytes, 0, allocation.length);
+      mainMemory.get(allocation.startIndex, strBytes);
       return new String(strBytes);
     }
     return null;
@@ -180,14 +375,17 @@ public class MemoryManager {
    *
    * @param address the start index of the string in the main memory
    */
-  public void freeString(int address) {
+  public synchronized void freeString(int address) {
     StringAllocation allocation = stringAllocations.remove(address);
     if (allocation != null) {
-      Arrays.fill(mainMemory, allocation.startIndex, allocation.startIndex + allocation.length, (byte) 0);
+      zero(mainMemory, allocation.startIndex, allocation.startIndex + allocation.length);
 
       freeStringSpaces.add(new MemoryAllocation(allocation.startIndex, allocation.length));
 
       mergeFreeStringSpaces();
+      freedSinceCompaction = true;
+      fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.STRING, String.valueOf(address),
+          allocation.startIndex, allocation.startIndex + allocation.length - 1);
     }
   }
 
@@ -212,93 +410,254 @@ public class MemoryManager {
   // Main methods for memory allocation and deallocation
   // -------------------------------------------------------------------
 
-  // return in a string the main memory map (processes, instructions, and stack)
+  /**
+   * Builds the map of the main memory with the details of every block: the
+   * instructions and BCP of the processes, the values of the stacks and
+   * strings and the pages of the paged processes.
+   *
+   * @return the memory map
+   */
   public MemoryMap getMainMemoryMap() {
+    return buildMemoryMap(true);
+  }
+
+  /**
+   * Builds the map of the main memory with only the name and the range of
+   * every block, without reading any of their content. The details of a
+   * block are loaded with {@link #describeSection} when they are needed.
+   *
+   * @return the memory map, with the BCPs in their own list
+   */
+  public MemoryMap getMemoryMapOutline() {
+    return buildMemoryMap(false);
+  }
+
+  private MemoryMap buildMemoryMap(boolean details) {
     MemoryMap map = new MemoryMap();
 
     map.kernel = new MemoryMap.MemorySection("Kernel Space", 0, kernelSize * KB - 1, null);
     map.os = new MemoryMap.MemorySection("OS Space", kernelSize * KB, userSpaceStart - 1, null);
     map.userSpace = new MemoryMap.MemorySection("User Space", userSpaceStart, mainMemorySize * KB - 1, null);
-
-    map.secondaryStorage = new MemoryMap.MemorySection("Secondary Storage", 0, secondaryMemorySize * KB - 1,
-        String.format("Size: %d KB", secondaryMemorySize));
+    map.secondaryStorage = secondaryStorageSection();
 
     for (Map.Entry<String, MemoryAllocation> entry : mainMemoryIndex.entrySet()) {
-      MemoryAllocation allocation = entry.getValue();
-      String bcpInfo = getBCPInfo(entry.getKey());
-      MemoryMap.MemorySection process = new MemoryMap.MemorySection(
-          entry.getKey(),
-          allocation.startIndex,
-          allocation.startIndex + allocation.size - 1,
-          bcpInfo);
-
-      List<InstructionIndex> indices = processInstructionIndices.get(entry.getKey());
-      if (indices != null) {
-        int instructionCount = 0;
-        for (InstructionIndex instructionIndex : indices) {
-          String instruction = getInstruction(entry.getKey(), instructionCount++);
-
-          process.subSections.add(new MemoryMap.MemorySection(
-              "Instruction",
-              instructionIndex.startIndex,
-              instructionIndex.startIndex + instructionIndex.length - 1,
-              instruction));
-        }
+      String name = entry.getKey();
+      if (!details && name.endsWith(BCP_SUFFIX)) {
+        String processName = name.substring(0, name.length() - BCP_SUFFIX.length());
+        map.processControlBlocks.add(bcpSection(processName, entry.getValue(), false));
+      } else {
+        map.allocatedProcesses.add(processSection(name, entry.getValue(), details));
       }
+    }
+
+    addPagingSections(map, details);
+    map.freeSpaces.addAll(getFreeSpaces());
 
-      map.allocatedProcesses.add(process);
+    for (Map.Entry<String, StackAllocation> entry : stackAllocations.entrySet()) {
+      map.allocatedStacks.add(stackSection(entry.getKey(), entry.getValue(), details));
+    }
+
+    for (Map.Entry<Integer, StringAllocation> entry : stringAllocations.entrySet()) {
+      map.storedStrings.add(stringSection(entry.getKey(), entry.getValue(), details));
     }
 
-    for (MemoryAllocation freeSpace : freeSpaces) {
-      map.freeSpaces.add(new MemoryMap.MemorySection(
+    // Only the metadata of the files, their content stays on the disk
+    List<FileInfo> files;
+    synchronized (this) {
+      files = secondaryStorageIndex.files();
+    }
+    for (FileInfo fileInfo : files) {
+      map.storedFiles.add(fileSection(fileInfo));
+    }
+
+    return map;
+  }
+
+  /**
+   * Builds the section of one block with all its details, for a view that
+   * loads them when the block is opened.
+   *
+   * @param region the region of the block
+   * @param name   the name of the block, as in the events of the block; ignored
+   *               for VIRTUAL_MEMORY
+   * @return the section, or null if the block no longer exists
+   */
+  public synchronized MemoryMap.MemorySection describeSection(MemoryEvent.Region region, String name) {
+    switch (region) {
+      case PROCESS: {
+        MemoryAllocation allocation = mainMemoryIndex.get(name);
+        return allocation != null ? processSection(name, allocation, true) : null;
+      }
+      case PAGED_PROCESS: {
+        PageTable table = pageTables.get(name);
+        return table != null ? pagedProcessSection(table, true) : null;
+      }
+      case STACK: {
+        StackAllocation allocation = stackAllocations.get(name);
+        return allocation != null ? stackSection(name, allocation, true) : null;
+      }
+      case BCP: {
+        MemoryAllocation allocation = mainMemoryIndex.get(name + BCP_SUFFIX);
+        return allocation != null ? bcpSection(name, allocation, true) : null;
+      }
+      case STRING: {
+        int handle = Integer.parseInt(name);
+        StringAllocation allocation = stringAllocations.get(handle);
+        return allocation != null ? stringSection(handle, allocation, true) : null;
+      }
+      case FILE: {
+        FileInfo fileInfo = secondaryStorageIndex.get(name);
+        return fileInfo != null ? fileSection(fileInfo) : null;
+      }
+      case VIRTUAL_MEMORY:
+        return virtualMemorySection(true);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Gets the free blocks of the user space.
+   *
+   * @return a section for every free block, ordered by address
+   */
+  public synchronized List<MemoryMap.MemorySection> getFreeSpaces() {
+    List<MemoryMap.MemorySection> freeSpaces = new ArrayList<>();
+    for (MemoryAllocation freeSpace : userSpaceAllocator.getFreeBlocks()) {
+      freeSpaces.add(new MemoryMap.MemorySection(
           "Free Space",
           freeSpace.startIndex,
           freeSpace.startIndex + freeSpace.size - 1,
           null));
     }
+    return freeSpaces;
+  }
 
-    for (Map.Entry<String, StackAllocation> entry : stackAllocations.entrySet()) {
-      StackAllocation stackAllocation = entry.getValue();
-      String stackValues = getStackValues(entry.getKey());
-      map.allocatedStacks.add(new MemoryMap.MemorySection(
-          entry.getKey() + " Stack",
-          stackAllocation.startIndex,
-          stackAllocation.startIndex + STACK_SIZE - 1,
-          stackValues));
+  /**
+   * Gets the section of the secondary storage, with its size and usage.
+   *
+   * @return the section
+   */
+  public MemoryMap.MemorySection secondaryStorageSection() {
+    return new MemoryMap.MemorySection("Secondary Storage", 0, secondaryMemorySize * KB - 1,
+        String.format("Size: %d KB, Used: %d bytes", secondaryMemorySize, getSecondaryStorageUsed()));
+  }
+
+  private MemoryMap.MemorySection processSection(String processName, MemoryAllocation allocation,
+      boolean details) {
+    MemoryMap.MemorySection process = new MemoryMap.MemorySection(
+        processName,
+        allocation.startIndex,
+        allocation.startIndex + allocation.size - 1,
+        details ? getBCPInfo(processName) : null).forBlock(MemoryEvent.Region.PROCESS, processName);
+
+    ProgramImage image = details ? programImages.get(processName) : null;
+    if (image != null) {
+      for (int i = 0; i < image.instructionCount; i++) {
+        int address = InstructionCodec.instructionAddress(image.startIndex, i);
+        process.subSections.add(new MemoryMap.MemorySection(
+            "Instruction",
+            address,
+            address + InstructionCodec.WORD_SIZE - 1,
+            getInstruction(processName, i)));
+      }
     }
+    return process;
+  }
 
-    for (Map.Entry<Integer, StringAllocation> entry : stringAllocations.entrySet()) {
-      int address = entry.getKey();
-      StringAllocation allocation = entry.getValue();
-      String storedString = getString(address);
-      map.storedStrings.add(new MemoryMap.MemorySection(
-          "Str",
-          address,
-          address + allocation.length - 1,
-          String.format("Value: \"%s\"", storedString)));
-    }
+  private MemoryMap.MemorySection bcpSection(String processName, MemoryAllocation allocation, boolean details) {
+    return new MemoryMap.MemorySection(
+        processName + " BCP",
+        allocation.startIndex,
+        allocation.startIndex + allocation.size - 1,
+        details ? getBCPInfo(processName) : null).forBlock(MemoryEvent.Region.BCP, processName);
+  }
 
-    for (Map.Entry<String, FileInfo> entry : secondaryStorageIndex.entrySet()) {
-      String fileName = entry.getKey();
-      FileInfo fileInfo = entry.getValue();
-      String fileContent = getFile(fileName); // Obtener el contenido del archivo
+  private MemoryMap.MemorySection stackSection(String processName, StackAllocation allocation, boolean details) {
+    return new MemoryMap.MemorySection(
+        processName + " Stack",
+        allocation.startIndex,
+        allocation.startIndex + allocation.size - 1,
+        details ? getStackValues(processName) : null).forBlock(MemoryEvent.Region.STACK, processName);
+  }
 
-      String escapedContent = fileContent
-          .replace("\\", "\\\\")
-          .replace("\n", "\\n")
-          .replace("\r", "\\r")
-          .replace("\t", "\\t");
+  private MemoryMap.MemorySection stringSection(int handle, StringAllocation allocation, boolean details) {
+    return new MemoryMap.MemorySection(
+        "Str " + handle,
+        allocation.startIndex,
+        allocation.startIndex + allocation.length - 1,
+        details ? String.format("Value: \"%s\"", getString(handle)) : null)
+        .forBlock(MemoryEvent.Region.STRING, String.valueOf(handle));
+  }
 
-      MemoryMap.MemorySection fileSection = new MemoryMap.MemorySection(
-          fileName,
-          fileInfo.startIndex,
-          fileInfo.startIndex + fileInfo.size - 1,
-          String.format("Size: %d bytes, Content: \"%s\"", fileInfo.size, escapedContent));
+  private MemoryMap.MemorySection fileSection(FileInfo fileInfo) {
+    return new MemoryMap.MemorySection(
+        fileInfo.fileName,
+        fileInfo.startIndex,
+        fileInfo.startIndex + fileInfo.size - 1,
+        String.format("Size: %d bytes, Capacity: %d bytes", fileInfo.size, fileInfo.capacity))
+        .forBlock(MemoryEvent.Region.FILE, fileInfo.fileName);
+  }
 
-      map.storedFiles.add(fileSection);
+  /**
+   * Adds the frames of the virtual memory and the paged processes to a memory
+   * map. Only the page table entries are read, the content of the pages is
+   * not touched.
+   *
+   * @param map     the memory map being built
+   * @param details whether to list the frames and pages
+   */
+  private synchronized void addPagingSections(MemoryMap map, boolean details) {
+    map.virtualMemory = virtualMemorySection(details);
+    for (PageTable table : pageTables.values()) {
+      map.allocatedProcesses.add(pagedProcessSection(table, details));
     }
+  }
 
-    return map;
+  private MemoryMap.MemorySection virtualMemorySection(boolean details) {
+    int frameCount = pager.getFrameCount();
+    int poolStart = pager.frameAddress(0);
+    MemoryMap.MemorySection virtualMemory = new MemoryMap.MemorySection("Virtual Memory", poolStart,
+        poolStart + frameCount * Pager.PAGE_SIZE - 1,
+        String.format("Frames: %d of %d bytes", frameCount, Pager.PAGE_SIZE))
+        .forBlock(MemoryEvent.Region.VIRTUAL_MEMORY, null);
+    for (int frame = 0; details && frame < frameCount; frame++) {
+      PageTable owner = pager.getFrameOwner(frame);
+      if (owner != null) {
+        virtualMemory.subSections.add(new MemoryMap.MemorySection(
+            "Frame " + frame,
+            pager.frameAddress(frame),
+            pager.frameAddress(frame) + Pager.PAGE_SIZE - 1,
+            owner.processName + " page " + pager.getFramePage(frame)));
+      }
+    }
+    return virtualMemory;
+  }
+
+  private MemoryMap.MemorySection pagedProcessSection(PageTable table, boolean details) {
+    MemoryMap.MemorySection process = new MemoryMap.MemorySection(
+        table.processName + " (paged)",
+        0,
+        table.pageCount * Pager.PAGE_SIZE - 1,
+        details ? String.format("Page table at %d, faults: %d", table.address, table.faults) : null)
+        .forBlock(MemoryEvent.Region.PAGED_PROCESS, table.processName);
+    for (int page = 0; details && page < table.pageCount; page++) {
+      int entry = pager.entry(table, page);
+      String location;
+      if ((entry & Pager.PRESENT) != 0) {
+        location = "Frame " + Pager.frameOf(entry) + ((entry & Pager.DIRTY) != 0 ? ", dirty" : "");
+      } else if (table.swapSlots[page] >= 0) {
+        location = "Swap " + table.swapSlots[page];
+      } else {
+        location = "Not loaded";
+      }
+      process.subSections.add(new MemoryMap.MemorySection(
+          page < table.imagePages ? "Page " + page : "Stack page " + page,
+          page * Pager.PAGE_SIZE,
+          (page + 1) * Pager.PAGE_SIZE - 1,
+          location));
+    }
+    return process;
   }
 
   /**
@@ -309,23 +668,152 @@ public class MemoryManager {
    * @return the start index of the allocated memory, or -1 if there is not enough
    *         space
    */
-  public int allocateMemory(String processName, int size) {
-    for (int i = 0; i < freeSpaces.size(); i++) {
-      MemoryAllocation freeSpace = freeSpaces.get(i);
-      if (freeSpace.size >= size) {
-        MemoryAllocation allocation = new MemoryAllocation(freeSpace.startIndex, size);
-        mainMemoryIndex.put(processName, allocation);
+  public synchronized int allocateMemory(String processName, int size) {
+    int startIndex = userSpaceAllocator.allocate(size);
+    if (startIndex == -1) {
+      return -1; // No hay espacio suficiente
+    }
 
-        if (freeSpace.size > size) {
-          freeSpaces.set(i, new MemoryAllocation(freeSpace.startIndex + size, freeSpace.size - size));
-        } else {
-          freeSpaces.remove(i);
-        }
+    MemoryAllocation allocation = new MemoryAllocation(startIndex, size);
+    mainMemoryIndex.put(processName, allocation);
+    fireMemoryEvent(MemoryEvent.Type.ALLOCATED, MemoryEvent.Region.PROCESS, processName, allocation);
+    return startIndex;
+  }
 
-        return allocation.startIndex;
-      }
+  /**
+   * Gives a process a virtual address space instead of a block of the user
+   * space. Its pages are only brought into frames of the virtual memory when
+   * they are used, so the process is admitted even if the user space is
+   * full. The space holds the program image followed by a stack with the
+   * configured depth, and its page table is stored in the OS space.
+   *
+   * @param processName the name of the process
+   * @param size        the size of the program image
+   * @return the virtual address of the image, 0, or -1 if there are no
+   *         frames or no room in the OS space for the page table
+   */
+  public synchronized int allocatePagedMemory(String processName, int size) {
+    if (pager.getFrameCount() == 0 || pageTables.containsKey(processName)) {
+      return -1;
     }
-    return -1; // No hay espacio suficiente
+
+    int imagePages = Pager.pagesFor(size);
+    int stackPages = Pager.pagesFor(stackDepth * STACK_ENTRY_SIZE);
+    MemoryAllocation entries = allocateOSSpace((imagePages + stackPages) * 4);
+    if (entries == null) {
+      return -1;
+    }
+    zero(mainMemory, entries.startIndex, entries.startIndex + entries.size);
+    pageTables.put(processName, new PageTable(processName, entries.startIndex, imagePages, stackPages, stackDepth));
+    fireMemoryEvent(MemoryEvent.Type.ALLOCATED, MemoryEvent.Region.PAGED_PROCESS, processName,
+        0, (imagePages + stackPages) * Pager.PAGE_SIZE - 1);
+    return 0;
+  }
+
+  /**
+   * Checks whether a process runs in a virtual address space.
+   *
+   * @param processName the name of the process
+   * @return true if the process is paged
+   */
+  public boolean isPaged(String processName) {
+    return pageTables.containsKey(processName);
+  }
+
+  /**
+   * Gets the address in the OS space of the page table of a process, the
+   * value kept in its BCP.
+   *
+   * @param processName the name of the process
+   * @return the address of the page table, or -1 if the process is not paged
+   */
+  public int getPageTableAddress(String processName) {
+    PageTable table = pageTables.get(processName);
+    return table != null ? table.address : -1;
+  }
+
+  /**
+   * Translates a page of a paged process to its frame, serving a page fault
+   * if the page is not present. Called by the CPUs when their TLB misses.
+   *
+   * @param processName the name of the process
+   * @param page        the virtual page
+   * @param write       whether the access writes the page
+   * @return the frame, with Pager.FAULTED set if a fault was served, or -1
+   *         if the process is not paged, the page is out of its space or no
+   *         frame could be freed
+   */
+  synchronized int translate(String processName, int page, boolean write) {
+    PageTable table = pageTables.get(processName);
+    if (table == null || page < 0 || page >= table.pageCount) {
+      return -1;
+    }
+    int frame = pager.translate(table, page, write);
+    if (frame != -1 && (frame & Pager.FAULTED) != 0) {
+      firePagesChanged(table);
+    }
+    return frame;
+  }
+
+  /**
+   * Records a use of a frame found in a TLB, for the replacement algorithm.
+   *
+   * @param frame the frame
+   */
+  void touchFrame(int frame) {
+    pager.touch(frame);
+  }
+
+  /**
+   * Gets the eviction epoch of the pager. A TLB filled in an older epoch may
+   * hold frames that were given to other pages.
+   *
+   * @return the current epoch
+   */
+  int getPagingEpoch() {
+    return pager.getEpoch();
+  }
+
+  /**
+   * Translates a virtual address of a paged process to a main memory
+   * address, faulting the page in if needed.
+   *
+   * @param table   the page table of the process
+   * @param address the virtual address
+   * @param write   whether the access writes the page
+   * @return the physical address, or -1 if no frame could be freed
+   */
+  private int physicalAddress(PageTable table, int address, boolean write) {
+    int frame = pager.translate(table, address / Pager.PAGE_SIZE, write);
+    if (frame == -1) {
+      return -1;
+    }
+    if ((frame & Pager.FAULTED) != 0) {
+      firePagesChanged(table);
+    }
+    return pager.frameAddress(frame & ~Pager.FAULTED) + address % Pager.PAGE_SIZE;
+  }
+
+  /**
+   * Tells the listeners that the frames of the virtual memory changed while
+   * serving the pages of a process.
+   *
+   * @param table the page table of the process
+   */
+  private void firePagesChanged(PageTable table) {
+    fireMemoryEvent(MemoryEvent.Type.PAGES_CHANGED, MemoryEvent.Region.VIRTUAL_MEMORY, table.processName,
+        0, table.pageCount * Pager.PAGE_SIZE - 1);
+  }
+
+  /**
+   * Gets the paging metrics of the virtual memory.
+   *
+   * @return a JsonObject with the frame usage, fault and swap counters
+   */
+  public synchronized JsonObject getPagingStats() {
+    JsonObject stats = pager.getStats();
+    stats.addProperty("pagedProcesses", pageTables.size());
+    return stats;
   }
 
   /**
@@ -336,9 +824,9 @@ public class MemoryManager {
    *         instructions
    */
   public int getFirstProcessInstructionAddress(String processName) {
-    List<InstructionIndex> indices = processInstructionIndices.get(processName);
-    if (indices != null && !indices.isEmpty()) {
-      return indices.get(0).startIndex;
+    ProgramImage image = programImages.get(processName);
+    if (image != null && image.instructionCount > 0) {
+      return image.startIndex;
     }
     return -1;
   }
@@ -350,50 +838,211 @@ public class MemoryManager {
    * @return true if the memory was successfully deallocated, false otherwise
    */
   public synchronized boolean deallocateMemory(String processName) {
+    PageTable table = pageTables.get(processName);
+    if (table != null) {
+      // The stack pages and the page table go with the stack
+      pager.release(table, 0, table.imagePages);
+      programImages.remove(processName);
+      firePagesChanged(table);
+      return true;
+    }
+
     MemoryAllocation allocation = mainMemoryIndex.remove(processName);
     if (allocation != null) {
-      Arrays.fill(mainMemory, allocation.startIndex, allocation.startIndex + allocation.size, (byte) 0);
-      processInstructionIndices.remove(processName);
-      addFreeSpace(new MemoryAllocation(allocation.startIndex, allocation.size));
-      mergeFreeSpaces();
+      zero(mainMemory, allocation.startIndex, allocation.startIndex + allocation.size);
+      // Dropping the image also drops the decoded instruction cache
+      programImages.remove(processName);
+      userSpaceAllocator.free(allocation.startIndex, allocation.size);
+      freedSinceCompaction = true;
+      fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.PROCESS, processName, allocation);
       return true;
     }
     return false;
   }
 
   /**
-   * Adds a new free space to the list of free spaces.
+   * Gets the allocation metrics of the user space.
    *
-   * @param newFreeSpace the new free space to add
+   * @return a JsonObject with the policy, latency and fragmentation metrics
    */
-  private synchronized void addFreeSpace(MemoryAllocation newFreeSpace) {
-    freeSpaces.add(newFreeSpace);
-    freeSpaces.sort(Comparator.comparingInt(a -> a.startIndex));
+  public synchronized JsonObject getAllocatorStats() {
+    JsonObject stats = new JsonObject();
+    stats.addProperty("policy", userSpaceAllocator.getPolicy().toString());
+    stats.addProperty("allocations", userSpaceAllocator.getAllocations());
+    stats.addProperty("failedAllocations", userSpaceAllocator.getFailedAllocations());
+    stats.addProperty("averageAllocationNanos", userSpaceAllocator.getAverageAllocationNanos());
+    stats.addProperty("freeBytes", userSpaceAllocator.getFreeBytes());
+    stats.addProperty("largestFreeBlock", userSpaceAllocator.getLargestFreeBlock());
+    stats.addProperty("externalFragmentation", userSpaceAllocator.getExternalFragmentation());
+    stats.addProperty("compactions", compactions);
+    stats.addProperty("compactedBytes", compactedBytes);
+    stats.addProperty("compactionNanos", compactionNanos);
+    return stats;
   }
 
   /**
-   * Merges adjacent free spaces in the main memory.
+   * Checks whether the user space is worth compacting: something was freed
+   * since the last compaction and the external fragmentation reached a
+   * threshold.
+   *
+   * @param threshold the external fragmentation, between 0 and 1, that calls
+   *                  for a compaction
+   * @return true if the user space should be compacted
    */
-  private void mergeFreeSpaces() {
-    if (freeSpaces.size() < 2)
-      return;
+  public synchronized boolean needsCompaction(double threshold) {
+    return freedSinceCompaction && userSpaceAllocator.getExternalFragmentation() >= threshold;
+  }
 
-    List<MemoryAllocation> mergedSpaces = new ArrayList<>();
-    MemoryAllocation current = freeSpaces.get(0);
+  /**
+   * Checks whether a block only fails to fit in the user space because the
+   * free space is split in holes, so compacting would make room for it.
+   *
+   * @param size the size of the block
+   * @return true if there are enough free bytes but no free block is big
+   *         enough
+   */
+  public synchronized boolean isFragmentedFor(int size) {
+    return userSpaceAllocator.getFreeBytes() >= size && userSpaceAllocator.getLargestFreeBlock() < size;
+  }
 
-    for (int i = 1; i < freeSpaces.size(); i++) {
-      MemoryAllocation next = freeSpaces.get(i);
-      if (current.startIndex + current.size == next.startIndex) {
-        // Los espacios son adyacentes, fusionarlos
-        current = new MemoryAllocation(current.startIndex, current.size + next.size);
-      } else {
-        mergedSpaces.add(current);
-        current = next;
+  /**
+   * Compacts the user space. The program images and stacks of the processes
+   * are packed together so the free space is left in one block, and the
+   * strings are moved to the start of the string space. The allocation, the
+   * program image and the base address in the BCP of every moved process are
+   * updated in the same step, so nothing may run on the CPUs meanwhile; the
+   * Scheduler calls it between ticks. Paged processes are not in the user
+   * space and stay where they are.
+   *
+   * @return a JsonObject with the blocks and bytes moved and the time spent
+   */
+  public synchronized JsonObject compactUserSpace() {
+    long start = System.nanoTime();
+
+    List<UserSpaceBlock> blocks = new ArrayList<>();
+    for (Map.Entry<String, MemoryAllocation> entry : mainMemoryIndex.entrySet()) {
+      MemoryAllocation allocation = entry.getValue();
+      // The BCPs share the index but live in the OS space
+      if (allocation.startIndex >= userSpaceStart && allocation.startIndex < userSpaceEnd) {
+        blocks.add(new UserSpaceBlock(entry.getKey(), allocation, null));
+      }
+    }
+    for (Map.Entry<String, StackAllocation> entry : stackAllocations.entrySet()) {
+      blocks.add(new UserSpaceBlock(entry.getKey(), null, entry.getValue()));
+    }
+    blocks.sort(Comparator.comparingInt(UserSpaceBlock::start));
+
+    // The new places may overlap the old ones of other blocks, so every
+    // block is read before any is written
+    int[] sizes = new int[blocks.size()];
+    byte[][] contents = new byte[blocks.size()][];
+    for (int i = 0; i < blocks.size(); i++) {
+      UserSpaceBlock block = blocks.get(i);
+      sizes[i] = block.size();
+      contents[i] = new byte[sizes[i]];
+      mainMemory.get(block.start(), contents[i]);
+    }
+    int[] starts;
+    try {
+      starts = userSpaceAllocator.pack(sizes);
+    } catch (IllegalStateException e) {
+      // The allocator is left as it was, so the blocks stay where they are
+      System.out.println("User space not compacted: " + e.getMessage());
+      starts = null;
+    }
+
+    int movedBlocks = 0;
+    int movedBytes = 0;
+    if (starts != null) {
+      zero(mainMemory, userSpaceStart, userSpaceEnd);
+      for (int i = 0; i < blocks.size(); i++) {
+        UserSpaceBlock block = blocks.get(i);
+        mainMemory.put(starts[i], contents[i]);
+        if (starts[i] == block.start()) {
+          continue;
+        }
+        movedBlocks++;
+        movedBytes += sizes[i];
+        if (block.image != null) {
+          block.image.startIndex = starts[i];
+          ProgramImage image = programImages.get(block.processName);
+          if (image != null) {
+            image.startIndex = starts[i];
+          }
+          updateBCPBaseAddress(block.processName, starts[i]);
+        } else {
+          block.stack.startIndex = starts[i];
+        }
+      }
+    }
+    int movedStringBytes = compactStringSpace();
+
+    long nanos = System.nanoTime() - start;
+    compactions++;
+    compactedBytes += movedBytes + movedStringBytes;
+    compactionNanos += nanos;
+    freedSinceCompaction = false;
+    if (movedBlocks > 0 || movedStringBytes > 0) {
+      fireMemoryEvent(MemoryEvent.Type.RELOCATED, null, null, userSpaceStart, mainMemory.capacity() - 1);
+    }
+
+    JsonObject result = new JsonObject();
+    result.addProperty("movedBlocks", movedBlocks);
+    result.addProperty("movedBytes", movedBytes + movedStringBytes);
+    result.addProperty("movedStringBytes", movedStringBytes);
+    result.addProperty("nanos", nanos);
+    result.addProperty("largestFreeBlock", userSpaceAllocator.getLargestFreeBlock());
+    return result;
+  }
+
+  /**
+   * Moves the strings to the start of the string space, in address order, and
+   * leaves the rest as one free space. The handles of the strings do not
+   * change.
+   *
+   * @return the number of bytes moved
+   */
+  private int compactStringSpace() {
+    int stringSpaceStart = mainMemorySize * KB - STRING_SPACE_SIZE;
+    int stringSpaceEnd = stringSpaceStart + STRING_SPACE_SIZE;
+    List<StringAllocation> strings = new ArrayList<>(stringAllocations.values());
+    strings.sort(Comparator.comparingInt(allocation -> allocation.startIndex));
+
+    int cursor = stringSpaceStart;
+    int movedBytes = 0;
+    for (StringAllocation allocation : strings) {
+      if (allocation.startIndex != cursor) {
+        // Strings only move down, past the ones already placed
+        byte[] strBytes = new byte[allocation.length];
+        mainMemory.get(allocation.startIndex, strBytes);
+        mainMemory.put(cursor, strBytes);
+        allocation.startIndex = cursor;
+        movedBytes += allocation.length;
       }
+      cursor += allocation.length;
     }
-    mergedSpaces.add(current);
+    zero(mainMemory, cursor, stringSpaceEnd);
 
-    freeSpaces = mergedSpaces;
+    freeStringSpaces.clear();
+    if (cursor < stringSpaceEnd) {
+      freeStringSpaces.add(new MemoryAllocation(cursor, stringSpaceEnd - cursor));
+    }
+    return movedBytes;
+  }
+
+  /**
+   * Gets the address of the program image of a process.
+   *
+   * @param processName the name of the process
+   * @return the start of its block of the user space, 0 for a paged process,
+   *         or -1 if the process has no memory
+   */
+  public int getProcessBaseAddress(String processName) {
+    if (pageTables.containsKey(processName)) {
+      return 0;
+    }
+    MemoryAllocation allocation = mainMemoryIndex.get(processName);
+    return allocation != null ? allocation.startIndex : -1;
   }
 
   // -------------------------------------------------------------------
@@ -407,47 +1056,74 @@ public class MemoryManager {
    * @param processId the ID of the process
    * @return true if the stack was successfully deallocated, false otherwise
    */
-  public boolean deallocateStack(String processId) {
+  public synchronized boolean deallocateStack(String processId) {
+    PageTable table = pageTables.remove(processId);
+    if (table != null) {
+      pager.release(table, 0, table.pageCount);
+      deallocateOSSpace(table.address, table.pageCount * 4);
+      fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.PAGED_PROCESS, processId,
+          0, table.pageCount * Pager.PAGE_SIZE - 1);
+      return true;
+    }
+
     StackAllocation stackAllocation = stackAllocations.remove(processId);
     if (stackAllocation != null) {
-      Arrays.fill(mainMemory, stackAllocation.startIndex, stackAllocation.startIndex + STACK_SIZE, (byte) 0);
-      addFreeSpace(new MemoryAllocation(stackAllocation.startIndex, STACK_SIZE));
-      mergeFreeSpaces();
+      zero(mainMemory, stackAllocation.startIndex, stackAllocation.startIndex + stackAllocation.size);
+      userSpaceAllocator.free(stackAllocation.startIndex, stackAllocation.size);
+      freedSinceCompaction = true;
+      fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.STACK, processId, stackAllocation.startIndex,
+          stackAllocation.startIndex + stackAllocation.size - 1);
       return true;
     }
     return false;
   }
 
   /**
-   * Allocates a stack for a process.
+   * Allocates a stack for a process with the configured depth.
    *
    * @param processId the ID of the process
    * @return true if the stack was successfully allocated, false otherwise
    */
-  public boolean allocateStack(String processId) {
+  public synchronized boolean allocateStack(String processId) {
     if (stackAllocations.containsKey(processId)) {
       return false;
     }
+    if (pageTables.containsKey(processId)) {
+      // The stack pages are already part of the virtual space, they start as
+      // zeros the first time they are touched
+      return true;
+    }
 
-    for (int i = 0; i < freeSpaces.size(); i++) {
-      MemoryAllocation freeSpace = freeSpaces.get(i);
-      if (freeSpace.size >= STACK_SIZE) {
-        StackAllocation stackAllocation = new StackAllocation(freeSpace.startIndex, STACK_SIZE);
-        stackAllocations.put(processId, stackAllocation);
+    int stackSize = stackDepth * STACK_ENTRY_SIZE;
+    int startIndex = userSpaceAllocator.allocate(stackSize);
+    if (startIndex == -1) {
+      return false;
+    }
 
-        if (freeSpace.size > STACK_SIZE) {
-          freeSpaces.set(i, new MemoryAllocation(freeSpace.startIndex + STACK_SIZE, freeSpace.size - STACK_SIZE));
-        } else {
-          freeSpaces.remove(i);
-        }
+    StackAllocation stackAllocation = new StackAllocation(startIndex, stackSize);
+    stackAllocations.put(processId, stackAllocation);
 
-        // Initialize the stack space with zeros
-        Arrays.fill(mainMemory, stackAllocation.startIndex, stackAllocation.startIndex + STACK_SIZE, (byte) 0);
+    // Initialize the stack space with zeros
+    zero(mainMemory, stackAllocation.startIndex, stackAllocation.startIndex + stackSize);
+    fireMemoryEvent(MemoryEvent.Type.ALLOCATED, MemoryEvent.Region.STACK, processId, startIndex,
+        startIndex + stackSize - 1);
+    return true;
+  }
 
-        return true;
-      }
+  /**
+   * Gets the number of entries of the stack of a process. It is the depth
+   * configured when the stack was allocated.
+   *
+   * @param processId the ID of the process
+   * @return the number of entries, or 0 if the process has no stack
+   */
+  public int getStackCapacity(String processId) {
+    PageTable table = pageTables.get(processId);
+    if (table != null) {
+      return table.stackEntries;
     }
-    return false;
+    StackAllocation stackAllocation = stackAllocations.get(processId);
+    return stackAllocation == null ? 0 : stackAllocation.size / STACK_ENTRY_SIZE;
   }
 
   /**
@@ -459,31 +1135,19 @@ public class MemoryManager {
    * @return true if the value was successfully written, false otherwise
    */
   public boolean writeToStack(String processId, int index, int value) {
+    PageTable table = pageTables.get(processId);
+    if (table != null) {
+      return writeToPagedStack(table, index, value);
+    }
     StackAllocation stackAllocation = stackAllocations.get(processId);
-    if (stackAllocation == null || index < 0 || index >= STACK_ENTRIES) {
+    if (stackAllocation == null || index < 0 || index >= stackAllocation.size / STACK_ENTRY_SIZE) {
       return false;
     }
 
-    int byteIndex = stackAllocation.startIndex + (index * 4);
-    boolean isNegative = value < 0;
-    int absValue = Math.abs(value);
-
-    mainMemory[byteIndex] = (byte) (isNegative ? 0x80 : 0x00);
-
-    for (int i = 1; i < INTEGER_SIZE; i++) {
-      int byteOffset = i / 8;
-      int bitOffset = i % 8;
-      byte currentByte = mainMemory[byteIndex + byteOffset];
-
-      if ((absValue & (1 << (i - 1))) != 0) {
-        currentByte |= (1 << bitOffset);
-      } else {
-        currentByte &= ~(1 << bitOffset);
-      }
-
-      mainMemory[byteIndex + byteOffset] = currentByte;
-    }
-
+    int address = stackAllocation.startIndex + index * STACK_ENTRY_SIZE;
+    INT.set(mainMemory, address, value);
+    fireMemoryEvent(MemoryEvent.Type.STACK_WRITTEN, MemoryEvent.Region.STACK, processId, address,
+        address + STACK_ENTRY_SIZE - 1);
     return true;
   }
 
@@ -495,8 +1159,22 @@ public class MemoryManager {
    * @return the value popped from the stack
    */
   public int popFromStack(String processId, int index) {
-    int value = readFromStack(processId, index);
-    writeToStack(processId, index, 0);
+    PageTable table = pageTables.get(processId);
+    if (table != null) {
+      int value = readFromPagedStack(table, index);
+      writeToPagedStack(table, index, 0);
+      return value;
+    }
+    StackAllocation stackAllocation = stackAllocations.get(processId);
+    if (stackAllocation == null || index < 0 || index >= stackAllocation.size / STACK_ENTRY_SIZE) {
+      return 0;
+    }
+
+    int address = stackAllocation.startIndex + index * STACK_ENTRY_SIZE;
+    int value = (int) INT.get(mainMemory, address);
+    INT.set(mainMemory, address, 0);
+    fireMemoryEvent(MemoryEvent.Type.STACK_WRITTEN, MemoryEvent.Region.STACK, processId, address,
+        address + STACK_ENTRY_SIZE - 1);
     return value;
   }
 
@@ -508,24 +1186,50 @@ public class MemoryManager {
    * @return the value read from the stack, or 0 if the index is invalid
    */
   public int readFromStack(String processId, int index) {
+    PageTable table = pageTables.get(processId);
+    if (table != null) {
+      return readFromPagedStack(table, index);
+    }
     StackAllocation stackAllocation = stackAllocations.get(processId);
-    if (stackAllocation == null || index < 0 || index >= STACK_ENTRIES) {
+    if (stackAllocation == null || index < 0 || index >= stackAllocation.size / STACK_ENTRY_SIZE) {
       return 0;
     }
 
-    int byteIndex = stackAllocation.startIndex + (index * 4); // 4 bytes per integer
-    boolean isNegative = (mainMemory[byteIndex] & 0x80) != 0;
-    int value = 0;
+    return (int) INT.get(mainMemory, stackAllocation.startIndex + index * STACK_ENTRY_SIZE);
+  }
 
-    for (int i = 1; i < INTEGER_SIZE; i++) {
-      int byteOffset = i / 8;
-      int bitOffset = i % 8;
-      if ((mainMemory[byteIndex + byteOffset] & (1 << bitOffset)) != 0) {
-        value |= (1 << (i - 1));
-      }
+  /**
+   * Gets the virtual address of an entry of the stack of a paged process, so
+   * the CPU can look its page up in the TLB.
+   *
+   * @param processId the ID of the process
+   * @param index     the index in the stack
+   * @return the virtual address of the entry, or -1 if the process is not
+   *         paged
+   */
+  int getStackAddress(String processId, int index) {
+    PageTable table = pageTables.get(processId);
+    return table != null ? table.stackStart() + index * STACK_ENTRY_SIZE : -1;
+  }
+
+  private synchronized boolean writeToPagedStack(PageTable table, int index, int value) {
+    if (index < 0 || index >= table.stackEntries) {
+      return false;
     }
+    int address = physicalAddress(table, table.stackStart() + index * STACK_ENTRY_SIZE, true);
+    if (address == -1) {
+      return false;
+    }
+    INT.set(mainMemory, address, value);
+    return true;
+  }
 
-    return isNegative ? -value : value;
+  private synchronized int readFromPagedStack(PageTable table, int index) {
+    if (index < 0 || index >= table.stackEntries) {
+      return 0;
+    }
+    int address = physicalAddress(table, table.stackStart() + index * STACK_ENTRY_SIZE, false);
+    return address == -1 ? 0 : (int) INT.get(mainMemory, address);
   }
 
   /**
@@ -536,7 +1240,8 @@ public class MemoryManager {
    */
   private String getStackValues(String processId) {
     StringBuilder sb = new StringBuilder();
-    for (int i = 0; i < STACK_ENTRIES; i++) {
+    int entries = getStackCapacity(processId);
+    for (int i = 0; i < entries; i++) {
       int value = readFromStack(processId, i);
       sb.append(value).append(", ");
     }
@@ -549,56 +1254,182 @@ public class MemoryManager {
   // -------------------------------------------------------------------
 
   /**
-   * Stores an instruction in the main memory for a process.
+   * Loads the binary image of an assembled program into the memory allocated
+   * for a process.
    *
    * @param processName the name of the process
-   * @param instruction the instruction to store
-   * @return true if the instruction was successfully stored, false otherwise
+   * @param program     the assembled program
+   * @return true if the image was loaded, false if the process has no memory
+   *         or it is too small for the image
    */
-  public boolean storeInstruction(String processName, String instruction) {
+  public boolean loadProgram(String processName, AssembledProgram program) {
+    PageTable table = pageTables.get(processName);
+    if (table != null) {
+      return loadPagedProgram(processName, table, program);
+    }
+
     MemoryAllocation processAllocation = mainMemoryIndex.get(processName);
-    if (processAllocation == null) {
+    if (processAllocation == null || program.hasErrors()) {
       return false;
     }
 
-    byte[] instructionBytes = instruction.getBytes();
-    if (processAllocation.size - processAllocation.used < instructionBytes.length) {
+    int imageSize = program.getImageSize();
+    if (processAllocation.size < imageSize) {
       return false; // No hay espacio suficiente
     }
 
-    int startIndex = processAllocation.startIndex + processAllocation.used;
-    System.arraycopy(instructionBytes, 0, mainMemory, startIndex, instructionBytes.length);
-
-    processInstructionIndices
-        .computeIfAbsent(processName, k -> new ArrayList<>())
-        .add(new InstructionIndex(startIndex, instructionBytes.length));
+    InstructionCodec.encode(program.getInstructions(), mainMemory, processAllocation.startIndex);
+    processAllocation.used = imageSize;
+    // Decode the whole image before publishing it, the CPUs only read it
+    ProgramImage programImage = new ProgramImage(processAllocation.startIndex, program.getInstructions().size());
+    for (int i = 0; i < programImage.instructionCount; i++) {
+      programImage.decoded[i] = InstructionCodec.decode(mainMemory, programImage.startIndex, i);
+    }
+    programImages.put(processName, programImage);
+    fireMemoryEvent(MemoryEvent.Type.INSTRUCTIONS_STORED, MemoryEvent.Region.PROCESS, processName,
+        processAllocation.startIndex, processAllocation.startIndex + imageSize - 1);
+    return true;
+  }
 
-    processAllocation.used += instructionBytes.length;
+  /**
+   * Loads the image of a paged process into swap. No frame is used until the
+   * first instruction is fetched.
+   *
+   * @param processName the name of the process
+   * @param table       the page table of the process
+   * @param program     the assembled program
+   * @return true if the image was loaded, false if it does not fit in the
+   *         virtual space or the swap is full
+   */
+  private synchronized boolean loadPagedProgram(String processName, PageTable table, AssembledProgram program) {
+    if (program.hasErrors() || program.getImageSize() > table.imagePages * Pager.PAGE_SIZE) {
+      return false;
+    }
 
+    ByteBuffer image = ByteBuffer.allocate(table.imagePages * Pager.PAGE_SIZE);
+    InstructionCodec.encode(program.getInstructions(), image, 0);
+    if (!pager.loadImage(table, image)) {
+      return false;
+    }
+    ProgramImage programImage = new ProgramImage(0, program.getInstructions().size());
+    programImage.pageTable = table;
+    programImages.put(processName, programImage);
+    fireMemoryEvent(MemoryEvent.Type.INSTRUCTIONS_STORED, MemoryEvent.Region.PAGED_PROCESS, processName,
+        0, program.getImageSize() - 1);
     return true;
   }
 
   /**
-   * Retrieves an instruction from the main memory for a process.
+   * Decodes one instruction of a paged image, faulting in the page of its
+   * word and, for PARAM, the pages of its values.
+   *
+   * @param image the program image
+   * @param index the index of the instruction
+   * @return the decoded instruction, or null if no frame could be freed
+   */
+  private synchronized Instruction decodePaged(ProgramImage image, int index) {
+    int word = physicalAddress(image.pageTable, InstructionCodec.instructionAddress(0, index), false);
+    if (word == -1) {
+      return null;
+    }
+    int count = mainMemory.get(word + InstructionCodec.PARAM_COUNT);
+    ByteBuffer pool = ByteBuffer.allocate(count * 4);
+    int poolOffset = (int) INT.get(mainMemory, word + InstructionCodec.IMMEDIATE);
+    for (int i = 0; i < count; i++) {
+      // Values are whole ints and pages a multiple of 4, so none straddles two pages
+      int value = physicalAddress(image.pageTable, poolOffset + i * 4, false);
+      if (value == -1) {
+        return null;
+      }
+      INT.set(pool, i * 4, (int) INT.get(mainMemory, value));
+    }
+    // Faulting in a value may have evicted the page of the word
+    word = physicalAddress(image.pageTable, InstructionCodec.instructionAddress(0, index), false);
+    return word == -1 ? null : InstructionCodec.decodeWord(mainMemory, word, pool, -poolOffset);
+  }
+
+  /**
+   * Retrieves an instruction of a process in its text form.
    *
    * @param processName the name of the process
    * @param index       the index of the instruction
    * @return the instruction as a string, or null if the index is invalid
    */
   public String getInstruction(String processName, int index) {
-    List<InstructionIndex> indices = processInstructionIndices.get(processName);
-    if (indices == null || index < 0 || index >= indices.size()) {
+    Instruction instruction = getDecodedInstruction(processName, index);
+    return instruction != null ? instruction.toString() : null;
+  }
+
+  /**
+   * Retrieves the decoded form of an instruction for a process. Images in the
+   * user space are decoded when they are loaded; the instructions of a paged
+   * image are decoded the first time they are fetched, under the
+   * MemoryManager lock, and later fetches reuse the cached result until the
+   * process memory is deallocated.
+   *
+   * @param processName the name of the process
+   * @param index       the index of the instruction
+   * @return the decoded instruction, or null if the index is invalid
+   */
+  public Instruction getDecodedInstruction(String processName, int index) {
+    ProgramImage image = programImages.get(processName);
+    if (image == null || index < 0 || index >= image.instructionCount) {
       return null;
     }
 
-    InstructionIndex instructionIndex = indices.get(index);
-    byte[] instructionBytes = new byte[instructionIndex.length];
-    System.arraycopy(mainMemory, instructionIndex.startIndex, instructionBytes, 0, instructionIndex.length);
-    return new String(instructionBytes);
+    // Instructions are immutable, a cached one can be read without the lock
+    Instruction decoded = image.decoded[index];
+    return decoded != null ? decoded : decodePagedOnce(image, index);
+  }
+
+  /**
+   * Decodes an instruction of a paged image unless another CPU already did,
+   * and caches it.
+   *
+   * @param image the program image
+   * @param index the index of the instruction
+   * @return the decoded instruction, or null if no frame could be freed
+   */
+  private synchronized Instruction decodePagedOnce(ProgramImage image, int index) {
+    if (image.decoded[index] == null) {
+      image.decoded[index] = decodePaged(image, index);
+    }
+    return image.decoded[index];
+  }
+
+  /**
+   * Decodes every instruction of a process at once, for the block compiler.
+   *
+   * @param processName the name of the process
+   * @return the decoded instructions, or null if the process has no program
+   *         or a page of a paged image could not be faulted in
+   */
+  Instruction[] getDecodedProgram(String processName) {
+    ProgramImage image = programImages.get(processName);
+    if (image == null) {
+      return null;
+    }
+    for (int i = 0; i < image.instructionCount; i++) {
+      if (image.decoded[i] == null && decodePagedOnce(image, i) == null) {
+        return null;
+      }
+    }
+    return image.decoded;
   }
 
   /**
-   * Retrieves an instruction from the main memory for a process based on the
+   * Gets the jump profile and compiled blocks of the program of a process.
+   *
+   * @param processName the name of the process
+   * @return the profile, or null if the process has no program
+   */
+  BlockProfile getBlockProfile(String processName) {
+    ProgramImage image = programImages.get(processName);
+    return image != null ? image.profile : null;
+  }
+
+  /**
+   * Retrieves an instruction of a process in its text form based on the
    * address.
    *
    * @param processName the name of the process
@@ -606,17 +1437,12 @@ public class MemoryManager {
    * @return the instruction as a string, or null if the address is invalid
    */
   public String getInstructionFromAddress(String processName, int address) {
-    List<InstructionIndex> indices = processInstructionIndices.get(processName);
-    if (indices != null) {
-      for (InstructionIndex instructionIndex : indices) {
-        if (instructionIndex.startIndex == address) {
-          byte[] instructionBytes = new byte[instructionIndex.length];
-          System.arraycopy(mainMemory, instructionIndex.startIndex, instructionBytes, 0, instructionIndex.length);
-          return new String(instructionBytes);
-        }
-      }
+    ProgramImage image = programImages.get(processName);
+    if (image == null || address < image.startIndex
+        || (address - image.startIndex) % InstructionCodec.WORD_SIZE != 0) {
+      return null;
     }
-    return null;
+    return getInstruction(processName, (address - image.startIndex) / InstructionCodec.WORD_SIZE);
   }
 
   /**
@@ -627,162 +1453,328 @@ public class MemoryManager {
    * @return the address of the instruction, or -1 if the index is invalid
    */
   public int getAddressFromInstruction(String processName, int index) {
-    List<InstructionIndex> indices = processInstructionIndices.get(processName);
-    if (indices != null && index >= 0 && index < indices.size()) {
-      return indices.get(index).startIndex;
+    ProgramImage image = programImages.get(processName);
+    if (image != null && index >= 0 && index < image.instructionCount) {
+      return InstructionCodec.instructionAddress(image.startIndex, index);
     }
     return -1;
   }
 
   /**
-   * Gets the quantity of instructions for a process.
+   * Gets the quantity of instructions for a process.
+   *
+   * @param processName the name of the process
+   * @return the number of instructions for the process
+   */
+  public int getQtyInstructions(String processName) {
+    ProgramImage image = programImages.get(processName);
+    return image != null ? image.instructionCount : 0;
+  }
+
+  // -------------------------------------------------------------------
+  // BCP management methods
+  // Storing and retrieving BCP information for processes
+  // -------------------------------------------------------------------
+
+  /**
+   * Gets the lock that guards the BCP of a process. Methods that also change
+   * the OS space allocation take the MemoryManager lock first and then this
+   * one, never the other way around.
+   *
+   * @param processName the name of the process
+   * @return the lock object of the stripe of the process
+   */
+  private Object bcpLock(String processName) {
+    return bcpLocks[(processName.hashCode() & 0x7fffffff) % BCP_LOCK_STRIPES];
+  }
+
+  /**
+   * Retrieves the BCP (Block Control Process) information for a process as
+   * JSON, to be displayed in the memory map.
+   *
+   * @param processName the name of the process
+   * @return the BCP information as a string, or null if the process does not have
+   *         a BCP
+   */
+  private String getBCPInfo(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        return ProcessControlBlockCodec.decode(mainMemory, allocation.startIndex).toJsonString();
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Stores the BCP (Block Control Process) of a process in the OS space.
+   *
+   * @param processName the name of the process
+   * @param pcb         the process control block
+   * @return true if the BCP was successfully stored, false otherwise
+   */
+  public synchronized boolean storeBCP(String processName, ProcessControlBlock pcb) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = allocateOSSpace(ProcessControlBlockCodec.encodedSize(pcb));
+      if (allocation != null) {
+        ProcessControlBlockCodec.encode(pcb, mainMemory, allocation.startIndex);
+        mainMemoryIndex.put(processName + BCP_SUFFIX, allocation);
+        fireMemoryEvent(MemoryEvent.Type.ALLOCATED, MemoryEvent.Region.BCP, processName, allocation);
+        return true;
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Retrieves the BCP (Block Control Process) of a process.
+   *
+   * @param processName the name of the process
+   * @return the decoded process control block, or null if the process does not
+   *         have a BCP
+   */
+  public ProcessControlBlock getBCP(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        return ProcessControlBlockCodec.decode(mainMemory, allocation.startIndex);
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Frees the BCP (Block Control Process) information for a process.
+   *
+   * @param processName the name of the process
+   * @return true if the BCP was successfully freed, false otherwise
+   */
+  public synchronized boolean freeBCP(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.remove(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.BCP, processName, allocation);
+        return deallocateOSSpace(allocation.startIndex, allocation.size);
+      }
+      return false;
+    }
+  }
+
+  public synchronized boolean freeBCPFromOS(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.remove(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.BCP, processName, allocation);
+        return deallocateOSSpace(allocation.startIndex, allocation.size);
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Deletes the BCP (Block Control Process) information from main memory and
+   * frees the space.
    *
    * @param processName the name of the process
-   * @return the number of instructions for the process
+   * @return true if the BCP was successfully deleted, false otherwise
    */
-  public int getQtyInstructions(String processName) {
-    List<InstructionIndex> indices = processInstructionIndices.get(processName);
-    return indices != null ? indices.size() : 0;
+  public synchronized boolean deleteBCP(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.remove(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.BCP, processName, allocation);
+        return deallocateOSSpace(allocation.startIndex, allocation.size);
+      }
+      return false;
+    }
   }
 
-  // -------------------------------------------------------------------
-  // BCP management methods
-  // Storing and retrieving BCP information for processes
-  // -------------------------------------------------------------------
-
   /**
-   * Retrieves the BCP (Block Control Process) information for a process.
+   * Updates the BCP (Block Control Process) information for a process.
+   * Checks if the new BCP fits in the same space or needs to be moved.
    *
    * @param processName the name of the process
-   * @return the BCP information as a string, or null if the process does not have
-   *         a BCP
+   * @param pcb         the updated process control block
+   * @return true if the BCP was successfully updated, false otherwise
    */
-  private String getBCPInfo(String processName) {
-    MemoryAllocation allocation = mainMemoryIndex.get(processName + "_bcp");
-    if (allocation != null) {
-      byte[] bcpBytes = new byte[allocation.size];
-      System.arraycopy(mainMemory, allocation.startIndex, bcpBytes, 0, allocation.size);
-      return new String(bcpBytes);
+  public synchronized boolean updateBCP(String processName, ProcessControlBlock pcb) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        int newSize = ProcessControlBlockCodec.encodedSize(pcb);
+        if (newSize <= allocation.size) {
+          ProcessControlBlockCodec.encode(pcb, mainMemory, allocation.startIndex);
+          fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
+          return true;
+        } else if (osSpaceAllocator.grow(allocation.startIndex, allocation.size, newSize)) {
+          allocation.size = newSize;
+          ProcessControlBlockCodec.encode(pcb, mainMemory, allocation.startIndex);
+          fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
+          return true;
+        } else {
+          freeBCP(processName);
+          return storeBCP(processName, pcb);
+        }
+      }
+      return false;
     }
-    return null;
   }
 
   /**
-   * Stores the BCP (Block Control Process) information for a process.
+   * Updates only the execution context of a BCP (program counter, registers,
+   * stack pointer, CPU and times), which are the fields that change on every
+   * instruction. The open files are left untouched.
    *
    * @param processName the name of the process
-   * @param bcpString   the BCP information as a string
-   * @return true if the BCP was successfully stored, false otherwise
+   * @param pcb         the process control block holding the new values
+   * @return true if the BCP was updated, false if the process has no BCP
    */
-  public synchronized boolean storeBCP(String processName, String bcpString) {
-    byte[] bcpBytes = bcpString.getBytes();
-    MemoryAllocation allocation = allocateOSSpace(bcpBytes.length);
-    if (allocation != null) {
-      System.arraycopy(bcpBytes, 0, mainMemory, allocation.startIndex, bcpBytes.length);
-      mainMemoryIndex.put(processName + "_bcp", allocation);
-      return true;
+  public boolean updateBCPContext(String processName, ProcessControlBlock pcb) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        ProcessControlBlockCodec.encodeContext(pcb, mainMemory, allocation.startIndex);
+        fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
+        return true;
+      }
+      return false;
     }
-    return false;
   }
 
+
   /**
-   * Retrieves the BCP (Block Control Process) information for a process.
+   * Reads the state stored in the BCP of a process without decoding the rest
+   * of the block.
    *
    * @param processName the name of the process
-   * @return the BCP information as a string, or null if the process does not have
-   *         a BCP
+   * @return the state of the process, or null if the process has no BCP
    */
-  public synchronized String getBCP(String processName) {
-    MemoryAllocation allocation = mainMemoryIndex.get(processName + "_bcp");
-    if (allocation != null) {
-      byte[] bcpBytes = new byte[allocation.size];
-      System.arraycopy(mainMemory, allocation.startIndex, bcpBytes, 0, allocation.size);
-      return new String(bcpBytes);
+  public ProcessState getBCPState(String processName) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        return ProcessControlBlockCodec.readState(mainMemory, allocation.startIndex);
+      }
+      return null;
     }
-    return null;
   }
 
+
   /**
-   * Frees the BCP (Block Control Process) information for a process.
+   * Writes the state field of the BCP of a process in place.
    *
    * @param processName the name of the process
-   * @return true if the BCP was successfully freed, false otherwise
+   * @param state       the new state
+   * @return true if the BCP was updated, false if the process has no BCP
    */
-  public synchronized boolean freeBCP(String processName) {
-    MemoryAllocation allocation = mainMemoryIndex.remove(processName + "_bcp");
-    if (allocation != null) {
-      Arrays.fill(mainMemory, allocation.startIndex, allocation.startIndex + allocation.size, (byte) 0);
-      return true;
+  public boolean updateBCPState(String processName, ProcessState state) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        ProcessControlBlockCodec.writeState(mainMemory, allocation.startIndex, state);
+        fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
+        return true;
+      }
+      return false;
     }
-    return false;
   }
 
-  public synchronized boolean freeBCPFromOS(String processName) {
-    MemoryAllocation allocation = mainMemoryIndex.remove(processName + "_bcp");
-    if (allocation != null) {
-      Arrays.fill(mainMemory, allocation.startIndex, allocation.startIndex + allocation.size, (byte) 0);
-      return deallocateOSSpace(allocation.startIndex, allocation.size);
-    }
-    return false;
-  }
 
   /**
-   * Deletes the BCP (Block Control Process) information from main memory and
-   * frees the space.
+   * Writes the base address field of the BCP of a process in place.
    *
    * @param processName the name of the process
-   * @return true if the BCP was successfully deleted, false otherwise
+   * @param baseAddress the new address of the program image
+   * @return true if the BCP was updated, false if the process has no BCP
    */
-  public synchronized boolean deleteBCP(String processName) {
-    MemoryAllocation allocation = mainMemoryIndex.remove(processName + "_bcp");
-    if (allocation != null) {
-      Arrays.fill(mainMemory, allocation.startIndex, allocation.startIndex + allocation.size, (byte) 0);
-      return deallocateOSSpace(allocation.startIndex, allocation.size);
+  private boolean updateBCPBaseAddress(String processName, int baseAddress) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        ProcessControlBlockCodec.writeBaseAddress(mainMemory, allocation.startIndex, baseAddress);
+        fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
+        return true;
+      }
+      return false;
     }
-    return false;
   }
 
   /**
-   * Updates the BCP (Block Control Process) information for a process.
-   * Checks if the new BCP fits in the same space or needs to be moved.
+   * Writes the next process field of the BCP of a process in place.
    *
-   * @param processName the name of the process
-   * @param bcpString   the new BCP information as a string
-   * @return true if the BCP was successfully updated, false otherwise
+   * @param processName   the name of the process
+   * @param nextProcessId the ID of the next process, or -1 if there is none
+   * @return true if the BCP was updated, false if the process has no BCP
    */
-  public synchronized boolean updateBCP(String processName, String bcpString) {
-    MemoryAllocation allocation = mainMemoryIndex.get(processName + "_bcp");
-    if (allocation != null) {
-      byte[] bcpBytes = bcpString.getBytes();
-      if (bcpBytes.length <= allocation.size) {
-        System.arraycopy(bcpBytes, 0, mainMemory, allocation.startIndex, bcpBytes.length);
+  public boolean updateBCPNextProcess(String processName, int nextProcessId) {
+    synchronized (bcpLock(processName)) {
+      MemoryAllocation allocation = mainMemoryIndex.get(processName + BCP_SUFFIX);
+      if (allocation != null) {
+        ProcessControlBlockCodec.writeNextProcessId(mainMemory, allocation.startIndex, nextProcessId);
+        fireMemoryEvent(MemoryEvent.Type.BCP_UPDATED, MemoryEvent.Region.BCP, processName, allocation);
         return true;
-      } else {
-        freeBCP(processName);
-        return storeBCP(processName, bcpString);
       }
+      return false;
     }
-    return false;
   }
 
+
   // -------------------------------------------------------------------
   // Secondary storage management methods
   // Only associated with file management of the OS
   // -------------------------------------------------------------------
 
   /**
-   * Stores a file in the secondary storage.
+   * Stores a file in the secondary storage. If the file already exists its
+   * content is replaced, reusing its extent when the new content fits.
    *
    * @param fileName    the name of the file
    * @param fileContent the content of the file
    * @return true if the file was successfully stored, false otherwise
    */
-  public boolean storeFile(String fileName, String fileContent) {
+  public synchronized boolean storeFile(String fileName, String fileContent) {
+    fileName = FileDirectory.normalize(fileName);
+    if (!secondaryStorageIndex.canPut(fileName)) {
+      return false;
+    }
     byte[] fileBytes = fileContent.getBytes();
+    FileInfo fileInfo = secondaryStorageIndex.get(fileName);
+
+    if (fileInfo != null && fileInfo.capacity > 0) {
+      int newCapacity = toDiskBlocks(fileBytes.length);
+      if (newCapacity <= fileInfo.capacity
+          || secondaryStorageAllocator.grow(fileInfo.startIndex, fileInfo.capacity, newCapacity)) {
+        markDiskBlocks(fileInfo.startIndex, fileInfo.capacity, false);
+        fileInfo.capacity = Math.max(fileInfo.capacity, newCapacity);
+        markDiskBlocks(fileInfo.startIndex, fileInfo.capacity, true);
+        secondaryStorage.put(fileInfo.startIndex, fileBytes);
+        fileInfo.size = fileBytes.length;
+        fileChanged(fileName);
+        return true;
+      }
+
+      // Does not fit where it is, move it keeping the old extent if there is no room
+      releaseFileExtent(fileInfo);
+      int startIndex = allocateSecondaryMemory(fileBytes.length);
+      if (startIndex == -1) {
+        // Nothing was allocated since the release, so the old extent is still free
+        if (!secondaryStorageAllocator.allocateAt(fileInfo.startIndex, fileInfo.capacity)) {
+          throw new IllegalStateException("The extent of " + fileName + " was taken while it was being moved");
+        }
+        markDiskBlocks(fileInfo.startIndex, fileInfo.capacity, true);
+        return false;
+      }
+      secondaryStorage.put(startIndex, fileBytes);
+      secondaryStorageIndex.put(fileName, new FileInfo(startIndex, fileBytes.length, toDiskBlocks(fileBytes.length)));
+      fileChanged(fileName);
+      return true;
+    }
+
     int startIndex = allocateSecondaryMemory(fileBytes.length);
     if (startIndex != -1) {
-      System.arraycopy(fileBytes, 0, secondaryStorage, startIndex, fileBytes.length);
-      secondaryStorageIndex.put(fileName, new FileInfo(startIndex, fileBytes.length));
+      secondaryStorage.put(startIndex, fileBytes);
+      secondaryStorageIndex.put(fileName, new FileInfo(startIndex, fileBytes.length, toDiskBlocks(fileBytes.length)));
+      fileChanged(fileName);
       return true;
     }
     return false;
@@ -795,11 +1787,11 @@ public class MemoryManager {
    * @return the content of the file as a string, or null if the file does not
    *         exist
    */
-  public String getFile(String fileName) {
-    FileInfo fileInfo = secondaryStorageIndex.get(fileName);
+  public synchronized String getFile(String fileName) {
+    FileInfo fileInfo = secondaryStorageIndex.get(FileDirectory.normalize(fileName));
     if (fileInfo != null) {
       byte[] fileBytes = new byte[fileInfo.size];
-      System.arraycopy(secondaryStorage, fileInfo.startIndex, fileBytes, 0, fileInfo.size);
+      secondaryStorage.get(fileInfo.startIndex, fileBytes);
       return new String(fileBytes);
     }
     return null;
@@ -810,8 +1802,13 @@ public class MemoryManager {
    *
    * @return an array of file names
    */
-  public String[] getFiles() {
-    return secondaryStorageIndex.keySet().toArray(new String[0]);
+  public synchronized String[] getFiles() {
+    List<FileInfo> files = secondaryStorageIndex.files();
+    String[] fileNames = new String[files.size()];
+    for (int i = 0; i < fileNames.length; i++) {
+      fileNames[i] = files.get(i).fileName;
+    }
+    return fileNames;
   }
 
   /**
@@ -819,20 +1816,32 @@ public class MemoryManager {
    *
    * @param fileName the name of the file
    */
-  public void freeFile(String fileName) {
+  public synchronized void freeFile(String fileName) {
+    fileName = FileDirectory.normalize(fileName);
     FileInfo fileInfo = secondaryStorageIndex.remove(fileName);
     if (fileInfo != null) {
-      Arrays.fill(secondaryStorage, fileInfo.startIndex, fileInfo.startIndex + fileInfo.size, (byte) 0);
+      releaseFileExtent(fileInfo);
+      fileChanged(fileName);
     }
   }
 
   /**
-   * Creates an empty file in the secondary storage.
+   * Creates an empty file in the secondary storage. An existing file with the
+   * same name is truncated and its extent released. Nothing is created if
+   * the name is not a valid file path.
    *
    * @param fileName the name of the file
    */
-  public void createFile(String fileName) {
-    secondaryStorageIndex.put(fileName, new FileInfo(0, 0));
+  public synchronized void createFile(String fileName) {
+    fileName = FileDirectory.normalize(fileName);
+    if (!secondaryStorageIndex.canPut(fileName)) {
+      return;
+    }
+    FileInfo existing = secondaryStorageIndex.put(fileName, new FileInfo(0, 0, 0));
+    if (existing != null) {
+      releaseFileExtent(existing);
+    }
+    fileChanged(fileName);
   }
 
   /**
@@ -840,10 +1849,69 @@ public class MemoryManager {
    *
    * @param fileName the name of the file
    */
-  public void openFile(String fileName) {
+  public synchronized void openFile(String fileName) {
+    fileName = FileDirectory.normalize(fileName);
     FileInfo fileInfo = secondaryStorageIndex.get(fileName);
     if (fileInfo != null) {
       fileInfo.size = 0;
+      fileChanged(fileName);
+    }
+  }
+
+  /**
+   * Journals a change of a file and tells the listeners about it.
+   *
+   * @param fileName the name of the file that changed
+   */
+  private void fileChanged(String fileName) {
+    journalFile(fileName);
+    FileInfo fileInfo = secondaryStorageIndex.get(fileName);
+    if (fileInfo != null) {
+      fireMemoryEvent(MemoryEvent.Type.FILE_WRITTEN, MemoryEvent.Region.FILE, fileName, fileInfo.startIndex,
+          fileInfo.startIndex + Math.max(fileInfo.capacity, 1) - 1);
+    } else {
+      fireMemoryEvent(MemoryEvent.Type.FREED, MemoryEvent.Region.FILE, fileName, 0, 0);
+    }
+  }
+
+  /**
+   * Records the current state of a file in the journal of the disk image,
+   * writing the whole file table when the journal gets long. Does nothing
+   * if the secondary storage is not MAPPED.
+   *
+   * @param fileName the name of the file that changed
+   */
+  private void journalFile(String fileName) {
+    if (disk == null) {
+      return;
+    }
+    try {
+      FileInfo fileInfo = secondaryStorageIndex.get(fileName);
+      if (fileInfo != null) {
+        disk.recordPut(fileName, fileInfo);
+      } else {
+        disk.recordDelete(fileName);
+      }
+      if (disk.needsCheckpoint()) {
+        disk.checkpoint(secondaryStorageIndex.files());
+      }
+    } catch (UncheckedIOException e) {
+      System.out.println("Error writing disk journal: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Writes the whole file table of a MAPPED secondary storage to its image
+   * and empties the journal, so the next start does not need to replay it.
+   */
+  public synchronized void syncDisk() {
+    if (disk == null) {
+      return;
+    }
+    try {
+      disk.checkpoint(secondaryStorageIndex.files());
+    } catch (UncheckedIOException e) {
+      System.out.println("Error writing disk image: " + e.getMessage());
     }
   }
 
@@ -853,16 +1921,52 @@ public class MemoryManager {
    *
    * @return a list of FileInfo objects
    */
-  public List<FileInfo> getFileList() {
+  public synchronized List<FileInfo> getFileList() {
     List<FileInfo> fileList = new ArrayList<>();
-    for (Map.Entry<String, FileInfo> entry : secondaryStorageIndex.entrySet()) {
-      String fileName = entry.getKey();
-      FileInfo fileInfo = entry.getValue();
-      fileList.add(new FileInfo(fileName, fileInfo.size)); // in bytes
+    for (FileInfo fileInfo : secondaryStorageIndex.files()) {
+      fileList.add(new FileInfo(fileInfo.fileName, fileInfo.size)); // in bytes
     }
     return fileList;
   }
 
+  /**
+   * Lists one page of a directory of the secondary storage. Only the index
+   * is read, so listing costs the same whatever the size of the files.
+   *
+   * File names are paths separated by '/'; a directory exists while some
+   * file is stored under it.
+   *
+   * @param path   the path of the directory, empty or "/" for the root
+   * @param prefix only entries whose name starts with this prefix are listed,
+   *               empty for all
+   * @param offset the number of matching entries to skip
+   * @param limit  the maximum number of entries of the page
+   * @return the page, empty if the path is not a directory
+   */
+  public synchronized DirectoryPage listDirectory(String path, String prefix, int offset, int limit) {
+    return secondaryStorageIndex.list(FileDirectory.normalize(path), prefix, Math.max(0, offset),
+        Math.max(0, limit));
+  }
+
+  /**
+   * Checks whether a path names a directory of the secondary storage.
+   *
+   * @param path the path to check, empty or "/" for the root
+   * @return true if the path is a directory
+   */
+  public synchronized boolean isDirectory(String path) {
+    return secondaryStorageIndex.isDirectory(FileDirectory.normalize(path));
+  }
+
+  /**
+   * Gets the number of files in the secondary storage.
+   *
+   * @return the number of files
+   */
+  public synchronized int getFileCount() {
+    return secondaryStorageIndex.size();
+  }
+
   // -------------------------------------------------------------------
   // OS Space memory management methods
   // Memory allocation and deallocation for the OS on the main memory
@@ -876,18 +1980,9 @@ public class MemoryManager {
    *         if there is not enough space
    */
   private MemoryAllocation allocateOSSpace(int size) {
-    int osSpaceStart = kernelSize * KB;
-    int osSpaceEnd = osSpaceStart + osSize * KB;
-    for (int i = osSpaceStart; i < osSpaceEnd; i++) {
-      if (mainMemory[i] == 0) {
-        int j = i;
-        while (j < i + size && j < osSpaceEnd && mainMemory[j] == 0) {
-          j++;
-        }
-        if (j - i == size) {
-          return new MemoryAllocation(i, size);
-        }
-      }
+    int startIndex = osSpaceAllocator.allocate(size);
+    if (startIndex != -1) {
+      return new MemoryAllocation(startIndex, size);
     }
     return null;
   }
@@ -900,39 +1995,72 @@ public class MemoryManager {
    * @return true if the memory was successfully deallocated
    */
   private boolean deallocateOSSpace(int startIndex, int size) {
-    for (int i = startIndex; i < startIndex + size; i++) {
-      mainMemory[i] = 0;
-    }
+    zero(mainMemory, startIndex, startIndex + size);
+    osSpaceAllocator.free(startIndex, size);
     return true;
   }
 
   /**
-   * Allocates space in the secondary storage.
+   * Allocates space in the secondary storage. Sizes are rounded up to whole
+   * disk blocks.
    *
    * @param size the size of the memory to allocate
    * @return the start index of the allocated space, or -1 if there is not enough
    *         space
    */
   private int allocateSecondaryMemory(int size) {
-    int freeSpace = 0;
-    int startIndex = -1;
+    int capacity = toDiskBlocks(size);
+    if (capacity == 0) {
+      return 0;
+    }
 
-    for (int i = 0; i < secondaryStorage.length; i++) {
-      if (secondaryStorage[i] == 0) {
-        if (startIndex == -1) {
-          startIndex = i;
-        }
-        freeSpace++;
-        if (freeSpace == size) {
-          return startIndex;
-        }
-      } else {
-        freeSpace = 0;
-        startIndex = -1;
-      }
+    int startIndex = secondaryStorageAllocator.allocate(capacity);
+    if (startIndex != -1) {
+      markDiskBlocks(startIndex, capacity, true);
     }
+    return startIndex;
+  }
 
-    return -1;
+  /**
+   * Returns the extent of a file to the secondary storage allocator.
+   *
+   * @param fileInfo the file whose extent is released
+   */
+  private void releaseFileExtent(FileInfo fileInfo) {
+    if (fileInfo.capacity > 0) {
+      secondaryStorageAllocator.free(fileInfo.startIndex, fileInfo.capacity);
+      markDiskBlocks(fileInfo.startIndex, fileInfo.capacity, false);
+    }
+  }
+
+  /**
+   * Updates the free space bitmap for a range of the secondary storage.
+   *
+   * @param startIndex the first byte of the range
+   * @param size       the size of the range, a multiple of the block size
+   * @param used       whether the blocks are now used
+   */
+  private void markDiskBlocks(int startIndex, int size, boolean used) {
+    secondaryStorageBitmap.set(startIndex / DISK_BLOCK_SIZE, (startIndex + size) / DISK_BLOCK_SIZE, used);
+  }
+
+  /**
+   * Rounds a size up to a whole number of disk blocks.
+   *
+   * @param size the size in bytes
+   * @return the size in bytes of the blocks needed
+   */
+  private int toDiskBlocks(int size) {
+    return (size + DISK_BLOCK_SIZE - 1) / DISK_BLOCK_SIZE * DISK_BLOCK_SIZE;
+  }
+
+  /**
+   * Gets the number of bytes of the secondary storage used by files.
+   *
+   * @return the used bytes, counted in whole disk blocks
+   */
+  public int getSecondaryStorageUsed() {
+    return secondaryStorageBitmap.cardinality() * DISK_BLOCK_SIZE;
   }
 
   // Loading from files
@@ -969,47 +2097,62 @@ public class MemoryManager {
     try {
       File configFile = new File(configFilePath);
       Scanner scanner = new Scanner(new FileReader(configFile));
+      int updatedValues = 0;
 
       while (scanner.hasNextLine()) {
         String line = scanner.nextLine();
         String[] parts = line.split("=");
         if (parts.length == 2) {
           String key = parts[0].trim();
-          int value = Integer.parseInt(parts[1].trim());
-          int updatedValues = 0;
+          String value = parts[1].trim();
 
           switch (key) {
             case "mainMemorySize":
-              mainMemorySize = value;
+              mainMemorySize = Integer.parseInt(value);
               updatedValues++;
               break;
             case "virtualMemorySize":
-              virtualMemorySize = value;
+              virtualMemorySize = Integer.parseInt(value);
               updatedValues++;
               break;
             case "secondaryMemorySize":
-              secondaryMemorySize = value;
+              secondaryMemorySize = Integer.parseInt(value);
               updatedValues++;
               break;
             case "kernelSize":
-              kernelSize = value;
+              kernelSize = Integer.parseInt(value);
               updatedValues++;
               break;
             case "osSize":
-              osSize = value;
+              osSize = Integer.parseInt(value);
               updatedValues++;
               break;
+            case "allocationPolicy":
+              allocationPolicy = AllocationPolicy.fromString(value);
+              break;
+            case "stackDepth":
+              setStackDepth(Integer.parseInt(value));
+              break;
+            case "mainMemoryBacking":
+              setMainMemoryBacking(MemoryBacking.fromString(value));
+              break;
+            case "secondaryStorageBacking":
+              secondaryStorageBacking = MemoryBacking.fromString(value);
+              break;
+            case "diskImage":
+              diskImage = value;
+              break;
+            case "pageReplacement":
+              pageReplacement = PageReplacement.fromString(value);
+              break;
           }
-
-          if (updatedValues == 5) {
-            break;
-          }
-          scanner.close();
-          throw new IllegalArgumentException("Invalid configuration file format. Not all values were updated.");
         }
       }
 
       scanner.close();
+      if (updatedValues != 5) {
+        throw new IllegalArgumentException("Invalid configuration file format. Not all values were updated.");
+      }
     } catch (IOException e) {
       System.out.println("Error loading configuration file: " + e.getMessage());
     }
@@ -1032,7 +2175,39 @@ public class MemoryManager {
       kernelSize = ((Long) jsonConfig.get("kernelSize")).intValue();
       osSize = ((Long) jsonConfig.get("osSize")).intValue();
 
-      if (jsonConfig.size() != 5) {
+      // The allocation policy is optional, older files only have the sizes
+      Object policy = jsonConfig.get("allocationPolicy");
+      if (policy != null) {
+        allocationPolicy = AllocationPolicy.fromString(policy.toString());
+      }
+      Object depth = jsonConfig.get("stackDepth");
+      if (depth != null) {
+        setStackDepth(((Long) depth).intValue());
+      }
+      Object mainBacking = jsonConfig.get("mainMemoryBacking");
+      if (mainBacking != null) {
+        setMainMemoryBacking(MemoryBacking.fromString(mainBacking.toString()));
+      }
+      Object secondaryBacking = jsonConfig.get("secondaryStorageBacking");
+      if (secondaryBacking != null) {
+        secondaryStorageBacking = MemoryBacking.fromString(secondaryBacking.toString());
+      }
+      Object image = jsonConfig.get("diskImage");
+      if (image != null) {
+        diskImage = image.toString();
+      }
+      Object replacement = jsonConfig.get("pageReplacement");
+      if (replacement != null) {
+        pageReplacement = PageReplacement.fromString(replacement.toString());
+      }
+
+      int optionalValues = 0;
+      for (Object value : new Object[] { policy, depth, mainBacking, secondaryBacking, image, replacement }) {
+        if (value != null) {
+          optionalValues++;
+        }
+      }
+      if (jsonConfig.size() != 5 + optionalValues) {
         throw new IllegalArgumentException("Invalid JSON configuration file format. Not all values were updated.");
       }
 
@@ -1063,8 +2238,48 @@ public class MemoryManager {
       kernelSize = Integer.parseInt(getTagValue("kernelSize", configElement));
       osSize = Integer.parseInt(getTagValue("osSize", configElement));
 
+      // The allocation policy is optional, older files only have the sizes
+      boolean hasPolicy = configElement.getElementsByTagName("allocationPolicy").getLength() > 0;
+      if (hasPolicy) {
+        allocationPolicy = AllocationPolicy.fromString(getTagValue("allocationPolicy", configElement));
+      }
+      boolean hasDepth = configElement.getElementsByTagName("stackDepth").getLength() > 0;
+      if (hasDepth) {
+        setStackDepth(Integer.parseInt(getTagValue("stackDepth", configElement)));
+      }
+      boolean hasMainBacking = configElement.getElementsByTagName("mainMemoryBacking").getLength() > 0;
+      if (hasMainBacking) {
+        setMainMemoryBacking(MemoryBacking.fromString(getTagValue("mainMemoryBacking", configElement)));
+      }
+      boolean hasSecondaryBacking = configElement.getElementsByTagName("secondaryStorageBacking").getLength() > 0;
+      if (hasSecondaryBacking) {
+        secondaryStorageBacking = MemoryBacking.fromString(getTagValue("secondaryStorageBacking", configElement));
+      }
+      boolean hasImage = configElement.getElementsByTagName("diskImage").getLength() > 0;
+      if (hasImage) {
+        diskImage = getTagValue("diskImage", configElement);
+      }
+      boolean hasReplacement = configElement.getElementsByTagName("pageReplacement").getLength() > 0;
+      if (hasReplacement) {
+        pageReplacement = PageReplacement.fromString(getTagValue("pageReplacement", configElement));
+      }
+
       // Check if all values were updated
-      if (configElement.getChildNodes().getLength() != 5) {
+      int configValues = 0;
+      NodeList children = configElement.getChildNodes();
+      for (int i = 0; i < children.getLength(); i++) {
+        if (children.item(i).getNodeType() == Node.ELEMENT_NODE) {
+          configValues++;
+        }
+      }
+      int optionalValues = 0;
+      for (boolean present : new boolean[] { hasPolicy, hasDepth, hasMainBacking, hasSecondaryBacking, hasImage,
+          hasReplacement }) {
+        if (present) {
+          optionalValues++;
+        }
+      }
+      if (configValues != 5 + optionalValues) {
         throw new IllegalArgumentException("Invalid XML configuration file format. Not all values were updated.");
       }
 
@@ -1108,6 +2323,34 @@ public class MemoryManager {
     return osSize;
   }
 
+  public AllocationPolicy getAllocationPolicy() {
+    return allocationPolicy;
+  }
+
+  public int getStackDepth() {
+    return stackDepth;
+  }
+
+  public MemoryBacking getMainMemoryBacking() {
+    return mainMemoryBacking;
+  }
+
+  public MemoryBacking getSecondaryStorageBacking() {
+    return secondaryStorageBacking;
+  }
+
+  public String getDiskImage() {
+    return diskImage;
+  }
+
+  public PageReplacement getPageReplacement() {
+    return pageReplacement;
+  }
+
+  public boolean isPageAllProcesses() {
+    return pageAllProcesses;
+  }
+
   public void setMainMemorySize(int mainMemorySize) {
     this.mainMemorySize = mainMemorySize;
   }
@@ -1128,19 +2371,80 @@ public class MemoryManager {
     this.osSize = osSize;
   }
 
-  public void setVirtualMemory(String[] virtualMemory) {
-    this.virtualMemory = virtualMemory;
+  public void setAllocationPolicy(AllocationPolicy allocationPolicy) {
+    this.allocationPolicy = allocationPolicy;
   }
 
-  public void setSecondaryStorage(byte[] secondaryStorage) {
-    this.secondaryStorage = secondaryStorage;
+  /**
+   * Sets the number of entries of the stacks allocated from now on. Stacks
+   * already allocated keep their depth.
+   *
+   * @param stackDepth the number of entries, at least 1
+   */
+  public void setStackDepth(int stackDepth) {
+    if (stackDepth < 1) {
+      throw new IllegalArgumentException("Invalid stack depth: " + stackDepth);
+    }
+    this.stackDepth = stackDepth;
   }
 
-  public String[] getVirtualMemory() {
-    return virtualMemory;
+  /**
+   * Sets the backing of the main memory. It is applied the next time the
+   * memory is initialized.
+   *
+   * @param mainMemoryBacking HEAP or DIRECT
+   */
+  public void setMainMemoryBacking(MemoryBacking mainMemoryBacking) {
+    if (mainMemoryBacking == MemoryBacking.MAPPED) {
+      throw new IllegalArgumentException("The main memory can not be mapped to a file");
+    }
+    this.mainMemoryBacking = mainMemoryBacking;
+  }
+
+  /**
+   * Sets the backing of the secondary storage. It is applied the next time
+   * the memory is initialized.
+   *
+   * @param secondaryStorageBacking the backing of the secondary storage
+   */
+  public void setSecondaryStorageBacking(MemoryBacking secondaryStorageBacking) {
+    this.secondaryStorageBacking = secondaryStorageBacking;
+  }
+
+  /**
+   * Sets the file mapped by a MAPPED secondary storage.
+   *
+   * @param diskImage the path of the disk image
+   */
+  public void setDiskImage(String diskImage) {
+    this.diskImage = diskImage;
+  }
+
+  /**
+   * Sets the page replacement algorithm of the virtual memory. It takes
+   * effect when the main memory is reset or cleared.
+   *
+   * @param pageReplacement the page replacement algorithm
+   */
+  public void setPageReplacement(PageReplacement pageReplacement) {
+    this.pageReplacement = pageReplacement;
+  }
+
+  /**
+   * Sets whether every process is paged, instead of only the ones that do
+   * not fit in the user space.
+   *
+   * @param pageAllProcesses true to page every new process
+   */
+  public void setPageAllProcesses(boolean pageAllProcesses) {
+    this.pageAllProcesses = pageAllProcesses;
+  }
+
+  public void setSecondaryStorage(ByteBuffer secondaryStorage) {
+    this.secondaryStorage = secondaryStorage;
   }
 
-  public byte[] getSecondaryStorage() {
+  public ByteBuffer getSecondaryStorage() {
     return secondaryStorage;
   }
 
@@ -1148,13 +2452,44 @@ public class MemoryManager {
     initializeMemory();
   }
 
-  private static class InstructionIndex {
+  private static class ProgramImage {
     int startIndex;
-    int length;
-
-    InstructionIndex(int startIndex, int length) {
+    final int instructionCount;
+    final Instruction[] decoded;
+    // Created with the image, so every CPU that runs the process shares it
+    final BlockProfile profile;
+    // Set for paged processes, whose image lives in their virtual space
+    PageTable pageTable;
+
+    ProgramImage(int startIndex, int instructionCount) {
       this.startIndex = startIndex;
-      this.length = length;
+      this.instructionCount = instructionCount;
+      this.decoded = new Instruction[instructionCount];
+      this.profile = new BlockProfile(instructionCount);
+    }
+  }
+
+  /**
+   * A block of the user space that compaction can move: the program image or
+   * the stack of a process.
+   */
+  private static class UserSpaceBlock {
+    final String processName;
+    final MemoryAllocation image;
+    final StackAllocation stack;
+
+    UserSpaceBlock(String processName, MemoryAllocation image, StackAllocation stack) {
+      this.processName = processName;
+      this.image = image;
+      this.stack = stack;
+    }
+
+    int start() {
+      return image != null ? image.startIndex : stack.startIndex;
+    }
+
+    int size() {
+      return image != null ? image.size : stack.size;
     }
   }
 
@@ -21,6 +21,10 @@ public class MemoryMap {
     public int end;
     public List<MemorySection> subSections;
     public String additionalInfo;
+    // Identify the block in the MemoryEvents, null for sections that are not
+    // blocks such as the kernel space or an instruction
+    public MemoryEvent.Region region;
+    public String blockName;
 
     /**
      * Constructor for MemorySection.
@@ -37,13 +41,29 @@ public class MemoryMap {
       this.subSections = new ArrayList<>();
       this.additionalInfo = additionalInfo;
     }
+
+    /**
+     * Names the block this section shows, as its MemoryEvents do.
+     *
+     * @param region    the region of the block
+     * @param blockName the name of the block
+     * @return this section
+     */
+    public MemorySection forBlock(MemoryEvent.Region region, String blockName) {
+      this.region = region;
+      this.blockName = blockName;
+      return this;
+    }
   }
 
   public MemorySection kernel;
   public MemorySection os;
   public MemorySection userSpace;
   public MemorySection secondaryStorage;
+  public MemorySection virtualMemory;
   public List<MemorySection> allocatedProcesses;
+  // Only filled by the outline, the full map lists the BCPs with the processes
+  public List<MemorySection> processControlBlocks;
   public List<MemorySection> freeSpaces;
   public List<MemorySection> allocatedStacks;
   public List<MemorySection> storedStrings;
@@ -56,6 +76,7 @@ public class MemoryMap {
    */
   public MemoryMap() {
     allocatedProcesses = new ArrayList<>();
+    processControlBlocks = new ArrayList<>();
     freeSpaces = new ArrayList<>();
     allocatedStacks = new ArrayList<>();
     storedStrings = new ArrayList<>();
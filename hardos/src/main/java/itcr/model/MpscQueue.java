@@ -0,0 +1,73 @@
+package itcr.model;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * MpscQueue is an unbounded lock-free queue for many producers and a single
+ * consumer.
+ *
+ * Producers swap themselves in as the tail with one atomic operation and
+ * then link the previous tail to their node, so they never wait for each
+ * other or for the consumer. Only one thread may poll. Between the swap and
+ * the link the new element is not visible yet, poll may report the queue as
+ * empty for that short moment.
+ *
+ * @param <E> the type of the elements
+ */
+final class MpscQueue<E> {
+  private static final class Node<E> {
+    E value;
+    volatile Node<E> next;
+
+    Node(E value) {
+      this.value = value;
+    }
+  }
+
+  private final AtomicReference<Node<E>> tail;
+  // Owned by the consumer, always the node before the first element
+  private Node<E> head;
+
+  MpscQueue() {
+    Node<E> stub = new Node<>(null);
+    this.head = stub;
+    this.tail = new AtomicReference<>(stub);
+  }
+
+  /**
+   * Adds an element at the end of the queue. Safe to call from any thread.
+   *
+   * @param value the element, not null
+   */
+  void offer(E value) {
+    Node<E> node = new Node<>(value);
+    tail.getAndSet(node).next = node;
+  }
+
+  /**
+   * Takes the first element. Only the consumer thread may call it.
+   *
+   * @return the element, or null if the queue is empty
+   */
+  E poll() {
+    Node<E> next = head.next;
+    if (next == null) {
+      return null;
+    }
+    E value = next.value;
+    // The node becomes the new stub, it must not keep the element alive
+    next.value = null;
+    head = next;
+    return value;
+  }
+
+  /**
+   * Checks whether there is an element to take. Only the consumer thread may
+   * call it.
+   *
+   * @return true if poll would return null
+   */
+  boolean isEmpty() {
+    return head.next == null;
+  }
+}
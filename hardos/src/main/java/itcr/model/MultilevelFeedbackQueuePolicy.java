@@ -0,0 +1,119 @@
+package itcr.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MultilevelFeedbackQueuePolicy keeps one round robin queue per level. New
+ * processes start at the top level; a process that uses its whole slice drops
+ * one level, where the slice doubles. Every BOOST_INTERVAL dispatches all the
+ * processes go back to the top level so the low levels do not starve.
+ */
+class MultilevelFeedbackQueuePolicy implements SchedulingPolicy {
+  private static final int LEVELS = 3;
+  private static final int BOOST_INTERVAL = 100;
+
+  private final List<ArrayDeque<Integer>> queues = new ArrayList<>(LEVELS);
+  private final Map<Integer, Integer> levels = new HashMap<>();
+  private final int quantum;
+  private int dispatchesSinceBoost = 0;
+
+  MultilevelFeedbackQueuePolicy(int quantum) {
+    this.quantum = quantum;
+    for (int i = 0; i < LEVELS; i++) {
+      queues.add(new ArrayDeque<>());
+    }
+  }
+
+  @Override
+  public SchedulingAlgorithm getAlgorithm() {
+    return SchedulingAlgorithm.MLFQ;
+  }
+
+  @Override
+  public void add(int processId, ProcessControlBlock pcb, int qtyInstructions) {
+    queues.get(levels.computeIfAbsent(processId, k -> 0)).offer(processId);
+  }
+
+  @Override
+  public int poll() {
+    if (++dispatchesSinceBoost >= BOOST_INTERVAL) {
+      boost();
+    }
+
+    for (ArrayDeque<Integer> queue : queues) {
+      if (!queue.isEmpty()) {
+        return queue.poll();
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public int peek() {
+    for (ArrayDeque<Integer> queue : queues) {
+      if (!queue.isEmpty()) {
+        return queue.peek();
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (ArrayDeque<Integer> queue : queues) {
+      if (!queue.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public List<Integer> getReadyProcesses() {
+    List<Integer> processIds = new ArrayList<>();
+    for (ArrayDeque<Integer> queue : queues) {
+      processIds.addAll(queue);
+    }
+    return processIds;
+  }
+
+  @Override
+  public int getTimeSlice(int processId) {
+    return quantum << levels.getOrDefault(processId, 0);
+  }
+
+  @Override
+  public void onPreempted(int processId) {
+    levels.merge(processId, 1, (level, one) -> Math.min(level + one, LEVELS - 1));
+  }
+
+  @Override
+  public void onFinished(int processId) {
+    levels.remove(processId);
+  }
+
+  @Override
+  public void clear() {
+    for (ArrayDeque<Integer> queue : queues) {
+      queue.clear();
+    }
+    levels.clear();
+    dispatchesSinceBoost = 0;
+  }
+
+  /**
+   * Moves every process back to the top level.
+   */
+  private void boost() {
+    dispatchesSinceBoost = 0;
+    for (int level = 1; level < LEVELS; level++) {
+      queues.get(0).addAll(queues.get(level));
+      queues.get(level).clear();
+    }
+    levels.replaceAll((processId, level) -> 0);
+  }
+}
@@ -0,0 +1,30 @@
+package itcr.model;
+
+/**
+ * PageReplacement lists the algorithms available to choose the frame that is
+ * given up when a page fault finds no free frame.
+ *
+ * CLOCK gives every frame a second chance while its referenced bit is set,
+ * LRU takes the frame whose page was used the longest time ago.
+ */
+public enum PageReplacement {
+  CLOCK, LRU;
+
+  /**
+   * Parses an algorithm name as written in the configuration files. Case is
+   * ignored.
+   *
+   * @param name the name of the algorithm
+   * @return the matching algorithm
+   * @throws IllegalArgumentException if the name does not match any algorithm
+   */
+  public static PageReplacement fromString(String name) {
+    String normalized = name.trim().toUpperCase();
+    for (PageReplacement replacement : values()) {
+      if (replacement.name().equals(normalized)) {
+        return replacement;
+      }
+    }
+    throw new IllegalArgumentException("Invalid page replacement: " + name);
+  }
+}
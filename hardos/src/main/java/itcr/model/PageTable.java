@@ -0,0 +1,51 @@
+package itcr.model;
+
+import java.util.Arrays;
+
+/**
+ * PageTable describes the virtual address space of a paged process: the
+ * program image in the first pages, followed by the stack.
+ *
+ * The entries themselves live in the OS space of the main memory, one int
+ * per page, at the address kept in the BCP of the process. This object holds
+ * what the pager needs besides the entries: where every page is kept in the
+ * swap space and how often the process faulted.
+ */
+final class PageTable {
+  final String processName;
+  final int address;
+  final int pageCount;
+  final int imagePages;
+  final int stackEntries;
+  // Start of the swap slot of every page, -1 while it has none
+  final int[] swapSlots;
+  long faults;
+
+  /**
+   * Constructor for PageTable.
+   *
+   * @param processName  the name of the process
+   * @param address      the address of the entries in the OS space
+   * @param imagePages   the number of pages of the program image
+   * @param stackPages   the number of pages of the stack
+   * @param stackEntries the number of entries of the stack
+   */
+  PageTable(String processName, int address, int imagePages, int stackPages, int stackEntries) {
+    this.processName = processName;
+    this.address = address;
+    this.pageCount = imagePages + stackPages;
+    this.imagePages = imagePages;
+    this.stackEntries = stackEntries;
+    this.swapSlots = new int[pageCount];
+    Arrays.fill(swapSlots, -1);
+  }
+
+  /**
+   * Gets the virtual address of the first byte of the stack.
+   *
+   * @return the address right after the program image
+   */
+  int stackStart() {
+    return imagePages * Pager.PAGE_SIZE;
+  }
+}
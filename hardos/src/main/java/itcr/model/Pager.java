@@ -0,0 +1,357 @@
+package itcr.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Pager implements demand paging for the processes that do not get a
+ * contiguous block of the user space.
+ *
+ * The virtual memory region of the main memory is split in frames of
+ * PAGE_SIZE bytes. A page is only brought into a frame the first time it is
+ * touched: image pages are read from their swap slot in the secondary
+ * storage, stack pages start as zeros. When no frame is free, one is taken
+ * from another page, chosen by the configured replacement algorithm, and
+ * written to swap first if it was modified.
+ *
+ * A page table entry is one int in the OS space: the frame in the high bits
+ * and the PRESENT and DIRTY bits in the low ones. Every method that changes
+ * frames runs under the lock of the MemoryManager.
+ */
+final class Pager {
+  static final int PAGE_SIZE = 256;
+  // Bits of a page table entry
+  static final int PRESENT = 1;
+  static final int DIRTY = 2;
+  private static final int FRAME_SHIFT = 8;
+  // Set in the result of translate when the page had to be brought in
+  static final int FAULTED = 1 << 30;
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final byte[] ZEROS = new byte[PAGE_SIZE];
+
+  private final ByteBuffer memory;
+  private final int poolStart;
+  private final int frameCount;
+  private final PageTable[] frameOwners;
+  private final int[] framePages;
+  private final boolean[] referenced;
+  private final long[] lastUse;
+  private final int[] freeFrames;
+  private int freeCount;
+  private long useCounter;
+  private int hand;
+
+  private final ByteBuffer swap;
+  private final ExtentAllocator swapAllocator;
+  private final PageReplacement replacement;
+  // Incremented on every eviction, so the TLBs know their entries are stale
+  private volatile int epoch;
+
+  private long faults;
+  private long evictions;
+  private long pageIns;
+  private long pageOuts;
+  private long zeroFills;
+  private int swapSlotsInUse;
+
+  /**
+   * Constructor for Pager.
+   *
+   * @param memory        the main memory
+   * @param poolStart     the address of the first frame
+   * @param poolSize      the size of the virtual memory region, rounded down
+   *                      to whole pages
+   * @param swap          the secondary storage
+   * @param swapAllocator the allocator of the secondary storage, swap slots
+   *                      are taken from it one page at a time
+   * @param replacement   the page replacement algorithm
+   */
+  Pager(ByteBuffer memory, int poolStart, int poolSize, ByteBuffer swap, ExtentAllocator swapAllocator,
+      PageReplacement replacement) {
+    this.memory = memory;
+    this.poolStart = poolStart;
+    this.frameCount = Math.max(0, poolSize / PAGE_SIZE);
+    this.frameOwners = new PageTable[frameCount];
+    this.framePages = new int[frameCount];
+    this.referenced = new boolean[frameCount];
+    this.lastUse = new long[frameCount];
+    this.freeFrames = new int[frameCount];
+    // Free frames are handed out from the lowest address up
+    for (int i = 0; i < frameCount; i++) {
+      freeFrames[i] = frameCount - 1 - i;
+    }
+    this.freeCount = frameCount;
+    this.swap = swap;
+    this.swapAllocator = swapAllocator;
+    this.replacement = replacement;
+  }
+
+  /**
+   * Computes the number of pages needed for a number of bytes.
+   *
+   * @param size the size in bytes
+   * @return the number of pages
+   */
+  static int pagesFor(int size) {
+    return (size + PAGE_SIZE - 1) / PAGE_SIZE;
+  }
+
+  /**
+   * Gets the frame stored in a page table entry.
+   *
+   * @param entry the entry of a present page
+   * @return the frame number
+   */
+  static int frameOf(int entry) {
+    return entry >>> FRAME_SHIFT;
+  }
+
+  int getFrameCount() {
+    return frameCount;
+  }
+
+  int getEpoch() {
+    return epoch;
+  }
+
+  /**
+   * Gets the address of a frame in the main memory.
+   *
+   * @param frame the frame number
+   * @return the address of its first byte
+   */
+  int frameAddress(int frame) {
+    return poolStart + frame * PAGE_SIZE;
+  }
+
+  PageTable getFrameOwner(int frame) {
+    return frameOwners[frame];
+  }
+
+  int getFramePage(int frame) {
+    return framePages[frame];
+  }
+
+  /**
+   * Reads the entry of a page.
+   *
+   * @param table the page table
+   * @param page  the virtual page
+   * @return the entry, 0 if the page is not present
+   */
+  int entry(PageTable table, int page) {
+    return (int) INT.get(memory, table.address + page * 4);
+  }
+
+  /**
+   * Writes the image of a program to swap, one slot per page, so its pages
+   * can be faulted in later.
+   *
+   * @param table the page table of the process
+   * @param image the encoded image, a whole number of pages long
+   * @return true if every page got a slot, false if the swap is full
+   */
+  boolean loadImage(PageTable table, ByteBuffer image) {
+    for (int page = 0; page < table.imagePages; page++) {
+      int slot = swapAllocator.allocate(PAGE_SIZE);
+      if (slot == -1) {
+        release(table, 0, table.pageCount);
+        return false;
+      }
+      table.swapSlots[page] = slot;
+      swapSlotsInUse++;
+      swap.put(slot, image, page * PAGE_SIZE, PAGE_SIZE);
+    }
+    return true;
+  }
+
+  /**
+   * Translates a virtual page, faulting it in if it is not present.
+   *
+   * @param table the page table of the process
+   * @param page  the virtual page
+   * @param write whether the access writes the page
+   * @return the frame, with FAULTED set if a page fault was served, or -1 if
+   *         no frame could be freed
+   */
+  int translate(PageTable table, int page, boolean write) {
+    int entryAddress = table.address + page * 4;
+    int entry = (int) INT.get(memory, entryAddress);
+    if ((entry & PRESENT) != 0) {
+      int frame = frameOf(entry);
+      touch(frame);
+      if (write && (entry & DIRTY) == 0) {
+        INT.set(memory, entryAddress, entry | DIRTY);
+      }
+      return frame;
+    }
+
+    int frame = freeCount > 0 ? freeFrames[--freeCount] : evict();
+    if (frame == -1) {
+      return -1;
+    }
+    int slot = table.swapSlots[page];
+    if (slot >= 0) {
+      memory.put(frameAddress(frame), swap, slot, PAGE_SIZE);
+      pageIns++;
+    } else {
+      memory.put(frameAddress(frame), ZEROS);
+      zeroFills++;
+    }
+    frameOwners[frame] = table;
+    framePages[frame] = page;
+    touch(frame);
+    INT.set(memory, entryAddress, (frame << FRAME_SHIFT) | PRESENT | (write ? DIRTY : 0));
+    faults++;
+    table.faults++;
+    return frame | FAULTED;
+  }
+
+  /**
+   * Records a use of a frame for the replacement algorithm. Called on TLB
+   * hits without the MemoryManager lock; a lost update only makes the
+   * algorithm slightly less accurate.
+   *
+   * @param frame the frame that was used
+   */
+  void touch(int frame) {
+    referenced[frame] = true;
+    lastUse[frame] = ++useCounter;
+  }
+
+  /**
+   * Frees the frames and swap slots of a range of pages of a process.
+   *
+   * @param table the page table of the process
+   * @param from  the first page to release
+   * @param to    the page after the last one to release
+   */
+  void release(PageTable table, int from, int to) {
+    boolean freedFrames = false;
+    for (int page = from; page < to; page++) {
+      int entryAddress = table.address + page * 4;
+      int entry = (int) INT.get(memory, entryAddress);
+      if ((entry & PRESENT) != 0) {
+        int frame = frameOf(entry);
+        frameOwners[frame] = null;
+        freeFrames[freeCount++] = frame;
+        freedFrames = true;
+      }
+      INT.set(memory, entryAddress, 0);
+      if (table.swapSlots[page] >= 0) {
+        swapAllocator.free(table.swapSlots[page], PAGE_SIZE);
+        table.swapSlots[page] = -1;
+        swapSlotsInUse--;
+      }
+    }
+    if (freedFrames) {
+      epoch++;
+    }
+  }
+
+  /**
+   * Takes a frame away from the page using it.
+   *
+   * @return the freed frame, or -1 if every frame holds a modified page and
+   *         the swap is full
+   */
+  private int evict() {
+    if (replacement == PageReplacement.LRU) {
+      boolean[] rejected = new boolean[frameCount];
+      for (int attempt = 0; attempt < frameCount; attempt++) {
+        int victim = -1;
+        for (int frame = 0; frame < frameCount; frame++) {
+          if (!rejected[frame] && frameOwners[frame] != null
+              && (victim == -1 || lastUse[frame] < lastUse[victim])) {
+            victim = frame;
+          }
+        }
+        if (victim == -1) {
+          return -1;
+        }
+        if (pageOut(victim)) {
+          return victim;
+        }
+        rejected[victim] = true;
+      }
+      return -1;
+    }
+
+    // Clock: two sweeps clear every referenced bit, a third one would only
+    // find frames that can not be written out
+    for (int step = 0; step < frameCount * 2; step++) {
+      int frame = hand;
+      hand = (hand + 1) % frameCount;
+      if (frameOwners[frame] == null) {
+        continue;
+      }
+      if (referenced[frame]) {
+        referenced[frame] = false;
+        continue;
+      }
+      if (pageOut(frame)) {
+        return frame;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Writes the page of a frame to swap if it was modified and marks it as not
+   * present.
+   *
+   * @param frame the frame to empty
+   * @return true if the frame is now free to reuse
+   */
+  private boolean pageOut(int frame) {
+    PageTable table = frameOwners[frame];
+    int page = framePages[frame];
+    int entryAddress = table.address + page * 4;
+    int entry = (int) INT.get(memory, entryAddress);
+    if ((entry & DIRTY) != 0) {
+      int slot = table.swapSlots[page];
+      if (slot == -1) {
+        slot = swapAllocator.allocate(PAGE_SIZE);
+        if (slot == -1) {
+          return false;
+        }
+        table.swapSlots[page] = slot;
+        swapSlotsInUse++;
+      }
+      swap.put(slot, memory, frameAddress(frame), PAGE_SIZE);
+      pageOuts++;
+    }
+    // A clean page without a slot was never written, it comes back as zeros
+
+    INT.set(memory, entryAddress, 0);
+    frameOwners[frame] = null;
+    referenced[frame] = false;
+    evictions++;
+    epoch++;
+    return true;
+  }
+
+  /**
+   * Gets the paging metrics.
+   *
+   * @return a JsonObject with the frame usage and fault counters
+   */
+  JsonObject getStats() {
+    JsonObject stats = new JsonObject();
+    stats.addProperty("replacement", replacement.toString());
+    stats.addProperty("pageSize", PAGE_SIZE);
+    stats.addProperty("frames", frameCount);
+    stats.addProperty("usedFrames", frameCount - freeCount);
+    stats.addProperty("pageFaults", faults);
+    stats.addProperty("evictions", evictions);
+    stats.addProperty("pageIns", pageIns);
+    stats.addProperty("pageOuts", pageOuts);
+    stats.addProperty("zeroFills", zeroFills);
+    stats.addProperty("swapBytes", swapSlotsInUse * PAGE_SIZE);
+    return stats;
+  }
+}
@@ -0,0 +1,97 @@
+package itcr.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * PriorityPolicy always runs the ready process with the best static priority
+ * from its BCP; a lower value means a higher priority. Processes with the same
+ * priority take turns in arrival order, each one for a quantum.
+ */
+class PriorityPolicy implements SchedulingPolicy {
+  private final PriorityQueue<ReadyEntry> readyQueue = new PriorityQueue<>(
+      Comparator.comparingLong((ReadyEntry entry) -> entry.key).thenComparingLong(entry -> entry.arrival));
+  private final int quantum;
+  private long arrivals = 0;
+
+  PriorityPolicy(int quantum) {
+    this.quantum = quantum;
+  }
+
+  @Override
+  public SchedulingAlgorithm getAlgorithm() {
+    return SchedulingAlgorithm.PRIORITY;
+  }
+
+  @Override
+  public void add(int processId, ProcessControlBlock pcb, int qtyInstructions) {
+    readyQueue.offer(new ReadyEntry(processId, pcb.getPriority(), arrivals++));
+  }
+
+  @Override
+  public int poll() {
+    ReadyEntry entry = readyQueue.poll();
+    return entry == null ? -1 : entry.processId;
+  }
+
+  @Override
+  public int peek() {
+    ReadyEntry entry = readyQueue.peek();
+    return entry == null ? -1 : entry.processId;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return readyQueue.isEmpty();
+  }
+
+  @Override
+  public List<Integer> getReadyProcesses() {
+    return ReadyEntry.inOrder(readyQueue);
+  }
+
+  @Override
+  public int getTimeSlice(int processId) {
+    return quantum;
+  }
+
+  @Override
+  public void onPreempted(int processId) {
+  }
+
+  @Override
+  public void onFinished(int processId) {
+  }
+
+  @Override
+  public void clear() {
+    readyQueue.clear();
+  }
+
+  /**
+   * ReadyEntry is a process waiting in an ordered ready queue. The key is the
+   * value the queue is sorted by and the arrival number breaks ties.
+   */
+  static class ReadyEntry {
+    final int processId;
+    final long key;
+    final long arrival;
+
+    ReadyEntry(int processId, long key, long arrival) {
+      this.processId = processId;
+      this.key = key;
+      this.arrival = arrival;
+    }
+
+    static List<Integer> inOrder(PriorityQueue<ReadyEntry> queue) {
+      PriorityQueue<ReadyEntry> copy = new PriorityQueue<>(queue);
+      List<Integer> processIds = new ArrayList<>(copy.size());
+      while (!copy.isEmpty()) {
+        processIds.add(copy.poll().processId);
+      }
+      return processIds;
+    }
+  }
+}
@@ -35,7 +35,9 @@ public class Process {
    */
   public Process(ProcessControlBlock pcb) {
     this.pcb = pcb;
-    this.currentInstructionIndex = 0;
+    // The program counter holds the index of the next instruction, so a
+    // preempted process resumes where it stopped
+    this.currentInstructionIndex = pcb.getProgramCounter();
     this.children = new ArrayList<>();
     this.exitCode = -1;
   }
@@ -12,9 +12,7 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
-import com.google.gson.stream.JsonReader;
 
-import java.io.StringReader;
 import java.lang.reflect.Type;
 import java.time.Instant;
 
@@ -30,7 +28,7 @@ public class ProcessControlBlock {
   private long cpuTimeUsed;
   private Instant startTime;
   private List<String> openFiles;
-  private ProcessControlBlock nextProcess;
+  private int nextProcessId = -1; // -1 means there is no next process
   private int baseAddress;
   private int processSize;
   private int priority;
@@ -39,7 +37,13 @@ public class ProcessControlBlock {
   private int turnaroundTime;
   private Instant lastStateChangeTime;
   private int stackPointer = -1; // -1 means stack is empty
+  private int flags = 0;
   private int cpuId = -1; // -1 means process is not running
+  private long instructionsExecuted = 0;
+  private int pageTable = -1; // -1 means the process is not paged
+  private long pageFaults = 0;
+  private long tlbHits = 0;
+  private long tlbMisses = 0;
 
   /**
    * Constructor for ProcessControlBlock.
@@ -73,7 +77,8 @@ public class ProcessControlBlock {
       .create();
 
   /**
-   * Converts the ProcessControlBlock to a JSON string.
+   * Converts the ProcessControlBlock to a JSON string. Only used to display
+   * the block, the copy in memory uses ProcessControlBlockCodec.
    *
    * @return the JSON string representation of the ProcessControlBlock
    */
@@ -81,18 +86,6 @@ public class ProcessControlBlock {
     return gson.toJson(this);
   }
 
-  /**
-   * Creates a ProcessControlBlock from a JSON string.
-   *
-   * @param jsonString the JSON string
-   * @return the ProcessControlBlock object
-   */
-  public static ProcessControlBlock fromJsonString(String jsonString) {
-    JsonReader reader = new JsonReader(new StringReader(jsonString));
-    reader.setLenient(true);
-    return gson.fromJson(reader, ProcessControlBlock.class);
-  }
-
   public boolean isReadyToRun() {
     return state == ProcessState.READY;
   }
@@ -130,10 +123,37 @@ public class ProcessControlBlock {
   }
 
   /**
-   * Increments the program counter by one.
+   * Consumes one instruction of the time slice.
+   */
+  public void decrementTimeSlice() {
+    if (this.timeSlice > 0) {
+      this.timeSlice--;
+    }
+  }
+
+  /**
+   * Increments the number of instructions executed by the process.
+   */
+  public void incrementInstructionsExecuted() {
+    this.instructionsExecuted++;
+  }
+
+  /**
+   * Gets the number of instructions executed by the process.
+   *
+   * @return the number of executed instructions
+   */
+  public long getInstructionsExecuted() {
+    return instructionsExecuted;
+  }
+
+  /**
+   * Sets the number of instructions executed by the process.
+   *
+   * @param instructionsExecuted the number of executed instructions
    */
-  public void incrementProgramCounter() {
-    this.programCounter++;
+  public void setInstructionsExecuted(long instructionsExecuted) {
+    this.instructionsExecuted = instructionsExecuted;
   }
 
   /**
@@ -154,6 +174,64 @@ public class ProcessControlBlock {
     openFiles.remove(fileName);
   }
 
+  /**
+   * Gets the address of the page table of a paged process in the OS space.
+   *
+   * @return the address of the page table, or -1 if the process is not paged
+   */
+  public int getPageTable() {
+    return pageTable;
+  }
+
+  /**
+   * Sets the address of the page table of a paged process in the OS space.
+   *
+   * @param pageTable the address of the page table, or -1 if the process is
+   *                  not paged
+   */
+  public void setPageTable(int pageTable) {
+    this.pageTable = pageTable;
+  }
+
+  /**
+   * Gets the number of page faults of the process.
+   *
+   * @return the number of page faults
+   */
+  public long getPageFaults() {
+    return pageFaults;
+  }
+
+  public void setPageFaults(long pageFaults) {
+    this.pageFaults = pageFaults;
+  }
+
+  /**
+   * Gets the number of translations of the process found in a TLB.
+   *
+   * @return the number of TLB hits
+   */
+  public long getTlbHits() {
+    return tlbHits;
+  }
+
+  public void setTlbHits(long tlbHits) {
+    this.tlbHits = tlbHits;
+  }
+
+  /**
+   * Gets the number of translations of the process missing from the TLB.
+   *
+   * @return the number of TLB misses
+   */
+  public long getTlbMisses() {
+    return tlbMisses;
+  }
+
+  public void setTlbMisses(long tlbMisses) {
+    this.tlbMisses = tlbMisses;
+  }
+
   /**
    * Sets the stack pointer.
    *
@@ -173,21 +251,30 @@ public class ProcessControlBlock {
   }
 
   /**
-   * Gets the next ProcessControlBlock in the list.
+   * Sets the saved flags word of the process.
    *
-   * @return the next ProcessControlBlock
+   * @param flags the flags to set
    */
-  public ProcessControlBlock getNextPCB() {
-    return nextProcess;
+  public void setFlags(int flags) {
+    this.flags = flags;
   }
 
   /**
-   * Sets the next ProcessControlBlock in the list.
+   * Gets the saved flags word of the process.
    *
-   * @param nextPCB the next ProcessControlBlock to set
+   * @return the flags
    */
-  public void setNextPCB(ProcessControlBlock nextPCB) {
-    this.nextProcess = nextPCB;
+  public int getFlags() {
+    return flags;
+  }
+
+  /**
+   * Gets the ID of the next process in the list.
+   *
+   * @return the next process ID, or -1 if there is none
+   */
+  public int getNextProcessId() {
+    return nextProcessId;
   }
 
   /**
@@ -396,12 +483,12 @@ public class ProcessControlBlock {
   }
 
   /**
-   * Sets the next process in the process control block.
+   * Sets the ID of the next process in the list.
    *
-   * @param nextProcess the next process to set
+   * @param nextProcessId the next process ID, or -1 if there is none
    */
-  public void setNextProcess(ProcessControlBlock nextProcess) {
-    this.nextProcess = nextProcess;
+  public void setNextProcessId(int nextProcessId) {
+    this.nextProcessId = nextProcessId;
   }
 
   /**
@@ -413,6 +500,15 @@ public class ProcessControlBlock {
     return waitingTime;
   }
 
+  /**
+   * Sets the waiting time of the process.
+   *
+   * @param waitingTime the waiting time to set
+   */
+  public void setWaitingTime(int waitingTime) {
+    this.waitingTime = waitingTime;
+  }
+
   /**
    * Gets the turnaround time of the process.
    *
@@ -422,6 +518,33 @@ public class ProcessControlBlock {
     return turnaroundTime;
   }
 
+  /**
+   * Sets the turnaround time of the process.
+   *
+   * @param turnaroundTime the turnaround time to set
+   */
+  public void setTurnaroundTime(int turnaroundTime) {
+    this.turnaroundTime = turnaroundTime;
+  }
+
+  /**
+   * Gets the time of the last state change of the process.
+   *
+   * @return the last state change time
+   */
+  public Instant getLastStateChangeTime() {
+    return lastStateChangeTime;
+  }
+
+  /**
+   * Sets the time of the last state change of the process.
+   *
+   * @param lastStateChangeTime the last state change time to set
+   */
+  public void setLastStateChangeTime(Instant lastStateChangeTime) {
+    this.lastStateChangeTime = lastStateChangeTime;
+  }
+
   /**
    * Sets the value of a register.
    *
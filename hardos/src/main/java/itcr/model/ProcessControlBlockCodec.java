@@ -0,0 +1,238 @@
+package itcr.model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ProcessControlBlockCodec encodes a ProcessControlBlock into the fixed
+ * binary layout stored in the OS space of the main memory.
+ *
+ * Every field of the header lives at a fixed offset, so a single field can be
+ * read or written in place without decoding the whole block. The names of the
+ * open files follow the header, each one prefixed by its length.
+ */
+public class ProcessControlBlockCodec {
+  private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle LONG = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+  private static final VarHandle SHORT = MethodHandles.byteBufferViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+
+  private static final ProcessState[] STATES = ProcessState.values();
+  private static final int NUM_REGISTERS = Register.values().length;
+  private static final long NO_INSTANT = Long.MIN_VALUE;
+  private static final short NULL_NAME = -1;
+
+  // Header layout (offsets in bytes)
+  static final int PROCESS_ID = 0;
+  static final int STATE = 4;
+  static final int PROGRAM_COUNTER = 8;
+  static final int REGISTERS = 12;
+  static final int STACK_POINTER = REGISTERS + NUM_REGISTERS * 4;
+  static final int FLAGS = STACK_POINTER + 4;
+  static final int CPU_ID = FLAGS + 4;
+  static final int BASE_ADDRESS = CPU_ID + 4;
+  static final int PROCESS_SIZE = BASE_ADDRESS + 4;
+  static final int PRIORITY = PROCESS_SIZE + 4;
+  static final int TIME_SLICE = PRIORITY + 4;
+  static final int WAITING_TIME = TIME_SLICE + 4;
+  static final int TURNAROUND_TIME = WAITING_TIME + 4;
+  static final int NEXT_PROCESS_ID = TURNAROUND_TIME + 4;
+  static final int CPU_TIME_USED = NEXT_PROCESS_ID + 4;
+  static final int START_TIME = CPU_TIME_USED + 8;
+  static final int LAST_STATE_CHANGE_TIME = START_TIME + 8;
+  static final int INSTRUCTIONS_EXECUTED = LAST_STATE_CHANGE_TIME + 8;
+  static final int PAGE_TABLE = INSTRUCTIONS_EXECUTED + 8;
+  static final int PAGE_FAULTS = PAGE_TABLE + 4;
+  static final int TLB_HITS = PAGE_FAULTS + 8;
+  static final int TLB_MISSES = TLB_HITS + 8;
+  static final int OPEN_FILES_COUNT = TLB_MISSES + 8;
+  static final int HEADER_SIZE = OPEN_FILES_COUNT + 4;
+
+  /**
+   * Computes the number of bytes needed to encode a ProcessControlBlock.
+   *
+   * @param pcb the ProcessControlBlock
+   * @return the encoded size in bytes
+   */
+  public static int encodedSize(ProcessControlBlock pcb) {
+    int size = HEADER_SIZE;
+    for (String fileName : pcb.getOpenFiles()) {
+      size += 2 + (fileName == null ? 0 : fileName.getBytes(StandardCharsets.UTF_8).length);
+    }
+    return size;
+  }
+
+  /**
+   * Encodes a ProcessControlBlock into a memory buffer.
+   *
+   * @param pcb    the ProcessControlBlock to encode
+   * @param memory the destination buffer
+   * @param offset the offset where the block starts
+   * @return the number of bytes written
+   */
+  public static int encode(ProcessControlBlock pcb, ByteBuffer memory, int offset) {
+    INT.set(memory, offset + PROCESS_ID, pcb.getProcessId());
+    INT.set(memory, offset + STATE, pcb.getState().ordinal());
+    INT.set(memory, offset + PROGRAM_COUNTER, pcb.getProgramCounter());
+    writeRegisters(memory, offset, pcb.getRegisters());
+    INT.set(memory, offset + STACK_POINTER, pcb.getStackPointer());
+    INT.set(memory, offset + FLAGS, pcb.getFlags());
+    INT.set(memory, offset + CPU_ID, pcb.getCpuId());
+    INT.set(memory, offset + BASE_ADDRESS, pcb.getBaseAddress());
+    INT.set(memory, offset + PROCESS_SIZE, pcb.getProcessSize());
+    INT.set(memory, offset + PRIORITY, pcb.getPriority());
+    INT.set(memory, offset + TIME_SLICE, pcb.getTimeSlice());
+    INT.set(memory, offset + WAITING_TIME, pcb.getWaitingTime());
+    INT.set(memory, offset + TURNAROUND_TIME, pcb.getTurnaroundTime());
+    INT.set(memory, offset + NEXT_PROCESS_ID, pcb.getNextProcessId());
+    LONG.set(memory, offset + CPU_TIME_USED, pcb.getCpuTimeUsed());
+    LONG.set(memory, offset + START_TIME, toMillis(pcb.getStartTime()));
+    LONG.set(memory, offset + LAST_STATE_CHANGE_TIME, toMillis(pcb.getLastStateChangeTime()));
+    LONG.set(memory, offset + INSTRUCTIONS_EXECUTED, pcb.getInstructionsExecuted());
+    INT.set(memory, offset + PAGE_TABLE, pcb.getPageTable());
+    LONG.set(memory, offset + PAGE_FAULTS, pcb.getPageFaults());
+    LONG.set(memory, offset + TLB_HITS, pcb.getTlbHits());
+    LONG.set(memory, offset + TLB_MISSES, pcb.getTlbMisses());
+
+    List<String> openFiles = pcb.getOpenFiles();
+    INT.set(memory, offset + OPEN_FILES_COUNT, openFiles.size());
+    int position = offset + HEADER_SIZE;
+    for (String fileName : openFiles) {
+      if (fileName == null) {
+        SHORT.set(memory, position, NULL_NAME);
+        position += 2;
+        continue;
+      }
+      byte[] nameBytes = fileName.getBytes(StandardCharsets.UTF_8);
+      SHORT.set(memory, position, (short) nameBytes.length);
+      memory.put(position + 2, nameBytes);
+      position += 2 + nameBytes.length;
+    }
+    return position - offset;
+  }
+
+  /**
+   * Encodes only the fields that change while a process executes: state,
+   * program counter, registers, stack pointer, flags, CPU, time slice, times, the
+   * instruction count and the paging counters.
+   *
+   * @param pcb    the ProcessControlBlock holding the new values
+   * @param memory the destination buffer
+   * @param offset the offset where the block starts
+   */
+  public static void encodeContext(ProcessControlBlock pcb, ByteBuffer memory, int offset) {
+    INT.set(memory, offset + STATE, pcb.getState().ordinal());
+    INT.set(memory, offset + PROGRAM_COUNTER, pcb.getProgramCounter());
+    writeRegisters(memory, offset, pcb.getRegisters());
+    INT.set(memory, offset + STACK_POINTER, pcb.getStackPointer());
+    INT.set(memory, offset + FLAGS, pcb.getFlags());
+    INT.set(memory, offset + CPU_ID, pcb.getCpuId());
+    INT.set(memory, offset + TIME_SLICE, pcb.getTimeSlice());
+    INT.set(memory, offset + WAITING_TIME, pcb.getWaitingTime());
+    LONG.set(memory, offset + CPU_TIME_USED, pcb.getCpuTimeUsed());
+    LONG.set(memory, offset + START_TIME, toMillis(pcb.getStartTime()));
+    LONG.set(memory, offset + LAST_STATE_CHANGE_TIME, toMillis(pcb.getLastStateChangeTime()));
+    LONG.set(memory, offset + INSTRUCTIONS_EXECUTED, pcb.getInstructionsExecuted());
+    LONG.set(memory, offset + PAGE_FAULTS, pcb.getPageFaults());
+    LONG.set(memory, offset + TLB_HITS, pcb.getTlbHits());
+    LONG.set(memory, offset + TLB_MISSES, pcb.getTlbMisses());
+  }
+
+  /**
+   * Decodes a ProcessControlBlock from a memory buffer.
+   *
+   * @param memory the source buffer
+   * @param offset the offset where the block starts
+   * @return the decoded ProcessControlBlock
+   */
+  public static ProcessControlBlock decode(ByteBuffer memory, int offset) {
+    ProcessControlBlock pcb = new ProcessControlBlock(
+        (int) INT.get(memory, offset + PROCESS_ID),
+        (int) INT.get(memory, offset + BASE_ADDRESS),
+        (int) INT.get(memory, offset + PROCESS_SIZE),
+        (int) INT.get(memory, offset + PRIORITY));
+
+    pcb.setState(readState(memory, offset));
+    pcb.setProgramCounter((int) INT.get(memory, offset + PROGRAM_COUNTER));
+    int[] registers = pcb.getRegisters();
+    for (int i = 0; i < NUM_REGISTERS; i++) {
+      registers[i] = (int) INT.get(memory, offset + REGISTERS + i * 4);
+    }
+    pcb.setStackPointer((int) INT.get(memory, offset + STACK_POINTER));
+    pcb.setFlags((int) INT.get(memory, offset + FLAGS));
+    pcb.setCpuId((int) INT.get(memory, offset + CPU_ID));
+    pcb.setTimeSlice((int) INT.get(memory, offset + TIME_SLICE));
+    pcb.setWaitingTime((int) INT.get(memory, offset + WAITING_TIME));
+    pcb.setTurnaroundTime((int) INT.get(memory, offset + TURNAROUND_TIME));
+    pcb.setNextProcessId((int) INT.get(memory, offset + NEXT_PROCESS_ID));
+    pcb.setCpuTimeUsed((long) LONG.get(memory, offset + CPU_TIME_USED));
+    pcb.setStartTime(toInstant((long) LONG.get(memory, offset + START_TIME)));
+    pcb.setLastStateChangeTime(toInstant((long) LONG.get(memory, offset + LAST_STATE_CHANGE_TIME)));
+    pcb.setInstructionsExecuted((long) LONG.get(memory, offset + INSTRUCTIONS_EXECUTED));
+    pcb.setPageTable((int) INT.get(memory, offset + PAGE_TABLE));
+    pcb.setPageFaults((long) LONG.get(memory, offset + PAGE_FAULTS));
+    pcb.setTlbHits((long) LONG.get(memory, offset + TLB_HITS));
+    pcb.setTlbMisses((long) LONG.get(memory, offset + TLB_MISSES));
+
+    int openFilesCount = (int) INT.get(memory, offset + OPEN_FILES_COUNT);
+    List<String> openFiles = new ArrayList<>(openFilesCount);
+    int position = offset + HEADER_SIZE;
+    for (int i = 0; i < openFilesCount; i++) {
+      int length = (short) SHORT.get(memory, position);
+      if (length == NULL_NAME) {
+        openFiles.add(null);
+        position += 2;
+        continue;
+      }
+      byte[] nameBytes = new byte[length];
+      memory.get(position + 2, nameBytes);
+      openFiles.add(new String(nameBytes, StandardCharsets.UTF_8));
+      position += 2 + length;
+    }
+    pcb.setOpenFiles(openFiles);
+    return pcb;
+  }
+
+  // -------------------------------------------------------------------
+  // In place accessors for single fields
+  // -------------------------------------------------------------------
+
+  public static ProcessState readState(ByteBuffer memory, int offset) {
+    return STATES[(int) INT.get(memory, offset + STATE)];
+  }
+
+  public static void writeState(ByteBuffer memory, int offset, ProcessState state) {
+    INT.set(memory, offset + STATE, state.ordinal());
+  }
+
+  public static void writeCpuId(ByteBuffer memory, int offset, int cpuId) {
+    INT.set(memory, offset + CPU_ID, cpuId);
+  }
+
+  public static void writeBaseAddress(ByteBuffer memory, int offset, int baseAddress) {
+    INT.set(memory, offset + BASE_ADDRESS, baseAddress);
+  }
+
+  public static void writeNextProcessId(ByteBuffer memory, int offset, int nextProcessId) {
+    INT.set(memory, offset + NEXT_PROCESS_ID, nextProcessId);
+  }
+
+  public static void writeRegisters(ByteBuffer memory, int offset, int[] registers) {
+    for (int i = 0; i < NUM_REGISTERS; i++) {
+      INT.set(memory, offset + REGISTERS + i * 4, registers[i]);
+    }
+  }
+
+  private static long toMillis(Instant instant) {
+    return instant == null ? NO_INSTANT : instant.toEpochMilli();
+  }
+
+  private static Instant toInstant(long millis) {
+    return millis == NO_INSTANT ? null : Instant.ofEpochMilli(millis);
+  }
+}
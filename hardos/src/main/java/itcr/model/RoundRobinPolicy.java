@@ -0,0 +1,68 @@
+package itcr.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RoundRobinPolicy runs the ready processes in arrival order, each one for the
+ * same quantum.
+ */
+class RoundRobinPolicy implements SchedulingPolicy {
+  private final ArrayDeque<Integer> readyQueue = new ArrayDeque<>();
+  private final int quantum;
+
+  RoundRobinPolicy(int quantum) {
+    this.quantum = quantum;
+  }
+
+  @Override
+  public SchedulingAlgorithm getAlgorithm() {
+    return SchedulingAlgorithm.ROUND_ROBIN;
+  }
+
+  @Override
+  public void add(int processId, ProcessControlBlock pcb, int qtyInstructions) {
+    readyQueue.offer(processId);
+  }
+
+  @Override
+  public int poll() {
+    Integer processId = readyQueue.poll();
+    return processId == null ? -1 : processId;
+  }
+
+  @Override
+  public int peek() {
+    Integer processId = readyQueue.peek();
+    return processId == null ? -1 : processId;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return readyQueue.isEmpty();
+  }
+
+  @Override
+  public List<Integer> getReadyProcesses() {
+    return new ArrayList<>(readyQueue);
+  }
+
+  @Override
+  public int getTimeSlice(int processId) {
+    return quantum;
+  }
+
+  @Override
+  public void onPreempted(int processId) {
+  }
+
+  @Override
+  public void onFinished(int processId) {
+  }
+
+  @Override
+  public void clear() {
+    readyQueue.clear();
+  }
+}
@@ -6,16 +6,67 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import com.google.gson.JsonObject;
 
 public class Scheduler {
-  private Queue<Integer> readyQueue;
+  public static final int DEFAULT_QUANTUM = 10;
+
+  private SchedulingPolicy schedulingPolicy;
+  private int quantum = DEFAULT_QUANTUM;
   private Queue<Integer> waitingQueue;
   private List<CPU> cpus;
   public MemoryManager memoryManager;
   private Map<Integer, Map<String, JsonObject>> cpuStats;
   private int numCPUs = 1;
+  // CPUs report finished processes from their worker threads, the policy is
+  // only told about them once every CPU finished the tick
+  private final Queue<Integer> finishedProcesses = new ConcurrentLinkedQueue<>();
+  // Processes that left their core during the tick to wait for input
+  private final Queue<Integer> blockedProcesses = new ConcurrentLinkedQueue<>();
+  // Input that arrived from the interrupt handler, applied to the BCPs of the
+  // waiting processes between two ticks so no CPU sees it half written
+  private final Queue<ReceivedInput> receivedInputs = new ConcurrentLinkedQueue<>();
+  private boolean parallelExecution = false;
+  // Instructions every core may run per tick before the scheduler decides
+  // again, 1 keeps the step by step view of the GUI
+  private int instructionsPerTick = 1;
+  private boolean blockCompilation = false;
+  private ForkJoinPool executionPool;
+  // Held for a whole tick, so compaction never moves memory under a CPU
+  private final Object tickLock = new Object();
+  // External fragmentation of the user space that triggers a compaction at
+  // the end of a tick, 0 to only compact on demand
+  private double compactionThreshold = 0;
+  // Ticks run since the Scheduler was created, numbers the snapshots
+  private long ticks = 0;
+  // Single slot the GUI takes the state to render from, only filled while a
+  // window asked for it; a newer snapshot replaces one not rendered yet
+  private volatile boolean publishSnapshots = false;
+  private final AtomicReference<SimulationSnapshot> latestSnapshot = new AtomicReference<>();
+  // Interrupts raised by the CPUs of this scheduler and the input they wait for
+  private final InterruptBus interruptBus = new InterruptBus();
+
+  /**
+   * Input received for a waiting process and the action that applies it.
+   */
+  private static final class ReceivedInput {
+    final int processId;
+    final Runnable apply;
+
+    ReceivedInput(int processId, Runnable apply) {
+      this.processId = processId;
+      this.apply = apply;
+    }
+  }
 
   /**
    * Constructor for Scheduler with multiple CPUs.
@@ -24,16 +75,16 @@ public class Scheduler {
    * @param memoryManager the MemoryManager instance
    */
   public Scheduler(int numCPUs, MemoryManager memoryManager) {
-    this.readyQueue = new LinkedList<>();
+    this.schedulingPolicy = SchedulingAlgorithm.ROUND_ROBIN.createPolicy(quantum);
     this.waitingQueue = new LinkedList<>();
     this.cpus = new ArrayList<>(numCPUs);
     this.memoryManager = memoryManager;
-    this.cpuStats = new HashMap<>();
+    this.cpuStats = new ConcurrentHashMap<>();
     this.numCPUs = numCPUs;
     for (int i = 0; i < numCPUs; i++) {
       CPU cpu = new CPU(i, this, memoryManager);
       this.cpus.add(cpu);
-      this.cpuStats.put(i, new HashMap<>());
+      this.cpuStats.put(i, new ConcurrentHashMap<>());
     }
   }
 
@@ -47,8 +98,9 @@ public class Scheduler {
     } else if (numCPUs > cpus.size()) {
       for (int i = cpus.size(); i < numCPUs; i++) {
         CPU cpu = new CPU(i, this, memoryManager);
+        cpu.setBlockCompilation(blockCompilation);
         cpus.add(cpu);
-        cpuStats.put(i, new HashMap<>());
+        cpuStats.put(i, new ConcurrentHashMap<>());
       }
     }
   }
@@ -57,6 +109,150 @@ public class Scheduler {
     return numCPUs;
   }
 
+  /**
+   * Changes the scheduling policy. The processes already in the ready queue
+   * are moved to the new policy.
+   *
+   * @param algorithm the scheduling algorithm to use
+   * @param quantum   the number of instructions a process runs before it can
+   *                  be preempted, 0 to never preempt
+   */
+  public void setSchedulingPolicy(SchedulingAlgorithm algorithm, int quantum) {
+    SchedulingPolicy newPolicy = algorithm.createPolicy(quantum);
+    for (int processId : schedulingPolicy.getReadyProcesses()) {
+      makeReady(newPolicy, processId, memoryManager.getBCP("P" + processId));
+    }
+    this.schedulingPolicy = newPolicy;
+    this.quantum = quantum;
+  }
+
+  /**
+   * Enables or disables parallel execution. When enabled every CPU runs its
+   * tick on its own worker thread, the scheduling decisions are still taken
+   * by the calling thread once all CPUs are done.
+   *
+   * @param parallelExecution true to run the CPUs in parallel
+   */
+  public void setParallelExecution(boolean parallelExecution) {
+    this.parallelExecution = parallelExecution;
+    if (!parallelExecution && executionPool != null) {
+      executionPool.shutdown();
+      executionPool = null;
+    }
+  }
+
+  public boolean isParallelExecution() {
+    return parallelExecution;
+  }
+
+  /**
+   * Sets how many instructions every core may run in a tick. A core stops
+   * earlier when its process reaches an interrupt, waits, finishes or uses
+   * up its time slice.
+   *
+   * @param instructionsPerTick the maximum number of instructions per core
+   *                            and tick, at least 1
+   */
+  public void setInstructionsPerTick(int instructionsPerTick) {
+    if (instructionsPerTick < 1) {
+      throw new IllegalArgumentException("instructionsPerTick must be at least 1");
+    }
+    this.instructionsPerTick = instructionsPerTick;
+  }
+
+  public int getInstructionsPerTick() {
+    return instructionsPerTick;
+  }
+
+  /**
+   * Enables or disables the compilation of hot loops on every CPU. It pays
+   * off together with a large number of instructions per tick, since a
+   * compiled loop only runs as many passes as fit in the tick.
+   *
+   * @param blockCompilation true to compile hot blocks
+   */
+  public void setBlockCompilation(boolean blockCompilation) {
+    this.blockCompilation = blockCompilation;
+    for (CPU cpu : cpus) {
+      cpu.setBlockCompilation(blockCompilation);
+    }
+  }
+
+  public boolean isBlockCompilation() {
+    return blockCompilation;
+  }
+
+  /**
+   * Sets the external fragmentation of the user space that triggers a
+   * compaction at the end of a tick.
+   *
+   * @param compactionThreshold a value between 0 and 1, 0 to only compact on
+   *                            demand
+   */
+  public void setCompactionThreshold(double compactionThreshold) {
+    if (compactionThreshold < 0 || compactionThreshold > 1) {
+      throw new IllegalArgumentException("compactionThreshold must be between 0 and 1");
+    }
+    this.compactionThreshold = compactionThreshold;
+  }
+
+  public double getCompactionThreshold() {
+    return compactionThreshold;
+  }
+
+  public SchedulingAlgorithm getSchedulingAlgorithm() {
+    return schedulingPolicy.getAlgorithm();
+  }
+
+  public int getQuantum() {
+    return quantum;
+  }
+
+  /**
+   * Creates a process from an assembled program. Allocates memory for the
+   * binary image of the program, loads it and stores the BCP and the stack of
+   * the process. The process is not added to the ready queue.
+   *
+   * @param program      the assembled program, without errors
+   * @param errorHandler receives a message for every step that failed
+   * @return the created process
+   */
+  public Process createProcess(AssembledProgram program, Consumer<String> errorHandler) {
+    int processSize = program.getImageSize();
+    String processId = "P" + Process.processCounter;
+
+    int baseAddress = memoryManager.isPageAllProcesses() ? -1
+        : memoryManager.allocateMemory(processId, processSize);
+    if (baseAddress == -1 && !memoryManager.isPageAllProcesses() && memoryManager.isFragmentedFor(processSize)) {
+      compactMemory();
+      baseAddress = memoryManager.allocateMemory(processId, processSize);
+    }
+    // A process that does not fit in a contiguous block is paged on demand
+    if (baseAddress == -1) {
+      baseAddress = memoryManager.allocatePagedMemory(processId, processSize);
+    }
+    if (baseAddress == -1) {
+      errorHandler.accept("Error allocating memory for process " + processId);
+    } else if (!memoryManager.loadProgram(processId, program)) {
+      errorHandler.accept("Error loading the program of process " + processId);
+    }
+
+    int qtyInstructions = memoryManager.getQtyInstructions(processId);
+    Process process = new Process(qtyInstructions);
+
+    ProcessControlBlock pcb = new ProcessControlBlock(Process.processCounter++, baseAddress, processSize, 1);
+    pcb.setPageTable(memoryManager.getPageTableAddress(processId));
+    if (!memoryManager.storeBCP(processId, pcb)) {
+      errorHandler.accept("Error storing BCP for process " + processId);
+    }
+    process.setPCB(pcb);
+    if (!memoryManager.allocateStack(processId)) {
+      errorHandler.accept("Error allocating stack for process " + processId);
+    }
+
+    return process;
+  }
+
   /**
    * Adds a process to the ready queue.
    *
@@ -64,10 +260,21 @@ public class Scheduler {
    */
   public void addProcess(Process process) {
     int processId = process.getPCB().getProcessId();
-    readyQueue.offer(processId);
     ProcessControlBlock pcb = process.getPCB();
     pcb.setState(ProcessState.READY);
-    memoryManager.updateBCP("P" + processId, pcb.toJsonString());
+    memoryManager.updateBCP("P" + processId, pcb);
+    makeReady(schedulingPolicy, processId, pcb);
+  }
+
+  /**
+   * Hands a ready process to a scheduling policy.
+   *
+   * @param policy    the policy that will schedule the process
+   * @param processId the ID of the process
+   * @param pcb       the BCP of the process
+   */
+  private void makeReady(SchedulingPolicy policy, int processId, ProcessControlBlock pcb) {
+    policy.add(processId, pcb, memoryManager.getQtyInstructions("P" + processId));
   }
 
   /**
@@ -76,25 +283,23 @@ public class Scheduler {
   public void scheduleNextProcess() {
     for (CPU cpu : cpus) {
       for (int coreId = 0; coreId < cpu.getNumCores(); coreId++) {
-        if (cpu.isCoreAvailable(coreId) && !readyQueue.isEmpty()) {
-          int nextProcessId = readyQueue.poll();
-          String bcpJson = memoryManager.getBCP("P" + nextProcessId);
-          ProcessControlBlock pcb = ProcessControlBlock.fromJsonString(bcpJson);
-          pcb.setState(ProcessState.RUNNING);
+        if (cpu.isCoreAvailable(coreId) && !schedulingPolicy.isEmpty()) {
+          int nextProcessId = schedulingPolicy.poll();
+          ProcessControlBlock pcb = memoryManager.getBCP("P" + nextProcessId);
+          pcb.updateState(ProcessState.RUNNING);
           pcb.setCpuId(cpu.getCpuId());
-          memoryManager.updateBCP("P" + nextProcessId, pcb.toJsonString());
+          pcb.setTimeSlice(schedulingPolicy.getTimeSlice(nextProcessId));
+          memoryManager.updateBCPContext("P" + nextProcessId, pcb);
 
           Process nextProcess = new Process(pcb);
           nextProcess.setQtyInstructions(memoryManager.getQtyInstructions("P" + nextProcessId));
           cpu.assignProcessToCore(nextProcess, coreId);
 
           // Set the next process reference
-          if (!readyQueue.isEmpty()) {
-            int nextInQueueId = readyQueue.peek();
-            String nextBcpJson = memoryManager.getBCP("P" + nextInQueueId);
-            ProcessControlBlock nextPcb = ProcessControlBlock.fromJsonString(nextBcpJson);
-            pcb.setNextProcess(nextPcb);
-            memoryManager.updateBCP("P" + nextProcessId, pcb.toJsonString());
+          if (!schedulingPolicy.isEmpty()) {
+            int nextInQueueId = schedulingPolicy.peek();
+            pcb.setNextProcessId(nextInQueueId);
+            memoryManager.updateBCPNextProcess("P" + nextProcessId, nextInQueueId);
           }
         }
       }
@@ -107,31 +312,193 @@ public class Scheduler {
    * @throws Exception if an error occurs during execution
    */
   public void executeInstruction() throws Exception {
+    synchronized (tickLock) {
+      if (parallelExecution && cpus.size() > 1) {
+        executeInstructionInParallel();
+      } else {
+        for (CPU cpu : cpus) {
+          cpu.executeInstructionOnAllCores(instructionsPerTick);
+        }
+      }
+
+      Integer finishedProcessId;
+      while ((finishedProcessId = finishedProcesses.poll()) != null) {
+        schedulingPolicy.onFinished(finishedProcessId);
+      }
+      Integer blockedProcessId;
+      while ((blockedProcessId = blockedProcesses.poll()) != null) {
+        moveToWaiting(blockedProcessId);
+      }
+
+      checkWaitingProcesses();
+      preemptExpiredProcesses();
+      scheduleNextProcess();
+
+      if (compactionThreshold > 0 && memoryManager.needsCompaction(compactionThreshold)) {
+        compactMemory();
+      }
+
+      ticks++;
+      publishSnapshot();
+    }
+  }
+
+  /**
+   * Compacts the user space between two ticks: waits for the running tick to
+   * end, moves the processes together and updates the base address of the
+   * processes on the cores, whose BCPs are written back from their copies.
+   *
+   * @return a JsonObject with the blocks and bytes moved and the time spent
+   */
+  public JsonObject compactMemory() {
+    synchronized (tickLock) {
+      JsonObject result = memoryManager.compactUserSpace();
+      for (CPU cpu : cpus) {
+        for (int coreId = 0; coreId < cpu.getNumCores(); coreId++) {
+          Process process = cpu.getRunningProcess(coreId);
+          if (process != null) {
+            int baseAddress = memoryManager.getProcessBaseAddress("P" + process.getProcessId());
+            if (baseAddress != -1) {
+              process.getPCB().setBaseAddress(baseAddress);
+            }
+          }
+        }
+      }
+      publishSnapshot();
+      return result;
+    }
+  }
+
+  /**
+   * Runs one tick of every CPU on the execution pool and waits for all of
+   * them, so the ready queue is never touched while a CPU is executing.
+   *
+   * @throws Exception the first error thrown by a CPU
+   */
+  private void executeInstructionInParallel() throws Exception {
+    if (executionPool == null) {
+      executionPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    List<Callable<Void>> ticks = new ArrayList<>(cpus.size());
     for (CPU cpu : cpus) {
-      cpu.executeInstructionOnAllCores();
+      ticks.add(() -> {
+        cpu.executeInstructionOnAllCores(instructionsPerTick);
+        return null;
+      });
+    }
+
+    for (Future<Void> tick : executionPool.invokeAll(ticks)) {
+      try {
+        tick.get();
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        throw cause instanceof Exception ? (Exception) cause : e;
+      }
     }
+  }
+
+  /**
+   * Takes off their cores the running processes that used up their time slice
+   * while other processes are ready, saving their context in their BCPs and
+   * putting them back in the ready queue.
+   */
+  private void preemptExpiredProcesses() {
+    for (CPU cpu : cpus) {
+      for (int coreId = 0; coreId < cpu.getNumCores(); coreId++) {
+        Process process = cpu.getRunningProcess(coreId);
+        if (process == null || process.getState() != ProcessState.RUNNING) {
+          continue;
+        }
+
+        ProcessControlBlock pcb = process.getPCB();
+        int processId = process.getProcessId();
+        if (pcb.getTimeSlice() > 0 || schedulingPolicy.getTimeSlice(processId) <= 0) {
+          continue;
+        }
+
+        if (schedulingPolicy.isEmpty()) {
+          // Nobody else wants the core, start a new slice
+          pcb.setTimeSlice(schedulingPolicy.getTimeSlice(processId));
+          continue;
+        }
+
+        cpu.preemptCore(coreId);
+        pcb.updateState(ProcessState.READY);
+        memoryManager.updateBCPContext("P" + processId, pcb);
+        schedulingPolicy.onPreempted(processId);
+        makeReady(schedulingPolicy, processId, pcb);
+      }
+    }
+  }
+
+  /**
+   * Called by a CPU when a process finished.
+   *
+   * @param processId the ID of the process
+   */
+  void processFinished(int processId) {
+    finishedProcesses.offer(processId);
+  }
+
+  /**
+   * Called by a CPU when a process left its core to wait for input. Its
+   * context is already saved in its BCP.
+   *
+   * @param processId the ID of the process
+   */
+  void processBlocked(int processId) {
+    blockedProcesses.offer(processId);
+  }
 
-    checkWaitingProcesses();
-    scheduleNextProcess();
+  /**
+   * Called when the input a process waits for arrived, from the thread that
+   * provided it. The input is applied at the end of the running tick and the
+   * process goes back to the ready queue.
+   *
+   * @param processId  the ID of the process waiting for the input
+   * @param applyInput writes the input to the BCP of the process and makes it
+   *                   ready
+   */
+  void inputReceived(int processId, Runnable applyInput) {
+    receivedInputs.offer(new ReceivedInput(processId, applyInput));
   }
 
+  /**
+   * Applies the input received since the last tick and moves the processes
+   * it made ready from the waiting queue to the ready queue.
+   */
   private void checkWaitingProcesses() {
+    ReceivedInput input;
+    while ((input = receivedInputs.poll()) != null) {
+      try {
+        input.apply.run();
+      } catch (RuntimeException e) {
+        // The process goes on without the input rather than waiting forever,
+        // and the input of the other processes is still applied
+        memoryManager.updateBCPState("P" + input.processId, ProcessState.READY);
+        interruptBus.publish(-1, InterruptCode._10H,
+            "Error applying the input of process P" + input.processId + ": " + e, input.processId);
+      }
+    }
+    if (waitingQueue.isEmpty()) {
+      return;
+    }
+
     List<Integer> readyProcessIds = new ArrayList<>();
     for (Integer processId : waitingQueue) {
-      String bcpJson = memoryManager.getBCP("P" + processId);
-      ProcessControlBlock pcb = ProcessControlBlock.fromJsonString(bcpJson);
-      if (pcb.isReadyToRun()) {
-        pcb.setState(ProcessState.READY);
-        memoryManager.updateBCP("P" + processId, pcb.toJsonString());
+      if (memoryManager.getBCPState("P" + processId) == ProcessState.READY) {
         readyProcessIds.add(processId);
       }
     }
     waitingQueue.removeAll(readyProcessIds);
-    readyQueue.addAll(readyProcessIds);
+    for (int processId : readyProcessIds) {
+      makeReady(schedulingPolicy, processId, memoryManager.getBCP("P" + processId));
+    }
   }
 
   public Queue<Integer> getReadyQueue() {
-    return new LinkedList<>(readyQueue);
+    return new LinkedList<>(schedulingPolicy.getReadyProcesses());
   }
 
   /**
@@ -140,10 +507,7 @@ public class Scheduler {
    * @param processId the ID of the process to move
    */
   public void moveToWaiting(int processId) {
-    String bcpJson = memoryManager.getBCP("P" + processId);
-    ProcessControlBlock pcb = ProcessControlBlock.fromJsonString(bcpJson);
-    pcb.setState(ProcessState.WAITING);
-    memoryManager.updateBCP("P" + processId, pcb.toJsonString());
+    memoryManager.updateBCPState("P" + processId, ProcessState.WAITING);
     waitingQueue.offer(processId);
   }
 
@@ -151,15 +515,42 @@ public class Scheduler {
   // Stats related methods
   // ----------------------------------------------
   public void updateProcessStats(int cpuId, String processId, JsonObject stats) {
-    cpuStats.computeIfAbsent(cpuId, k -> new HashMap<>()).put(processId, stats);
+    cpuStats.computeIfAbsent(cpuId, k -> new ConcurrentHashMap<>()).put(processId, stats);
   }
 
   public Map<Integer, Map<String, JsonObject>> getAllCPUStats() {
     return new HashMap<>(cpuStats);
   }
 
+  /**
+   * Gets the paging metrics of the memory manager together with the TLB
+   * counters of every CPU.
+   *
+   * @return a JsonObject with the frame usage, the page faults and the TLB
+   *         hit rate
+   */
+  public JsonObject getPagingStats() {
+    JsonObject stats = memoryManager.getPagingStats();
+    long hits = 0;
+    long misses = 0;
+    for (CPU cpu : cpus) {
+      hits += cpu.getTlbHits();
+      misses += cpu.getTlbMisses();
+    }
+    stats.addProperty("tlbHits", hits);
+    stats.addProperty("tlbMisses", misses);
+    stats.addProperty("tlbHitRate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+    return stats;
+  }
+
+  /**
+   * Checks whether there is still work for the CPUs: processes ready,
+   * running or waiting for input.
+   *
+   * @return true if some process has not finished yet
+   */
   public boolean hasProcessesToExecute() {
-    if (!readyQueue.isEmpty()) {
+    if (!schedulingPolicy.isEmpty() || !waitingQueue.isEmpty()) {
       return true;
     }
 
@@ -175,35 +566,90 @@ public class Scheduler {
     return false;
   }
 
+  /**
+   * Checks whether every process left is waiting for input, so a tick would
+   * only look for input that arrived.
+   *
+   * @return true if no process is ready or running but some are waiting
+   */
+  public boolean isWaitingForInput() {
+    if (waitingQueue.isEmpty() || !schedulingPolicy.isEmpty()) {
+      return false;
+    }
+    for (CPU cpu : cpus) {
+      for (int i = 0; i < cpu.getNumCores(); i++) {
+        if (cpu.getRunningProcess(i) != null) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
   // ----------------------------------------------
   // Not that important for the project
   // ----------------------------------------------
 
   /**
-   * Gets the extra registers of a specific process running on a core of a
-   * specific CPU.
+   * Gets the bus the CPUs raise their interrupts on. Subscribe to its
+   * channels to show the output of the processes and answer their input
+   * requests.
    *
-   * @param cpuId  the ID of the CPU
-   * @param coreId the ID of the core
-   * @return a string representation of the extra registers
+   * @return the interrupt bus of this scheduler
    */
-  public String getExtraRegisters(int cpuId, int coreId) {
-    CPU cpu = cpus.get(cpuId);
-    Process process = cpu.getRunningProcess(coreId);
-    if (process == null || process.getPCB() == null) {
-      return "";
-    }
+  public InterruptBus getInterruptBus() {
+    return interruptBus;
+  }
 
-    int address = process.getPCB().getStackPointer();
-    int currentInstrIndex = process.getCurrentInstructionIndex() - 1;
+  /**
+   * Starts or stops publishing a snapshot of the state after every tick, to
+   * be taken with {@link #pollSnapshot}. Publishing is off by default so
+   * runs without a window do not pay for it.
+   *
+   * @param publishSnapshots whether to publish the snapshots
+   */
+  public void setSnapshotPublishing(boolean publishSnapshots) {
+    this.publishSnapshots = publishSnapshots;
+    if (!publishSnapshots) {
+      latestSnapshot.set(null);
+    }
+  }
 
-    int pcReg = memoryManager.getAddressFromInstruction("P" + process.getProcessId(), currentInstrIndex + 1);
-    int irReg = memoryManager.getAddressFromInstruction("P" + process.getProcessId(), currentInstrIndex);
+  /**
+   * Takes the snapshot published since the last call, if any.
+   *
+   * @return the latest snapshot, or null if nothing changed since the last
+   *         one was taken
+   */
+  public SimulationSnapshot pollSnapshot() {
+    return latestSnapshot.getAndSet(null);
+  }
 
-    process.getPCB().setProgramCounter(pcReg);
-    memoryManager.updateBCP("P" + process.getProcessId(), process.getPCB().toJsonString());
+  /**
+   * Copies the registers of every core and the stats, waiting for the
+   * running tick to end so they all come from the same tick. Nothing is
+   * written to the CPUs or the memory.
+   *
+   * @return the snapshot
+   */
+  public SimulationSnapshot takeSnapshot() {
+    synchronized (tickLock) {
+      SimulationSnapshot.CoreState[][] cores = new SimulationSnapshot.CoreState[cpus.size()][];
+      for (int cpuId = 0; cpuId < cpus.size(); cpuId++) {
+        CPU cpu = cpus.get(cpuId);
+        cores[cpuId] = new SimulationSnapshot.CoreState[cpu.getNumCores()];
+        for (int coreId = 0; coreId < cpu.getNumCores(); coreId++) {
+          cores[cpuId][coreId] = cpu.getCoreState(coreId);
+        }
+      }
+      return new SimulationSnapshot(ticks, cores, cpuStats, getPagingStats());
+    }
+  }
 
-    return "PC: " + pcReg + "\nSP: " + address + "\nIR: " + irReg;
+  private void publishSnapshot() {
+    if (publishSnapshots) {
+      latestSnapshot.set(takeSnapshot());
+    }
   }
 
   /**
@@ -222,36 +668,32 @@ public class Scheduler {
    * manager.
    */
   public void reset() {
-    readyQueue.clear();
+    schedulingPolicy.clear();
     waitingQueue.clear();
+    finishedProcesses.clear();
+    blockedProcesses.clear();
+    receivedInputs.clear();
     for (CPU cpu : cpus) {
       cpu.fullReset();
     }
+    interruptBus.clear();
 
-    // Reset memory
-    int mainMemorySize = memoryManager.getMainMemorySize();
-    int secondaryMemorySize = memoryManager.getSecondaryMemorySize();
-    int kernelSize = memoryManager.getKernelSize();
-    int osSize = memoryManager.getOsSize();
-
-    MemoryManager freshMemory = new MemoryManager(
-        mainMemorySize,
-        secondaryMemorySize,
-        kernelSize,
-        osSize);
-
-    // Copy files from old memory to new memory
-    for (String filename : memoryManager.getFiles()) {
-      String fileContent = memoryManager.getFile(filename);
-      if (!freshMemory.storeFile(filename, fileContent))
-        System.out.println("Error storing file: " + filename);
-    }
+    // The files on the secondary storage survive the reset
+    memoryManager.resetMainMemory();
+    publishSnapshot();
+  }
 
-    // Free up memory
-    this.memoryManager = freshMemory;
+  /**
+   * Gets the number of instructions executed by all CPUs since the last reset.
+   *
+   * @return the number of executed instructions
+   */
+  public long getInstructionsExecuted() {
+    long total = 0;
     for (CPU cpu : cpus) {
-      cpu.memory = memoryManager;
+      total += cpu.getInstructionsExecuted();
     }
+    return total;
   }
 
   public int getTotalCores() {
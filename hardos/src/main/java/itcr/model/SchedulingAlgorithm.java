@@ -0,0 +1,50 @@
+package itcr.model;
+
+/**
+ * SchedulingAlgorithm lists the policies the scheduler can use to pick the
+ * next process of the ready queue.
+ */
+public enum SchedulingAlgorithm {
+  ROUND_ROBIN, PRIORITY, SJF, MLFQ;
+
+  /**
+   * Parses an algorithm name. Case, dashes and spaces are ignored, so "rr",
+   * "round-robin" and "ROUND_ROBIN" are all accepted.
+   *
+   * @param name the name of the algorithm
+   * @return the matching algorithm
+   * @throws IllegalArgumentException if the name does not match any algorithm
+   */
+  public static SchedulingAlgorithm fromString(String name) {
+    String normalized = name.trim().toUpperCase().replace('-', '_').replace(' ', '_');
+    if (normalized.equals("RR")) {
+      return ROUND_ROBIN;
+    }
+    for (SchedulingAlgorithm algorithm : values()) {
+      if (algorithm.name().equals(normalized) || algorithm.name().replace("_", "").equals(normalized)) {
+        return algorithm;
+      }
+    }
+    throw new IllegalArgumentException("Invalid scheduling algorithm: " + name);
+  }
+
+  /**
+   * Creates a policy that implements this algorithm.
+   *
+   * @param quantum the number of instructions a process runs before it can be
+   *                preempted
+   * @return the scheduling policy
+   */
+  public SchedulingPolicy createPolicy(int quantum) {
+    switch (this) {
+      case PRIORITY:
+        return new PriorityPolicy(quantum);
+      case SJF:
+        return new ShortestJobFirstPolicy(quantum);
+      case MLFQ:
+        return new MultilevelFeedbackQueuePolicy(quantum);
+      default:
+        return new RoundRobinPolicy(quantum);
+    }
+  }
+}
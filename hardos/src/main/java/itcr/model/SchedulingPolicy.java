@@ -0,0 +1,83 @@
+package itcr.model;
+
+import java.util.List;
+
+/**
+ * SchedulingPolicy holds the ready processes and decides which one runs next
+ * and for how long.
+ *
+ * The scheduler gives every dispatched process the time slice returned by
+ * {@link #getTimeSlice(int)}, counted in executed instructions. When the slice
+ * runs out and other processes are ready, the process is preempted: its
+ * context is saved in its BCP, {@link #onPreempted(int)} is called and it is
+ * added back to the policy.
+ */
+public interface SchedulingPolicy {
+
+  /**
+   * Gets the algorithm implemented by the policy.
+   *
+   * @return the scheduling algorithm
+   */
+  SchedulingAlgorithm getAlgorithm();
+
+  /**
+   * Adds a ready process.
+   *
+   * @param processId       the ID of the process
+   * @param pcb             the BCP of the process
+   * @param qtyInstructions the number of instructions of the program
+   */
+  void add(int processId, ProcessControlBlock pcb, int qtyInstructions);
+
+  /**
+   * Removes the process that must run next.
+   *
+   * @return the ID of the process, or -1 if no process is ready
+   */
+  int poll();
+
+  /**
+   * Gets the process that would run next without removing it.
+   *
+   * @return the ID of the process, or -1 if no process is ready
+   */
+  int peek();
+
+  boolean isEmpty();
+
+  /**
+   * Gets the ready processes in the order they would run.
+   *
+   * @return the IDs of the ready processes
+   */
+  List<Integer> getReadyProcesses();
+
+  /**
+   * Gets the number of instructions a process may run once dispatched.
+   *
+   * @param processId the ID of the process
+   * @return the length of the time slice
+   */
+  int getTimeSlice(int processId);
+
+  /**
+   * Called when a process used its whole time slice and was taken off its
+   * core.
+   *
+   * @param processId the ID of the process
+   */
+  void onPreempted(int processId);
+
+  /**
+   * Called when a process finished, so the policy can forget it.
+   *
+   * @param processId the ID of the process
+   */
+  void onFinished(int processId);
+
+  /**
+   * Removes every ready process.
+   */
+  void clear();
+}
@@ -0,0 +1,77 @@
+package itcr.model;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import itcr.model.PriorityPolicy.ReadyEntry;
+
+/**
+ * ShortestJobFirstPolicy runs the ready process with the fewest instructions
+ * left. The length of a job is the number of instructions of its program
+ * minus the ones it already executed, so a job that was preempted competes
+ * with what it still has to run. Processes still get a quantum so a long
+ * running loop can not keep a core forever.
+ */
+class ShortestJobFirstPolicy implements SchedulingPolicy {
+  private final PriorityQueue<ReadyEntry> readyQueue = new PriorityQueue<>(
+      Comparator.comparingLong((ReadyEntry entry) -> entry.key).thenComparingLong(entry -> entry.arrival));
+  private final int quantum;
+  private long arrivals = 0;
+
+  ShortestJobFirstPolicy(int quantum) {
+    this.quantum = quantum;
+  }
+
+  @Override
+  public SchedulingAlgorithm getAlgorithm() {
+    return SchedulingAlgorithm.SJF;
+  }
+
+  @Override
+  public void add(int processId, ProcessControlBlock pcb, int qtyInstructions) {
+    // Loops can run more instructions than the program has, never go below 0
+    long remaining = Math.max(0, qtyInstructions - pcb.getInstructionsExecuted());
+    readyQueue.offer(new ReadyEntry(processId, remaining, arrivals++));
+  }
+
+  @Override
+  public int poll() {
+    ReadyEntry entry = readyQueue.poll();
+    return entry == null ? -1 : entry.processId;
+  }
+
+  @Override
+  public int peek() {
+    ReadyEntry entry = readyQueue.peek();
+    return entry == null ? -1 : entry.processId;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return readyQueue.isEmpty();
+  }
+
+  @Override
+  public List<Integer> getReadyProcesses() {
+    return ReadyEntry.inOrder(readyQueue);
+  }
+
+  @Override
+  public int getTimeSlice(int processId) {
+    return quantum;
+  }
+
+  @Override
+  public void onPreempted(int processId) {
+  }
+
+  @Override
+  public void onFinished(int processId) {
+  }
+
+  @Override
+  public void clear() {
+    readyQueue.clear();
+  }
+}
@@ -0,0 +1,126 @@
+package itcr.model;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.JsonObject;
+
+/**
+ * SimulationSnapshot is a copy of the state shown by the simulator window,
+ * taken by the Scheduler between two ticks. It is never changed after it is
+ * built, so the GUI can render it on its own thread while the simulation
+ * goes on, without reading the CPUs or the memory.
+ */
+public final class SimulationSnapshot {
+  /**
+   * The registers of one core and the addresses of its current instruction.
+   */
+  public static final class CoreState {
+    private final int[] registers;
+    private final int flags;
+    private final boolean running;
+    private final int programCounter;
+    private final int stackPointer;
+    private final int instructionRegister;
+
+    CoreState(int[] registers, int flags, boolean running, int programCounter, int stackPointer,
+        int instructionRegister) {
+      this.registers = registers;
+      this.flags = flags;
+      this.running = running;
+      this.programCounter = programCounter;
+      this.stackPointer = stackPointer;
+      this.instructionRegister = instructionRegister;
+    }
+
+    public int getRegister(Register register) {
+      return registers[register.ordinal()];
+    }
+
+    public int getFlags() {
+      return flags;
+    }
+
+    public boolean isRunning() {
+      return running;
+    }
+
+    /**
+     * Formats the core as the register panels of the simulator show it: the
+     * registers and flags, then PC, SP and IR if a process is running.
+     *
+     * @return the text of the core
+     */
+    @Override
+    public String toString() {
+      String text = CPU.formatRegisters(registers, 0, flags) + "\n";
+      if (running) {
+        text += "PC: " + programCounter + "\nSP: " + stackPointer + "\nIR: " + instructionRegister;
+      }
+      return text;
+    }
+  }
+
+  private final long sequence;
+  private final CoreState[][] cores;
+  private final Map<Integer, Map<String, JsonObject>> cpuStats;
+  private final JsonObject pagingStats;
+
+  SimulationSnapshot(long sequence, CoreState[][] cores, Map<Integer, Map<String, JsonObject>> cpuStats,
+      JsonObject pagingStats) {
+    this.sequence = sequence;
+    this.cores = cores;
+    // The stats of a process are replaced on every update, never changed,
+    // so copying the maps is enough
+    Map<Integer, Map<String, JsonObject>> stats = new HashMap<>();
+    for (Map.Entry<Integer, Map<String, JsonObject>> entry : cpuStats.entrySet()) {
+      stats.put(entry.getKey(), Collections.unmodifiableMap(new HashMap<>(entry.getValue())));
+    }
+    this.cpuStats = Collections.unmodifiableMap(stats);
+    this.pagingStats = pagingStats;
+  }
+
+  /**
+   * Gets the number of the tick after which the snapshot was taken.
+   *
+   * @return the tick number, counted since the Scheduler was created
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public int getNumCPUs() {
+    return cores.length;
+  }
+
+  /**
+   * Gets the state of a core.
+   *
+   * @param cpuId  the ID of the CPU
+   * @param coreId the ID of the core
+   * @return the state of the core
+   */
+  public CoreState getCore(int cpuId, int coreId) {
+    return cores[cpuId][coreId];
+  }
+
+  /**
+   * Gets the stats of the processes of every CPU.
+   *
+   * @return an unmodifiable map from CPU ID to the stats of its processes
+   */
+  public Map<Integer, Map<String, JsonObject>> getCpuStats() {
+    return cpuStats;
+  }
+
+  /**
+   * Gets the paging metrics, as {@link Scheduler#getPagingStats} returns
+   * them.
+   *
+   * @return the paging metrics; not to be modified
+   */
+  public JsonObject getPagingStats() {
+    return pagingStats;
+  }
+}
@@ -0,0 +1,75 @@
+package itcr.model;
+
+import java.util.Arrays;
+
+/**
+ * Tlb is the translation lookaside buffer of one core: a few recent page to
+ * frame translations, tagged with the process they belong to so a context
+ * switch does not need to flush them.
+ *
+ * The pager counts every eviction in an epoch. A buffer that sees a new epoch
+ * drops all its entries, since any of them may point to a frame that now
+ * holds another page.
+ */
+final class Tlb {
+  static final int SIZE = 16;
+  private static final int EMPTY = -1;
+
+  private final int[] processIds = new int[SIZE];
+  private final int[] pages = new int[SIZE];
+  private final int[] frames = new int[SIZE];
+  // Entries are replaced in round robin order
+  private int next;
+  private int epoch;
+  private long hits;
+  private long misses;
+
+  Tlb() {
+    Arrays.fill(processIds, EMPTY);
+  }
+
+  /**
+   * Looks up the frame of a page.
+   *
+   * @param currentEpoch the eviction epoch of the pager
+   * @param processId    the ID of the process
+   * @param page         the virtual page
+   * @return the frame, or -1 on a miss
+   */
+  int lookup(int currentEpoch, int processId, int page) {
+    if (currentEpoch != epoch) {
+      Arrays.fill(processIds, EMPTY);
+      epoch = currentEpoch;
+    }
+    for (int i = 0; i < SIZE; i++) {
+      if (processIds[i] == processId && pages[i] == page) {
+        hits++;
+        return frames[i];
+      }
+    }
+    misses++;
+    return -1;
+  }
+
+  /**
+   * Adds a translation, replacing the oldest entry.
+   *
+   * @param processId the ID of the process
+   * @param page      the virtual page
+   * @param frame     the frame holding the page
+   */
+  void insert(int processId, int page, int frame) {
+    processIds[next] = processId;
+    pages[next] = page;
+    frames[next] = frame;
+    next = (next + 1) % SIZE;
+  }
+
+  long getHits() {
+    return hits;
+  }
+
+  long getMisses() {
+    return misses;
+  }
+}
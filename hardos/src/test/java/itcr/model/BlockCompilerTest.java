@@ -0,0 +1,79 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class BlockCompilerTest {
+  private static final int REGISTERS = Register.values().length;
+
+  @Test
+  void loopRunsUntilItsJumpFallsThrough() {
+    Instruction[] program = assemble(
+        "MOV CX, 5",
+        "loop: INC AX",
+        "LOAD AX",
+        "ADD BX",
+        "CMP AX, CX",
+        "JL loop",
+        "INT _20H");
+    CompiledBlock block = BlockCompiler.compile(program, 1);
+    assertNotNull(block);
+    assertEquals(5, block.length);
+
+    int[] registers = new int[2 * REGISTERS];
+    int[] flags = new int[2];
+    registers[REGISTERS + Register.BX.ordinal()] = 10;
+    registers[REGISTERS + Register.CX.ordinal()] = 5;
+    long result = block.run(registers, REGISTERS, flags, 1, 100);
+
+    assertEquals(5, result >>> 32);
+    assertEquals(6, (int) result);
+    assertEquals(5, registers[REGISTERS + Register.AX.ordinal()]);
+    assertEquals(15, registers[REGISTERS + Register.AC.ordinal()]);
+    assertEquals(CPU.ZERO_FLAG, flags[1]);
+    // The other core is left alone
+    assertEquals(0, registers[Register.AX.ordinal()]);
+    assertEquals(0, flags[0]);
+  }
+
+  @Test
+  void runStopsAfterMaxIterations() {
+    Instruction[] program = assemble("loop: DEC DX", "SWAP DX, BX", "JMP loop");
+    CompiledBlock block = BlockCompiler.compile(program, 0);
+
+    int[] registers = new int[REGISTERS];
+    long result = block.run(registers, 0, new int[1], 0, 3);
+
+    assertEquals(3, result >>> 32);
+    assertEquals(0, (int) result);
+    assertEquals(-2, registers[Register.BX.ordinal()]);
+    assertEquals(-1, registers[Register.DX.ordinal()]);
+  }
+
+  @Test
+  void blockStopsBeforeStackAndInterruptInstructions() {
+    Instruction[] program = assemble("MOV AX, 7", "SUB AX", "PUSH AX", "JMP -3");
+    CompiledBlock block = BlockCompiler.compile(program, 0);
+    assertEquals(2, block.length);
+
+    int[] registers = new int[REGISTERS];
+    int[] flags = new int[1];
+    long result = block.run(registers, 0, flags, 0, 10);
+    assertEquals(1, result >>> 32);
+    assertEquals(2, (int) result);
+    assertEquals(-7, registers[Register.AC.ordinal()]);
+    assertEquals(CPU.SIGN_FLAG | CPU.CARRY_FLAG, flags[0]);
+
+    // A single instruction before the INT is not worth a block
+    assertNull(BlockCompiler.compile(assemble("INC", "INT _20H"), 0));
+  }
+
+  private static Instruction[] assemble(String... lines) {
+    AssembledProgram program = Assembler.assemble(String.join("\n", lines));
+    assertEquals(0, program.getDiagnostics().size());
+    return program.getInstructions().toArray(new Instruction[0]);
+  }
+}
@@ -0,0 +1,157 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DiskImageTest {
+  private static final int DATA_SIZE = 4096;
+  // Offset of the first file table slot and the size of a slot for DATA_SIZE
+  private static final int FIRST_SLOT = 64;
+  private static final int SLOT_SIZE = 16 * 1024;
+  private static final int SLOT_HEADER_SIZE = 16;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replayStopsAtATruncatedRecord() throws IOException {
+    Path path = directory.resolve("disk.img");
+    DiskImage disk = DiskImage.open(path, DATA_SIZE);
+    disk.readFiles();
+    disk.recordPut("a.txt", new FileInfo(0, 10, 16));
+    disk.recordPut("b.txt", new FileInfo(16, 20, 32));
+    disk.close();
+
+    // Cut the last record short, as a crash in the middle of the write would
+    Path journal = Path.of(path + ".journal");
+    try (FileChannel channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3);
+    }
+
+    disk = DiskImage.open(path, DATA_SIZE);
+    Map<String, FileInfo> files = disk.readFiles();
+    assertEquals(List.of("a.txt"), List.copyOf(files.keySet()));
+    assertExtent(files.get("a.txt"), 0, 10, 16);
+
+    // New records follow the last valid one, not the dropped bytes
+    disk.recordPut("c.txt", new FileInfo(48, 5, 8));
+    disk.close();
+    disk = DiskImage.open(path, DATA_SIZE);
+    files = disk.readFiles();
+    disk.close();
+    assertEquals(2, files.size());
+    assertExtent(files.get("c.txt"), 48, 5, 8);
+  }
+
+  @Test
+  void replayStopsAtARecordWithABadChecksum() throws IOException {
+    Path path = directory.resolve("disk.img");
+    DiskImage disk = DiskImage.open(path, DATA_SIZE);
+    disk.readFiles();
+    disk.recordPut("a.txt", new FileInfo(0, 10, 16));
+    long firstRecordEnd = Files.size(Path.of(path + ".journal"));
+    disk.recordPut("b.txt", new FileInfo(16, 20, 32));
+    disk.close();
+
+    // Flip a byte of the extent of the second record
+    corrupt(Path.of(path + ".journal"), Files.size(Path.of(path + ".journal")) - 6);
+
+    disk = DiskImage.open(path, DATA_SIZE);
+    Map<String, FileInfo> files = disk.readFiles();
+    disk.close();
+    assertEquals(List.of("a.txt"), List.copyOf(files.keySet()));
+    assertEquals(firstRecordEnd, Files.size(Path.of(path + ".journal")));
+  }
+
+  @Test
+  void corruptedActiveSlotFallsBackToTheOtherSlot() throws IOException {
+    Path path = directory.resolve("disk.img");
+    DiskImage disk = DiskImage.open(path, DATA_SIZE);
+    disk.readFiles();
+    // The first checkpoint goes to slot 0, the second one to slot 1
+    assertTrue(disk.checkpoint(List.of(named("a.txt", new FileInfo(0, 10, 16)))));
+    assertTrue(disk.checkpoint(List.of(named("a.txt", new FileInfo(0, 10, 16)),
+        named("b.txt", new FileInfo(16, 20, 32)))));
+    disk.close();
+
+    // Flip a byte of the first name in slot 1, its checksum no longer matches
+    corrupt(path, FIRST_SLOT + SLOT_SIZE + SLOT_HEADER_SIZE + 2);
+
+    disk = DiskImage.open(path, DATA_SIZE);
+    Map<String, FileInfo> files = disk.readFiles();
+    assertEquals(List.of("a.txt"), List.copyOf(files.keySet()));
+    assertExtent(files.get("a.txt"), 0, 10, 16);
+
+    // The next checkpoint overwrites the corrupted slot and is read back
+    assertTrue(disk.checkpoint(List.of(named("c.txt", new FileInfo(48, 5, 8)))));
+    disk.close();
+    disk = DiskImage.open(path, DATA_SIZE);
+    files = disk.readFiles();
+    disk.close();
+    assertEquals(List.of("c.txt"), List.copyOf(files.keySet()));
+  }
+
+  @Test
+  void checkpointThenReopenKeepsTableJournalAndData() throws IOException {
+    Path path = directory.resolve("disk.img");
+    DiskImage disk = DiskImage.open(path, DATA_SIZE);
+    disk.readFiles();
+    disk.getData().put(0, "hola".getBytes());
+    disk.recordPut("a.txt", new FileInfo(0, 4, 16));
+    disk.recordPut("b.txt", new FileInfo(16, 20, 32));
+    assertTrue(disk.checkpoint(List.of(named("a.txt", new FileInfo(0, 4, 16)),
+        named("b.txt", new FileInfo(16, 20, 32)))));
+    assertEquals(0, Files.size(Path.of(path + ".journal")));
+
+    // Changes after the checkpoint only live in the journal
+    disk.recordDelete("b.txt");
+    disk.recordPut("c.txt", new FileInfo(48, 5, 8));
+    disk.close();
+
+    disk = DiskImage.open(path, 2 * DATA_SIZE);
+    Map<String, FileInfo> files = disk.readFiles();
+    // An existing image keeps the size it was formatted with
+    assertEquals(DATA_SIZE, disk.getData().capacity());
+    byte[] data = new byte[4];
+    disk.getData().get(0, data);
+    disk.close();
+
+    assertEquals(2, files.size());
+    assertExtent(files.get("a.txt"), 0, 4, 16);
+    assertExtent(files.get("c.txt"), 48, 5, 8);
+    assertEquals("hola", new String(data));
+  }
+
+  private static FileInfo named(String name, FileInfo file) {
+    file.fileName = name;
+    return file;
+  }
+
+  private static void assertExtent(FileInfo file, int startIndex, int size, int capacity) {
+    assertEquals(startIndex, file.startIndex);
+    assertEquals(size, file.size);
+    assertEquals(capacity, file.capacity);
+  }
+
+  private static void corrupt(Path path, long position) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer oneByte = ByteBuffer.allocate(1);
+      channel.read(oneByte, position);
+      oneByte.put(0, (byte) ~oneByte.get(0));
+      oneByte.rewind();
+      channel.write(oneByte, position);
+    }
+  }
+}
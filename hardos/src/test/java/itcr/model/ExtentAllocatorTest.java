@@ -0,0 +1,85 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class ExtentAllocatorTest {
+
+  @Test
+  void allocateUsesBestFit() {
+    ExtentAllocator allocator = new ExtentAllocator(0, 100);
+    int a = allocator.allocate(10);
+    int b = allocator.allocate(30);
+    allocator.allocate(10);
+    allocator.free(a, 10);
+    allocator.free(b, 30);
+
+    // The 10 byte hole fits exactly, the 30 byte one is left alone
+    assertEquals(a, allocator.allocate(10));
+    assertEquals(50, allocator.getLargestFreeBlock());
+  }
+
+  @Test
+  void freeMergesWithBothNeighbours() {
+    ExtentAllocator allocator = new ExtentAllocator(0, 30);
+    int a = allocator.allocate(10);
+    int b = allocator.allocate(10);
+    int c = allocator.allocate(10);
+    allocator.free(a, 10);
+    allocator.free(c, 10);
+    allocator.free(b, 10);
+
+    assertEquals(Map.of(0, 30), allocator.getFreeExtents());
+    assertEquals(30, allocator.getFreeBytes());
+  }
+
+  @Test
+  void doubleFreeIsRejected() {
+    ExtentAllocator allocator = new ExtentAllocator(0, 100);
+    int a = allocator.allocate(10);
+    allocator.allocate(10);
+    allocator.free(a, 10);
+
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(a, 10));
+    assertEquals(80 + 10, allocator.getFreeBytes());
+  }
+
+  @Test
+  void freeOverlappingAFreeExtentIsRejected() {
+    ExtentAllocator allocator = new ExtentAllocator(0, 100);
+    int a = allocator.allocate(10);
+    int b = allocator.allocate(10);
+
+    // A wrong size that runs into the free space after b
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(b, 20));
+    // A block that starts inside a free extent
+    allocator.free(a, 10);
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(a + 5, 5));
+    assertEquals(90, allocator.getFreeBytes());
+  }
+
+  @Test
+  void freeOutsideTheRegionIsRejected() {
+    ExtentAllocator allocator = new ExtentAllocator(100, 50);
+    allocator.allocate(50);
+
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(90, 20));
+    assertThrows(IllegalArgumentException.class, () -> allocator.free(140, 20));
+  }
+
+  @Test
+  void growTakesTheFollowingFreeBytes() {
+    ExtentAllocator allocator = new ExtentAllocator(0, 100);
+    int a = allocator.allocate(10);
+
+    assertTrue(allocator.grow(a, 10, 40));
+    assertEquals(60, allocator.getFreeBytes());
+    allocator.free(a, 40);
+    assertEquals(Map.of(0, 100), allocator.getFreeExtents());
+  }
+}
@@ -0,0 +1,142 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class InstructionParserTest {
+
+  @Test
+  void parsesRegisterAndImmediateOperands() {
+    Instruction mov = parse("MOV BX, 5000");
+    assertEquals(InstructionType.MOV, mov.type);
+    assertEquals(Register.BX.ordinal(), mov.destRegister);
+    assertEquals(Instruction.NO_REGISTER, mov.sourceRegister);
+    assertEquals(5000, mov.immediate);
+
+    Instruction copy = parse("MOV DX,AX");
+    assertEquals(Register.DX.ordinal(), copy.destRegister);
+    assertEquals(Register.AX.ordinal(), copy.sourceRegister);
+
+    Instruction cmp = parse("  CMP AX , CX   // loop condition");
+    assertEquals(InstructionType.CMP, cmp.type);
+    assertEquals(Register.CX.ordinal(), cmp.sourceRegister);
+  }
+
+  @Test
+  void incWithoutOperandUsesTheAccumulator() {
+    assertEquals(Register.AC.ordinal(), parse("INC").destRegister);
+    assertEquals(Register.CX.ordinal(), parse("DEC CX").destRegister);
+  }
+
+  @Test
+  void parsesJumpsInterruptsAndParams() {
+    assertEquals(-3, parse("JNE -3").immediate);
+    assertEquals(2, parse("JMP +2").immediate);
+    assertEquals(InterruptCode._21H, parse("INT _21H").getInterruptCode());
+    assertArrayEquals(new int[] { 1, -2, 3 }, parse("PARAM 1, -2,3").params);
+  }
+
+  @Test
+  void reportsLabelsWithoutResolvingThem() {
+    InstructionParser parser = new InstructionParser("loop: JG end", 4);
+    Instruction jump = parser.parseLine();
+    assertNotNull(jump);
+    assertEquals(InstructionType.JG, jump.type);
+    assertEquals(0, jump.immediate);
+    assertEquals("loop", parser.label);
+    assertEquals(1, parser.labelColumn);
+    assertEquals("end", parser.target);
+    assertEquals(10, parser.targetColumn);
+
+    InstructionParser labelOnly = new InstructionParser("end:   // nothing else", 5);
+    assertNull(labelOnly.parseLine());
+    assertNull(labelOnly.diagnostic);
+    assertEquals("end", labelOnly.label);
+  }
+
+  @Test
+  void blankLinesAndCommentsHoldNoInstruction() {
+    for (String line : new String[] { "", "   ", "// comment" }) {
+      InstructionParser parser = new InstructionParser(line, 1);
+      assertNull(parser.parseLine());
+      assertNull(parser.diagnostic);
+    }
+  }
+
+  @Test
+  void reportsTheFirstErrorWithItsColumn() {
+    assertError("MOV EX, 1", 5, "un registro (AX, BX, CX o DX)", "EX");
+    assertError("INT 10H", 5, "un código de interrupción (_08H, _09H, _10H, _20H o _21H)", "10H");
+    assertError("JUMP 3", 1, "una instrucción", "JUMP");
+    assertError("MOV AX 10", 8, "','", "10");
+    assertError("MOV AX, 99999999999", 9, "un número de 32 bits", "99999999999");
+    assertError("PARAM 1, 2, 3, 4", 16, "como máximo 3 parámetros", "4");
+    assertError("POP AX BX", 8, "el fin de línea o un comentario", "BX");
+  }
+
+  @Test
+  void mnemonicMustBeFollowedBySpace() {
+    assertError("JMPloop", 4, "un espacio", "loop");
+    assertError("JNE-3", 4, "un espacio", "-3");
+    assertEquals(InstructionType.INC, parse("INC// no operand").type);
+  }
+
+  @Test
+  void duplicateLabelNamesTheFirstDefinition() {
+    List<AssemblerDiagnostic> diagnostics = Assembler.diagnose(String.join("\n",
+        "loop: INC AX",
+        "JMP loop",
+        "// again",
+        "loop: DEC AX"));
+    assertEquals(1, diagnostics.size());
+    AssemblerDiagnostic duplicate = diagnostics.get(0);
+    assertEquals(4, duplicate.getLine());
+    assertEquals(1, duplicate.getColumn());
+    assertEquals("una etiqueta que no esté definida (ya se definió en la línea 1)", duplicate.getExpected());
+    assertEquals("loop", duplicate.getFound());
+  }
+
+  @Test
+  void disassembledInstructionsParseBack() {
+    String[] lines = {
+        "MOV AX, 10", "MOV BX, CX", "LOAD CX", "STORE DX", "ADD BX", "SUB AX", "INC", "DEC",
+        "INC CX", "SWAP AX, BX", "CMP AX, DX", "JMP +2", "JE -3", "JNE 0", "JG +1", "JL -4",
+        "INT _10H", "PARAM 1, -2, 3", "PUSH AX", "POP DX",
+    };
+    for (String line : lines) {
+      Instruction instruction = parse(line);
+      assertEquals(line, instruction.toString());
+      Instruction reparsed = parse(instruction.toString());
+      assertEquals(instruction.type, reparsed.type, line);
+      assertEquals(instruction.destRegister, reparsed.destRegister, line);
+      assertEquals(instruction.sourceRegister, reparsed.sourceRegister, line);
+      assertEquals(instruction.immediate, reparsed.immediate, line);
+      assertArrayEquals(instruction.params, reparsed.params, line);
+    }
+  }
+
+  private static Instruction parse(String line) {
+    InstructionParser parser = new InstructionParser(line, 1);
+    Instruction instruction = parser.parseLine();
+    assertNull(parser.diagnostic, () -> parser.diagnostic.getMessage());
+    assertNotNull(instruction);
+    return instruction;
+  }
+
+  private static void assertError(String line, int column, String expected, String found) {
+    InstructionParser parser = new InstructionParser(line, 3);
+    assertNull(parser.parseLine());
+    AssemblerDiagnostic diagnostic = parser.diagnostic;
+    assertNotNull(diagnostic, line);
+    assertEquals(3, diagnostic.getLine());
+    assertEquals(column, diagnostic.getColumn(), line);
+    assertEquals(expected, diagnostic.getExpected(), line);
+    assertEquals(found, diagnostic.getFound(), line);
+  }
+}
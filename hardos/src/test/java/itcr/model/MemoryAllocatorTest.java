@@ -0,0 +1,49 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class MemoryAllocatorTest {
+
+  @Test
+  void packMovesTheBlocksTogether() {
+    MemoryAllocator allocator = MemoryAllocator.create(AllocationPolicy.FIRST_FIT, 100, 100);
+    int a = allocator.allocate(10);
+    allocator.allocate(20);
+    allocator.allocate(30);
+    allocator.free(a, 10);
+
+    assertArrayEquals(new int[] { 100, 120 }, allocator.pack(new int[] { 20, 30 }));
+    assertEquals(List.of("150+50"), freeBlocks(allocator));
+    // The metrics are kept
+    assertEquals(3, allocator.getAllocations());
+  }
+
+  @Test
+  void buddyPackThatDoesNotFitLeavesTheAllocatorAsItWas() {
+    // 96 bytes are one 64 byte block and one 32 byte block
+    MemoryAllocator allocator = MemoryAllocator.create(AllocationPolicy.BUDDY, 0, 96);
+    assertEquals(64, allocator.allocate(16));
+    assertEquals(0, allocator.allocate(40));
+    List<String> before = freeBlocks(allocator);
+
+    // Both blocks round up to 64 bytes, and there is only one of those
+    assertThrows(IllegalStateException.class, () -> allocator.pack(new int[] { 33, 33 }));
+    assertEquals(before, freeBlocks(allocator));
+
+    // The live blocks are still taken, a new block does not overwrite them
+    assertEquals(80, allocator.allocate(16));
+  }
+
+  private static List<String> freeBlocks(MemoryAllocator allocator) {
+    return allocator.getFreeBlocks().stream()
+        .map(block -> block.startIndex + "+" + block.size)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,59 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MemoryManagerTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void diskRecoverySkipsFilesWithInvalidExtents() {
+    Path path = directory.resolve("disk.img");
+    DiskImage disk = DiskImage.open(path, 4096);
+    disk.readFiles();
+    disk.getData().put(0, "hola".getBytes());
+    assertTrue(disk.checkpoint(List.of(
+        named("a.txt", new FileInfo(0, 4, 64)),
+        // Overlaps a.txt
+        named("b.txt", new FileInfo(32, 4, 64)),
+        // Runs past the end of the disk
+        named("c.txt", new FileInfo(4032, 4, 128)),
+        // Larger than its extent
+        named("d.txt", new FileInfo(128, 100, 64)),
+        named("e.txt", new FileInfo(192, 0, 64)))));
+    disk.close();
+
+    MemoryManager memoryManager = new MemoryManager();
+    memoryManager.setSecondaryStorageBacking(MemoryBacking.MAPPED);
+    memoryManager.setDiskImage(path.toString());
+    memoryManager.clearMemory();
+    try {
+      assertEquals("hola", memoryManager.getFile("a.txt"));
+      assertEquals("", memoryManager.getFile("e.txt"));
+      assertNull(memoryManager.getFile("b.txt"));
+      assertNull(memoryManager.getFile("c.txt"));
+      assertNull(memoryManager.getFile("d.txt"));
+
+      // The blocks of a.txt are still in use, a new file goes elsewhere
+      assertTrue(memoryManager.storeFile("f.txt", "x".repeat(64)));
+      assertEquals("hola", memoryManager.getFile("a.txt"));
+    } finally {
+      memoryManager.setSecondaryStorageBacking(MemoryBacking.HEAP);
+      memoryManager.clearMemory();
+    }
+  }
+
+  private static FileInfo named(String name, FileInfo file) {
+    file.fileName = name;
+    return file;
+  }
+}
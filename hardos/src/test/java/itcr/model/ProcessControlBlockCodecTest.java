@@ -0,0 +1,102 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ProcessControlBlockCodecTest {
+  // Blocks are encoded at an offset so a field written out of place shows up
+  private static final int OFFSET = 40;
+
+  @Test
+  void encodeThenDecodeKeepsEveryField() {
+    ProcessControlBlock pcb = sampleBlock();
+    ByteBuffer memory = ByteBuffer.allocate(1024);
+
+    int written = ProcessControlBlockCodec.encode(pcb, memory, OFFSET);
+    assertEquals(ProcessControlBlockCodec.encodedSize(pcb), written);
+
+    ProcessControlBlock decoded = ProcessControlBlockCodec.decode(memory, OFFSET);
+    assertEquals(7, decoded.getProcessId());
+    assertEquals(ProcessState.WAITING, decoded.getState());
+    assertEquals(12, decoded.getProgramCounter());
+    assertArrayEquals(pcb.getRegisters(), decoded.getRegisters());
+    assertEquals(3, decoded.getStackPointer());
+    assertEquals(CPU.ZERO_FLAG | CPU.CARRY_FLAG, decoded.getFlags());
+    assertEquals(1, decoded.getCpuId());
+    assertEquals(256, decoded.getBaseAddress());
+    assertEquals(128, decoded.getProcessSize());
+    assertEquals(2, decoded.getPriority());
+    assertEquals(4, decoded.getTimeSlice());
+    assertEquals(9, decoded.getNextProcessId());
+    assertEquals(Instant.ofEpochMilli(1_000_000), decoded.getStartTime());
+    assertEquals(42, decoded.getInstructionsExecuted());
+    assertEquals(-1, decoded.getPageTable());
+    assertEquals(5, decoded.getPageFaults());
+    assertEquals(List.of("a.txt", "datos/b.txt"), decoded.getOpenFiles().subList(0, 2));
+    assertNull(decoded.getOpenFiles().get(2));
+  }
+
+  @Test
+  void encodeContextLeavesTheOtherFieldsAlone() {
+    ProcessControlBlock pcb = sampleBlock();
+    ByteBuffer memory = ByteBuffer.allocate(1024);
+    ProcessControlBlockCodec.encode(pcb, memory, OFFSET);
+
+    pcb.setProgramCounter(13);
+    pcb.setRegister(Register.DX, 99);
+    pcb.setBaseAddress(512);
+    pcb.setOpenFiles(List.of());
+    ProcessControlBlockCodec.encodeContext(pcb, memory, OFFSET);
+
+    ProcessControlBlock decoded = ProcessControlBlockCodec.decode(memory, OFFSET);
+    assertEquals(13, decoded.getProgramCounter());
+    assertEquals(99, decoded.getRegisters()[Register.DX.ordinal()]);
+    // Base address and open files are not part of the context
+    assertEquals(256, decoded.getBaseAddress());
+    assertEquals(3, decoded.getOpenFiles().size());
+  }
+
+  @Test
+  void inPlaceWritesOnlyTouchTheirField() {
+    ProcessControlBlock pcb = sampleBlock();
+    ByteBuffer memory = ByteBuffer.allocate(1024);
+    ProcessControlBlockCodec.encode(pcb, memory, OFFSET);
+    byte[] before = Arrays.copyOf(memory.array(), memory.capacity());
+
+    ProcessControlBlockCodec.writeState(memory, OFFSET, ProcessState.READY);
+    ProcessControlBlockCodec.writeState(memory, OFFSET, ProcessState.WAITING);
+    assertArrayEquals(before, memory.array());
+
+    ProcessControlBlockCodec.writeState(memory, OFFSET, ProcessState.READY);
+    assertEquals(ProcessState.READY, ProcessControlBlockCodec.readState(memory, OFFSET));
+    assertEquals(12, ProcessControlBlockCodec.decode(memory, OFFSET).getProgramCounter());
+  }
+
+  private static ProcessControlBlock sampleBlock() {
+    ProcessControlBlock pcb = new ProcessControlBlock(7, 256, 128, 2);
+    pcb.setState(ProcessState.WAITING);
+    pcb.setProgramCounter(12);
+    for (Register register : Register.values()) {
+      pcb.setRegister(register, -10 * (register.ordinal() + 1));
+    }
+    pcb.setStackPointer(3);
+    pcb.setFlags(CPU.ZERO_FLAG | CPU.CARRY_FLAG);
+    pcb.setCpuId(1);
+    pcb.setTimeSlice(4);
+    pcb.setNextProcessId(9);
+    pcb.setStartTime(Instant.ofEpochMilli(1_000_000));
+    pcb.setInstructionsExecuted(42);
+    pcb.setPageTable(-1);
+    pcb.setPageFaults(5);
+    pcb.setOpenFiles(Arrays.asList("a.txt", "datos/b.txt", null));
+    return pcb;
+  }
+}
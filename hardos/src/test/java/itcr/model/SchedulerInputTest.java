@@ -0,0 +1,87 @@
+package itcr.model;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.google.gson.JsonObject;
+
+class SchedulerInputTest {
+  private static final int MAX_TICKS = 1_000;
+
+  @Test
+  void cancelledStringInputIsTakenAsEmpty() throws Exception {
+    Scheduler scheduler = new Scheduler(1, new MemoryManager());
+    List<String> output = new ArrayList<>();
+    scheduler.getInterruptBus().subscribe(InterruptCode._10H, message -> output.add(message.getMessage()));
+    int processId = load(scheduler, "INT _08H\nINT _20H");
+
+    runUntilWaiting(scheduler);
+    // A cancelled input dialog answers null
+    scheduler.getInterruptBus().provideInput(processId, null);
+    runToEnd(scheduler);
+    scheduler.getInterruptBus().dispatch(Integer.MAX_VALUE);
+
+    assertTrue(finished(scheduler, processId));
+    assertTrue(output.stream().anyMatch(line -> line.endsWith("Entrada recibida: ")), output::toString);
+    assertFalse(output.stream().anyMatch(line -> line.startsWith("Error")), output::toString);
+  }
+
+  @Test
+  void failedInputDoesNotBlockTheProcessOrTheOthers() throws Exception {
+    Scheduler scheduler = new Scheduler(1, new MemoryManager());
+    List<String> output = new ArrayList<>();
+    scheduler.getInterruptBus().subscribe(InterruptCode._10H, message -> output.add(message.getMessage()));
+    int failing = load(scheduler, "INT _09H\nINT _20H");
+    int answered = load(scheduler, "INT _09H\nINT _10H\nINT _20H");
+
+    runUntilWaiting(scheduler);
+    scheduler.inputReceived(failing, () -> {
+      throw new IllegalStateException("broken input");
+    });
+    scheduler.getInterruptBus().provideInput(answered, "42");
+    runToEnd(scheduler);
+    scheduler.getInterruptBus().dispatch(Integer.MAX_VALUE);
+
+    assertTrue(finished(scheduler, failing));
+    assertTrue(finished(scheduler, answered));
+    assertTrue(output.stream().anyMatch(line -> line.contains("broken input")), output::toString);
+    assertTrue(output.stream().anyMatch(line -> line.endsWith("DX = 42")), output::toString);
+  }
+
+  private static int load(Scheduler scheduler, String source) {
+    Process process = scheduler.createProcess(Assembler.assemble(source), message -> {
+      throw new AssertionError(message);
+    });
+    scheduler.addProcess(process);
+    return process.getProcessId();
+  }
+
+  private static void runUntilWaiting(Scheduler scheduler) throws Exception {
+    for (int tick = 0; tick < MAX_TICKS && !scheduler.isWaitingForInput(); tick++) {
+      scheduler.executeInstruction();
+    }
+    assertTrue(scheduler.isWaitingForInput());
+  }
+
+  private static void runToEnd(Scheduler scheduler) throws Exception {
+    for (int tick = 0; tick < MAX_TICKS && scheduler.hasProcessesToExecute(); tick++) {
+      scheduler.executeInstruction();
+    }
+    assertFalse(scheduler.hasProcessesToExecute());
+  }
+
+  private static boolean finished(Scheduler scheduler, int processId) {
+    for (Map<String, JsonObject> stats : scheduler.getAllCPUStats().values()) {
+      if (stats.containsKey("P" + processId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}